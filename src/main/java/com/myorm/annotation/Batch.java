@@ -0,0 +1,21 @@
+package com.myorm.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记一个批量更新方法，方法的唯一参数是集合，每个元素绑定为同一条预编译语句中的一组参数
+ * <p>
+ * 参数是实体等非简单类型元素的集合时，插入、更新和删除方法无需此注解也按批量执行；
+ * 元素为字符串、数字等简单类型时需要显式标注。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Batch {
+    /**
+     * 每次提交给数据库的最大语句数
+     */
+    int size() default 1000;
+}
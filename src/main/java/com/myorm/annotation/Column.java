@@ -30,4 +30,12 @@ public @interface Column {
      * 是否允许为空
      */
     boolean nullable() default true;
+    
+    /**
+     * 是否延迟加载，适用于大文本/二进制（CLOB/BLOB）列
+     * 延迟加载的列不会出现在自动生成的查询中，需要通过Session.fetchLazy加载，
+     * 或者通过Session.openBinaryStream/openCharacterStream以流的方式读取；
+     * 更新实体时值为null的延迟加载列不会被覆盖，需要清空为NULL时使用Session.clearLazy
+     */
+    boolean lazy() default false;
 }
@@ -0,0 +1,24 @@
+package com.myorm.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 多对一关联注解，标记在关联实体类型的属性上
+ * 当前实体必须使用@Column映射外键列，外键值引用关联实体的主键
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ManyToOne {
+    /**
+     * 当前表中引用关联实体主键的外键列名
+     */
+    String joinColumn();
+    
+    /**
+     * 批量加载时每条IN查询包含的主键数量
+     */
+    int batchSize() default 100;
+}
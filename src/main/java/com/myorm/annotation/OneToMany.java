@@ -0,0 +1,24 @@
+package com.myorm.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 一对多关联注解，标记在集合类型（List/Set）的属性上
+ * 集合元素类型为关联的实体类，通过子表中的外键列关联到当前实体的主键
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OneToMany {
+    /**
+     * 子表中引用当前实体主键的外键列名
+     */
+    String joinColumn();
+    
+    /**
+     * 批量加载时每条IN查询包含的主键数量
+     */
+    int batchSize() default 100;
+}
@@ -0,0 +1,16 @@
+package com.myorm.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 分片键注解，用于标记分片实体中决定数据所在分片的列属性，该属性同时需要@Column注解
+ * <p>
+ * 分片键不是主键时，主键值必须在所有分片中唯一，否则只能通过分片键定位实体。
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+}
@@ -0,0 +1,227 @@
+package com.myorm.core;
+
+import com.myorm.annotation.ManyToOne;
+import com.myorm.annotation.OneToMany;
+import com.myorm.exception.OrmException;
+import com.myorm.result.RowHeader;
+import com.myorm.util.ReflectionUtil;
+import com.myorm.util.SqlBuilder;
+
+import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 关联加载器，负责@OneToMany/@ManyToOne关联的批量加载和连接查询加载
+ * 批量加载时先收集主键（或外键）值，再按批使用一条IN查询加载关联实体，避免N+1查询
+ */
+class AssociationLoader {
+    
+    private final Session session;
+    
+    AssociationLoader(Session session) {
+        this.session = session;
+    }
+    
+    /**
+     * 批量加载一组实体对象的关联属性
+     * @param entities 实体对象列表（必须是同一实体类）
+     * @param fieldName 关联字段名
+     * @param <T> 实体类型
+     */
+    <T> void fetch(List<T> entities, String fieldName) {
+        if (entities == null || entities.isEmpty()) {
+            return;
+        }
+        
+        Class<?> clazz = entities.get(0).getClass();
+        Field field = ReflectionUtil.getAssociationField(clazz, fieldName);
+        
+        if (field.isAnnotationPresent(OneToMany.class)) {
+            fetchOneToMany(entities, clazz, field);
+        } else {
+            fetchManyToOne(entities, clazz, field);
+        }
+    }
+    
+    /**
+     * 使用LEFT JOIN一次查询父实体和一对多关联的子实体，并对父实体去重
+     * @param clazz 父实体类Class对象
+     * @param fieldName 一对多关联字段名
+     * @param <T> 父实体类型
+     * @return 父实体列表（按主键排序）
+     */
+    <T> List<T> findAllJoinFetch(Class<T> clazz, String fieldName) {
+        Field field = ReflectionUtil.getAssociationField(clazz, fieldName);
+        OneToMany oneToMany = field.getAnnotation(OneToMany.class);
+        if (oneToMany == null) {
+            throw new OrmException("连接查询只支持@OneToMany关联: " + fieldName);
+        }
+        
+        Class<?> childClass = ReflectionUtil.getCollectionElementType(field);
+        List<Field> parentFields = ReflectionUtil.getSelectColumnFields(clazz);
+        List<Field> childFields = ReflectionUtil.getSelectColumnFields(childClass);
+        int parentPrimaryKeyIndex = parentFields.indexOf(requirePrimaryKeyField(clazz)) + 1;
+        int childPrimaryKeyIndex = childFields.indexOf(requirePrimaryKeyField(childClass)) + 1 + parentFields.size();
+        
+        SqlBuilder.SqlAndParams sqlAndParams = SqlBuilder.buildJoinFetchSql(
+                clazz, childClass, ReflectionUtil.quoteIdentifier(oneToMany.joinColumn()));
+        
+        return session.executeQuery(sqlAndParams.getSql(), sqlAndParams.getParams(), rs -> {
+            Map<Object, T> parentsById = new LinkedHashMap<>();
+            Map<Object, List<Object>> childrenById = new HashMap<>();
+            
+            while (rs.next()) {
+                Object parentId = rs.getObject(parentPrimaryKeyIndex);
+                if (!parentsById.containsKey(parentId)) {
+                    parentsById.put(parentId, ReflectionUtil.mapToEntity(clazz, readColumns(rs, parentFields, 0)));
+                }
+                
+                // LEFT JOIN没有匹配到子记录时子实体的列全部为null
+                if (rs.getObject(childPrimaryKeyIndex) != null) {
+                    Object child = ReflectionUtil.mapToEntity(childClass, 
+                            readColumns(rs, childFields, parentFields.size()));
+                    childrenById.computeIfAbsent(parentId, k -> new ArrayList<>()).add(child);
+                }
+            }
+            
+            for (Map.Entry<Object, T> entry : parentsById.entrySet()) {
+                setCollection(entry.getValue(), field, 
+                        childrenById.getOrDefault(entry.getKey(), Collections.emptyList()));
+            }
+            
+            return new ArrayList<>(parentsById.values());
+        });
+    }
+    
+    private <T> void fetchOneToMany(List<T> parents, Class<?> parentClass, Field field) {
+        OneToMany oneToMany = field.getAnnotation(OneToMany.class);
+        Class<?> childClass = ReflectionUtil.getCollectionElementType(field);
+        Field parentPrimaryKeyField = requirePrimaryKeyField(parentClass);
+        
+        Map<Object, List<T>> parentsById = new LinkedHashMap<>();
+        for (T parent : parents) {
+            Object id = getFieldValue(parentPrimaryKeyField, parent);
+            if (id != null) {
+                parentsById.computeIfAbsent(id, k -> new ArrayList<>()).add(parent);
+            }
+        }
+        
+        Map<Object, List<Object>> childrenById = new HashMap<>();
+        loadInBatches(childClass, ReflectionUtil.quoteIdentifier(oneToMany.joinColumn()), new ArrayList<>(parentsById.keySet()), 
+                oneToMany.batchSize(), parentPrimaryKeyField.getType(), 
+                (parentId, child) -> childrenById.computeIfAbsent(parentId, k -> new ArrayList<>()).add(child));
+        
+        for (Map.Entry<Object, List<T>> entry : parentsById.entrySet()) {
+            List<Object> children = childrenById.getOrDefault(entry.getKey(), Collections.emptyList());
+            for (T parent : entry.getValue()) {
+                setCollection(parent, field, children);
+            }
+        }
+    }
+    
+    private <T> void fetchManyToOne(List<T> children, Class<?> childClass, Field field) {
+        ManyToOne manyToOne = field.getAnnotation(ManyToOne.class);
+        Class<?> parentClass = field.getType();
+        Field foreignKeyField = ReflectionUtil.findColumnFieldByColumnName(childClass, manyToOne.joinColumn());
+        if (foreignKeyField == null) {
+            throw new OrmException("实体类" + childClass.getName() + "需要使用@Column映射外键列" + manyToOne.joinColumn());
+        }
+        
+        Map<Object, List<T>> childrenByForeignKey = new LinkedHashMap<>();
+        for (T child : children) {
+            Object foreignKey = getFieldValue(foreignKeyField, child);
+            if (foreignKey != null) {
+                childrenByForeignKey.computeIfAbsent(foreignKey, k -> new ArrayList<>()).add(child);
+            }
+        }
+        
+        String parentPrimaryKeyColumn = ReflectionUtil.getColumnName(requirePrimaryKeyField(parentClass));
+        loadInBatches(parentClass, parentPrimaryKeyColumn, new ArrayList<>(childrenByForeignKey.keySet()), 
+                manyToOne.batchSize(), foreignKeyField.getType(), (foreignKey, parent) -> {
+                    for (T child : childrenByForeignKey.getOrDefault(foreignKey, Collections.emptyList())) {
+                        setFieldValue(field, child, parent);
+                    }
+                });
+    }
+    
+    /**
+     * 按批执行IN查询加载关联实体，并将每个实体连同其IN条件列的值交给消费者
+     */
+    private void loadInBatches(Class<?> targetClass, String columnName, List<Object> keys, int batchSize, 
+            Class<?> keyType, KeyedConsumer consumer) {
+        int size = batchSize > 0 ? batchSize : keys.size();
+        for (int from = 0; from < keys.size(); from += size) {
+            List<Object> batchKeys = keys.subList(from, Math.min(from + size, keys.size()));
+            SqlBuilder.SqlAndParams sqlAndParams = SqlBuilder.buildSelectByColumnInSql(targetClass, columnName, batchKeys);
+            
+            session.executeQuery(sqlAndParams.getSql(), sqlAndParams.getParams(), rs -> {
+                RowHeader header = RowHeader.from(rs.getMetaData());
+                int keyIndex = header.getColumnCount();
+                while (rs.next()) {
+                    Object key = ReflectionUtil.convertValueType(rs.getObject(keyIndex), keyType);
+                    consumer.accept(key, session.mapRow(rs, header, targetClass));
+                }
+                return null;
+            });
+        }
+    }
+    
+    private static Map<String, Object> readColumns(ResultSet rs, List<Field> fields, int offset) throws SQLException {
+        Map<String, Object> columnValues = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            columnValues.put(ReflectionUtil.getColumnName(fields.get(i)), rs.getObject(offset + i + 1));
+        }
+        return columnValues;
+    }
+    
+    private static void setCollection(Object entity, Field field, List<Object> elements) {
+        Collection<Object> collection;
+        if (Set.class.isAssignableFrom(field.getType())) {
+            collection = new LinkedHashSet<>(elements);
+        } else {
+            collection = new ArrayList<>(elements);
+        }
+        setFieldValue(field, entity, collection);
+    }
+    
+    private static Field requirePrimaryKeyField(Class<?> clazz) {
+        Field primaryKeyField = ReflectionUtil.getPrimaryKeyField(clazz);
+        if (primaryKeyField == null) {
+            throw new OrmException("实体类" + clazz.getName() + "没有定义主键字段");
+        }
+        return primaryKeyField;
+    }
+    
+    private static Object getFieldValue(Field field, Object entity) {
+        try {
+            return field.get(entity);
+        } catch (IllegalAccessException e) {
+            throw new OrmException("无法访问字段" + field.getName(), e);
+        }
+    }
+    
+    private static void setFieldValue(Field field, Object entity, Object value) {
+        try {
+            field.set(entity, value);
+        } catch (IllegalAccessException e) {
+            throw new OrmException("无法访问字段" + field.getName(), e);
+        }
+    }
+    
+    /**
+     * 带键值的实体消费者
+     */
+    private interface KeyedConsumer {
+        void accept(Object key, Object entity);
+    }
+}
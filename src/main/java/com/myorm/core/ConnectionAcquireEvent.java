@@ -0,0 +1,22 @@
+package com.myorm.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 获取数据库连接的JFR事件
+ */
+@Name("com.myorm.ConnectionAcquire")
+@Label("获取ORM连接")
+@Category({"MyORM", "Connection"})
+@Description("会话工厂打开一个数据库连接")
+final class ConnectionAcquireEvent extends jdk.jfr.Event {
+    
+    @Label("URL")
+    String url;
+    
+    @Label("成功")
+    boolean success;
+}
@@ -0,0 +1,140 @@
+package com.myorm.core;
+
+import com.myorm.exception.OrmException;
+import com.myorm.result.RowHeader;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 查询游标，遍历时才逐行读取和映射结果集，适合处理大结果集
+ * <p>
+ * 游标持有打开的结果集和语句，遍历结束时自动关闭；提前结束遍历时必须调用{@link #close()}，
+ * 推荐使用try-with-resources，所属会话关闭时也会关闭仍然打开的游标。游标只能遍历一次。
+ * @param <T> 实体类型
+ */
+public class Cursor<T> implements Iterable<T>, AutoCloseable {
+
+    private final Session session;
+    private final PreparedStatement stmt;
+    private final ResultSet rs;
+    private final RowHeader header;
+    private final Class<T> clazz;
+    private final StatementTimer timer;
+    private boolean iterated;
+    private boolean closed;
+    private int position;
+
+    Cursor(Session session, PreparedStatement stmt, ResultSet rs, Class<T> clazz, StatementTimer timer)
+            throws SQLException {
+        this.session = session;
+        this.stmt = stmt;
+        this.rs = rs;
+        this.header = RowHeader.from(rs.getMetaData());
+        this.clazz = clazz;
+        this.timer = timer;
+    }
+
+    /**
+     * 获取迭代器，每个游标只能获取一次
+     * @return 迭代器
+     */
+    @Override
+    public Iterator<T> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("游标只能遍历一次");
+        }
+        iterated = true;
+        return new CursorIterator();
+    }
+
+    /**
+     * 转换为顺序流，关闭流时关闭游标
+     * @return 流
+     */
+    public Stream<T> stream() {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    /**
+     * 已经读取的行数
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * 游标是否仍处于打开状态
+     */
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    /**
+     * 关闭游标，释放结果集和语句
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            LobStreams.closeQuietly(rs, stmt);
+            timer.finish();
+            session.cursorClosed(this);
+        }
+    }
+
+    private class CursorIterator implements Iterator<T> {
+
+        private T next;
+        private boolean fetched;
+
+        @Override
+        public boolean hasNext() {
+            if (fetched) {
+                return true;
+            }
+            if (closed) {
+                return false;
+            }
+            try {
+                // 只统计读取和映射的时间，不包括调用方处理每行数据的时间
+                long since = timer.now();
+                boolean hasRow = rs.next();
+                timer.addFetch(since);
+                if (hasRow) {
+                    since = timer.now();
+                    next = session.mapRow(rs, header, clazz);
+                    timer.addMappedRow(since);
+                    fetched = true;
+                    return true;
+                }
+            } catch (SQLException e) {
+                timer.failed(e);
+                close();
+                throw new OrmException("读取游标失败", e);
+            }
+            close();
+            return false;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T result = next;
+            next = null;
+            fetched = false;
+            position++;
+            return result;
+        }
+    }
+}
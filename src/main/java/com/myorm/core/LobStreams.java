@@ -0,0 +1,82 @@
+package com.myorm.core;
+
+import java.io.FilterInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 大字段流包装类，关闭流时同时关闭底层的ResultSet和PreparedStatement
+ */
+class LobStreams {
+    
+    private LobStreams() {
+    }
+    
+    /**
+     * 二进制大字段输入流
+     */
+    static class LobInputStream extends FilterInputStream {
+        private final ResultSet rs;
+        private final PreparedStatement stmt;
+        
+        LobInputStream(InputStream in, ResultSet rs, PreparedStatement stmt) {
+            super(in);
+            this.rs = rs;
+            this.stmt = stmt;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                closeQuietly(rs, stmt);
+            }
+        }
+    }
+    
+    /**
+     * 文本大字段字符流
+     */
+    static class LobReader extends FilterReader {
+        private final ResultSet rs;
+        private final PreparedStatement stmt;
+        
+        LobReader(Reader in, ResultSet rs, PreparedStatement stmt) {
+            super(in);
+            this.rs = rs;
+            this.stmt = stmt;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                closeQuietly(rs, stmt);
+            }
+        }
+    }
+    
+    static void closeQuietly(ResultSet rs, PreparedStatement stmt) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+        } catch (SQLException ignored) {
+            // 关闭失败时忽略
+        }
+        try {
+            if (stmt != null) {
+                stmt.close();
+            }
+        } catch (SQLException ignored) {
+            // 关闭失败时忽略
+        }
+    }
+}
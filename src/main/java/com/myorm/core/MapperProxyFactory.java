@@ -2,19 +2,55 @@ package com.myorm.core;
 
 import com.myorm.annotation.*;
 import com.myorm.exception.OrmException;
+import com.myorm.sql.BoundSql;
+import com.myorm.sql.ParameterMapping;
+import com.myorm.sql.SqlSource;
 import com.myorm.util.ReflectionUtil;
 
 import java.lang.reflect.*;
+import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 /**
  * Mapper代理工厂，用于创建Mapper接口的代理实现
+ * <p>
+ * 如果编译期注解处理器已为接口生成了实现类（同包下的{@code 接口名Impl}，
+ * 嵌套接口的{@code $}替换为{@code _}），优先使用生成的实现类，否则退回到动态代理。
  */
 public class MapperProxyFactory {
     
+    /**
+     * 生成实现类的后缀
+     */
+    public static final String GENERATED_SUFFIX = "Impl";
+    
+    /**
+     * 接口到生成实现类构造器的缓存，没有生成类的接口缓存为空
+     */
+    private static final Map<Class<?>, Optional<Constructor<?>>> GENERATED_CONSTRUCTORS = new ConcurrentHashMap<>();
+    
+    /**
+     * Mapper方法到编译后SQL的缓存
+     */
+    private static final Map<Method, SqlSource> SQL_SOURCES = new ConcurrentHashMap<>();
+    
+    /**
+     * 批量方法到按元素编译的参数映射的缓存，不是批量方法的缓存为空
+     */
+    private static final Map<Method, Optional<ParameterMapping>> BATCH_MAPPINGS = new ConcurrentHashMap<>();
+    
+    /**
+     * Mapper方法到指标中使用的语句标识（{@code 接口全限定名.方法名}）的缓存
+     */
+    private static final Map<Method, String> STATEMENT_IDS = new ConcurrentHashMap<>();
+    
     private final Session session;
     
     public MapperProxyFactory(Session session) {
@@ -41,12 +77,60 @@ public class MapperProxyFactory {
             throw new OrmException("接口" + mapperInterface.getName() + "没有@Mapper注解");
         }
         
+        Optional<Constructor<?>> constructor = GENERATED_CONSTRUCTORS.computeIfAbsent(
+                mapperInterface, MapperProxyFactory::findGeneratedConstructor);
+        if (constructor.isPresent()) {
+            try {
+                return (T) constructor.get().newInstance(session);
+            } catch (InvocationTargetException e) {
+                throw new OrmException("创建Mapper实现类失败: " + mapperInterface.getName(), e.getCause());
+            } catch (ReflectiveOperationException e) {
+                throw new OrmException("创建Mapper实现类失败: " + mapperInterface.getName(), e);
+            }
+        }
+        
+        return createProxy(mapperInterface);
+    }
+    
+    /**
+     * 创建Mapper接口的动态代理实现，生成的实现类对不支持的方法也委托给它
+     * @param mapperInterface Mapper接口的Class对象
+     * @param <T> Mapper接口类型
+     * @return Mapper接口的代理实现
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T createProxy(Class<T> mapperInterface) {
         return (T) Proxy.newProxyInstance(
                 mapperInterface.getClassLoader(),
                 new Class<?>[]{mapperInterface},
                 new MapperProxy(session, mapperInterface));
     }
     
+    /**
+     * 获取注解处理器为Mapper接口生成的实现类名
+     * @param mapperInterface Mapper接口的Class对象
+     * @return 实现类的全限定名
+     */
+    public static String getGeneratedClassName(Class<?> mapperInterface) {
+        String name = mapperInterface.getName();
+        int lastDot = name.lastIndexOf('.');
+        String packagePrefix = lastDot < 0 ? "" : name.substring(0, lastDot + 1);
+        return packagePrefix + name.substring(lastDot + 1).replace('$', '_') + GENERATED_SUFFIX;
+    }
+    
+    private static Optional<Constructor<?>> findGeneratedConstructor(Class<?> mapperInterface) {
+        try {
+            Class<?> implClass = Class.forName(getGeneratedClassName(mapperInterface), true,
+                    mapperInterface.getClassLoader());
+            if (!mapperInterface.isAssignableFrom(implClass)) {
+                return Optional.empty();
+            }
+            return Optional.of(implClass.getConstructor(Session.class));
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return Optional.empty();
+        }
+    }
+    
     /**
      * Mapper接口的代理处理器
      */
@@ -65,8 +149,15 @@ public class MapperProxyFactory {
                 return method.invoke(this, args);
             }
             
-            // 处理接口方法
-            return executeMapperMethod(method, args);
+            // 处理接口方法，执行期间的语句按方法统计指标
+            String statementId = STATEMENT_IDS.computeIfAbsent(method,
+                    key -> key.getDeclaringClass().getName() + "." + key.getName());
+            String previous = session.enterStatement(statementId);
+            try {
+                return executeMapperMethod(method, args);
+            } finally {
+                session.exitStatement(previous);
+            }
         }
         
         private Object executeMapperMethod(Method method, Object[] args) {
@@ -75,6 +166,12 @@ public class MapperProxyFactory {
                 return executeSelect(method, args);
             }
             
+            // 集合参数的插入、更新和删除方法按批量执行
+            Optional<ParameterMapping> batchMapping = batchMappingOf(method);
+            if (batchMapping.isPresent()) {
+                return executeBatch(method, batchMapping.get(), args);
+            }
+            
             // 处理Insert注解
             if (method.isAnnotationPresent(Insert.class)) {
                 return executeInsert(method, args);
@@ -94,57 +191,67 @@ public class MapperProxyFactory {
         }
         
         private Object executeSelect(Method method, Object[] args) {
-            String sql = method.getAnnotation(Select.class).value();
-            List<Object> params = extractParams(method, args);
+            if (Iterator.class.equals(method.getReturnType())) {
+                throw new OrmException("方法" + method.getName() + "不能返回Iterator，迭代器无法关闭游标，请改用Cursor或Stream");
+            }
+            BoundSql boundSql = sqlSourceOf(method, method.getAnnotation(Select.class).value()).bind(args);
+            String sql = boundSql.getSql();
+            List<Object> params = boundSql.getParams();
             
             // 处理返回类型
             Class<?> returnType = method.getReturnType();
             
             // 如果返回类型是List
             if (List.class.isAssignableFrom(returnType)) {
-                // 获取泛型类型
-                Type genericReturnType = method.getGenericReturnType();
-                if (genericReturnType instanceof ParameterizedType) {
-                    ParameterizedType paramType = (ParameterizedType) genericReturnType;
-                    Type[] typeArgs = paramType.getActualTypeArguments();
-                    if (typeArgs.length > 0 && typeArgs[0] instanceof Class) {
-                        Class<?> entityClass = (Class<?>) typeArgs[0];
-                        return session.query(sql, params, entityClass);
-                    }
-                }
-                throw new OrmException("无法确定List的泛型类型");
+                Class<?> entityClass = typeArgument(method);
+                // 相同形状的SQL复用会话内缓存的预编译语句
+                return session.executeCachedQuery(sql, params, rs -> session.mapRows(rs, entityClass));
+            }
+            
+            // 如果返回游标或流，遍历时才逐行映射
+            if (Cursor.class.equals(returnType)) {
+                return session.queryCursor(sql, params, typeArgument(method));
+            }
+            if (Stream.class.equals(returnType)) {
+                return session.queryCursor(sql, params, typeArgument(method)).stream();
+            }
+            
+            // 如果返回Optional
+            if (Optional.class.equals(returnType)) {
+                return Optional.ofNullable(selectOne(sql, params, typeArgument(method)));
             }
             
+            return selectOne(sql, params, returnType);
+        }
+        
+        /**
+         * 查询单个结果，语句只读取第一行
+         */
+        private Object selectOne(String sql, List<Object> params, Class<?> returnType) {
             // 如果返回单个对象
             if (!returnType.isPrimitive() && !returnType.equals(String.class) && 
-                    !Number.class.isAssignableFrom(returnType)) {
-                List<?> results = session.query(sql, params, returnType);
-                return results.isEmpty() ? null : results.get(0);
+                    !Number.class.isAssignableFrom(returnType) && !returnType.equals(Boolean.class)) {
+                return session.executeCachedQuery(sql, params, 1,
+                        rs -> rs.next() ? session.mapRow(rs, returnType) : null);
             }
             
             // 如果返回基本类型或字符串
-            List<Map<String, Object>> results = session.queryForMap(sql, params);
-            if (results.isEmpty()) {
+            Object value = session.executeCachedQuery(sql, params, 1, rs -> rs.next() ? rs.getObject(1) : null);
+            if (value == null) {
                 if (returnType.isPrimitive()) {
-                    if (returnType.equals(boolean.class) || returnType.equals(Boolean.class)) {
+                    if (returnType.equals(boolean.class)) {
                         return false;
                     } else {
-                        return 0;
+                        return convertScalar(0, returnType);
                     }
                 }
                 return null;
             }
             
-            Map<String, Object> row = results.get(0);
-            if (row.isEmpty()) {
-                return null;
-            }
-            
-            Object value = row.values().iterator().next();
-            if (value == null) {
-                return null;
-            }
-            
+            return convertScalar(value, returnType);
+        }
+        
+        private Object convertScalar(Object value, Class<?> returnType) {
             // 类型转换
             if (returnType.equals(Integer.class) || returnType.equals(int.class)) {
                 return Integer.valueOf(value.toString());
@@ -163,6 +270,21 @@ public class MapperProxyFactory {
             return value;
         }
         
+        /**
+         * 获取返回类型的泛型参数
+         */
+        private Class<?> typeArgument(Method method) {
+            Type genericReturnType = method.getGenericReturnType();
+            if (genericReturnType instanceof ParameterizedType) {
+                ParameterizedType paramType = (ParameterizedType) genericReturnType;
+                Type[] typeArgs = paramType.getActualTypeArguments();
+                if (typeArgs.length > 0 && typeArgs[0] instanceof Class) {
+                    return (Class<?>) typeArgs[0];
+                }
+            }
+            throw new OrmException("无法确定" + method.getReturnType().getSimpleName() + "的泛型类型");
+        }
+        
         private Object executeInsert(Method method, Object[] args) {
             Insert insertAnnotation = method.getAnnotation(Insert.class);
             String sql = insertAnnotation.value();
@@ -212,8 +334,8 @@ public class MapperProxyFactory {
                 sql = sqlBuilder.toString();
             } else {
                 // 使用注解中的SQL语句
-                params = extractParams(method, args);
-                int result = session.execute(sql, params);
+                BoundSql boundSql = sqlSourceOf(method, sql).bind(args);
+                int result = session.execute(boundSql.getSql(), boundSql.getParams());
                 
                 // 处理返回类型
                 Class<?> returnType = method.getReturnType();
@@ -245,8 +367,9 @@ public class MapperProxyFactory {
         }
         
         private Object executeUpdate(Method method, Object[] args) {
-            String sql = method.getAnnotation(Update.class).value();
-            List<Object> params = extractParams(method, args);
+            BoundSql boundSql = sqlSourceOf(method, method.getAnnotation(Update.class).value()).bind(args);
+            String sql = boundSql.getSql();
+            List<Object> params = boundSql.getParams();
             
             int result = session.execute(sql, params);
             
@@ -265,8 +388,9 @@ public class MapperProxyFactory {
         }
         
         private Object executeDelete(Method method, Object[] args) {
-            String sql = method.getAnnotation(Delete.class).value();
-            List<Object> params = extractParams(method, args);
+            BoundSql boundSql = sqlSourceOf(method, method.getAnnotation(Delete.class).value()).bind(args);
+            String sql = boundSql.getSql();
+            List<Object> params = boundSql.getParams();
             
             int result = session.execute(sql, params);
             
@@ -284,40 +408,131 @@ public class MapperProxyFactory {
             return null;
         }
         
-        private List<Object> extractParams(Method method, Object[] args) {
-            if (args == null || args.length == 0) {
-                return new ArrayList<>();
+        /**
+         * 批量执行：集合的每个元素按编译好的参数映射取值，作为同一条预编译语句中的一条批处理语句
+         */
+        private Object executeBatch(Method method, ParameterMapping mapping, Object[] args) {
+            Collection<?> elements = (Collection<?>) args[0];
+            if (elements == null) {
+                throw new OrmException("批量方法" + method.getName() + "的参数不能为空");
             }
             
-            // 获取参数注解
-            Parameter[] parameters = method.getParameters();
-            Map<String, Integer> paramIndexMap = new HashMap<>();
+            List<List<Object>> batchParams = new ArrayList<>(elements.size());
+            Object[] elementArgs = new Object[1];
+            for (Object element : elements) {
+                elementArgs[0] = element;
+                batchParams.add(mapping.extract(elementArgs));
+            }
             
-            for (int i = 0; i < parameters.length; i++) {
-                Parameter parameter = parameters[i];
-                if (parameter.isAnnotationPresent(Param.class)) {
-                    Param param = parameter.getAnnotation(Param.class);
-                    paramIndexMap.put(param.value(), i);
-                }
+            Batch batch = method.getAnnotation(Batch.class);
+            int[] counts = batch != null
+                    ? session.executeBatch(mapping.getSql(), batchParams, batch.size())
+                    : session.executeBatch(mapping.getSql(), batchParams);
+            
+            // 处理返回类型
+            Class<?> returnType = method.getReturnType();
+            if (returnType.equals(int[].class)) {
+                return counts;
+            }
+            
+            int result = 0;
+            for (int count : counts) {
+                // 驱动无法确定行数时返回SUCCESS_NO_INFO，按成功执行一条计算
+                result += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+            }
+            if (returnType.equals(int.class) || returnType.equals(Integer.class)) {
+                return result;
+            }
+            if (returnType.equals(boolean.class) || returnType.equals(Boolean.class)) {
+                return result > 0;
             }
             
-            // 如果没有@Param注解，直接返回参数数组
-            if (paramIndexMap.isEmpty()) {
-                List<Object> params = new ArrayList<>();
-                for (Object arg : args) {
-                    params.add(arg);
+            return null;
+        }
+        
+        /**
+         * 获取方法编译后的SQL，首次调用时解析命名参数或动态SQL模板并缓存
+         */
+        private SqlSource sqlSourceOf(Method method, String sql) {
+            return SQL_SOURCES.computeIfAbsent(method,
+                    key -> SqlSource.compile(sql, parameterNames(key), key.getParameterTypes()));
+        }
+    }
+    
+    /**
+     * 判断方法是否为批量方法，是则按集合元素类型编译参数映射
+     * <p>
+     * 标注了{@link Batch}的方法，以及唯一参数是非简单类型元素集合的静态SQL插入、更新和删除方法为批量方法。
+     */
+    private static Optional<ParameterMapping> batchMappingOf(Method method) {
+        return BATCH_MAPPINGS.computeIfAbsent(method, key -> {
+            boolean annotated = key.isAnnotationPresent(Batch.class);
+            String sql = updateSql(key);
+            if (sql == null || key.getParameterCount() != 1
+                    || !Collection.class.isAssignableFrom(key.getParameterTypes()[0])) {
+                if (annotated) {
+                    throw new OrmException("批量方法" + key.getName() + "必须是只有一个集合参数的插入、更新或删除方法");
                 }
-                return params;
+                return Optional.empty();
             }
             
-            // 处理命名参数
-            // 这里简化处理，实际上需要解析SQL中的参数占位符
-            List<Object> params = new ArrayList<>();
-            for (int i = 0; i < args.length; i++) {
-                params.add(args[i]);
+            Class<?> elementType = elementType(key);
+            if (!annotated && (sql.isEmpty() || SqlSource.isScript(sql)
+                    || elementType == null || ParameterMapping.isSimpleType(elementType))) {
+                return Optional.empty();
+            }
+            if (sql.isEmpty() || SqlSource.isScript(sql)) {
+                throw new OrmException("批量方法" + key.getName() + "必须在注解中指定静态SQL");
             }
             
-            return params;
+            Class<?> type = elementType != null ? elementType : Object.class;
+            ParameterMapping mapping = ParameterMapping.compile(sql, parameterNames(key), new Class<?>[]{type});
+            if (mapping.isPositional() && !ParameterMapping.isSimpleType(type)) {
+                throw new OrmException("批量方法" + key.getName() + "的SQL必须使用命名参数引用元素的属性");
+            }
+            return Optional.of(mapping);
+        });
+    }
+    
+    private static String updateSql(Method method) {
+        if (method.isAnnotationPresent(Insert.class)) {
+            return method.getAnnotation(Insert.class).value();
+        }
+        if (method.isAnnotationPresent(Update.class)) {
+            return method.getAnnotation(Update.class).value();
+        }
+        if (method.isAnnotationPresent(Delete.class)) {
+            return method.getAnnotation(Delete.class).value();
+        }
+        return null;
+    }
+    
+    /**
+     * 获取集合参数的元素类型，无法确定时返回null
+     */
+    private static Class<?> elementType(Method method) {
+        Type type = method.getGenericParameterTypes()[0];
+        if (type instanceof ParameterizedType) {
+            Type[] typeArgs = ((ParameterizedType) type).getActualTypeArguments();
+            if (typeArgs.length == 1 && typeArgs[0] instanceof Class) {
+                return (Class<?>) typeArgs[0];
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 获取方法参数名，优先使用{@code @Param}的值
+     * <p>
+     * 没有{@code @Param}时使用反射得到的参数名，接口未用{@code -parameters}编译时为{@code arg0}、{@code arg1}等。
+     */
+    private static String[] parameterNames(Method method) {
+        Parameter[] parameters = method.getParameters();
+        String[] names = new String[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Param param = parameters[i].getAnnotation(Param.class);
+            names[i] = param != null ? param.value() : parameters[i].getName();
         }
+        return names;
     }
 }
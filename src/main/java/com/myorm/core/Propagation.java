@@ -0,0 +1,22 @@
+package com.myorm.core;
+
+/**
+ * 事务传播方式，决定在已有事务中调用{@link TransactionManager}时如何处理
+ */
+public enum Propagation {
+    
+    /**
+     * 已有事务时加入该事务，否则开始新事务
+     */
+    REQUIRED,
+    
+    /**
+     * 总是在新的会话（新的连接）中开始新事务，已有事务在此期间挂起；只能用于基于会话工厂的事务管理器
+     */
+    REQUIRES_NEW,
+    
+    /**
+     * 已有事务时在保存点上执行，失败只回滚到保存点；否则开始新事务
+     */
+    NESTED
+}
@@ -0,0 +1,71 @@
+package com.myorm.core;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 只读副本的路由，按选择方式为会话分配副本，并记录每个副本被会话占用的连接数
+ * <p>
+ * 选择副本时占用计数加1，会话关闭副本连接时调用{@link #release(int)}减1。线程安全。
+ */
+final class ReplicaRouter {
+    
+    private final String[] urls;
+    private final String username;
+    private final String password;
+    private final ReplicaSelection selection;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicIntegerArray active;
+    
+    ReplicaRouter(List<String> urls, String username, String password, ReplicaSelection selection) {
+        this.urls = urls.toArray(new String[0]);
+        this.username = username;
+        this.password = password;
+        this.selection = selection;
+        this.active = new AtomicIntegerArray(this.urls.length);
+    }
+    
+    /**
+     * 选择一个副本并占用
+     * @return 副本下标
+     */
+    int select() {
+        int start = Math.floorMod(next.getAndIncrement(), urls.length);
+        int index = start;
+        if (selection == ReplicaSelection.LEAST_BUSY) {
+            int least = Integer.MAX_VALUE;
+            for (int i = 0; i < urls.length; i++) {
+                int candidate = (start + i) % urls.length;
+                int busy = active.get(candidate);
+                if (busy < least) {
+                    least = busy;
+                    index = candidate;
+                }
+            }
+        }
+        active.incrementAndGet(index);
+        return index;
+    }
+    
+    /**
+     * 打开副本的连接
+     * @param index 副本下标
+     * @return 数据库连接
+     * @throws SQLException SQL异常
+     */
+    Connection open(int index) throws SQLException {
+        return DriverManager.getConnection(urls[index], username, password);
+    }
+    
+    /**
+     * 释放对副本的占用
+     * @param index 副本下标
+     */
+    void release(int index) {
+        active.decrementAndGet(index);
+    }
+}
@@ -0,0 +1,17 @@
+package com.myorm.core;
+
+/**
+ * 从多个只读副本中选择一个的方式
+ */
+public enum ReplicaSelection {
+    
+    /**
+     * 轮流使用各个副本
+     */
+    ROUND_ROBIN,
+    
+    /**
+     * 使用当前被会话占用的连接最少的副本，数量相同时轮流使用
+     */
+    LEAST_BUSY
+}
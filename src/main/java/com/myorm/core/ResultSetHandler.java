@@ -0,0 +1,19 @@
+package com.myorm.core;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 结果集处理器，用于直接处理查询返回的ResultSet
+ * @param <R> 处理结果类型
+ */
+@FunctionalInterface
+public interface ResultSetHandler<R> {
+    /**
+     * 处理结果集
+     * @param rs 结果集，由调用方负责关闭
+     * @return 处理结果
+     * @throws SQLException SQL异常
+     */
+    R handle(ResultSet rs) throws SQLException;
+}
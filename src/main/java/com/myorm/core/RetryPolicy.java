@@ -0,0 +1,176 @@
+package com.myorm.core;
+
+import com.myorm.exception.OrmException;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 事务重试策略，事务因死锁或序列化冲突失败时由{@link TransactionManager}重新执行整个回调
+ * <p>
+ * 默认在以下情况重试：{@link SQLTransactionRollbackException}、SQLState为{@code 40001}（序列化失败，
+ * H2的死锁也使用此状态）、{@code 40P01}（PostgreSQL死锁）、{@code HYT00}（H2锁超时），
+ * 以及MySQL的错误码1213（死锁）和1205（锁等待超时）。
+ * 两次尝试之间按指数退避等待，等待时间在0和退避上限之间随机选取（full jitter），避免冲突的事务同时重试。
+ */
+public final class RetryPolicy {
+    
+    private static final Set<String> DEFAULT_SQL_STATES = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("40001", "40P01", "HYT00")));
+    
+    private static final Set<Integer> DEFAULT_ERROR_CODES = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList(1213, 1205)));
+    
+    private static final RetryPolicy NONE = builder().maxAttempts(1).build();
+    
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final double multiplier;
+    private final Set<String> sqlStates;
+    private final Set<Integer> errorCodes;
+    
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoffMillis = builder.initialBackoffMillis;
+        this.maxBackoffMillis = builder.maxBackoffMillis;
+        this.multiplier = builder.multiplier;
+        this.sqlStates = Collections.unmodifiableSet(new HashSet<>(builder.sqlStates));
+        this.errorCodes = Collections.unmodifiableSet(new HashSet<>(builder.errorCodes));
+    }
+    
+    /**
+     * 不重试的策略
+     * @return 重试策略
+     */
+    public static RetryPolicy none() {
+        return NONE;
+    }
+    
+    /**
+     * 创建重试策略构建器，默认最多尝试3次，退避从10毫秒开始、每次翻倍、最多1秒
+     * @return 构建器
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * 最多尝试的次数（包括第一次）
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+    
+    /**
+     * 判断异常是否可以重试，沿异常的cause链查找SQLException
+     * @param error 异常
+     * @return 是否可以重试
+     */
+    public boolean isRetryable(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof SQLTransactionRollbackException) {
+                return true;
+            }
+            if (current instanceof SQLException) {
+                SQLException sqlException = (SQLException) current;
+                if ((sqlException.getSQLState() != null && sqlStates.contains(sqlException.getSQLState()))
+                        || errorCodes.contains(sqlException.getErrorCode())) {
+                    return true;
+                }
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 计算第几次重试之前的等待时间
+     * @param retry 重试次数，从1开始
+     * @return 等待时间（毫秒）
+     */
+    public long backoffMillis(int retry) {
+        double ceiling = initialBackoffMillis * Math.pow(multiplier, retry - 1);
+        long bound = (long) Math.min(maxBackoffMillis, ceiling);
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+    
+    /**
+     * 重试策略构建器
+     */
+    public static class Builder {
+        private int maxAttempts = 3;
+        private long initialBackoffMillis = 10;
+        private long maxBackoffMillis = 1000;
+        private double multiplier = 2;
+        private final Set<String> sqlStates = new HashSet<>(DEFAULT_SQL_STATES);
+        private final Set<Integer> errorCodes = new HashSet<>(DEFAULT_ERROR_CODES);
+        
+        /**
+         * 设置最多尝试的次数
+         * @param maxAttempts 次数（包括第一次），为1时不重试
+         * @return 构建器对象
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new OrmException("最多尝试次数不能小于1");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+        
+        /**
+         * 设置指数退避
+         * @param initialBackoffMillis 第一次重试前的退避上限（毫秒）
+         * @param maxBackoffMillis 退避上限的最大值（毫秒）
+         * @param multiplier 每次重试退避上限的倍数
+         * @return 构建器对象
+         */
+        public Builder backoff(long initialBackoffMillis, long maxBackoffMillis, double multiplier) {
+            if (initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis || multiplier < 1) {
+                throw new OrmException("无效的退避参数");
+            }
+            this.initialBackoffMillis = initialBackoffMillis;
+            this.maxBackoffMillis = maxBackoffMillis;
+            this.multiplier = multiplier;
+            return this;
+        }
+        
+        /**
+         * 添加可以重试的SQLState
+         * @param sqlStates SQLState
+         * @return 构建器对象
+         */
+        public Builder retryOnSqlStates(String... sqlStates) {
+            this.sqlStates.addAll(Arrays.asList(sqlStates));
+            return this;
+        }
+        
+        /**
+         * 添加可以重试的数据库厂商错误码
+         * @param errorCodes 错误码
+         * @return 构建器对象
+         */
+        public Builder retryOnErrorCodes(int... errorCodes) {
+            for (int errorCode : errorCodes) {
+                this.errorCodes.add(errorCode);
+            }
+            return this;
+        }
+        
+        /**
+         * 构建重试策略
+         * @return 重试策略
+         */
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -1,18 +1,43 @@
 package com.myorm.core;
 
 import com.myorm.exception.OrmException;
+import com.myorm.mapping.MappingRegistry;
+import com.myorm.mapping.ParameterBinder;
+import com.myorm.mapping.RowMapper;
+import com.myorm.metrics.StatementListener;
+import com.myorm.query.Aggregate;
+import com.myorm.query.Criteria;
+import com.myorm.query.CriteriaCompiler;
+import com.myorm.query.GroupRow;
+import com.myorm.result.ColumnarResult;
+import com.myorm.result.CompactRow;
+import com.myorm.result.OffHeapResult;
+import com.myorm.result.PipelinedReader;
+import com.myorm.result.RowHeader;
 import com.myorm.util.ReflectionUtil;
 import com.myorm.util.SqlBuilder;
 
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,10 +47,116 @@ import org.slf4j.LoggerFactory;
  */
 public class Session {
     private static final Logger logger = LoggerFactory.getLogger(Session.class);
+    
+    /**
+     * 批量加载延迟加载列时每条IN查询包含的主键数量
+     */
+    private static final int LAZY_FETCH_BATCH_SIZE = 500;
+    
+    /**
+     * 会话内缓存的预编译语句数量
+     */
+    private static final int STATEMENT_CACHE_SIZE = 32;
+    
+    /**
+     * 流水线查询中同时处于映射中的最大批次数量
+     */
+    private static final int PIPELINE_MAX_IN_FLIGHT_BATCHES = 8;
+    
+    /**
+     * 游标查询每次从数据库获取的行数提示
+     */
+    private static final int CURSOR_FETCH_SIZE = 256;
+    
+    /**
+     * 批量执行时每次提交的默认语句数
+     */
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    
+    private static final AtomicLong SESSION_IDS = new AtomicLong();
+    
+    private final long id = SESSION_IDS.incrementAndGet();
     private final Connection connection;
+    private final StatementCache statementCache = new StatementCache(STATEMENT_CACHE_SIZE);
+    private final StatementListener[] listeners;
+    
+    /**
+     * 当前正在执行的Mapper方法，用于按方法统计指标
+     */
+    private String statementId;
+    private TransactionEvent transactionEvent;
+    
+    /**
+     * 当前事务的序号，不在事务中时为0
+     */
+    private long transactionId;
+    private long transactionCount;
+    
+    /**
+     * 已创建的Mapper实现，同一会话内复用
+     */
+    private final Map<Class<?>, Object> mappers = new HashMap<>();
+    
+    /**
+     * 尚未关闭的游标，会话关闭时一起关闭
+     */
+    private final Set<Cursor<?>> openCursors = new HashSet<>();
+    private boolean readOnly;
+    
+    /**
+     * 当前正在处理结果集的语句的计时器，映射实体时累加映射时间
+     */
+    private StatementTimer activeTimer = StatementTimer.DISABLED;
+    
+    /**
+     * 读写分离：不在事务中的查询使用副本连接，为null时所有语句都使用主连接
+     */
+    private final ReplicaRouter replicaRouter;
+    
+    /**
+     * 主连接本身是从副本借用的（只读会话）时为副本下标，否则为-1
+     */
+    private final int leasedReplica;
+    
+    /**
+     * 会话执行过写操作后，查询是否改用主连接，以便读到自己写入的数据
+     */
+    private final boolean readYourWrites;
+    private boolean written;
+    private boolean replicaUnavailable;
+    private boolean closed;
+    private Connection replicaConnection;
+    private int replicaIndex = -1;
+    private StatementCache replicaStatementCache;
     
     public Session(Connection connection) {
+        this(connection, Collections.emptyList());
+    }
+    
+    /**
+     * 创建会话
+     * @param connection 数据库连接
+     * @param listeners 语句监听器（如指标注册表、慢查询日志），每条语句执行结束时按顺序通知
+     */
+    public Session(Connection connection, List<? extends StatementListener> listeners) {
+        this(connection, listeners, null, -1, false);
+    }
+    
+    /**
+     * 创建带读写分离的会话
+     * @param connection 主连接
+     * @param listeners 语句监听器
+     * @param replicaRouter 副本路由，为null时不做读写分离
+     * @param leasedReplica 主连接借用的副本下标，不是副本连接时为-1
+     * @param readYourWrites 执行过写操作后查询是否改用主连接
+     */
+    Session(Connection connection, List<? extends StatementListener> listeners, ReplicaRouter replicaRouter,
+            int leasedReplica, boolean readYourWrites) {
         this.connection = connection;
+        this.listeners = listeners.toArray(new StatementListener[0]);
+        this.replicaRouter = replicaRouter;
+        this.leasedReplica = leasedReplica;
+        this.readYourWrites = readYourWrites;
     }
     
     /**
@@ -39,16 +170,24 @@ public class Session {
             throw new OrmException("实体对象不能为空");
         }
         
+        @SuppressWarnings("unchecked")
+        ParameterBinder<T> binder = MappingRegistry.getParameterBinder((Class<T>) entity.getClass());
+        if (binder != null) {
+            String sql = SqlBuilder.buildInsertSql(entity.getClass());
+            
+            try {
+                return runUpdate(sql, null, stmt -> binder.bindInsert(stmt, entity));
+            } catch (SQLException e) {
+                throw new OrmException("保存实体对象失败", e);
+            }
+        }
+        
         SqlBuilder.SqlAndParams sqlAndParams = SqlBuilder.buildInsertSql(entity);
         String sql = sqlAndParams.getSql();
         List<Object> params = sqlAndParams.getParams();
         
-        logger.debug("执行SQL: {}", sql);
-        logger.debug("参数: {}", params);
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            setParameters(stmt, params);
-            return stmt.executeUpdate();
+        try {
+            return runUpdate(sql, params);
         } catch (SQLException e) {
             throw new OrmException("保存实体对象失败", e);
         }
@@ -69,12 +208,8 @@ public class Session {
         String sql = sqlAndParams.getSql();
         List<Object> params = sqlAndParams.getParams();
         
-        logger.debug("执行SQL: {}", sql);
-        logger.debug("参数: {}", params);
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            setParameters(stmt, params);
-            return stmt.executeUpdate();
+        try {
+            return runUpdate(sql, params);
         } catch (SQLException e) {
             throw new OrmException("更新实体对象失败", e);
         }
@@ -100,12 +235,8 @@ public class Session {
         String sql = sqlAndParams.getSql();
         List<Object> params = sqlAndParams.getParams();
         
-        logger.debug("执行SQL: {}", sql);
-        logger.debug("参数: {}", params);
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            setParameters(stmt, params);
-            return stmt.executeUpdate();
+        try {
+            return runUpdate(sql, params);
         } catch (SQLException e) {
             throw new OrmException("删除实体对象失败", e);
         }
@@ -131,18 +262,9 @@ public class Session {
         String sql = sqlAndParams.getSql();
         List<Object> params = sqlAndParams.getParams();
         
-        logger.debug("执行SQL: {}", sql);
-        logger.debug("参数: {}", params);
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            setParameters(stmt, params);
-            ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                return mapResultSetToEntity(rs, clazz);
-            } else {
-                return null;
-            }
+        try {
+            return runQuery(sql, params,
+                    rs -> rs.next() ? mapResultSetToEntity(rs, clazz) : null);
         } catch (SQLException e) {
             throw new OrmException("查询实体对象失败", e);
         }
@@ -163,20 +285,8 @@ public class Session {
         String sql = sqlAndParams.getSql();
         List<Object> params = sqlAndParams.getParams();
         
-        logger.debug("执行SQL: {}", sql);
-        logger.debug("参数: {}", params);
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            setParameters(stmt, params);
-            ResultSet rs = stmt.executeQuery();
-            
-            List<T> results = new ArrayList<>();
-            while (rs.next()) {
-                T entity = mapResultSetToEntity(rs, clazz);
-                results.add(entity);
-            }
-            
-            return results;
+        try {
+            return runQuery(sql, params, rs -> mapRows(rs, clazz));
         } catch (SQLException e) {
             throw new OrmException("查询实体对象失败", e);
         }
@@ -198,217 +308,1355 @@ public class Session {
         String sql = sqlAndParams.getSql();
         List<Object> params = sqlAndParams.getParams();
         
-        logger.debug("执行SQL: {}", sql);
-        logger.debug("参数: {}", params);
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            setParameters(stmt, params);
-            ResultSet rs = stmt.executeQuery();
-            
-            List<T> results = new ArrayList<>();
-            while (rs.next()) {
-                T entity = mapResultSetToEntity(rs, clazz);
-                results.add(entity);
-            }
-            
-            return results;
+        try {
+            return runQuery(sql, params, rs -> mapRows(rs, clazz));
         } catch (SQLException e) {
             throw new OrmException("查询实体对象失败", e);
         }
     }
     
     /**
-     * 执行自定义SQL查询
-     * @param sql SQL语句
-     * @param params 参数列表
-     * @param clazz 实体类Class对象
+     * 根据类型化的条件查询实体对象
+     * 相同形状的查询使用同一条SQL模板，并复用会话内缓存的预编译语句
+     * @param criteria 条件查询
      * @param <T> 实体类型
      * @return 实体对象列表
      */
-    public <T> List<T> query(String sql, List<Object> params, Class<T> clazz) {
-        if (sql == null || sql.trim().isEmpty()) {
-            throw new OrmException("SQL语句不能为空");
-        }
-        
-        if (clazz == null) {
-            throw new OrmException("实体类不能为空");
+    public <T> List<T> findByCriteria(Criteria<T> criteria) {
+        if (criteria == null) {
+            throw new OrmException("查询条件不能为空");
         }
         
-        logger.debug("执行SQL: {}", sql);
-        logger.debug("参数: {}", params);
+        Class<T> clazz = criteria.getEntityClass();
+        SqlBuilder.SqlAndParams sqlAndParams = CriteriaCompiler.compileSelect(criteria);
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            if (params != null) {
-                setParameters(stmt, params);
-            }
-            
-            ResultSet rs = stmt.executeQuery();
-            
+        return executeCachedQuery(sqlAndParams.getSql(), sqlAndParams.getParams(), rs -> {
+            RowHeader header = RowHeader.from(rs.getMetaData());
             List<T> results = new ArrayList<>();
             while (rs.next()) {
-                T entity = mapResultSetToEntity(rs, clazz);
-                results.add(entity);
+                results.add(mapResultSetToEntity(rs, header, clazz));
             }
-            
             return results;
-        } catch (SQLException e) {
-            throw new OrmException("执行查询失败", e);
-        }
+        });
     }
     
     /**
-     * 执行自定义SQL更新
-     * @param sql SQL语句
-     * @param params 参数列表
-     * @return 受影响的行数
+     * 统计实体表的记录数
+     * @param clazz 实体类Class对象
+     * @return 记录数
      */
-    public int execute(String sql, List<Object> params) {
-        if (sql == null || sql.trim().isEmpty()) {
-            throw new OrmException("SQL语句不能为空");
-        }
-        
-        logger.debug("执行SQL: {}", sql);
-        logger.debug("参数: {}", params);
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            if (params != null) {
-                setParameters(stmt, params);
-            }
-            
-            return stmt.executeUpdate();
-        } catch (SQLException e) {
-            throw new OrmException("执行更新失败", e);
-        }
+    public long count(Class<?> clazz) {
+        return count(Criteria.of(clazz));
     }
     
     /**
-     * 开始事务
+     * 统计满足条件的记录数
+     * @param criteria 条件查询
+     * @return 记录数
      */
-    public void beginTransaction() {
-        try {
-            connection.setAutoCommit(false);
-        } catch (SQLException e) {
-            throw new OrmException("开始事务失败", e);
-        }
+    public long count(Criteria<?> criteria) {
+        Number value = aggregate(criteria, Aggregate.count());
+        return value == null ? 0L : value.longValue();
     }
     
     /**
-     * 提交事务
+     * 计算满足条件的记录中某个属性的总和，没有记录时返回0
+     * <p>
+     * 结果转换为double，整数列总和超过2^53或DECIMAL列需要精确结果时使用{@link #sumLong}或{@link #sumDecimal}。
+     * @param criteria 条件查询
+     * @param field 属性名
+     * @return 总和
      */
-    public void commit() {
-        try {
-            connection.commit();
-            connection.setAutoCommit(true);
-        } catch (SQLException e) {
-            throw new OrmException("提交事务失败", e);
-        }
+    public double sum(Criteria<?> criteria, String field) {
+        Number value = aggregate(criteria, Aggregate.sum(field));
+        return value == null ? 0d : value.doubleValue();
     }
     
     /**
-     * 回滚事务
+     * 计算满足条件的记录中整数属性的精确总和，没有记录时返回0
+     * @param criteria 条件查询
+     * @param field 属性名（整数类型）
+     * @return 总和
      */
-    public void rollback() {
-        try {
-            connection.rollback();
-            connection.setAutoCommit(true);
-        } catch (SQLException e) {
-            throw new OrmException("回滚事务失败", e);
+    public long sumLong(Criteria<?> criteria, String field) {
+        Number value = aggregate(criteria, Aggregate.sum(field));
+        if (value instanceof BigDecimal) {
+            try {
+                return ((BigDecimal) value).longValueExact();
+            } catch (ArithmeticException e) {
+                throw new OrmException("属性" + field + "的总和" + value + "不是long范围内的整数", e);
+            }
         }
+        return value == null ? 0L : value.longValue();
     }
     
     /**
-     * 关闭会话
+     * 计算满足条件的记录中某个属性的精确总和，适用于DECIMAL金额列，没有记录时返回0
+     * @param criteria 条件查询
+     * @param field 属性名
+     * @return 总和
      */
-    public void close() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-            }
-        } catch (SQLException e) {
-            throw new OrmException("关闭会话失败", e);
+    public BigDecimal sumDecimal(Criteria<?> criteria, String field) {
+        Number value = aggregate(criteria, Aggregate.sum(field));
+        if (value == null) {
+            return BigDecimal.ZERO;
         }
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        return value instanceof Double ? BigDecimal.valueOf(value.doubleValue()) : BigDecimal.valueOf(value.longValue());
     }
     
     /**
-     * 设置PreparedStatement的参数
-     * @param stmt PreparedStatement对象
-     * @param params 参数列表
-     * @throws SQLException SQL异常
+     * 计算满足条件的记录中某个属性的平均值，没有记录时返回NaN
+     * @param criteria 条件查询
+     * @param field 属性名
+     * @return 平均值
      */
-    private void setParameters(PreparedStatement stmt, List<Object> params) throws SQLException {
-        if (params != null) {
-            for (int i = 0; i < params.size(); i++) {
-                stmt.setObject(i + 1, params.get(i));
-            }
-        }
+    public double avg(Criteria<?> criteria, String field) {
+        return toDouble(aggregate(criteria, Aggregate.avg(field)));
     }
     
     /**
-     * 将ResultSet映射为实体对象
-     * @param rs ResultSet对象
-     * @param clazz 实体类Class对象
-     * @param <T> 实体类型
-     * @return 实体对象
-     * @throws SQLException SQL异常
+     * 计算满足条件的记录中某个属性的最小值，没有记录时返回NaN
+     * @param criteria 条件查询
+     * @param field 属性名（数值类型）
+     * @return 最小值
      */
+    public double min(Criteria<?> criteria, String field) {
+        return toDouble(aggregate(criteria, Aggregate.min(field)));
+    }
+    
     /**
-     * 执行自定义SQL查询，返回Map列表
-     * @param sql SQL语句
-     * @param params 参数列表
-     * @return Map列表（列名 -> 值）
+     * 计算满足条件的记录中某个属性的最大值，没有记录时返回NaN
+     * @param criteria 条件查询
+     * @param field 属性名（数值类型）
+     * @return 最大值
      */
-    public List<Map<String, Object>> queryForMap(String sql, List<Object> params) {
-        List<Map<String, Object>> results = new ArrayList<>();
+    public double max(Criteria<?> criteria, String field) {
+        return toDouble(aggregate(criteria, Aggregate.max(field)));
+    }
+    
+    /**
+     * 按单个属性分组统计
+     * @param criteria 条件查询，其中的排序属性必须是分组属性
+     * @param groupField 分组属性名
+     * @param aggregates 聚合函数（数值类型）
+     * @return 分组统计结果
+     */
+    public List<GroupRow> groupBy(Criteria<?> criteria, String groupField, Aggregate... aggregates) {
+        return groupBy(criteria, Collections.singletonList(groupField), aggregates);
+    }
+    
+    /**
+     * 按多个属性分组统计，统计在数据库端完成，不加载实体对象
+     * @param criteria 条件查询，其中的排序属性必须是分组属性
+     * @param groupFields 分组属性名列表
+     * @param aggregates 聚合函数（数值类型）
+     * @return 分组统计结果
+     */
+    public List<GroupRow> groupBy(Criteria<?> criteria, List<String> groupFields, Aggregate... aggregates) {
+        if (criteria == null) {
+            throw new OrmException("查询条件不能为空");
+        }
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            setParameters(stmt, params);
-            
-            logger.debug("执行SQL: {}", sql);
-            logger.debug("参数: {}", params);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                ResultSetMetaData metaData = rs.getMetaData();
-                int columnCount = metaData.getColumnCount();
-                
-                while (rs.next()) {
-                    Map<String, Object> row = new HashMap<>();
-                    for (int i = 1; i <= columnCount; i++) {
-                        String columnName = metaData.getColumnLabel(i);
-                        Object value = rs.getObject(i);
-                        row.put(columnName, value);
-                    }
-                    results.add(row);
+        if (groupFields == null || groupFields.isEmpty()) {
+            throw new OrmException("分组属性不能为空");
+        }
+        
+        SqlBuilder.SqlAndParams sqlAndParams = CriteriaCompiler.compileAggregate(
+                criteria, groupFields, Arrays.asList(aggregates));
+        int keyCount = groupFields.size();
+        int valueCount = aggregates.length;
+        Class<?> clazz = criteria.getEntityClass();
+        
+        return executeCachedQuery(sqlAndParams.getSql(), sqlAndParams.getParams(), rs -> {
+            List<GroupRow> rows = new ArrayList<>();
+            while (rs.next()) {
+                Object[] keys = new Object[keyCount];
+                for (int i = 0; i < keyCount; i++) {
+                    keys[i] = rs.getObject(i + 1);
+                }
+                Number[] values = new Number[valueCount];
+                for (int i = 0; i < valueCount; i++) {
+                    values[i] = aggregates[i].read(rs, keyCount + i + 1, clazz);
                 }
+                rows.add(new GroupRow(keys, values));
             }
-        } catch (SQLException e) {
-            throw new OrmException("执行SQL查询失败: " + sql, e);
+            return rows;
+        });
+    }
+    
+    private Number aggregate(Criteria<?> criteria, Aggregate aggregate) {
+        if (criteria == null) {
+            throw new OrmException("查询条件不能为空");
         }
         
-        return results;
+        SqlBuilder.SqlAndParams sqlAndParams = CriteriaCompiler.compileAggregate(
+                criteria, Collections.emptyList(), Collections.singletonList(aggregate));
+        
+        return executeCachedQuery(sqlAndParams.getSql(), sqlAndParams.getParams(), rs -> {
+            return rs.next() ? aggregate.read(rs, 1, criteria.getEntityClass()) : null;
+        });
+    }
+    
+    private static double toDouble(Number value) {
+        return value == null ? Double.NaN : value.doubleValue();
     }
     
     /**
-     * 获取Mapper接口的实现
-     * @param mapperInterface Mapper接口的Class对象
-     * @param <T> Mapper接口类型
-     * @return Mapper接口的实现
+     * 只查询实体类的部分字段，未查询的字段保持为null
+     * @param clazz 实体类Class对象
+     * @param fieldNames 需要查询的字段名（实体类属性名）
+     * @param <T> 实体类型
+     * @return 实体对象列表
      */
-    public <T> T getMapper(Class<T> mapperInterface) {
-        // 延迟导入MapperProxyFactory，避免循环依赖
-        return new com.myorm.core.MapperProxyFactory(this).createMapper(mapperInterface);
+    public <T> List<T> project(Class<T> clazz, String... fieldNames) {
+        return project(clazz, clazz, null, fieldNames);
     }
-    
-    private <T> T mapResultSetToEntity(ResultSet rs, Class<T> clazz) throws SQLException {
-        ResultSetMetaData metaData = rs.getMetaData();
-        int columnCount = metaData.getColumnCount();
-        
-        Map<String, Object> columnValues = new HashMap<>();
-        for (int i = 1; i <= columnCount; i++) {
-            String columnName = metaData.getColumnLabel(i);
-            Object value = rs.getObject(i);
-            columnValues.put(columnName, value);
+
+    /**
+     * 只查询实体类的部分字段，并映射到结果类（如DTO）
+     * 结果类的属性需要使用@Column注解，列名与实体类保持一致
+     * @param entityClass 实体类Class对象
+     * @param resultClass 结果类Class对象
+     * @param fieldNames 需要查询的字段名（实体类属性名）
+     * @param <T> 实体类型
+     * @param <R> 结果类型
+     * @return 结果对象列表
+     */
+    public <T, R> List<R> project(Class<T> entityClass, Class<R> resultClass, String... fieldNames) {
+        return project(entityClass, resultClass, null, fieldNames);
+    }
+
+    /**
+     * 根据条件只查询实体类的部分字段，并映射到结果类（如DTO）
+     * @param entityClass 实体类Class对象
+     * @param resultClass 结果类Class对象
+     * @param conditions 条件映射（列名 -> 值），可以为空
+     * @param fieldNames 需要查询的字段名（实体类属性名）
+     * @param <T> 实体类型
+     * @param <R> 结果类型
+     * @return 结果对象列表
+     */
+    public <T, R> List<R> project(Class<T> entityClass, Class<R> resultClass,
+            Map<String, Object> conditions, String... fieldNames) {
+        if (entityClass == null || resultClass == null) {
+            throw new OrmException("实体类不能为空");
         }
-        
-        return ReflectionUtil.mapToEntity(clazz, columnValues);
+
+        SqlBuilder.SqlAndParams sqlAndParams = SqlBuilder.buildSelectFieldsSql(
+                entityClass, Arrays.asList(fieldNames), conditions);
+
+        return query(sqlAndParams.getSql(), sqlAndParams.getParams(), resultClass);
+    }
+
+    /**
+     * 加载实体对象的延迟加载列，并设置到实体对象中
+     * @param entity 实体对象
+     * @param fieldName 延迟加载字段名（实体类属性名）
+     * @param <T> 实体类型
+     * @return 加载的值
+     */
+    public <T> Object fetchLazy(T entity, String fieldName) {
+        if (entity == null) {
+            throw new OrmException("实体对象不能为空");
+        }
+
+        Class<?> clazz = entity.getClass();
+        Field field = ReflectionUtil.getColumnField(clazz, fieldName);
+        Object id = getPrimaryKeyValue(entity);
+
+        SqlBuilder.SqlAndParams sqlAndParams = SqlBuilder.buildSelectColumnByIdSql(clazz, field, id);
+        String sql = sqlAndParams.getSql();
+        List<Object> params = sqlAndParams.getParams();
+
+        try {
+            Object[] row = runQuery(sql, params,
+                    rs -> rs.next() ? readRow(rs, 1) : null);
+            if (row == null) {
+                return null;
+            }
+
+            Object value = ReflectionUtil.convertValueType(row[0], field.getType());
+            field.set(entity, value);
+            return value;
+        } catch (SQLException | IllegalAccessException e) {
+            throw new OrmException("加载延迟加载列失败", e);
+        }
+    }
+
+    /**
+     * 把实体对象的延迟加载列在数据库中清空为NULL，并把实体对象的字段设置为null
+     * <p>
+     * {@link #update(Object)}会跳过值为null的延迟加载列（无法区分未加载和有意清空），清空时需要使用本方法。
+     * @param entity 实体对象
+     * @param fieldName 延迟加载字段名（实体类属性名）
+     * @param <T> 实体类型
+     * @return 受影响的行数
+     */
+    public <T> int clearLazy(T entity, String fieldName) {
+        if (entity == null) {
+            throw new OrmException("实体对象不能为空");
+        }
+
+        Class<?> clazz = entity.getClass();
+        Field field = ReflectionUtil.getColumnField(clazz, fieldName);
+        if (!ReflectionUtil.isLazy(field)) {
+            throw new OrmException("字段" + fieldName + "不是延迟加载列，请直接使用update");
+        }
+        Object id = getPrimaryKeyValue(entity);
+
+        SqlBuilder.SqlAndParams sqlAndParams = SqlBuilder.buildClearColumnByIdSql(clazz, field, id);
+        try {
+            int rows = runUpdate(sqlAndParams.getSql(), sqlAndParams.getParams());
+            field.set(entity, null);
+            return rows;
+        } catch (SQLException | IllegalAccessException e) {
+            throw new OrmException("清空延迟加载列失败", e);
+        }
+    }
+
+    /**
+     * 批量加载一组实体对象的延迟加载列，每批使用一条IN查询
+     * @param entities 实体对象列表（必须是同一实体类）
+     * @param fieldName 延迟加载字段名（实体类属性名）
+     * @param <T> 实体类型
+     */
+    public <T> void fetchLazy(List<T> entities, String fieldName) {
+        if (entities == null || entities.isEmpty()) {
+            return;
+        }
+
+        Class<?> clazz = entities.get(0).getClass();
+        Field field = ReflectionUtil.getColumnField(clazz, fieldName);
+        Field primaryKeyField = ReflectionUtil.getPrimaryKeyField(clazz);
+
+        Map<Object, List<T>> entitiesById = new LinkedHashMap<>();
+        for (T entity : entities) {
+            entitiesById.computeIfAbsent(getPrimaryKeyValue(entity), k -> new ArrayList<>()).add(entity);
+        }
+
+        List<Object> ids = new ArrayList<>(entitiesById.keySet());
+        for (int from = 0; from < ids.size(); from += LAZY_FETCH_BATCH_SIZE) {
+            List<Object> batchIds = ids.subList(from, Math.min(from + LAZY_FETCH_BATCH_SIZE, ids.size()));
+            SqlBuilder.SqlAndParams sqlAndParams = SqlBuilder.buildSelectColumnByIdsSql(clazz, field, batchIds);
+            String sql = sqlAndParams.getSql();
+            List<Object> params = sqlAndParams.getParams();
+
+            try {
+                List<Object[]> rows = runQuery(sql, params, rs -> readRows(rs, 2));
+                for (Object[] row : rows) {
+                    Object id = ReflectionUtil.convertValueType(row[0], primaryKeyField.getType());
+                    Object value = ReflectionUtil.convertValueType(row[1], field.getType());
+                    for (T entity : entitiesById.getOrDefault(id, Collections.emptyList())) {
+                        field.set(entity, value);
+                    }
+                }
+            } catch (SQLException | IllegalAccessException e) {
+                throw new OrmException("批量加载延迟加载列失败", e);
+            }
+        }
+    }
+
+    /**
+     * 以二进制流的方式读取大字段，值不会被完整加载到内存中
+     * 调用方必须关闭返回的流
+     * @param clazz 实体类Class对象
+     * @param id 主键值
+     * @param fieldName 字段名（实体类属性名）
+     * @return 二进制输入流，如果记录或值不存在则返回null
+     */
+    public InputStream openBinaryStream(Class<?> clazz, Object id, String fieldName) {
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            rs = openColumnById(clazz, id, fieldName);
+            stmt = (PreparedStatement) rs.getStatement();
+            InputStream in = rs.next() ? rs.getBinaryStream(1) : null;
+            if (in == null) {
+                LobStreams.closeQuietly(rs, stmt);
+                return null;
+            }
+            return new LobStreams.LobInputStream(in, rs, stmt);
+        } catch (SQLException e) {
+            LobStreams.closeQuietly(rs, stmt);
+            throw new OrmException("打开大字段二进制流失败", e);
+        }
+    }
+
+    /**
+     * 以字符流的方式读取大文本字段，值不会被完整加载到内存中
+     * 调用方必须关闭返回的流
+     * @param clazz 实体类Class对象
+     * @param id 主键值
+     * @param fieldName 字段名（实体类属性名）
+     * @return 字符流，如果记录或值不存在则返回null
+     */
+    public Reader openCharacterStream(Class<?> clazz, Object id, String fieldName) {
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            rs = openColumnById(clazz, id, fieldName);
+            stmt = (PreparedStatement) rs.getStatement();
+            Reader reader = rs.next() ? rs.getCharacterStream(1) : null;
+            if (reader == null) {
+                LobStreams.closeQuietly(rs, stmt);
+                return null;
+            }
+            return new LobStreams.LobReader(reader, rs, stmt);
+        } catch (SQLException e) {
+            LobStreams.closeQuietly(rs, stmt);
+            throw new OrmException("打开大字段字符流失败", e);
+        }
+    }
+
+    /**
+     * 查询单个实体的某一列，返回的结果集及其语句由调用方关闭；读取流的时间不计入指标
+     */
+    private ResultSet openColumnById(Class<?> clazz, Object id, String fieldName) throws SQLException {
+        if (clazz == null) {
+            throw new OrmException("实体类不能为空");
+        }
+
+        if (id == null) {
+            throw new OrmException("主键值不能为空");
+        }
+
+        Field field = ReflectionUtil.getColumnField(clazz, fieldName);
+        SqlBuilder.SqlAndParams sqlAndParams = SqlBuilder.buildSelectColumnByIdSql(clazz, field, id);
+        String sql = sqlAndParams.getSql();
+        List<Object> params = sqlAndParams.getParams();
+
+        StatementTimer timer = startTimer(sql, params);
+        PreparedStatement stmt = readConnection().prepareStatement(sql);
+        try {
+            setParameters(stmt, params);
+            timer.prepared();
+            ResultSet rs = stmt.executeQuery();
+            timer.executed();
+            return rs;
+        } catch (SQLException | RuntimeException e) {
+            timer.failed(e);
+            stmt.close();
+            throw e;
+        } finally {
+            timer.finish();
+        }
+    }
+
+    private Object getPrimaryKeyValue(Object entity) {
+        Field primaryKeyField = ReflectionUtil.getPrimaryKeyField(entity.getClass());
+        if (primaryKeyField == null) {
+            throw new OrmException("实体类" + entity.getClass().getName() + "没有定义主键字段");
+        }
+
+        try {
+            Object id = primaryKeyField.get(entity);
+            if (id == null) {
+                throw new OrmException("主键值不能为空");
+            }
+            return id;
+        } catch (IllegalAccessException e) {
+            throw new OrmException("无法访问主键字段" + primaryKeyField.getName(), e);
+        }
+    }
+
+    /**
+     * 批量加载一组实体对象的关联属性（@OneToMany/@ManyToOne）
+     * 每批关联实体只使用一条IN查询，避免逐个实体查询造成的N+1问题
+     * @param entities 实体对象列表（必须是同一实体类）
+     * @param fieldName 关联字段名
+     * @param <T> 实体类型
+     */
+    public <T> void fetch(List<T> entities, String fieldName) {
+        new AssociationLoader(this).fetch(entities, fieldName);
+    }
+
+    /**
+     * 加载单个实体对象的关联属性（@OneToMany/@ManyToOne）
+     * @param entity 实体对象
+     * @param fieldName 关联字段名
+     * @param <T> 实体类型
+     */
+    public <T> void fetch(T entity, String fieldName) {
+        if (entity == null) {
+            throw new OrmException("实体对象不能为空");
+        }
+
+        new AssociationLoader(this).fetch(Collections.singletonList(entity), fieldName);
+    }
+
+    /**
+     * 使用连接查询一次加载所有实体对象及其一对多关联，父实体按主键去重
+     * @param clazz 实体类Class对象
+     * @param fieldName 一对多关联字段名
+     * @param <T> 实体类型
+     * @return 实体对象列表（按主键排序）
+     */
+    public <T> List<T> findAllJoinFetch(Class<T> clazz, String fieldName) {
+        if (clazz == null) {
+            throw new OrmException("实体类不能为空");
+        }
+
+        return new AssociationLoader(this).findAllJoinFetch(clazz, fieldName);
+    }
+
+    /**
+     * 执行自定义SQL查询，由结果集处理器直接处理ResultSet
+     * @param sql SQL语句
+     * @param params 参数列表
+     * @param handler 结果集处理器
+     * @param <R> 处理结果类型
+     * @return 处理结果
+     */
+    public <R> R executeQuery(String sql, List<Object> params, ResultSetHandler<R> handler) {
+        return executeQuery(sql, params, stmt -> setParameters(stmt, params), handler);
+    }
+
+    /**
+     * 执行查询，参数由绑定器直接写入预编译语句
+     * @param sql SQL语句
+     * @param binder 参数绑定器
+     * @param handler 结果集处理器
+     * @param <R> 处理结果类型
+     * @return 处理结果
+     */
+    public <R> R executeQuery(String sql, StatementBinder binder, ResultSetHandler<R> handler) {
+        return executeQuery(sql, null, binder, handler);
+    }
+
+    private <R> R executeQuery(String sql, List<Object> params, StatementBinder binder, ResultSetHandler<R> handler) {
+        if (sql == null || sql.trim().isEmpty()) {
+            throw new OrmException("SQL语句不能为空");
+        }
+
+        try {
+            return runQuery(sql, params, binder, handler);
+        } catch (SQLException e) {
+            throw new OrmException("执行查询失败", e);
+        }
+    }
+
+    /**
+     * 以游标方式执行查询，遍历游标时才逐行读取和映射结果
+     * @param sql SQL语句
+     * @param params 参数列表
+     * @param clazz 实体类Class对象
+     * @param <T> 实体类型
+     * @return 游标，使用完毕后需要关闭
+     */
+    public <T> Cursor<T> queryCursor(String sql, List<Object> params, Class<T> clazz) {
+        return queryCursor(sql, params, stmt -> setParameters(stmt, params), clazz);
+    }
+    
+    /**
+     * 以游标方式执行查询，参数由绑定器直接写入预编译语句
+     * @param sql SQL语句
+     * @param binder 参数绑定器
+     * @param clazz 实体类Class对象
+     * @param <T> 实体类型
+     * @return 游标，使用完毕后需要关闭
+     */
+    public <T> Cursor<T> queryCursor(String sql, StatementBinder binder, Class<T> clazz) {
+        return queryCursor(sql, null, binder, clazz);
+    }
+    
+    private <T> Cursor<T> queryCursor(String sql, List<Object> params, StatementBinder binder, Class<T> clazz) {
+        if (sql == null || sql.trim().isEmpty()) {
+            throw new OrmException("SQL语句不能为空");
+        }
+        
+        if (clazz == null) {
+            throw new OrmException("实体类不能为空");
+        }
+        
+        // 游标的计时器在游标关闭时结束
+        StatementTimer timer = startTimer(sql, params);
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = readConnection().prepareStatement(sql);
+            stmt.setFetchSize(CURSOR_FETCH_SIZE);
+            binder.bind(stmt);
+            timer.prepared();
+            rs = stmt.executeQuery();
+            timer.executed();
+            Cursor<T> cursor = new Cursor<>(this, stmt, rs, clazz, timer);
+            openCursors.add(cursor);
+            return cursor;
+        } catch (SQLException | RuntimeException e) {
+            LobStreams.closeQuietly(rs, stmt);
+            timer.failed(e);
+            timer.finish();
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new OrmException("执行查询失败", e);
+        }
+    }
+    
+    /**
+     * 执行更新，参数由绑定器直接写入预编译语句
+     * @param sql SQL语句
+     * @param binder 参数绑定器
+     * @return 受影响的行数
+     */
+    public int executeUpdate(String sql, StatementBinder binder) {
+        if (sql == null || sql.trim().isEmpty()) {
+            throw new OrmException("SQL语句不能为空");
+        }
+
+        try {
+            return runUpdate(sql, null, binder);
+        } catch (SQLException e) {
+            throw new OrmException("执行更新失败", e);
+        }
+    }
+
+    /**
+     * 批量执行更新，每组参数作为同一条预编译语句中的一条批处理语句
+     * @param sql SQL语句
+     * @param batchParams 每条语句的参数列表
+     * @return 每条语句受影响的行数
+     */
+    public int[] executeBatch(String sql, List<List<Object>> batchParams) {
+        return executeBatch(sql, batchParams, DEFAULT_BATCH_SIZE);
+    }
+    
+    /**
+     * 批量执行更新，每累积batchSize条语句提交一次，避免驱动一次缓存过多参数
+     * @param sql SQL语句
+     * @param batchParams 每条语句的参数列表
+     * @param batchSize 每次提交的最大语句数
+     * @return 每条语句受影响的行数
+     */
+    public int[] executeBatch(String sql, List<List<Object>> batchParams, int batchSize) {
+        if (sql == null || sql.trim().isEmpty()) {
+            throw new OrmException("SQL语句不能为空");
+        }
+        if (batchSize <= 0) {
+            throw new OrmException("批量大小必须大于0");
+        }
+        
+        int[] counts = new int[batchParams.size()];
+        if (batchParams.isEmpty()) {
+            return counts;
+        }
+        // 绑定参数计入准备阶段，各次executeBatch计入执行阶段
+        StatementTimer timer = startTimer(sql, null);
+        long executeNanos = 0;
+        written = true;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int executed = 0;
+            for (int i = 0; i < batchParams.size(); i++) {
+                setParameters(stmt, batchParams.get(i));
+                stmt.addBatch();
+                if (i + 1 - executed == batchSize || i + 1 == batchParams.size()) {
+                    long since = timer.now();
+                    int[] result = stmt.executeBatch();
+                    executeNanos += timer.now() - since;
+                    System.arraycopy(result, 0, counts, executed, result.length);
+                    executed = i + 1;
+                }
+            }
+            for (int count : counts) {
+                timer.addRows(Math.max(count, 0));
+            }
+            return counts;
+        } catch (SQLException | RuntimeException e) {
+            timer.failed(e);
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new OrmException("批量执行更新失败", e);
+        } finally {
+            timer.executedBatch(executeNanos);
+            timer.finish();
+        }
+    }
+    
+    /**
+     * 使用会话内缓存的预编译语句执行查询
+     * @param sql SQL语句
+     * @param params 参数列表
+     * @param handler 结果集处理器
+     * @param <R> 处理结果类型
+     * @return 处理结果
+     */
+    <R> R executeCachedQuery(String sql, List<Object> params, ResultSetHandler<R> handler) {
+        return executeCachedQuery(sql, params, 0, handler);
+    }
+    
+    /**
+     * 使用会话内缓存的预编译语句执行查询，并限制最多读取的行数
+     * @param sql SQL语句
+     * @param params 参数列表
+     * @param maxRows 最多读取的行数，0表示不限制
+     * @param handler 结果集处理器
+     * @param <R> 处理结果类型
+     * @return 处理结果
+     */
+    <R> R executeCachedQuery(String sql, List<Object> params, int maxRows, ResultSetHandler<R> handler) {
+        return executeCachedQuery(sql, params, maxRows, stmt -> setParameters(stmt, params), handler);
+    }
+    
+    /**
+     * 使用会话内缓存的预编译语句执行查询，参数由绑定器直接写入，供生成的Mapper实现类使用
+     * <p>
+     * 绑定前语句的最大行数被重置为不限制，绑定器可以再调用{@code setMaxRows}限制读取的行数。
+     * @param sql SQL语句
+     * @param binder 参数绑定器
+     * @param handler 结果集处理器
+     * @param <R> 处理结果类型
+     * @return 处理结果
+     */
+    public <R> R executeCachedQuery(String sql, StatementBinder binder, ResultSetHandler<R> handler) {
+        if (sql == null || sql.trim().isEmpty()) {
+            throw new OrmException("SQL语句不能为空");
+        }
+        return executeCachedQuery(sql, null, 0, binder, handler);
+    }
+    
+    private <R> R executeCachedQuery(String sql, List<Object> params, int maxRows, StatementBinder binder,
+                                     ResultSetHandler<R> handler) {
+        StatementTimer timer = startTimer(sql, params);
+        StatementCache cache = statementCache;
+        try {
+            Connection readConnection = readConnection();
+            if (readConnection != connection) {
+                cache = replicaStatementCache;
+            }
+            PreparedStatement stmt = cache.prepare(readConnection, sql);
+            // 缓存的语句可能被其他方法以不同的行数限制使用过
+            if (stmt.getMaxRows() != maxRows) {
+                stmt.setMaxRows(maxRows);
+            }
+            binder.bind(stmt);
+            timer.prepared();
+            try (ResultSet rs = stmt.executeQuery()) {
+                timer.executed();
+                return handle(rs, handler, timer);
+            }
+        } catch (SQLException e) {
+            timer.failed(e);
+            cache.evict(sql);
+            throw new OrmException("执行查询失败", e);
+        } catch (RuntimeException e) {
+            timer.failed(e);
+            throw e;
+        } finally {
+            timer.finish();
+        }
+    }
+    
+    /**
+     * 执行自定义SQL查询
+     * @param sql SQL语句
+     * @param params 参数列表
+     * @param clazz 实体类Class对象
+     * @param <T> 实体类型
+     * @return 实体对象列表
+     */
+    public <T> List<T> query(String sql, List<Object> params, Class<T> clazz) {
+        if (sql == null || sql.trim().isEmpty()) {
+            throw new OrmException("SQL语句不能为空");
+        }
+        
+        if (clazz == null) {
+            throw new OrmException("实体类不能为空");
+        }
+        
+        try {
+            return runQuery(sql, params, rs -> mapRows(rs, clazz));
+        } catch (SQLException e) {
+            throw new OrmException("执行查询失败", e);
+        }
+    }
+    
+    /**
+     * 执行自定义SQL更新
+     * @param sql SQL语句
+     * @param params 参数列表
+     * @return 受影响的行数
+     */
+    public int execute(String sql, List<Object> params) {
+        if (sql == null || sql.trim().isEmpty()) {
+            throw new OrmException("SQL语句不能为空");
+        }
+        
+        try {
+            return runUpdate(sql, params);
+        } catch (SQLException e) {
+            throw new OrmException("执行更新失败", e);
+        }
+    }
+    
+    /**
+     * 开始事务
+     */
+    public void beginTransaction() {
+        try {
+            connection.setAutoCommit(false);
+            transactionId = ++transactionCount;
+            transactionEvent = TransactionEvent.start();
+        } catch (SQLException e) {
+            throw new OrmException("开始事务失败", e);
+        }
+    }
+    
+    /**
+     * 提交事务
+     */
+    public void commit() {
+        long since = transactionEvent != null ? System.nanoTime() : 0;
+        try {
+            connection.commit();
+            connection.setAutoCommit(true);
+            transactionId = 0;
+            endTransactionEvent(TransactionEvent.COMMIT, since);
+        } catch (SQLException e) {
+            endTransactionEvent(null, since);
+            throw new OrmException("提交事务失败", e);
+        }
+    }
+    
+    /**
+     * 回滚事务
+     */
+    public void rollback() {
+        long since = transactionEvent != null ? System.nanoTime() : 0;
+        try {
+            connection.rollback();
+            connection.setAutoCommit(true);
+            transactionId = 0;
+            endTransactionEvent(TransactionEvent.ROLLBACK, since);
+        } catch (SQLException e) {
+            endTransactionEvent(null, since);
+            throw new OrmException("回滚事务失败", e);
+        }
+    }
+    
+    /**
+     * 会话是否处于事务中
+     * @return 是否已开始事务且尚未提交或回滚
+     */
+    public boolean isInTransaction() {
+        return transactionId != 0;
+    }
+    
+    /**
+     * 在当前事务中创建保存点，用于嵌套事务
+     * @return 保存点
+     */
+    public Savepoint setSavepoint() {
+        if (!isInTransaction()) {
+            throw new OrmException("不在事务中，无法创建保存点");
+        }
+        try {
+            return connection.setSavepoint();
+        } catch (SQLException e) {
+            throw new OrmException("创建保存点失败", e);
+        }
+    }
+    
+    /**
+     * 回滚到保存点，保存点之前的操作不受影响
+     * @param savepoint 保存点
+     */
+    public void rollbackToSavepoint(Savepoint savepoint) {
+        try {
+            connection.rollback(savepoint);
+        } catch (SQLException e) {
+            throw new OrmException("回滚到保存点失败", e);
+        }
+    }
+    
+    /**
+     * 释放保存点，驱动不支持时忽略
+     * @param savepoint 保存点
+     */
+    public void releaseSavepoint(Savepoint savepoint) {
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            logger.debug("释放保存点失败", e);
+        }
+    }
+    
+    /**
+     * 设置连接的只读提示，数据库可以据此优化查询或拒绝写操作，必须在开始事务之前设置
+     * @param readOnly 是否只读
+     */
+    public void setReadOnly(boolean readOnly) {
+        try {
+            connection.setReadOnly(readOnly);
+            this.readOnly = readOnly;
+        } catch (SQLException e) {
+            throw new OrmException("设置只读连接失败", e);
+        }
+    }
+    
+    /**
+     * 是否设置了只读提示，部分驱动（如H2）不会通过连接反映这一提示
+     * @return 是否只读
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+    
+    /**
+     * 提交当前事务的JFR事件
+     * @param outcome 事务结果，提交或回滚失败时为null
+     * @param since 开始提交或回滚的时间
+     */
+    private void endTransactionEvent(String outcome, long since) {
+        TransactionEvent event = transactionEvent;
+        if (event == null) {
+            return;
+        }
+        transactionEvent = null;
+        event.end();
+        if (event.shouldCommit()) {
+            event.outcome = outcome;
+            event.completionTime = System.nanoTime() - since;
+            event.commit();
+        }
+    }
+    
+    /**
+     * 游标关闭时调用，不再由会话跟踪
+     * @param cursor 游标
+     */
+    void cursorClosed(Cursor<?> cursor) {
+        openCursors.remove(cursor);
+    }
+    
+    /**
+     * 关闭会话，同时关闭会话打开的所有游标
+     */
+    public void close() {
+        for (Cursor<?> cursor : new ArrayList<>(openCursors)) {
+            cursor.close();
+        }
+        statementCache.clear();
+        closeReplicaConnection();
+        if (leasedReplica >= 0 && !closed) {
+            replicaRouter.release(leasedReplica);
+        }
+        closed = true;
+        for (StatementListener listener : listeners) {
+            try {
+                listener.sessionClosed(id);
+            } catch (RuntimeException e) {
+                logger.warn("语句监听器{}处理会话关闭失败", listener.getClass().getName(), e);
+            }
+        }
+        try {
+            if (connection != null && !connection.isClosed()) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            throw new OrmException("关闭会话失败", e);
+        }
+    }
+    
+    /**
+     * 获取会话编号，在进程内唯一，用于在语句监听器中区分会话
+     * @return 会话编号
+     */
+    public long getId() {
+        return id;
+    }
+    
+    private <R> R runQuery(String sql, List<Object> params, ResultSetHandler<R> handler) throws SQLException {
+        List<Object> values = params != null ? params : Collections.emptyList();
+        return runQuery(sql, values, stmt -> setParameters(stmt, values), handler);
+    }
+    
+    /**
+     * 准备语句、绑定参数、执行查询并处理结果集，记录各阶段的耗时
+     * @param sql SQL语句
+     * @param params 参数列表，只用于通知语句监听器，参数由绑定器写入时为null
+     * @param binder 参数绑定器
+     * @param handler 结果集处理器
+     * @param <R> 处理结果类型
+     * @return 处理结果
+     * @throws SQLException SQL异常
+     */
+    private <R> R runQuery(String sql, List<Object> params, StatementBinder binder, ResultSetHandler<R> handler)
+            throws SQLException {
+        StatementTimer timer = startTimer(sql, params);
+        try (PreparedStatement stmt = readConnection().prepareStatement(sql)) {
+            binder.bind(stmt);
+            timer.prepared();
+            try (ResultSet rs = stmt.executeQuery()) {
+                timer.executed();
+                return handle(rs, handler, timer);
+            }
+        } catch (SQLException | RuntimeException e) {
+            timer.failed(e);
+            throw e;
+        } finally {
+            timer.finish();
+        }
+    }
+    
+    private int runUpdate(String sql, List<Object> params) throws SQLException {
+        List<Object> values = params != null ? params : Collections.emptyList();
+        return runUpdate(sql, values, stmt -> setParameters(stmt, values));
+    }
+    
+    /**
+     * 准备语句、绑定参数并执行更新，记录各阶段的耗时
+     * @param sql SQL语句
+     * @param params 参数列表，只用于通知语句监听器，参数由绑定器写入时为null
+     * @param binder 参数绑定器
+     * @return 受影响的行数
+     * @throws SQLException SQL异常
+     */
+    private int runUpdate(String sql, List<Object> params, StatementBinder binder) throws SQLException {
+        StatementTimer timer = startTimer(sql, params);
+        written = true;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            binder.bind(stmt);
+            timer.prepared();
+            int rows = stmt.executeUpdate();
+            timer.executed();
+            timer.addRows(rows);
+            return rows;
+        } catch (SQLException | RuntimeException e) {
+            timer.failed(e);
+            throw e;
+        } finally {
+            timer.finish();
+        }
+    }
+    
+    /**
+     * 处理结果集，处理期间映射实体的时间计入计时器的映射阶段，其余时间计入读取阶段
+     */
+    private <R> R handle(ResultSet rs, ResultSetHandler<R> handler, StatementTimer timer) throws SQLException {
+        StatementTimer previous = activeTimer;
+        activeTimer = timer;
+        try {
+            return handler.handle(rs);
+        } finally {
+            activeTimer = previous;
+            timer.fetched();
+        }
+    }
+    
+    /**
+     * 查询使用的连接：配置了副本、不在事务中、并且（开启读己之写时）没有执行过写操作时使用副本连接，
+     * 副本连接在第一次查询时打开，打开失败时退回主连接
+     */
+    private Connection readConnection() {
+        if (replicaRouter == null || leasedReplica >= 0 || transactionId != 0 || (readYourWrites && written)
+                || replicaUnavailable) {
+            return connection;
+        }
+        if (replicaConnection == null) {
+            int index = replicaRouter.select();
+            try {
+                replicaConnection = replicaRouter.open(index);
+            } catch (SQLException e) {
+                replicaRouter.release(index);
+                replicaUnavailable = true;
+                logger.warn("无法连接只读副本，本会话的查询改用主连接", e);
+                return connection;
+            }
+            replicaIndex = index;
+            replicaStatementCache = new StatementCache(STATEMENT_CACHE_SIZE);
+        }
+        return replicaConnection;
+    }
+    
+    private void closeReplicaConnection() {
+        if (replicaConnection == null) {
+            return;
+        }
+        replicaStatementCache.clear();
+        try {
+            replicaConnection.close();
+        } catch (SQLException e) {
+            logger.debug("关闭副本连接失败", e);
+        } finally {
+            replicaConnection = null;
+            replicaRouter.release(replicaIndex);
+            replicaIndex = -1;
+        }
+    }
+    
+    private StatementTimer startTimer(String sql, List<Object> params) {
+        return StatementTimer.start(listeners, sql, params, statementId, id, transactionId);
+    }
+    
+    /**
+     * 标记接下来执行的语句属于某个Mapper方法，供Mapper实现类在方法开始时调用
+     * @param statementId {@code 接口全限定名.方法名}
+     * @return 之前的标记，方法结束时传给{@link #exitStatement(String)}
+     */
+    public String enterStatement(String statementId) {
+        String previous = this.statementId;
+        this.statementId = statementId;
+        return previous;
+    }
+    
+    /**
+     * 恢复{@link #enterStatement(String)}之前的标记
+     * @param previous {@link #enterStatement(String)}的返回值
+     */
+    public void exitStatement(String previous) {
+        this.statementId = previous;
+    }
+    
+    /**
+     * 设置PreparedStatement的参数
+     * @param stmt PreparedStatement对象
+     * @param params 参数列表
+     * @throws SQLException SQL异常
+     */
+    private void setParameters(PreparedStatement stmt, List<Object> params) throws SQLException {
+        if (params != null) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+        }
+    }
+    
+    /**
+     * 将ResultSet映射为实体对象
+     * @param rs ResultSet对象
+     * @param clazz 实体类Class对象
+     * @param <T> 实体类型
+     * @return 实体对象
+     * @throws SQLException SQL异常
+     */
+    /**
+     * 执行自定义SQL查询，返回Map列表
+     * @param sql SQL语句
+     * @param params 参数列表
+     * @return Map列表（列名 -> 值），行可以修改，第一次修改时复制该行
+     */
+    public List<Map<String, Object>> queryForMap(String sql, List<Object> params) {
+        try {
+            return runQuery(sql, params, rs -> {
+                // 所有行共享同一个列头，每行只保存一个值数组
+                RowHeader header = RowHeader.from(rs.getMetaData());
+                List<Map<String, Object>> results = new ArrayList<>();
+                while (rs.next()) {
+                    results.add(new CompactRow(header, readRow(rs, header.getColumnCount())));
+                }
+                activeTimer.addRows(results.size());
+                return results;
+            });
+        } catch (SQLException e) {
+            throw new OrmException("执行SQL查询失败: " + sql, e);
+        }
+    }
+    
+    /**
+     * 执行自定义SQL查询，返回按列顺序排列的值数组列表
+     * @param sql SQL语句
+     * @param params 参数列表
+     * @return 值数组列表
+     */
+    public List<Object[]> queryForArrays(String sql, List<Object> params) {
+        return executeQuery(sql, params, rs -> readRows(rs, rs.getMetaData().getColumnCount()));
+    }
+    
+    /**
+     * 执行自定义SQL查询，读取结果集和映射实体对象以流水线方式并行进行
+     * 当前线程读取原始列值，工作线程按批映射为实体对象，结果保持原有顺序，
+     * 适合列多、类型转换开销大的实体
+     * @param sql SQL语句
+     * @param params 参数列表
+     * @param clazz 实体类Class对象
+     * @param executor 执行映射的线程池
+     * @param <T> 实体类型
+     * @return 实体对象列表
+     */
+    public <T> List<T> queryPipelined(String sql, List<Object> params, Class<T> clazz, ExecutorService executor) {
+        if (clazz == null) {
+            throw new OrmException("实体类不能为空");
+        }
+        
+        if (executor == null) {
+            throw new OrmException("线程池不能为空");
+        }
+        
+        return executeQuery(sql, params, rs -> {
+            StatementTimer timer = activeTimer;
+            List<T> entities = PipelinedReader.read(rs, clazz, executor, PipelinedReader.DEFAULT_BATCH_SIZE,
+                    PIPELINE_MAX_IN_FLIGHT_BATCHES, timer::addMap);
+            timer.addRows(entities.size());
+            return entities;
+        });
+    }
+    
+    /**
+     * 执行自定义SQL查询，使用临时创建的线程池以流水线方式映射实体对象
+     * @param sql SQL语句
+     * @param params 参数列表
+     * @param clazz 实体类Class对象
+     * @param parallelism 映射线程数
+     * @param <T> 实体类型
+     * @return 实体对象列表
+     */
+    public <T> List<T> queryPipelined(String sql, List<Object> params, Class<T> clazz, int parallelism) {
+        if (parallelism <= 0) {
+            throw new OrmException("映射线程数必须大于0");
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "myorm-pipeline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            return queryPipelined(sql, params, clazz, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * 执行自定义SQL查询，以列式结构返回结果
+     * 数值列保存在基本类型数组中，字符串列使用字典编码，适合大量行少量列的统计分析
+     * @param sql SQL语句
+     * @param params 参数列表
+     * @return 列式结果
+     */
+    public ColumnarResult queryColumnar(String sql, List<Object> params) {
+        return executeQuery(sql, params, rs -> {
+            ColumnarResult result = ColumnarResult.read(rs);
+            activeTimer.addRows(result.getRowCount());
+            return result;
+        });
+    }
+    
+    /**
+     * 执行自定义SQL查询，将结果以紧凑的二进制格式缓存在堆外内存中
+     * 使用默认的内存块大小和直接内存上限，超过上限的部分写入临时文件
+     * @param sql SQL语句
+     * @param params 参数列表
+     * @return 堆外结果，使用完毕后必须关闭
+     */
+    public OffHeapResult queryOffHeap(String sql, List<Object> params) {
+        return queryOffHeap(sql, params, OffHeapResult.DEFAULT_CHUNK_SIZE, OffHeapResult.DEFAULT_MAX_DIRECT_BYTES);
+    }
+    
+    /**
+     * 执行自定义SQL查询，将结果以紧凑的二进制格式缓存在堆外内存中
+     * @param sql SQL语句
+     * @param params 参数列表
+     * @param chunkSize 内存块大小（字节）
+     * @param maxDirectBytes 直接内存上限（字节），超过后写入临时文件的内存映射区域
+     * @return 堆外结果，使用完毕后必须关闭
+     */
+    public OffHeapResult queryOffHeap(String sql, List<Object> params, int chunkSize, long maxDirectBytes) {
+        return executeQuery(sql, params, rs -> {
+            OffHeapResult result = OffHeapResult.read(rs, chunkSize, maxDirectBytes);
+            activeTimer.addRows(result.getRowCount());
+            return result;
+        });
+    }
+    
+    /**
+     * 获取Mapper接口的实现
+     * @param mapperInterface Mapper接口的Class对象
+     * @param <T> Mapper接口类型
+     * @return Mapper接口的实现
+     */
+    public <T> T getMapper(Class<T> mapperInterface) {
+        Object mapper = mappers.get(mapperInterface);
+        if (mapper == null) {
+            // 延迟导入MapperProxyFactory，避免循环依赖
+            mapper = new com.myorm.core.MapperProxyFactory(this).createMapper(mapperInterface);
+            mappers.put(mapperInterface, mapper);
+        }
+        return mapperInterface.cast(mapper);
+    }
+    
+    /**
+     * 将ResultSet的当前行映射为实体对象
+     * @param rs ResultSet对象
+     * @param header 结果集的列头
+     * @param clazz 实体类Class对象
+     * @param <T> 实体类型
+     * @return 实体对象
+     * @throws SQLException SQL异常
+     */
+    <T> T mapRow(ResultSet rs, RowHeader header, Class<T> clazz) throws SQLException {
+        return mapResultSetToEntity(rs, header, clazz);
+    }
+    
+    /**
+     * 将ResultSet的当前行映射为实体对象
+     * @param rs ResultSet对象
+     * @param clazz 实体类Class对象
+     * @param <T> 实体类型
+     * @return 实体对象
+     * @throws SQLException SQL异常
+     */
+    public <T> T mapRow(ResultSet rs, Class<T> clazz) throws SQLException {
+        return mapResultSetToEntity(rs, clazz);
+    }
+    
+    /**
+     * 将ResultSet的剩余行全部映射为实体对象
+     * @param rs ResultSet对象
+     * @param clazz 实体类Class对象
+     * @param <T> 实体类型
+     * @return 实体对象列表
+     * @throws SQLException SQL异常
+     */
+    public <T> List<T> mapRows(ResultSet rs, Class<T> clazz) throws SQLException {
+        RowHeader header = RowHeader.from(rs.getMetaData());
+        List<T> results = new ArrayList<>();
+        while (rs.next()) {
+            results.add(mapResultSetToEntity(rs, header, clazz));
+        }
+        return results;
+    }
+    
+    private <T> T mapResultSetToEntity(ResultSet rs, Class<T> clazz) throws SQLException {
+        return mapResultSetToEntity(rs, RowHeader.from(rs.getMetaData()), clazz);
+    }
+    
+    private <T> T mapResultSetToEntity(ResultSet rs, RowHeader header, Class<T> clazz) throws SQLException {
+        StatementTimer timer = activeTimer;
+        long since = timer.now();
+        T entity;
+        RowMapper<T> rowMapper = MappingRegistry.getRowMapper(clazz);
+        if (rowMapper != null) {
+            entity = rowMapper.map(rs, header.jdbcIndexesOf(rowMapper.columns()));
+        } else {
+            Object[] values = readRow(rs, header.getColumnCount());
+            entity = ReflectionUtil.mapToEntity(clazz, new CompactRow(header, values));
+        }
+        timer.addMappedRow(since);
+        return entity;
+    }
+    
+    /**
+     * 读取结果集的剩余行，每行保存为值数组
+     */
+    private List<Object[]> readRows(ResultSet rs, int columnCount) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        while (rs.next()) {
+            rows.add(readRow(rs, columnCount));
+        }
+        activeTimer.addRows(rows.size());
+        return rows;
+    }
+    
+    private static Object[] readRow(ResultSet rs, int columnCount) throws SQLException {
+        Object[] values = new Object[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            values[i] = rs.getObject(i + 1);
+        }
+        return values;
     }
 }
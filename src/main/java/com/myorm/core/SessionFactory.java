@@ -1,10 +1,26 @@
 package com.myorm.core;
 
+import com.myorm.annotation.Mapper;
+import com.myorm.annotation.Select;
 import com.myorm.exception.OrmException;
+import com.myorm.metrics.DefaultMetricsRegistry;
+import com.myorm.metrics.MetricsRegistry;
+import com.myorm.metrics.NPlusOneDetector;
+import com.myorm.metrics.SlowQueryLog;
+import com.myorm.metrics.StatementListener;
+import com.myorm.metrics.StatementTracer;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,11 +28,24 @@ import org.slf4j.LoggerFactory;
 /**
  * 会话工厂类，用于创建和管理数据库会话
  */
-public class SessionFactory {
+public class SessionFactory implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(SessionFactory.class);
     private final String url;
     private final String username;
     private final String password;
+    private final MetricsRegistry metricsRegistry;
+    private final List<StatementListener> listeners;
+    
+    /**
+     * 只读副本的路由，没有配置副本时为null
+     */
+    private final ReplicaRouter replicaRouter;
+    private final boolean readYourWrites;
+    
+    /**
+     * 绑定到当前线程的事务会话，由基于会话工厂的{@link TransactionManager}设置
+     */
+    private final ThreadLocal<Session> boundSessions = new ThreadLocal<>();
     
     /**
      * 创建会话工厂
@@ -25,9 +54,31 @@ public class SessionFactory {
      * @param password 密码
      */
     public SessionFactory(String url, String username, String password) {
+        this(url, username, password, null);
+    }
+    
+    /**
+     * 创建会话工厂
+     * @param url 数据库URL
+     * @param username 用户名
+     * @param password 密码
+     * @param metricsRegistry 语句指标注册表，为null时不记录指标
+     */
+    public SessionFactory(String url, String username, String password, MetricsRegistry metricsRegistry) {
+        this(url, username, password, metricsRegistry,
+                metricsRegistry == null ? Collections.emptyList() : Collections.singletonList(metricsRegistry),
+                null, false);
+    }
+    
+    private SessionFactory(String url, String username, String password, MetricsRegistry metricsRegistry,
+            List<StatementListener> listeners, ReplicaRouter replicaRouter, boolean readYourWrites) {
         this.url = url;
         this.username = username;
         this.password = password;
+        this.metricsRegistry = metricsRegistry;
+        this.listeners = listeners;
+        this.replicaRouter = replicaRouter;
+        this.readYourWrites = readYourWrites;
         
         try {
             // 尝试加载数据库驱动
@@ -49,14 +100,184 @@ public class SessionFactory {
     
     /**
      * 打开一个新的会话
+     * <p>
+     * 配置了只读副本时，会话中不在事务内的查询使用副本连接，写操作和事务使用主连接；
+     * 开启读己之写（默认）时，会话执行过写操作后的查询也改用主连接。
      * @return 会话对象
      */
     public Session openSession() {
+        return new Session(openConnection(), listeners, replicaRouter, -1, readYourWrites);
+    }
+    
+    /**
+     * 打开一个只读会话，所有语句（包括事务）都在一个只读副本上执行；没有配置副本时使用主库并设置只读提示
+     * @return 会话对象
+     */
+    public Session openReadOnlySession() {
+        if (replicaRouter == null) {
+            Session session = openSession();
+            session.setReadOnly(true);
+            return session;
+        }
+        int index = replicaRouter.select();
+        Connection connection;
+        try {
+            connection = replicaRouter.open(index);
+        } catch (SQLException e) {
+            replicaRouter.release(index);
+            throw new OrmException("无法连接只读副本", e);
+        }
+        Session session = new Session(connection, listeners, replicaRouter, index, false);
+        session.setReadOnly(true);
+        return session;
+    }
+    
+    /**
+     * 打开一个不属于任何会话的数据库连接，由调用方负责关闭
+     * @return 数据库连接
+     */
+    public Connection openConnection() {
+        ConnectionAcquireEvent event = new ConnectionAcquireEvent();
+        event.begin();
         try {
             Connection connection = DriverManager.getConnection(url, username, password);
-            return new Session(connection);
+            event.success = true;
+            return connection;
         } catch (SQLException e) {
             throw new OrmException("无法创建数据库连接", e);
+        } finally {
+            if (event.shouldCommit()) {
+                event.url = url;
+                event.commit();
+            }
+        }
+    }
+    
+    /**
+     * 获取绑定到当前线程的事务会话
+     * @return 会话
+     * @throws OrmException 当前线程不在基于此会话工厂的事务中
+     */
+    public Session currentSession() {
+        Session session = boundSessions.get();
+        if (session == null) {
+            throw new OrmException("当前线程没有绑定事务会话");
+        }
+        return session;
+    }
+    
+    /**
+     * 获取Mapper接口的实现，每次调用方法时使用绑定到当前线程的事务会话；
+     * 不在事务中时为每次调用打开一个自动提交的会话，调用结束后关闭，其中{@code @Select}方法使用只读会话
+     * @param mapperInterface Mapper接口的Class对象
+     * @param <T> Mapper接口类型
+     * @return Mapper接口的实现，可以在多个线程间共享
+     */
+    public <T> T getMapper(Class<T> mapperInterface) {
+        if (mapperInterface == null || !mapperInterface.isInterface()
+                || !mapperInterface.isAnnotationPresent(Mapper.class)) {
+            throw new OrmException("Mapper必须是带@Mapper注解的接口");
+        }
+        return mapperInterface.cast(Proxy.newProxyInstance(mapperInterface.getClassLoader(),
+                new Class<?>[]{mapperInterface}, (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return invokeObjectMethod(mapperInterface, proxy, method, args);
+                    }
+                    Session bound = boundSessions.get();
+                    if (bound != null) {
+                        return invokeMapper(bound, mapperInterface, method, args);
+                    }
+                    Class<?> returnType = method.getReturnType();
+                    if (Cursor.class.isAssignableFrom(returnType) || Stream.class.isAssignableFrom(returnType)
+                            || Iterator.class.isAssignableFrom(returnType)) {
+                        throw new OrmException("返回游标或流的Mapper方法必须在事务中调用: " + method.getName());
+                    }
+                    // 不在事务中的@Select方法使用只读副本
+                    Session session = method.isAnnotationPresent(Select.class) ? openReadOnlySession() : openSession();
+                    try {
+                        return invokeMapper(session, mapperInterface, method, args);
+                    } finally {
+                        session.close();
+                    }
+                }));
+    }
+    
+    private static Object invokeMapper(Session session, Class<?> mapperInterface, Method method, Object[] args)
+            throws Throwable {
+        try {
+            return method.invoke(session.getMapper(mapperInterface), args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+    
+    private static Object invokeObjectMethod(Class<?> mapperInterface, Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return "ThreadBoundMapper[" + mapperInterface.getName() + "]";
+        }
+    }
+    
+    /**
+     * 获取绑定到当前线程的事务会话
+     * @return 会话，没有时返回null
+     */
+    Session getBoundSession() {
+        return boundSessions.get();
+    }
+    
+    /**
+     * 把会话绑定到当前线程
+     * @param session 会话，为null时解除绑定
+     * @return 之前绑定的会话
+     */
+    Session bindSession(Session session) {
+        Session previous = boundSessions.get();
+        if (session == null) {
+            boundSessions.remove();
+        } else {
+            boundSessions.set(session);
+        }
+        return previous;
+    }
+    
+    /**
+     * 获取语句指标注册表
+     * @return 指标注册表，没有配置时返回null
+     */
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+    
+    /**
+     * 获取语句监听器
+     * @return 按通知顺序排列的语句监听器
+     */
+    public List<StatementListener> getStatementListeners() {
+        return listeners;
+    }
+    
+    /**
+     * 关闭会话工厂：关闭实现了{@link AutoCloseable}的语句监听器（如慢查询日志），并注销指标MBean。
+     * 已经打开的会话不受影响。
+     */
+    @Override
+    public void close() {
+        for (StatementListener listener : listeners) {
+            if (listener instanceof DefaultMetricsRegistry) {
+                ((DefaultMetricsRegistry) listener).unregisterMBean();
+            }
+            if (listener instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) listener).close();
+                } catch (Exception e) {
+                    logger.warn("关闭语句监听器{}失败", listener.getClass().getName(), e);
+                }
+            }
         }
     }
     
@@ -75,6 +296,13 @@ public class SessionFactory {
         private String url;
         private String username;
         private String password;
+        private MetricsRegistry metricsRegistry;
+        private String metricsMBeanName;
+        private final List<StatementListener> statementListeners = new ArrayList<>();
+        private SlowQueryLog.Builder slowQueryLog;
+        private final List<String> replicaUrls = new ArrayList<>();
+        private ReplicaSelection replicaSelection = ReplicaSelection.ROUND_ROBIN;
+        private boolean readYourWrites = true;
         
         /**
          * 设置数据库URL
@@ -106,6 +334,114 @@ public class SessionFactory {
             return this;
         }
         
+        /**
+         * 添加只读副本，使用与主库相同的用户名和密码
+         * @param url 副本的数据库URL
+         * @return 构建器对象
+         */
+        public Builder replica(String url) {
+            if (url == null || url.trim().isEmpty()) {
+                throw new OrmException("副本URL不能为空");
+            }
+            this.replicaUrls.add(url);
+            return this;
+        }
+        
+        /**
+         * 设置选择副本的方式，默认轮流使用
+         * @param replicaSelection 选择方式
+         * @return 构建器对象
+         */
+        public Builder replicaSelection(ReplicaSelection replicaSelection) {
+            this.replicaSelection = replicaSelection;
+            return this;
+        }
+        
+        /**
+         * 设置会话执行过写操作后，查询是否改用主库以读到自己写入的数据，默认为true
+         * @param readYourWrites 是否开启读己之写
+         * @return 构建器对象
+         */
+        public Builder readYourWrites(boolean readYourWrites) {
+            this.readYourWrites = readYourWrites;
+            return this;
+        }
+        
+        /**
+         * 设置语句指标注册表，会话执行的每条语句都会记录到其中
+         * @param metricsRegistry 指标注册表
+         * @return 构建器对象
+         */
+        public Builder metricsRegistry(MetricsRegistry metricsRegistry) {
+            this.metricsRegistry = metricsRegistry;
+            return this;
+        }
+        
+        /**
+         * 使用默认的指标注册表记录语句指标
+         * @return 构建器对象
+         */
+        public Builder enableMetrics() {
+            this.metricsRegistry = new DefaultMetricsRegistry();
+            return this;
+        }
+        
+        /**
+         * 把默认的指标注册表注册为JMX MXBean，对象名为{@code com.myorm:type=Metrics,name=<name>}
+         * @param name 名称，用于区分多个会话工厂
+         * @return 构建器对象
+         */
+        public Builder metricsMBean(String name) {
+            this.metricsMBeanName = name;
+            return this;
+        }
+        
+        /**
+         * 添加语句监听器，每条语句执行结束时在指标注册表之后按添加顺序通知
+         * @param listener 语句监听器
+         * @return 构建器对象
+         */
+        public Builder statementListener(StatementListener listener) {
+            this.statementListeners.add(listener);
+            return this;
+        }
+        
+        /**
+         * 启用慢查询日志，更多选项可以通过{@link SlowQueryLog#builder()}创建后用{@link #statementListener}添加
+         * @param thresholdMillis 慢查询阈值（毫秒）
+         * @param explain 是否在单独的连接上获取查询语句的执行计划
+         * @return 构建器对象
+         */
+        public Builder slowQueryLog(long thresholdMillis, boolean explain) {
+            this.slowQueryLog = SlowQueryLog.builder().threshold(thresholdMillis);
+            if (explain) {
+                slowQueryLog.explain(() -> DriverManager.getConnection(url, username, password));
+            }
+            return this;
+        }
+        
+        /**
+         * 启用语句跟踪，按采样率把语句异步输出到{@code com.myorm.trace}日志，
+         * 需要脱敏、自定义输出等选项时通过{@link StatementTracer#builder()}创建后用{@link #statementListener}添加
+         * @param sampleRate 0到1之间的采样率
+         * @return 构建器对象
+         */
+        public Builder traceStatements(double sampleRate) {
+            this.statementListeners.add(StatementTracer.builder().sampleRate(sampleRate).build());
+            return this;
+        }
+        
+        /**
+         * 启用N+1查询检测，同一语句在一个会话或事务内执行达到阈值次数时输出警告，
+         * 检测器可以从{@link SessionFactory#getStatementListeners()}中取得以读取统计
+         * @param threshold 阈值
+         * @return 构建器对象
+         */
+        public Builder detectNPlusOne(int threshold) {
+            this.statementListeners.add(new NPlusOneDetector(threshold));
+            return this;
+        }
+        
         /**
          * 构建会话工厂
          * @return 会话工厂对象
@@ -115,7 +451,28 @@ public class SessionFactory {
                 throw new OrmException("数据库URL不能为空");
             }
             
-            return new SessionFactory(url, username, password);
+            if (metricsMBeanName != null) {
+                if (metricsRegistry == null) {
+                    metricsRegistry = new DefaultMetricsRegistry();
+                }
+                if (!(metricsRegistry instanceof DefaultMetricsRegistry)) {
+                    throw new OrmException("只有DefaultMetricsRegistry可以注册为MBean");
+                }
+                ((DefaultMetricsRegistry) metricsRegistry).registerMBean(metricsMBeanName);
+            }
+            
+            List<StatementListener> listeners = new ArrayList<>();
+            if (metricsRegistry != null) {
+                listeners.add(metricsRegistry);
+            }
+            listeners.addAll(statementListeners);
+            if (slowQueryLog != null) {
+                listeners.add(slowQueryLog.build());
+            }
+            ReplicaRouter replicaRouter = replicaUrls.isEmpty() ? null
+                    : new ReplicaRouter(replicaUrls, username, password, replicaSelection);
+            return new SessionFactory(url, username, password, metricsRegistry,
+                    Collections.unmodifiableList(listeners), replicaRouter, readYourWrites);
         }
     }
 }
@@ -0,0 +1,18 @@
+package com.myorm.core;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 预编译语句参数绑定器，由调用方直接调用setXxx方法绑定参数
+ */
+@FunctionalInterface
+public interface StatementBinder {
+    
+    /**
+     * 绑定语句参数
+     * @param stmt 预编译语句
+     * @throws SQLException SQL异常
+     */
+    void bind(PreparedStatement stmt) throws SQLException;
+}
@@ -0,0 +1,83 @@
+package com.myorm.core;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 会话内的预编译语句缓存（LRU），相同的SQL复用同一个PreparedStatement，每次查找提交一个{@link StatementCacheEvent}
+ * 与会话一样不是线程安全的
+ */
+class StatementCache {
+    private static final Logger logger = LoggerFactory.getLogger(StatementCache.class);
+    
+    private final Map<String, PreparedStatement> statements;
+    
+    StatementCache(int capacity) {
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > capacity) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * 获取SQL对应的预编译语句，不存在或已关闭时重新创建
+     * @param connection 数据库连接
+     * @param sql SQL语句
+     * @return 预编译语句，参数已清空
+     * @throws SQLException SQL异常
+     */
+    PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        PreparedStatement stmt = statements.get(sql);
+        if (stmt != null && !stmt.isClosed()) {
+            stmt.clearParameters();
+            StatementCacheEvent.record(sql, true);
+            return stmt;
+        }
+        
+        StatementCacheEvent.record(sql, false);
+        stmt = connection.prepareStatement(sql);
+        statements.put(sql, stmt);
+        return stmt;
+    }
+    
+    /**
+     * 移除并关闭SQL对应的预编译语句，用于执行失败后丢弃可能失效的语句
+     * @param sql SQL语句
+     */
+    void evict(String sql) {
+        PreparedStatement stmt = statements.remove(sql);
+        if (stmt != null) {
+            closeQuietly(stmt);
+        }
+    }
+    
+    /**
+     * 关闭并清空所有缓存的预编译语句
+     */
+    void clear() {
+        for (PreparedStatement stmt : statements.values()) {
+            closeQuietly(stmt);
+        }
+        statements.clear();
+    }
+    
+    private static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            logger.debug("关闭预编译语句失败", e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.myorm.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 预编译语句缓存查找的JFR事件，没有持续时间
+ */
+@Name("com.myorm.StatementCacheLookup")
+@Label("ORM语句缓存查找")
+@Category({"MyORM", "SQL"})
+@Description("会话内预编译语句缓存的一次命中或未命中")
+@StackTrace(false)
+final class StatementCacheEvent extends jdk.jfr.Event {
+    
+    @Label("SQL")
+    String sql;
+    
+    @Label("命中")
+    boolean hit;
+    
+    /**
+     * 记录一次查找
+     * @param sql SQL语句
+     * @param hit 是否命中
+     */
+    static void record(String sql, boolean hit) {
+        StatementCacheEvent event = new StatementCacheEvent();
+        if (event.isEnabled()) {
+            event.sql = sql;
+            event.hit = hit;
+            event.commit();
+        }
+    }
+}
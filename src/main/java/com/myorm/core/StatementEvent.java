@@ -0,0 +1,64 @@
+package com.myorm.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * 语句执行的JFR事件，持续时间覆盖准备、执行、读取和映射四个阶段
+ * <p>
+ * 事件随{@link StatementTimer}开始和结束，记录未启用时不会读取时钟。
+ */
+@Name("com.myorm.Statement")
+@Label("ORM语句")
+@Category({"MyORM", "SQL"})
+@Description("会话执行的一条SQL语句，包括结果映射")
+final class StatementEvent extends jdk.jfr.Event {
+    
+    @Label("SQL")
+    String sql;
+    
+    @Label("Mapper方法")
+    @Description("发起执行的Mapper方法，不是由Mapper发起时为空")
+    String statementId;
+    
+    @Label("行数")
+    @Description("查询读取的行数，或更新影响的行数")
+    long rows;
+    
+    @Label("准备耗时")
+    @Timespan(Timespan.NANOSECONDS)
+    long prepareTime;
+    
+    @Label("执行耗时")
+    @Timespan(Timespan.NANOSECONDS)
+    long executeTime;
+    
+    @Label("读取耗时")
+    @Timespan(Timespan.NANOSECONDS)
+    long fetchTime;
+    
+    @Label("映射耗时")
+    @Timespan(Timespan.NANOSECONDS)
+    long mappingTime;
+    
+    @Label("错误")
+    String error;
+    
+    /**
+     * 开始一个语句事件
+     * @param sql SQL语句
+     * @return 事件，JFR没有记录此事件时返回null
+     */
+    static StatementEvent start(String sql) {
+        StatementEvent event = new StatementEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.sql = sql;
+        event.begin();
+        return event;
+    }
+}
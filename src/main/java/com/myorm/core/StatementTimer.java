@@ -0,0 +1,263 @@
+package com.myorm.core;
+
+import com.myorm.metrics.Phase;
+import com.myorm.metrics.StatementListener;
+import com.myorm.metrics.StatementSample;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 记录一条语句各阶段的耗时，结束时通知语句监听器并提交JFR事件
+ * <p>
+ * 没有配置语句监听器且JFR没有记录语句事件时使用{@link #DISABLED}，所有方法都不读取时钟，开销可以忽略。
+ * 与会话一样不是线程安全的。
+ */
+final class StatementTimer implements StatementSample {
+    private static final Logger logger = LoggerFactory.getLogger(StatementTimer.class);
+    
+    /**
+     * 不记录任何内容的计时器
+     */
+    static final StatementTimer DISABLED = new StatementTimer(null, null, null, null, 0, 0, null);
+    
+    private final StatementListener[] listeners;
+    private final String sql;
+    private final List<Object> parameters;
+    private final String statementId;
+    private final long sessionId;
+    private final long transactionId;
+    private final StatementEvent event;
+    private final long start;
+    private long prepared;
+    private long executed;
+    private long end;
+    private long fetchNanos;
+    private long mapNanos;
+    private long rows;
+    private Throwable error;
+    
+    private StatementTimer(StatementListener[] listeners, String sql, List<Object> parameters, String statementId,
+            long sessionId, long transactionId, StatementEvent event) {
+        this.listeners = listeners;
+        this.sql = sql;
+        this.parameters = parameters;
+        this.statementId = statementId;
+        this.sessionId = sessionId;
+        this.transactionId = transactionId;
+        this.event = event;
+        this.start = listeners != null ? System.nanoTime() : 0;
+    }
+    
+    /**
+     * 开始计时
+     * @param listeners 语句监听器，为空且JFR没有记录语句事件时返回{@link #DISABLED}
+     * @param sql SQL语句
+     * @param parameters 绑定的参数，未知时为null
+     * @param statementId 发起执行的Mapper方法，可以为null
+     * @param sessionId 会话编号
+     * @param transactionId 会话内的事务序号，不在事务中时为0
+     * @return 计时器
+     */
+    static StatementTimer start(StatementListener[] listeners, String sql, List<Object> parameters, String statementId,
+            long sessionId, long transactionId) {
+        StatementEvent event = StatementEvent.start(sql);
+        if (listeners.length == 0 && event == null) {
+            return DISABLED;
+        }
+        return new StatementTimer(listeners, sql, parameters, statementId, sessionId, transactionId, event);
+    }
+    
+    /**
+     * 当前时间，未启用时返回0
+     */
+    long now() {
+        return listeners != null ? System.nanoTime() : 0;
+    }
+    
+    /**
+     * 标记语句已准备好并绑定了参数
+     */
+    void prepared() {
+        if (listeners != null) {
+            prepared = System.nanoTime();
+        }
+    }
+    
+    /**
+     * 标记语句已执行
+     */
+    void executed() {
+        if (listeners != null) {
+            executed = System.nanoTime();
+        }
+    }
+    
+    /**
+     * 标记批量语句已执行，准备阶段截止到第一次执行之前，各次执行的耗时合计为执行阶段
+     * @param executeNanos 各次执行的耗时之和
+     */
+    void executedBatch(long executeNanos) {
+        if (listeners != null) {
+            long now = System.nanoTime();
+            prepared = now - executeNanos;
+            executed = now;
+        }
+    }
+    
+    /**
+     * 标记结果集处理完毕，执行之后除映射以外的时间都计为读取时间
+     */
+    void fetched() {
+        if (listeners != null) {
+            fetchNanos = System.nanoTime() - executed - mapNanos;
+        }
+    }
+    
+    /**
+     * 累加读取时间
+     * @param since 开始读取时{@link #now()}的返回值
+     */
+    void addFetch(long since) {
+        if (listeners != null) {
+            fetchNanos += System.nanoTime() - since;
+        }
+    }
+    
+    /**
+     * 累加映射时间并计入一行
+     * @param since 开始映射时{@link #now()}的返回值
+     */
+    void addMappedRow(long since) {
+        if (listeners != null) {
+            mapNanos += System.nanoTime() - since;
+            rows++;
+        }
+    }
+    
+    /**
+     * 累加映射时间，不计入行数
+     * @param nanos 映射耗时（纳秒）
+     */
+    void addMap(long nanos) {
+        if (listeners != null) {
+            mapNanos += nanos;
+        }
+    }
+    
+    /**
+     * 累加行数
+     * @param count 行数
+     */
+    void addRows(long count) {
+        if (listeners != null) {
+            rows += count;
+        }
+    }
+    
+    /**
+     * 记录执行失败
+     * @param error 异常
+     */
+    void failed(Throwable error) {
+        if (listeners != null) {
+            this.error = error;
+        }
+    }
+    
+    /**
+     * 结束计时并依次通知语句监听器，监听器抛出的异常只记录日志
+     */
+    void finish() {
+        if (listeners == null) {
+            return;
+        }
+        end = System.nanoTime();
+        if (event != null) {
+            commitEvent();
+        }
+        for (StatementListener listener : listeners) {
+            try {
+                listener.statementExecuted(this);
+            } catch (RuntimeException e) {
+                logger.warn("语句监听器{}处理失败", listener.getClass().getName(), e);
+            }
+        }
+    }
+    
+    private void commitEvent() {
+        event.end();
+        if (event.shouldCommit()) {
+            event.statementId = statementId;
+            event.rows = rows;
+            event.prepareTime = getNanos(Phase.PREPARE);
+            event.executeTime = getNanos(Phase.EXECUTE);
+            event.fetchTime = fetchNanos;
+            event.mappingTime = mapNanos;
+            event.error = error == null ? null : error.toString();
+            event.commit();
+        }
+    }
+    
+    @Override
+    public String getSql() {
+        return sql;
+    }
+    
+    @Override
+    public String getStatementId() {
+        return statementId;
+    }
+    
+    @Override
+    public List<Object> getParameters() {
+        return parameters;
+    }
+    
+    @Override
+    public long getSessionId() {
+        return sessionId;
+    }
+    
+    @Override
+    public long getTransactionId() {
+        return transactionId;
+    }
+    
+    @Override
+    public long getNanos(Phase phase) {
+        // 执行失败时未到达的阶段按结束时间计算
+        long preparedAt = prepared != 0 ? prepared : end;
+        switch (phase) {
+            case PREPARE:
+                return preparedAt - start;
+            case EXECUTE:
+                return (executed != 0 ? executed : end) - preparedAt;
+            case FETCH:
+                return fetchNanos;
+            default:
+                return mapNanos;
+        }
+    }
+    
+    @Override
+    public long getTotalNanos() {
+        long total = 0;
+        for (Phase phase : Phase.values()) {
+            total += getNanos(phase);
+        }
+        return total;
+    }
+    
+    @Override
+    public long getRows() {
+        return rows;
+    }
+    
+    @Override
+    public Throwable getError() {
+        return error;
+    }
+}
@@ -0,0 +1,42 @@
+package com.myorm.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * 事务的JFR事件，持续时间从开始事务到提交或回滚完成
+ */
+@Name("com.myorm.Transaction")
+@Label("ORM事务")
+@Category({"MyORM", "Transaction"})
+@Description("会话中的一个事务")
+final class TransactionEvent extends jdk.jfr.Event {
+    
+    static final String COMMIT = "commit";
+    static final String ROLLBACK = "rollback";
+    
+    @Label("结果")
+    @Description("commit或rollback，提交或回滚失败时为空")
+    String outcome;
+    
+    @Label("结束耗时")
+    @Description("提交或回滚本身的耗时")
+    @Timespan(Timespan.NANOSECONDS)
+    long completionTime;
+    
+    /**
+     * 开始一个事务事件
+     * @return 事件，JFR没有记录此事件时返回null
+     */
+    static TransactionEvent start() {
+        TransactionEvent event = new TransactionEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+}
@@ -2,31 +2,206 @@ package com.myorm.core;
 
 import com.myorm.exception.OrmException;
 
+import java.sql.Savepoint;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * 事务管理器，用于管理数据库事务
+ * <p>
+ * 基于单个会话创建时，所有事务都在该会话上执行。基于会话工厂创建时，事务的会话绑定到当前线程，
+ * 同一调用链中的嵌套事务、{@link SessionFactory#currentSession()}和{@link SessionFactory#getMapper(Class)}
+ * 返回的Mapper共用同一个连接和同一个事务。
+ * <p>
+ * 配置了{@link RetryPolicy}时，新开始的事务因死锁或序列化冲突失败后会回滚并重新执行整个回调，
+ * 因此回调除了数据库操作以外不应有其他副作用。加入已有事务的调用不会重试，失败交由最外层事务处理。
  */
 public class TransactionManager {
     private static final Logger logger = LoggerFactory.getLogger(TransactionManager.class);
     private final Session session;
+    private final SessionFactory sessionFactory;
+    private final RetryPolicy retryPolicy;
+    private final LongAdder transactions = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder retriedTransactions = new LongAdder();
+    private final LongAdder exhaustedTransactions = new LongAdder();
     
     /**
      * 创建事务管理器
      * @param session 会话对象
      */
     public TransactionManager(Session session) {
+        this(session, RetryPolicy.none());
+    }
+    
+    /**
+     * 创建事务管理器
+     * @param session 会话对象
+     * @param retryPolicy 重试策略
+     */
+    public TransactionManager(Session session, RetryPolicy retryPolicy) {
         this.session = session;
+        this.sessionFactory = null;
+        this.retryPolicy = retryPolicy;
+    }
+    
+    /**
+     * 创建基于会话工厂的事务管理器，事务的会话绑定到当前线程
+     * @param sessionFactory 会话工厂
+     */
+    public TransactionManager(SessionFactory sessionFactory) {
+        this(sessionFactory, RetryPolicy.none());
+    }
+    
+    /**
+     * 创建基于会话工厂的事务管理器，事务的会话绑定到当前线程
+     * @param sessionFactory 会话工厂
+     * @param retryPolicy 重试策略
+     */
+    public TransactionManager(SessionFactory sessionFactory, RetryPolicy retryPolicy) {
+        this.session = null;
+        this.sessionFactory = sessionFactory;
+        this.retryPolicy = retryPolicy;
     }
     
     /**
-     * 在事务中执行操作
+     * 在事务中执行操作，已有事务时加入该事务
      * @param callback 事务回调接口
      * @param <T> 返回值类型
      * @return 操作结果
      */
     public <T> T executeInTransaction(TransactionCallback<T> callback) {
+        return executeInTransaction(Propagation.REQUIRED, false, callback);
+    }
+    
+    /**
+     * 按指定的传播方式在事务中执行操作
+     * @param propagation 传播方式
+     * @param callback 事务回调接口
+     * @param <T> 返回值类型
+     * @return 操作结果
+     */
+    public <T> T executeInTransaction(Propagation propagation, TransactionCallback<T> callback) {
+        return executeInTransaction(propagation, false, callback);
+    }
+    
+    /**
+     * 按指定的传播方式在事务中执行操作
+     * @param propagation 传播方式
+     * @param readOnly 只读提示，只对新开始的事务生效，加入已有事务时忽略
+     * @param callback 事务回调接口
+     * @param <T> 返回值类型
+     * @return 操作结果
+     */
+    public <T> T executeInTransaction(Propagation propagation, boolean readOnly, TransactionCallback<T> callback) {
+        Session current = session != null ? session : sessionFactory.getBoundSession();
+        boolean inTransaction = current != null && current.isInTransaction();
+        
+        switch (propagation) {
+            case REQUIRED:
+                if (inTransaction) {
+                    return callback.execute(current);
+                }
+                break;
+            case NESTED:
+                if (inTransaction) {
+                    return executeNested(current, callback);
+                }
+                break;
+            case REQUIRES_NEW:
+                if (session != null) {
+                    throw new OrmException("基于单个会话的事务管理器不支持REQUIRES_NEW");
+                }
+                break;
+            default:
+                throw new OrmException("不支持的事务传播方式: " + propagation);
+        }
+        
+        transactions.increment();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return session != null ? executeNew(session, readOnly, callback) : executeBound(readOnly, callback);
+            } catch (OrmException e) {
+                if (!retryPolicy.isRetryable(e)) {
+                    throw e;
+                }
+                if (attempt >= retryPolicy.getMaxAttempts()) {
+                    if (attempt > 1) {
+                        exhaustedTransactions.increment();
+                    }
+                    throw e;
+                }
+                if (attempt == 1) {
+                    retriedTransactions.increment();
+                }
+                retries.increment();
+                long backoff = retryPolicy.backoffMillis(attempt);
+                logger.debug("事务因冲突失败，{}毫秒后第{}次重试", backoff, attempt, e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    /**
+     * 开始事务的次数，重试不重复计数
+     * @return 次数
+     */
+    public long getTransactionCount() {
+        return transactions.sum();
+    }
+    
+    /**
+     * 重试的总次数
+     * @return 次数
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+    
+    /**
+     * 至少重试过一次的事务数
+     * @return 事务数
+     */
+    public long getRetriedTransactionCount() {
+        return retriedTransactions.sum();
+    }
+    
+    /**
+     * 用完重试次数仍然失败的事务数
+     * @return 事务数
+     */
+    public long getRetryExhaustedCount() {
+        return exhaustedTransactions.sum();
+    }
+    
+    /**
+     * 在新的会话中执行事务，原来绑定的会话（如果有）在此期间挂起，每次重试都使用新的会话
+     */
+    private <T> T executeBound(boolean readOnly, TransactionCallback<T> callback) {
+        // 只读事务在只读副本上执行（配置了副本时）
+        Session newSession = readOnly ? sessionFactory.openReadOnlySession() : sessionFactory.openSession();
+        Session suspended = sessionFactory.bindSession(newSession);
+        try {
+            return executeNew(newSession, readOnly, callback);
+        } finally {
+            sessionFactory.bindSession(suspended);
+            newSession.close();
+        }
+    }
+    
+    private <T> T executeNew(Session session, boolean readOnly, TransactionCallback<T> callback) {
+        boolean wasReadOnly = readOnly && session.isReadOnly();
+        if (readOnly) {
+            session.setReadOnly(true);
+        }
         try {
             session.beginTransaction();
             logger.debug("事务已开始");
@@ -41,7 +216,26 @@ public class TransactionManager {
             session.rollback();
             logger.debug("事务已回滚", e);
             throw new OrmException("事务执行失败", e);
+        } finally {
+            if (readOnly && !wasReadOnly) {
+                session.setReadOnly(false);
+            }
+        }
+    }
+    
+    private <T> T executeNested(Session session, TransactionCallback<T> callback) {
+        Savepoint savepoint = session.setSavepoint();
+        logger.debug("嵌套事务已开始");
+        T result;
+        try {
+            result = callback.execute(session);
+        } catch (RuntimeException e) {
+            session.rollbackToSavepoint(savepoint);
+            logger.debug("嵌套事务已回滚到保存点", e);
+            throw e;
         }
+        session.releaseSavepoint(savepoint);
+        return result;
     }
     
     /**
@@ -4,6 +4,8 @@ import com.myorm.annotation.*;
 import com.myorm.entity.User;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Useru5b9eu4f53u7684Mapperu63a5u53e3
@@ -16,7 +18,7 @@ public interface UserMapper {
      * @param username u7528u6237u540d
      * @return u7528u6237u5bf9u8c61
      */
-    @Select("SELECT * FROM \"USER\" WHERE \"USERNAME\" = ?")
+    @Select("SELECT * FROM \"USER\" WHERE \"USERNAME\" = #{username}")
     User findByUsername(@Param("username") String username);
     
     /**
@@ -31,7 +33,7 @@ public interface UserMapper {
      * @param age u5e74u9f84
      * @return u7528u6237u5217u8868
      */
-    @Select("SELECT * FROM \"USER\" WHERE \"AGE\" > ?")
+    @Select("SELECT * FROM \"USER\" WHERE \"AGE\" > #{age}")
     List<User> findByAgeGreaterThan(@Param("age") int age);
     
     /**
@@ -41,16 +43,24 @@ public interface UserMapper {
      * @param age u5e74u9f84
      * @return u53d7u5f71u54cdu7684u884cu6570
      */
-    @Insert("INSERT INTO \"USER\" (\"USERNAME\", \"EMAIL\", \"AGE\") VALUES (?, ?, ?)")
+    @Insert("INSERT INTO \"USER\" (\"USERNAME\", \"EMAIL\", \"AGE\") VALUES (#{username}, #{email}, #{age})")
     int addUser(@Param("username") String username, @Param("email") String email, @Param("age") int age);
     
+    /**
+     * 批量添加用户，所有用户绑定到同一条预编译语句中批量执行
+     * @param users 用户列表
+     * @return 每个用户对应语句受影响的行数
+     */
+    @Insert("INSERT INTO \"USER\" (\"USERNAME\", \"EMAIL\", \"AGE\") VALUES (#{username}, #{email}, #{age})")
+    int[] addUsers(List<User> users);
+    
     /**
      * u66f4u65b0u7528u6237u90aeu7bb1
      * @param username u7528u6237u540d
      * @param email u65b0u90aeu7bb1
      * @return u662fu5426u66f4u65b0u6210u529f
      */
-    @Update("UPDATE \"USER\" SET \"EMAIL\" = ? WHERE \"USERNAME\" = ?")
+    @Update("UPDATE \"USER\" SET \"EMAIL\" = #{email} WHERE \"USERNAME\" = #{username}")
     boolean updateEmail(@Param("email") String email, @Param("username") String username);
     
     /**
@@ -58,9 +68,74 @@ public interface UserMapper {
      * @param username u7528u6237u540d
      * @return u53d7u5f71u54cdu7684u884cu6570
      */
-    @Delete("DELETE FROM \"USER\" WHERE \"USERNAME\" = ?")
+    @Delete("DELETE FROM \"USER\" WHERE \"USERNAME\" = #{username}")
     int deleteByUsername(@Param("username") String username);
     
+    /**
+     * 批量删除用户
+     * @param usernames 用户名列表
+     * @return 受影响的总行数
+     */
+    @Batch
+    @Delete("DELETE FROM \"USER\" WHERE \"USERNAME\" = #{username}")
+    int deleteByUsernames(@Param("username") List<String> usernames);
+    
+    /**
+     * 根据用户名和年龄查询用户，参数顺序与SQL中的顺序不同
+     * @param username 用户名
+     * @param age 年龄
+     * @return 用户对象
+     */
+    @Select("SELECT * FROM \"USER\" WHERE \"AGE\" = #{age} AND \"USERNAME\" = #{username}")
+    User findByUsernameAndAge(@Param("username") String username, @Param("age") int age);
+    
+    /**
+     * 按用户名更新用户的邮箱和年龄
+     * @param user 用户对象
+     * @return 受影响的行数
+     */
+    @Update("UPDATE \"USER\" SET \"EMAIL\" = #{user.email}, \"AGE\" = #{user.age} WHERE \"USERNAME\" = #{user.username}")
+    int updateUser(@Param("user") User user);
+    
+    /**
+     * 按可选条件查询用户，值为null的条件不参与查询
+     * @param username 用户名
+     * @param minAge 最小年龄
+     * @return 用户列表
+     */
+    @Select("<script>SELECT * FROM \"USER\"" +
+            "<where>" +
+            "<if test=\"username != null\">AND \"USERNAME\" = #{username}</if>" +
+            "<if test=\"minAge != null\">AND \"AGE\" &gt;= #{minAge}</if>" +
+            "</where>" +
+            " ORDER BY \"ID\"</script>")
+    List<User> findByConditions(@Param("username") String username, @Param("minAge") Integer minAge);
+    
+    /**
+     * 根据用户名列表查询用户
+     * @param usernames 用户名列表
+     * @return 用户列表
+     */
+    @Select("<script>SELECT * FROM \"USER\" WHERE \"USERNAME\" IN " +
+            "<foreach collection=\"usernames\" item=\"name\" open=\"(\" separator=\",\" close=\")\">#{name}</foreach>" +
+            " ORDER BY \"ID\"</script>")
+    List<User> findByUsernames(@Param("usernames") List<String> usernames);
+    
+    /**
+     * 以流的方式读取所有用户，遍历时才逐行映射，使用完毕后需要关闭流
+     * @return 用户流
+     */
+    @Select("SELECT * FROM \"USER\" ORDER BY \"ID\"")
+    Stream<User> streamAll();
+    
+    /**
+     * 查询第一个不小于指定年龄的用户
+     * @param minAge 最小年龄
+     * @return 用户对象，不存在时为空
+     */
+    @Select("SELECT * FROM \"USER\" WHERE \"AGE\" >= #{minAge} ORDER BY \"ID\"")
+    Optional<User> findFirstByMinAge(@Param("minAge") int minAge);
+    
     /**
      * u8ba1u7b97u7528u6237u6570u91cf
      * @return u7528u6237u6570u91cf
@@ -0,0 +1,166 @@
+package com.myorm.mapping;
+
+import com.myorm.util.ReflectionUtil;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * 运行时编译的行映射器，用于没有编译期生成映射类的实体
+ * <p>
+ * 首次使用实体类时，通过{@link MethodHandles#privateLookupIn}取得构造器和各列字段的写入句柄，
+ * 并按字段类型选择类型化的{@code rs.getInt}/{@code rs.getString}等读取方式，
+ * 之后的每一行只做句柄调用，不再经过{@link Field#set}的访问检查和值类型转换。
+ * 列下标按结果集形状由{@code RowHeader}缓存。
+ * @param <T> 实体类型
+ */
+final class CompiledRowMapper<T> implements RowMapper<T> {
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final MethodHandle constructor;
+    private final String[] columns;
+    private final ColumnReader[] readers;
+
+    private CompiledRowMapper(MethodHandle constructor, String[] columns, ColumnReader[] readers) {
+        this.constructor = constructor;
+        this.columns = columns;
+        this.readers = readers;
+    }
+
+    /**
+     * 为实体类编译行映射器
+     * @param clazz 实体类Class对象
+     * @param <T> 实体类型
+     * @return 行映射器
+     * @throws IllegalAccessException 无法访问实体类的构造器或字段
+     * @throws NoSuchMethodException 实体类缺少无参构造器
+     */
+    static <T> CompiledRowMapper<T> compile(Class<T> clazz) throws IllegalAccessException, NoSuchMethodException {
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+        MethodHandle constructor = lookup.findConstructor(clazz, MethodType.methodType(void.class))
+                .asType(MethodType.methodType(Object.class));
+
+        List<Field> fields = ReflectionUtil.getColumnFields(clazz);
+        String[] columns = new String[fields.size()];
+        ColumnReader[] readers = new ColumnReader[fields.size()];
+        for (int i = 0; i < columns.length; i++) {
+            Field field = fields.get(i);
+            columns[i] = ReflectionUtil.getColumnName(field).replace("\"", "");
+            readers[i] = reader(field, lookup.unreflectSetter(field));
+        }
+        return new CompiledRowMapper<>(constructor, columns, readers);
+    }
+
+    @Override
+    public String[] columns() {
+        return columns;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T map(ResultSet rs, int[] indexes) throws SQLException {
+        try {
+            Object entity = (Object) constructor.invokeExact();
+            for (int i = 0; i < readers.length; i++) {
+                if (indexes[i] > 0) {
+                    readers[i].read(rs, indexes[i], entity);
+                }
+            }
+            return (T) entity;
+        } catch (SQLException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new SQLException("映射实体对象失败", e);
+        }
+    }
+
+    /**
+     * 根据字段类型选择读取方式，列值为NULL时保持字段默认值，与反射映射一致
+     */
+    private static ColumnReader reader(Field field, MethodHandle setter) {
+        Class<?> type = field.getType();
+        if (type == int.class || type == Integer.class) {
+            MethodHandle handle = setter.asType(MethodType.methodType(void.class, Object.class, int.class));
+            return (rs, index, entity) -> {
+                int value = rs.getInt(index);
+                if (!rs.wasNull()) {
+                    handle.invokeExact(entity, value);
+                }
+            };
+        }
+        if (type == long.class || type == Long.class) {
+            MethodHandle handle = setter.asType(MethodType.methodType(void.class, Object.class, long.class));
+            return (rs, index, entity) -> {
+                long value = rs.getLong(index);
+                if (!rs.wasNull()) {
+                    handle.invokeExact(entity, value);
+                }
+            };
+        }
+        if (type == double.class || type == Double.class) {
+            MethodHandle handle = setter.asType(MethodType.methodType(void.class, Object.class, double.class));
+            return (rs, index, entity) -> {
+                double value = rs.getDouble(index);
+                if (!rs.wasNull()) {
+                    handle.invokeExact(entity, value);
+                }
+            };
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            MethodHandle handle = setter.asType(MethodType.methodType(void.class, Object.class, boolean.class));
+            return (rs, index, entity) -> {
+                boolean value = rs.getBoolean(index);
+                if (!rs.wasNull()) {
+                    handle.invokeExact(entity, value);
+                }
+            };
+        }
+
+        MethodHandle handle = setter.asType(SETTER_TYPE);
+        if (type == String.class) {
+            return (rs, index, entity) -> {
+                String value = rs.getString(index);
+                if (value != null) {
+                    handle.invokeExact(entity, (Object) value);
+                }
+            };
+        }
+        if (type == BigDecimal.class) {
+            return (rs, index, entity) -> {
+                BigDecimal value = rs.getBigDecimal(index);
+                if (value != null) {
+                    handle.invokeExact(entity, (Object) value);
+                }
+            };
+        }
+        if (type == byte[].class) {
+            return (rs, index, entity) -> {
+                byte[] value = rs.getBytes(index);
+                if (value != null) {
+                    handle.invokeExact(entity, (Object) value);
+                }
+            };
+        }
+        return (rs, index, entity) -> {
+            Object value = rs.getObject(index);
+            if (value != null) {
+                handle.invokeExact(entity, ReflectionUtil.convertValueType(value, type));
+            }
+        };
+    }
+
+    /**
+     * 单列的读取与写入
+     */
+    @FunctionalInterface
+    private interface ColumnReader {
+        void read(ResultSet rs, int index, Object entity) throws Throwable;
+    }
+}
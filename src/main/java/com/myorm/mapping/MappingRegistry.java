@@ -0,0 +1,134 @@
+package com.myorm.mapping;
+
+import com.myorm.util.ReflectionUtil;
+import com.myorm.util.SqlBuilder;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 实体行映射器和参数绑定器的注册表
+ * <p>
+ * 生成类与实体类位于同一个包下，类名为实体类名加后缀（嵌套类中的{@code $}替换为{@code _}）。
+ * 加载时会校验生成类的列清单与实体类当前的注解一致，不一致（例如生成类已过期）时忽略生成类。
+ * 没有可用的生成行映射器时，在首次使用时为实体类编译一个{@link CompiledRowMapper}；
+ * 仍然无法创建（例如缺少无参构造器）时返回null，调用方退回到反射映射。
+ */
+public final class MappingRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(MappingRegistry.class);
+
+    /**
+     * 生成的行映射器类名后缀
+     */
+    public static final String ROW_MAPPER_SUFFIX = "RowMapper";
+
+    /**
+     * 生成的参数绑定器类名后缀
+     */
+    public static final String PARAMETER_BINDER_SUFFIX = "ParameterBinder";
+
+    private static final Map<Class<?>, Optional<RowMapper<?>>> ROW_MAPPERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Optional<ParameterBinder<?>>> PARAMETER_BINDERS = new ConcurrentHashMap<>();
+
+    private MappingRegistry() {
+    }
+
+    /**
+     * 获取实体类的行映射器，优先使用编译期生成的映射器，否则使用运行时编译的映射器
+     * @param clazz 实体类Class对象
+     * @param <T> 实体类型
+     * @return 行映射器，都无法创建时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RowMapper<T> getRowMapper(Class<T> clazz) {
+        return (RowMapper<T>) ROW_MAPPERS.computeIfAbsent(clazz, MappingRegistry::loadRowMapper).orElse(null);
+    }
+
+    /**
+     * 获取实体类的生成参数绑定器
+     * @param clazz 实体类Class对象
+     * @param <T> 实体类型
+     * @return 参数绑定器，没有可用的生成类时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ParameterBinder<T> getParameterBinder(Class<T> clazz) {
+        return (ParameterBinder<T>) PARAMETER_BINDERS.computeIfAbsent(clazz, MappingRegistry::loadParameterBinder)
+                .orElse(null);
+    }
+
+    /**
+     * 获取注解处理器为实体类生成的类名
+     * @param entityClass 实体类Class对象
+     * @param suffix 类名后缀
+     * @return 生成类的全限定名
+     */
+    public static String getGeneratedClassName(Class<?> entityClass, String suffix) {
+        String name = entityClass.getName();
+        int lastDot = name.lastIndexOf('.');
+        String packagePrefix = lastDot < 0 ? "" : name.substring(0, lastDot + 1);
+        return packagePrefix + name.substring(lastDot + 1).replace('$', '_') + suffix;
+    }
+
+    private static Optional<RowMapper<?>> loadRowMapper(Class<?> clazz) {
+        RowMapper<?> mapper = instantiate(clazz, ROW_MAPPER_SUFFIX, RowMapper.class);
+        if (mapper != null) {
+            String[] expected = columnNames(ReflectionUtil.getColumnFields(clazz));
+            if (Arrays.equals(expected, mapper.columns())) {
+                return Optional.of(mapper);
+            }
+            logger.warn("生成的行映射器与实体类{}的列不一致，改用运行时编译的映射器", clazz.getName());
+        }
+
+        try {
+            return Optional.of(CompiledRowMapper.compile(clazz));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.debug("无法为实体类{}编译行映射器，使用反射映射", clazz.getName(), e);
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<ParameterBinder<?>> loadParameterBinder(Class<?> clazz) {
+        ParameterBinder<?> binder = instantiate(clazz, PARAMETER_BINDER_SUFFIX, ParameterBinder.class);
+        if (binder == null) {
+            return Optional.empty();
+        }
+
+        String[] expected = columnNames(SqlBuilder.getInsertColumnFields(clazz));
+        if (!Arrays.equals(expected, binder.insertColumns())) {
+            logger.warn("生成的参数绑定器与实体类{}的列不一致，改用反射绑定", clazz.getName());
+            return Optional.empty();
+        }
+        return Optional.of(binder);
+    }
+
+    private static <G> G instantiate(Class<?> entityClass, String suffix, Class<G> type) {
+        try {
+            Class<?> generated = Class.forName(getGeneratedClassName(entityClass, suffix), true,
+                    entityClass.getClassLoader());
+            if (!type.isAssignableFrom(generated)) {
+                return null;
+            }
+            return type.cast(generated.getDeclaredConstructor().newInstance());
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.warn("无法加载实体类{}的生成类{}", entityClass.getName(), suffix, e);
+            return null;
+        }
+    }
+
+    private static String[] columnNames(List<Field> fields) {
+        String[] names = new String[fields.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = ReflectionUtil.getColumnName(fields.get(i)).replace("\"", "");
+        }
+        return names;
+    }
+}
@@ -0,0 +1,25 @@
+package com.myorm.mapping;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 实体参数绑定器，由注解处理器为每个实体类生成，直接调用getter和类型化的setXxx方法绑定参数
+ * @param <T> 实体类型
+ */
+public interface ParameterBinder<T> {
+    
+    /**
+     * 插入语句包含的列名（不带引号），顺序与参数绑定顺序一致，不包含自增主键
+     * @return 列名数组
+     */
+    String[] insertColumns();
+    
+    /**
+     * 绑定插入语句的参数
+     * @param stmt 预编译语句
+     * @param entity 实体对象
+     * @throws SQLException SQL异常
+     */
+    void bindInsert(PreparedStatement stmt, T entity) throws SQLException;
+}
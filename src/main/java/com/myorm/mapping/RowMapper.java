@@ -0,0 +1,27 @@
+package com.myorm.mapping;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 实体行映射器，由注解处理器为每个实体类生成，直接调用setter和类型化的getXxx方法读取列值
+ * @param <T> 实体类型
+ */
+public interface RowMapper<T> {
+    
+    /**
+     * 映射器读取的列名（不带引号），按实体类字段声明顺序排列
+     * 实现类应返回同一个数组实例，以便结果集列头缓存列下标
+     * @return 列名数组
+     */
+    String[] columns();
+    
+    /**
+     * 将结果集的当前行映射为实体对象
+     * @param rs 结果集
+     * @param indexes 与{@link #columns()}一一对应的列下标（从1开始），0表示结果集中没有该列
+     * @return 实体对象
+     * @throws SQLException SQL异常
+     */
+    T map(ResultSet rs, int[] indexes) throws SQLException;
+}
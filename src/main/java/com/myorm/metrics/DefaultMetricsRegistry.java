@@ -0,0 +1,206 @@
+package com.myorm.metrics;
+
+import com.myorm.exception.OrmException;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * 默认的指标注册表，按规范化SQL和Mapper方法分别累计指标，可以注册为JMX MXBean
+ * <p>
+ * 为了限制内存占用，不同语句的数量超过上限后，新出现的语句合并计入{@link #OTHER_KEY}。
+ * 每个{@link StatementMetrics}持有总耗时和各阶段共5个直方图，约47KB，SQL和Mapper方法各自受上限约束，
+ * 默认上限下最多占用约9.5MB。
+ */
+public class DefaultMetricsRegistry implements MetricsRegistry, MetricsMXBean {
+    
+    /**
+     * 默认的语句种类上限
+     */
+    public static final int DEFAULT_MAX_STATEMENTS = 100;
+    
+    /**
+     * 超过语句种类上限后合并计入的键
+     */
+    public static final String OTHER_KEY = "<other>";
+    
+    /**
+     * 原始SQL到规范化SQL的缓存上限，超过后不再缓存，每次重新规范化
+     */
+    private static final int MAX_NORMALIZED_SQL = 2048;
+    
+    private final int maxStatements;
+    private final Map<String, String> normalizedSql = new ConcurrentHashMap<>();
+    private final Map<String, StatementMetrics> bySql = new ConcurrentHashMap<>();
+    private final Map<String, StatementMetrics> byStatementId = new ConcurrentHashMap<>();
+    private volatile ObjectName objectName;
+    
+    public DefaultMetricsRegistry() {
+        this(DEFAULT_MAX_STATEMENTS);
+    }
+    
+    /**
+     * 创建指标注册表
+     * @param maxStatements 分别统计的SQL（以及Mapper方法）种类上限，每种约占47KB
+     */
+    public DefaultMetricsRegistry(int maxStatements) {
+        if (maxStatements <= 0) {
+            throw new OrmException("语句种类上限必须大于0");
+        }
+        this.maxStatements = maxStatements;
+    }
+    
+    @Override
+    public void recordStatement(StatementSample sample) {
+        metricsOf(bySql, normalize(sample.getSql())).record(sample);
+        if (sample.getStatementId() != null) {
+            metricsOf(byStatementId, sample.getStatementId()).record(sample);
+        }
+    }
+    
+    /**
+     * 获取某条SQL的指标
+     * @param sql SQL语句，按规范化后的形式查找
+     * @return 指标，没有执行过时返回null
+     */
+    public StatementMetrics getSqlMetrics(String sql) {
+        return bySql.get(normalize(sql));
+    }
+    
+    /**
+     * 获取某个Mapper方法的指标
+     * @param statementId {@code 接口全限定名.方法名}
+     * @return 指标，没有执行过时返回null
+     */
+    public StatementMetrics getStatementMetrics(String statementId) {
+        return byStatementId.get(statementId);
+    }
+    
+    /**
+     * 按规范化SQL统计的全部指标
+     */
+    public Map<String, StatementMetrics> getAllSqlMetrics() {
+        return Collections.unmodifiableMap(bySql);
+    }
+    
+    /**
+     * 按Mapper方法统计的全部指标
+     */
+    public Map<String, StatementMetrics> getAllStatementMetrics() {
+        return Collections.unmodifiableMap(byStatementId);
+    }
+    
+    @Override
+    public List<StatementSnapshot> getSqlStatements() {
+        return snapshots(bySql);
+    }
+    
+    @Override
+    public List<StatementSnapshot> getMapperStatements() {
+        return snapshots(byStatementId);
+    }
+    
+    @Override
+    public long getTotalCount() {
+        long total = 0;
+        for (StatementMetrics metrics : bySql.values()) {
+            total += metrics.getCount();
+        }
+        return total;
+    }
+    
+    @Override
+    public long getTotalErrorCount() {
+        long total = 0;
+        for (StatementMetrics metrics : bySql.values()) {
+            total += metrics.getErrorCount();
+        }
+        return total;
+    }
+    
+    @Override
+    public void reset() {
+        for (StatementMetrics metrics : bySql.values()) {
+            metrics.reset();
+        }
+        for (StatementMetrics metrics : byStatementId.values()) {
+            metrics.reset();
+        }
+    }
+    
+    /**
+     * 注册到平台MBeanServer，对象名为{@code com.myorm:type=Metrics,name=<name>}
+     * @param name 名称，用于区分多个会话工厂
+     * @return 注册的对象名
+     */
+    public ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName("com.myorm:type=Metrics,name=" + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(this, objectName);
+            this.objectName = objectName;
+            return objectName;
+        } catch (JMException e) {
+            throw new OrmException("注册指标MBean失败", e);
+        }
+    }
+    
+    /**
+     * 从平台MBeanServer注销，没有注册时不做任何事
+     */
+    public void unregisterMBean() {
+        ObjectName registered = objectName;
+        if (registered == null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(registered)) {
+                server.unregisterMBean(registered);
+            }
+            objectName = null;
+        } catch (JMException e) {
+            throw new OrmException("注销指标MBean失败", e);
+        }
+    }
+    
+    private String normalize(String sql) {
+        String normalized = normalizedSql.get(sql);
+        if (normalized == null) {
+            normalized = SqlNormalizer.normalize(sql);
+            if (normalizedSql.size() < MAX_NORMALIZED_SQL) {
+                normalizedSql.put(sql, normalized);
+            }
+        }
+        return normalized;
+    }
+    
+    private StatementMetrics metricsOf(Map<String, StatementMetrics> metrics, String key) {
+        StatementMetrics existing = metrics.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        String bounded = metrics.size() < maxStatements ? key : OTHER_KEY;
+        return metrics.computeIfAbsent(bounded, StatementMetrics::new);
+    }
+    
+    private static List<StatementSnapshot> snapshots(Map<String, StatementMetrics> metrics) {
+        List<StatementSnapshot> snapshots = new ArrayList<>(metrics.size());
+        for (StatementMetrics statement : metrics.values()) {
+            snapshots.add(StatementSnapshot.of(statement));
+        }
+        snapshots.sort((a, b) -> Double.compare(b.getTotalMillis(), a.getTotalMillis()));
+        return snapshots;
+    }
+}
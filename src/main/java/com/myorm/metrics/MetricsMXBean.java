@@ -0,0 +1,34 @@
+package com.myorm.metrics;
+
+import java.util.List;
+
+/**
+ * 语句指标的JMX接口
+ */
+public interface MetricsMXBean {
+    
+    /**
+     * 按规范化SQL统计的指标，按总耗时从大到小排列
+     */
+    List<StatementSnapshot> getSqlStatements();
+    
+    /**
+     * 按Mapper方法统计的指标，按总耗时从大到小排列
+     */
+    List<StatementSnapshot> getMapperStatements();
+    
+    /**
+     * 执行的语句总数
+     */
+    long getTotalCount();
+    
+    /**
+     * 失败的语句总数
+     */
+    long getTotalErrorCount();
+    
+    /**
+     * 清空所有指标
+     */
+    void reset();
+}
@@ -0,0 +1,21 @@
+package com.myorm.metrics;
+
+/**
+ * 语句指标的注册表，会话在每条语句执行结束时调用
+ * <p>
+ * 实现必须是线程安全的，并且应当尽量廉价：调用发生在执行语句的线程上。
+ * 默认实现为{@link DefaultMetricsRegistry}，也可以实现此接口把指标转发到其他监控系统。
+ */
+public interface MetricsRegistry extends StatementListener {
+    
+    /**
+     * 记录一次语句执行
+     * @param sample 执行结果，只在调用期间有效
+     */
+    void recordStatement(StatementSample sample);
+    
+    @Override
+    default void statementExecuted(StatementSample sample) {
+        recordStatement(sample);
+    }
+}
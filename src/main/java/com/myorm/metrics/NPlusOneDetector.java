@@ -0,0 +1,210 @@
+package com.myorm.metrics;
+
+import com.myorm.annotation.Mapper;
+import com.myorm.exception.OrmException;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * N+1查询检测器，发现同一会话（或同一事务）内同一形状的语句反复执行
+ * <p>
+ * 检测器按会话记录每种规范化SQL的执行次数，开始或结束事务时清零。某种语句的次数达到阈值时，
+ * 取得调用ORM的应用代码位置，通过{@link #report(RepeatedStatement)}报告一次，并计入按SQL统计的发现次数。
+ * 会话关闭时释放该会话的状态，因此会话必须关闭。
+ * <p>
+ * 调用栈只在达到阈值时遍历一次，未达到阈值的语句只有一次哈希表查找的开销，适合在压力测试中常开。
+ */
+public class NPlusOneDetector implements StatementListener {
+    private static final Logger logger = LoggerFactory.getLogger(NPlusOneDetector.class);
+    
+    /**
+     * 默认阈值
+     */
+    public static final int DEFAULT_THRESHOLD = 10;
+    
+    /**
+     * 每个会话最多跟踪的语句种类数，超出后新的语句不再计数
+     */
+    private static final int MAX_SHAPES_PER_SESSION = 1024;
+    
+    /**
+     * 规范化SQL缓存的最大条目数
+     */
+    private static final int MAX_NORMALIZED_SQL = 2048;
+    
+    /**
+     * 框架自身的包（含子包），查找调用位置时跳过，{@code com.myorm}下的其他包都视为应用代码
+     */
+    private static final List<String> FRAMEWORK_PACKAGES = Arrays.asList(
+            "com.myorm.core.", "com.myorm.metrics.", "com.myorm.sql.", "com.myorm.mapping.", "com.myorm.result.",
+            "com.myorm.query.", "com.myorm.shard.", "com.myorm.util.", "com.myorm.processor.");
+    
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+    
+    private final int threshold;
+    private final Map<Long, SessionTracker> sessions = new ConcurrentHashMap<>();
+    private final Map<String, String> normalizedSql = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> detections = new ConcurrentHashMap<>();
+    private final LongAdder detectionCount = new LongAdder();
+    
+    /**
+     * 使用默认阈值创建检测器
+     */
+    public NPlusOneDetector() {
+        this(DEFAULT_THRESHOLD);
+    }
+    
+    /**
+     * 创建检测器
+     * @param threshold 同一语句在一个会话或事务内执行多少次时报告
+     */
+    public NPlusOneDetector(int threshold) {
+        if (threshold < 2) {
+            throw new OrmException("N+1查询检测阈值不能小于2");
+        }
+        this.threshold = threshold;
+    }
+    
+    @Override
+    public void statementExecuted(StatementSample sample) {
+        long sessionId = sample.getSessionId();
+        SessionTracker tracker = sessions.computeIfAbsent(sessionId, key -> new SessionTracker());
+        String sql = normalize(sample.getSql());
+        if (!tracker.increment(sample.getTransactionId(), sql, threshold)) {
+            return;
+        }
+        
+        RepeatedStatement repeated = new RepeatedStatement(sql, sample.getStatementId(), sessionId,
+                sample.getTransactionId(), threshold, findCallSite());
+        detectionCount.increment();
+        detections.computeIfAbsent(sql, key -> new LongAdder()).increment();
+        report(repeated);
+    }
+    
+    @Override
+    public void sessionClosed(long sessionId) {
+        sessions.remove(sessionId);
+    }
+    
+    /**
+     * 报告一处重复语句，在执行语句的线程上调用，默认以WARN级别输出日志
+     * @param repeated 重复语句
+     */
+    protected void report(RepeatedStatement repeated) {
+        logger.warn("可能存在N+1查询: {}", repeated);
+    }
+    
+    /**
+     * 获取发现重复语句的总次数
+     * @return 次数
+     */
+    public long getDetectionCount() {
+        return detectionCount.sum();
+    }
+    
+    /**
+     * 按规范化SQL统计的发现次数
+     * @return 规范化SQL到次数的映射
+     */
+    public Map<String, Long> getDetections() {
+        Map<String, Long> result = new HashMap<>();
+        for (Map.Entry<String, LongAdder> entry : detections.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().sum());
+        }
+        return Collections.unmodifiableMap(result);
+    }
+    
+    /**
+     * 清空统计，不影响各会话正在进行的计数
+     */
+    public void reset() {
+        detections.clear();
+        detectionCount.reset();
+    }
+    
+    private String normalize(String sql) {
+        String normalized = normalizedSql.get(sql);
+        if (normalized == null) {
+            normalized = SqlNormalizer.normalize(sql);
+            if (normalizedSql.size() < MAX_NORMALIZED_SQL) {
+                normalizedSql.put(sql, normalized);
+            }
+        }
+        return normalized;
+    }
+    
+    /**
+     * 查找调用ORM的第一个应用代码栈帧，跳过ORM自身、JDK、动态代理和生成的Mapper实现类
+     */
+    private static String findCallSite() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> !isFrameworkFrame(frame.getDeclaringClass()))
+                .findFirst()
+                .map(StackWalker.StackFrame::toStackTraceElement)
+                .map(StackTraceElement::toString)
+                .orElse(null));
+    }
+    
+    private static boolean isFrameworkFrame(Class<?> type) {
+        String name = type.getName();
+        if (name.startsWith("java.") || name.startsWith("jdk.") || name.startsWith("sun.")
+                || name.startsWith("com.sun.") || Proxy.isProxyClass(type)) {
+            return true;
+        }
+        for (String frameworkPackage : FRAMEWORK_PACKAGES) {
+            if (name.startsWith(frameworkPackage)) {
+                return true;
+            }
+        }
+        return name.endsWith("Impl") && isGeneratedMapper(type);
+    }
+    
+    /**
+     * 是否为注解处理器生成的Mapper实现类
+     */
+    private static boolean isGeneratedMapper(Class<?> type) {
+        for (Class<?> implemented : type.getInterfaces()) {
+            if (implemented.isAnnotationPresent(Mapper.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 一个会话的计数，会话不是线程安全的，但可能先后在不同线程上使用，因此方法需要同步
+     */
+    private static final class SessionTracker {
+        private final Map<String, int[]> counts = new HashMap<>();
+        private long transactionId;
+        
+        /**
+         * 计数并判断是否刚好达到阈值
+         */
+        synchronized boolean increment(long transactionId, String sql, int threshold) {
+            if (transactionId != this.transactionId) {
+                this.transactionId = transactionId;
+                counts.clear();
+            }
+            int[] count = counts.get(sql);
+            if (count == null) {
+                if (counts.size() >= MAX_SHAPES_PER_SESSION) {
+                    return false;
+                }
+                count = new int[1];
+                counts.put(sql, count);
+            }
+            return ++count[0] == threshold;
+        }
+    }
+}
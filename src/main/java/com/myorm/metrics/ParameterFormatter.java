@@ -0,0 +1,59 @@
+package com.myorm.metrics;
+
+import java.util.List;
+
+/**
+ * 参数摘要的格式化：最多列出前若干个参数，过长的值会被截断，字节数组只显示长度，可选脱敏
+ */
+final class ParameterFormatter {
+    
+    static final int DEFAULT_MAX_PARAMETERS = 10;
+    static final int DEFAULT_MAX_LENGTH = 64;
+    static final ParameterFormatter DEFAULT = new ParameterFormatter(DEFAULT_MAX_PARAMETERS, DEFAULT_MAX_LENGTH, null);
+    
+    private final int maxParameters;
+    private final int maxLength;
+    private final ParameterRedactor redactor;
+    
+    ParameterFormatter(int maxParameters, int maxLength, ParameterRedactor redactor) {
+        this.maxParameters = maxParameters;
+        this.maxLength = maxLength;
+        this.redactor = redactor;
+    }
+    
+    /**
+     * 格式化参数摘要
+     * @param sql SQL语句，传给脱敏器
+     * @param params 参数列表，为null表示未知
+     * @return 参数摘要
+     */
+    String format(String sql, List<Object> params) {
+        if (params == null) {
+            return "(未知)";
+        }
+        StringBuilder sb = new StringBuilder("[");
+        int count = Math.min(params.size(), maxParameters);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            Object value = params.get(i);
+            if (redactor != null) {
+                value = redactor.redact(sql, i, value);
+            }
+            if (value instanceof byte[]) {
+                sb.append("byte[").append(((byte[]) value).length).append(']');
+                continue;
+            }
+            String text = String.valueOf(value);
+            if (text.length() > maxLength) {
+                text = text.substring(0, maxLength) + "...";
+            }
+            sb.append(value instanceof CharSequence ? "'" + text + "'" : text);
+        }
+        if (params.size() > count) {
+            sb.append(", ...共").append(params.size()).append("个");
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,25 @@
+package com.myorm.metrics;
+
+/**
+ * 参数脱敏器，在输出语句参数之前替换敏感的值（如密码、令牌、身份证号）
+ */
+@FunctionalInterface
+public interface ParameterRedactor {
+    
+    /**
+     * 替换参数值
+     * @param sql SQL语句
+     * @param index 参数下标，从0开始
+     * @param value 参数值
+     * @return 输出的值，不需要脱敏时返回原值
+     */
+    Object redact(String sql, int index, Object value);
+    
+    /**
+     * 把所有非null参数替换为{@code ***}的脱敏器
+     * @return 脱敏器
+     */
+    static ParameterRedactor all() {
+        return (sql, index, value) -> value == null ? null : "***";
+    }
+}
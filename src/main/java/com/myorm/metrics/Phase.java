@@ -0,0 +1,26 @@
+package com.myorm.metrics;
+
+/**
+ * 语句执行的阶段
+ */
+public enum Phase {
+    /**
+     * 创建（或从缓存获取）预编译语句并绑定参数
+     */
+    PREPARE,
+    
+    /**
+     * 数据库执行语句，查询为executeQuery返回结果集之前的时间
+     */
+    EXECUTE,
+    
+    /**
+     * 从结果集逐行读取数据（不含映射）
+     */
+    FETCH,
+    
+    /**
+     * 将结果行映射为实体对象
+     */
+    MAP
+}
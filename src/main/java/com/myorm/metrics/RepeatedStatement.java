@@ -0,0 +1,82 @@
+package com.myorm.metrics;
+
+/**
+ * N+1查询检测器发现的一处重复语句
+ */
+public final class RepeatedStatement {
+    
+    private final String sql;
+    private final String statementId;
+    private final long sessionId;
+    private final long transactionId;
+    private final int count;
+    private final String callSite;
+    
+    RepeatedStatement(String sql, String statementId, long sessionId, long transactionId, int count,
+            String callSite) {
+        this.sql = sql;
+        this.statementId = statementId;
+        this.sessionId = sessionId;
+        this.transactionId = transactionId;
+        this.count = count;
+        this.callSite = callSite;
+    }
+    
+    /**
+     * 规范化后的SQL
+     */
+    public String getSql() {
+        return sql;
+    }
+    
+    /**
+     * 发起执行的Mapper方法，不是由Mapper发起时为null
+     */
+    public String getStatementId() {
+        return statementId;
+    }
+    
+    /**
+     * 会话编号
+     */
+    public long getSessionId() {
+        return sessionId;
+    }
+    
+    /**
+     * 会话内的事务序号，不在事务中时为0
+     */
+    public long getTransactionId() {
+        return transactionId;
+    }
+    
+    /**
+     * 发现时同一语句已执行的次数
+     */
+    public int getCount() {
+        return count;
+    }
+    
+    /**
+     * 调用ORM的应用代码位置，如{@code com.example.OrderService.load(OrderService.java:42)}，无法确定时为null
+     */
+    public String getCallSite() {
+        return callSite;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("同一语句在会话").append(sessionId);
+        sb.append(transactionId == 0 ? "中" : "的事务" + transactionId + "中");
+        sb.append("已执行").append(count).append("次");
+        if (statementId != null) {
+            sb.append(" [").append(statementId).append(']');
+        }
+        sb.append(' ').append(sql);
+        if (callSite != null) {
+            sb.append(" 调用位置: ").append(callSite);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,140 @@
+package com.myorm.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 慢查询日志的一条记录，创建时从{@link StatementSample}复制所需的数据，可以在其他线程中使用
+ */
+public final class SlowQuery {
+    
+    private final String sql;
+    private final String statementId;
+    private final String parameters;
+    private final long rows;
+    private final Map<Phase, Long> phaseNanos;
+    private final long totalNanos;
+    private final String error;
+    private final long suppressed;
+    private final String plan;
+    
+    private SlowQuery(String sql, String statementId, String parameters, long rows, Map<Phase, Long> phaseNanos,
+            long totalNanos, String error, long suppressed, String plan) {
+        this.sql = sql;
+        this.statementId = statementId;
+        this.parameters = parameters;
+        this.rows = rows;
+        this.phaseNanos = phaseNanos;
+        this.totalNanos = totalNanos;
+        this.error = error;
+        this.suppressed = suppressed;
+        this.plan = plan;
+    }
+    
+    static SlowQuery of(StatementSample sample, long suppressed, ParameterFormatter formatter) {
+        Map<Phase, Long> phaseNanos = new EnumMap<>(Phase.class);
+        for (Phase phase : Phase.values()) {
+            phaseNanos.put(phase, sample.getNanos(phase));
+        }
+        Throwable error = sample.getError();
+        return new SlowQuery(sample.getSql(), sample.getStatementId(), formatter.format(sample.getSql(), sample.getParameters()),
+                sample.getRows(), phaseNanos, sample.getTotalNanos(), error == null ? null : error.toString(),
+                suppressed, null);
+    }
+    
+    SlowQuery withPlan(String plan) {
+        return new SlowQuery(sql, statementId, parameters, rows, phaseNanos, totalNanos, error, suppressed, plan);
+    }
+    
+    /**
+     * SQL语句
+     */
+    public String getSql() {
+        return sql;
+    }
+    
+    /**
+     * 发起执行的Mapper方法，不是由Mapper发起时为null
+     */
+    public String getStatementId() {
+        return statementId;
+    }
+    
+    /**
+     * 参数摘要，参数未知时为{@code (未知)}
+     */
+    public String getParameters() {
+        return parameters;
+    }
+    
+    /**
+     * 读取或影响的行数
+     */
+    public long getRows() {
+        return rows;
+    }
+    
+    /**
+     * 某个阶段的耗时（纳秒）
+     * @param phase 阶段
+     * @return 耗时
+     */
+    public long getNanos(Phase phase) {
+        return phaseNanos.get(phase);
+    }
+    
+    /**
+     * 总耗时（纳秒）
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+    
+    /**
+     * 执行失败时的异常描述，成功时为null
+     */
+    public String getError() {
+        return error;
+    }
+    
+    /**
+     * 上一条记录之后因限流而未输出的慢查询数
+     */
+    public long getSuppressed() {
+        return suppressed;
+    }
+    
+    /**
+     * 执行计划，没有获取时为null
+     */
+    public String getPlan() {
+        return plan;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%.3fms", totalNanos / 1_000_000.0));
+        if (statementId != null) {
+            sb.append(" [").append(statementId).append(']');
+        }
+        sb.append(' ').append(sql);
+        sb.append(" 参数: ").append(parameters);
+        sb.append(" 行数: ").append(rows);
+        sb.append(" 阶段:");
+        for (Phase phase : Phase.values()) {
+            sb.append(' ').append(phase.name().toLowerCase()).append('=')
+                    .append(String.format("%.3fms", phaseNanos.get(phase) / 1_000_000.0));
+        }
+        if (error != null) {
+            sb.append(" 错误: ").append(error);
+        }
+        if (suppressed > 0) {
+            sb.append(" (此前有").append(suppressed).append("条慢查询因限流未输出)");
+        }
+        if (plan != null) {
+            sb.append(System.lineSeparator()).append("执行计划:").append(System.lineSeparator()).append(plan);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,284 @@
+package com.myorm.metrics;
+
+import com.myorm.exception.OrmException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 慢查询日志，记录耗时超过阈值的语句及其参数摘要、行数和各阶段耗时
+ * <p>
+ * 日志经过令牌桶限流，超出速率的慢查询只计数，在下一条输出的日志中报告被忽略的数量。
+ * 配置了执行计划连接时，对参数已知的查询语句在单独的后台线程和连接上执行{@code EXPLAIN}，
+ * 取得执行计划后再输出日志；后台队列已满时直接输出不带执行计划的日志，不阻塞执行语句的线程。
+ * <p>
+ * 默认通过slf4j以WARN级别输出，可以覆盖{@link #log(SlowQuery)}把记录写到其他地方。
+ */
+public class SlowQueryLog implements StatementListener, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryLog.class);
+    
+    private static final int EXPLAIN_QUEUE_CAPACITY = 64;
+    
+    private final long thresholdNanos;
+    private final ConnectionSource explainConnections;
+    private final ParameterFormatter parameterFormatter;
+    private final ExecutorService explainExecutor;
+    private final double permitsPerNano;
+    private final double burst;
+    private final AtomicLong suppressed = new AtomicLong();
+    private double tokens;
+    private long refilledAt;
+    private Connection explainConnection;
+    
+    /**
+     * 由构建器创建慢查询日志，子类可以通过此构造方法覆盖{@link #log(SlowQuery)}
+     * @param builder 构建器
+     */
+    protected SlowQueryLog(Builder builder) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(builder.thresholdMillis);
+        this.explainConnections = builder.explainConnections;
+        this.parameterFormatter = builder.redactor == null ? ParameterFormatter.DEFAULT
+                : new ParameterFormatter(ParameterFormatter.DEFAULT_MAX_PARAMETERS,
+                        ParameterFormatter.DEFAULT_MAX_LENGTH, builder.redactor);
+        this.permitsPerNano = builder.permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = builder.burst;
+        this.tokens = builder.burst;
+        this.refilledAt = System.nanoTime();
+        if (explainConnections != null) {
+            this.explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(EXPLAIN_QUEUE_CAPACITY), runnable -> {
+                        // 执行计划连接只在执行计划线程上使用，线程退出时（线程池终止后）由它自己关闭
+                        Thread thread = new Thread(() -> {
+                            try {
+                                runnable.run();
+                            } finally {
+                                closeExplainConnection();
+                            }
+                        }, "myorm-slow-query-explain");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        } else {
+            this.explainExecutor = null;
+        }
+    }
+    
+    /**
+     * 创建慢查询日志构建器
+     * @return 构建器
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    @Override
+    public void statementExecuted(StatementSample sample) {
+        if (sample.getTotalNanos() < thresholdNanos) {
+            return;
+        }
+        if (!tryAcquire()) {
+            suppressed.incrementAndGet();
+            return;
+        }
+        
+        SlowQuery entry = SlowQuery.of(sample, suppressed.getAndSet(0), parameterFormatter);
+        if (explainExecutor == null || !isExplainable(sample)) {
+            log(entry);
+            return;
+        }
+        
+        // 调用方可能在语句执行后复用参数列表，执行计划线程使用副本
+        List<Object> params = new ArrayList<>(sample.getParameters());
+        try {
+            explainExecutor.execute(() -> log(entry.withPlan(explain(entry.getSql(), params))));
+        } catch (RejectedExecutionException e) {
+            log(entry);
+        }
+    }
+    
+    /**
+     * 输出一条慢查询记录，在执行语句的线程或执行计划线程上调用
+     * @param entry 慢查询记录
+     */
+    protected void log(SlowQuery entry) {
+        logger.warn("慢查询 {}", entry);
+    }
+    
+    /**
+     * 停止执行计划线程，尚未完成的执行计划查询最多等待1秒
+     * <p>
+     * 执行计划连接由执行计划线程在退出时关闭，调用方线程不会访问它。超时后仍在执行的EXPLAIN
+     * 会被中断，连接在它返回后关闭。
+     */
+    @Override
+    public void close() {
+        if (explainExecutor == null) {
+            return;
+        }
+        explainExecutor.shutdown();
+        try {
+            explainExecutor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        explainExecutor.shutdownNow();
+    }
+    
+    private synchronized boolean tryAcquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+    
+    private static boolean isExplainable(StatementSample sample) {
+        if (sample.getParameters() == null || sample.getError() != null) {
+            return false;
+        }
+        String sql = sample.getSql().trim();
+        return sql.regionMatches(true, 0, "SELECT", 0, 6) || sql.regionMatches(true, 0, "WITH", 0, 4);
+    }
+    
+    /**
+     * 在执行计划连接上执行EXPLAIN，只在执行计划线程上调用，连接出错时关闭并在下次重新打开
+     */
+    private String explain(String sql, List<Object> params) {
+        try {
+            if (explainConnection == null) {
+                explainConnection = explainConnections.getConnection();
+            }
+            try (PreparedStatement stmt = explainConnection.prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 0; i < params.size(); i++) {
+                    stmt.setObject(i + 1, params.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    StringBuilder plan = new StringBuilder();
+                    while (rs.next()) {
+                        if (plan.length() > 0) {
+                            plan.append(System.lineSeparator());
+                        }
+                        plan.append(rs.getString(1));
+                    }
+                    return plan.toString();
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            logger.debug("获取执行计划失败: {}", sql, e);
+            closeExplainConnection();
+            return "(无法获取执行计划: " + e.getMessage() + ")";
+        }
+    }
+    
+    /**
+     * 关闭执行计划连接，只在执行计划线程上调用
+     */
+    private void closeExplainConnection() {
+        Connection connection = explainConnection;
+        explainConnection = null;
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.debug("关闭执行计划连接失败", e);
+            }
+        }
+    }
+    
+    /**
+     * 执行计划连接的来源
+     */
+    @FunctionalInterface
+    public interface ConnectionSource {
+        
+        /**
+         * 打开一个新的数据库连接
+         * @return 数据库连接
+         * @throws SQLException SQL异常
+         */
+        Connection getConnection() throws SQLException;
+    }
+    
+    /**
+     * 慢查询日志构建器
+     */
+    public static class Builder {
+        private long thresholdMillis = 1000;
+        private ConnectionSource explainConnections;
+        private double permitsPerSecond = 10;
+        private int burst = 20;
+        private ParameterRedactor redactor;
+        
+        /**
+         * 设置慢查询阈值，默认1000毫秒
+         * @param thresholdMillis 阈值（毫秒），总耗时不小于阈值的语句会被记录
+         * @return 构建器对象
+         */
+        public Builder threshold(long thresholdMillis) {
+            if (thresholdMillis < 0) {
+                throw new OrmException("慢查询阈值不能为负数");
+            }
+            this.thresholdMillis = thresholdMillis;
+            return this;
+        }
+        
+        /**
+         * 为慢查询获取执行计划，EXPLAIN在从此来源打开的单独连接上执行
+         * @param connections 连接来源，为null时不获取执行计划
+         * @return 构建器对象
+         */
+        public Builder explain(ConnectionSource connections) {
+            this.explainConnections = connections;
+            return this;
+        }
+        
+        /**
+         * 设置日志限流，默认每秒10条、突发20条
+         * @param permitsPerSecond 每秒允许输出的日志数
+         * @param burst 允许突发输出的日志数
+         * @return 构建器对象
+         */
+        public Builder rateLimit(double permitsPerSecond, int burst) {
+            if (permitsPerSecond <= 0 || burst < 1) {
+                throw new OrmException("慢查询日志的限流速率必须大于0");
+            }
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+            return this;
+        }
+        
+        /**
+         * 设置参数脱敏器，日志中的参数摘要先经过脱敏；执行计划查询仍使用原始参数
+         * @param redactor 参数脱敏器
+         * @return 构建器对象
+         */
+        public Builder redactor(ParameterRedactor redactor) {
+            this.redactor = redactor;
+            return this;
+        }
+        
+        /**
+         * 构建慢查询日志
+         * @return 慢查询日志
+         */
+        public SlowQueryLog build() {
+            return new SlowQueryLog(this);
+        }
+    }
+}
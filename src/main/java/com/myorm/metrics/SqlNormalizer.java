@@ -0,0 +1,110 @@
+package com.myorm.metrics;
+
+/**
+ * SQL规范化，把只有参数值不同的语句归为同一类
+ * <p>
+ * 连续空白合并为一个空格，字符串和数字字面量替换为{@code ?}，
+ * 只包含占位符的列表（如{@code IN (?, ?, ?)}）合并为{@code (?...)}；带引号的标识符和注释保持不变。
+ */
+public final class SqlNormalizer {
+    
+    private SqlNormalizer() {
+    }
+    
+    /**
+     * 规范化SQL语句
+     * @param sql SQL语句
+     * @return 规范化后的SQL
+     */
+    public static String normalize(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        
+        StringBuilder out = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (out.length() > 0 && i < length) {
+                    out.append(' ');
+                }
+            } else if (c == '\'') {
+                int end = i + 1;
+                // 两个连续的单引号是转义
+                while (end < length && (sql.charAt(end) != '\'' || (end + 1 < length && sql.charAt(end + 1) == '\''))) {
+                    end += sql.charAt(end) == '\'' ? 2 : 1;
+                }
+                appendPlaceholder(out);
+                i = Math.min(end + 1, length);
+            } else if (c == '"' || c == '`') {
+                int end = sql.indexOf(c, i + 1);
+                end = end < 0 ? length : end + 1;
+                out.append(sql, i, end);
+                i = end;
+            } else if (Character.isDigit(c) && !isIdentifierPart(out)) {
+                int end = i + 1;
+                while (end < length && (Character.isLetterOrDigit(sql.charAt(end)) || sql.charAt(end) == '.')) {
+                    end++;
+                }
+                appendPlaceholder(out);
+                i = end;
+            } else if (c == '?') {
+                appendPlaceholder(out);
+                i++;
+            } else if (c == ')') {
+                collapsePlaceholderList(out);
+                out.append(c);
+                i++;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+    
+    private static void appendPlaceholder(StringBuilder out) {
+        out.append('?');
+    }
+    
+    private static boolean isIdentifierPart(StringBuilder out) {
+        if (out.length() == 0) {
+            return false;
+        }
+        char last = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(last) || last == '_' || last == '$';
+    }
+    
+    /**
+     * 遇到右括号时，如果括号内只有逗号分隔的占位符，把它们合并为{@code ?...}
+     */
+    private static void collapsePlaceholderList(StringBuilder out) {
+        int i = out.length() - 1;
+        int placeholders = 0;
+        boolean expectPlaceholder = true;
+        while (i >= 0) {
+            char c = out.charAt(i);
+            if (c == ' ') {
+                i--;
+            } else if (expectPlaceholder && c == '?') {
+                placeholders++;
+                expectPlaceholder = false;
+                i--;
+            } else if (!expectPlaceholder && c == ',') {
+                expectPlaceholder = true;
+                i--;
+            } else {
+                break;
+            }
+        }
+        if (i >= 0 && out.charAt(i) == '(' && !expectPlaceholder && placeholders > 1) {
+            out.setLength(i + 1);
+            out.append("?...");
+        }
+    }
+}
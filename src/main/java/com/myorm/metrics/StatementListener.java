@@ -0,0 +1,24 @@
+package com.myorm.metrics;
+
+/**
+ * 语句监听器，会话在每条语句执行结束时按配置顺序通知
+ * <p>
+ * 调用发生在执行语句的线程上，实现必须是线程安全的，并且应当尽快返回；
+ * 需要耗时处理（如写日志、查询执行计划）时应先复制所需的数据再异步处理。
+ * 监听器抛出的运行时异常只记录日志，不影响语句执行的结果。
+ */
+public interface StatementListener {
+    
+    /**
+     * 一条语句执行结束
+     * @param sample 执行结果，只在调用期间有效
+     */
+    void statementExecuted(StatementSample sample);
+    
+    /**
+     * 会话已关闭，按会话保存状态的监听器应在此释放该会话的状态
+     * @param sessionId 会话编号
+     */
+    default void sessionClosed(long sessionId) {
+    }
+}
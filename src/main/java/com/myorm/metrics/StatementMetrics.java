@@ -0,0 +1,86 @@
+package com.myorm.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一类语句（同一条规范化SQL或同一个Mapper方法）的累计指标
+ */
+public class StatementMetrics {
+    
+    private final String key;
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length];
+    
+    StatementMetrics(String key) {
+        this.key = key;
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+    }
+    
+    void record(StatementSample sample) {
+        latency.record(sample.getTotalNanos());
+        for (Phase phase : Phase.values()) {
+            phases[phase.ordinal()].record(sample.getNanos(phase));
+        }
+        rows.add(sample.getRows());
+        if (sample.getError() != null) {
+            errors.increment();
+        }
+    }
+    
+    /**
+     * 规范化的SQL或Mapper方法名
+     */
+    public String getKey() {
+        return key;
+    }
+    
+    /**
+     * 执行次数
+     */
+    public long getCount() {
+        return latency.getCount();
+    }
+    
+    /**
+     * 失败次数
+     */
+    public long getErrorCount() {
+        return errors.sum();
+    }
+    
+    /**
+     * 读取或影响的总行数
+     */
+    public long getRows() {
+        return rows.sum();
+    }
+    
+    /**
+     * 总耗时的直方图
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+    
+    /**
+     * 某个阶段耗时的直方图
+     * @param phase 阶段
+     * @return 直方图
+     */
+    public LatencyHistogram getLatency(Phase phase) {
+        return phases[phase.ordinal()];
+    }
+    
+    void reset() {
+        errors.reset();
+        rows.reset();
+        latency.reset();
+        for (LatencyHistogram phase : phases) {
+            phase.reset();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.myorm.metrics;
+
+import java.util.List;
+
+/**
+ * 一次语句执行的耗时和结果，只在{@link StatementListener#statementExecuted}调用期间有效，实现类不应保存引用
+ */
+public interface StatementSample {
+    
+    /**
+     * 执行的SQL语句
+     */
+    String getSql();
+    
+    /**
+     * 发起执行的Mapper方法（{@code 接口全限定名.方法名}），不是由Mapper发起时为null
+     */
+    String getStatementId();
+    
+    /**
+     * 按占位符顺序绑定的参数，参数由绑定器直接写入语句（如实体插入、生成的Mapper、批量执行）时为null
+     */
+    List<Object> getParameters();
+    
+    /**
+     * 执行语句的会话编号，在进程内唯一
+     */
+    long getSessionId();
+    
+    /**
+     * 会话内的事务序号，每次开始事务加1，不在事务中时为0
+     */
+    long getTransactionId();
+    
+    /**
+     * 某个阶段的耗时（纳秒）
+     * @param phase 阶段
+     * @return 耗时
+     */
+    long getNanos(Phase phase);
+    
+    /**
+     * 各阶段耗时之和（纳秒），游标查询不包含调用方处理每行数据的时间
+     */
+    long getTotalNanos();
+    
+    /**
+     * 查询读取的行数，或更新影响的行数
+     */
+    long getRows();
+    
+    /**
+     * 执行失败时的异常，成功时为null
+     */
+    Throwable getError();
+}
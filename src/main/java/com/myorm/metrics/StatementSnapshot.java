@@ -0,0 +1,126 @@
+package com.myorm.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * 某类语句指标的快照，耗时单位为毫秒，用于JMX展示
+ */
+public class StatementSnapshot {
+    
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    
+    private final String key;
+    private final long count;
+    private final long errorCount;
+    private final long rows;
+    private final double totalMillis;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p95Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+    private final double prepareMeanMillis;
+    private final double executeMeanMillis;
+    private final double fetchMeanMillis;
+    private final double mapMeanMillis;
+    
+    @ConstructorProperties({"key", "count", "errorCount", "rows", "totalMillis", "meanMillis", "p50Millis",
+            "p95Millis", "p99Millis", "maxMillis", "prepareMeanMillis", "executeMeanMillis", "fetchMeanMillis",
+            "mapMeanMillis"})
+    public StatementSnapshot(String key, long count, long errorCount, long rows, double totalMillis,
+            double meanMillis, double p50Millis, double p95Millis, double p99Millis, double maxMillis,
+            double prepareMeanMillis, double executeMeanMillis, double fetchMeanMillis, double mapMeanMillis) {
+        this.key = key;
+        this.count = count;
+        this.errorCount = errorCount;
+        this.rows = rows;
+        this.totalMillis = totalMillis;
+        this.meanMillis = meanMillis;
+        this.p50Millis = p50Millis;
+        this.p95Millis = p95Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+        this.prepareMeanMillis = prepareMeanMillis;
+        this.executeMeanMillis = executeMeanMillis;
+        this.fetchMeanMillis = fetchMeanMillis;
+        this.mapMeanMillis = mapMeanMillis;
+    }
+    
+    static StatementSnapshot of(StatementMetrics metrics) {
+        LatencyHistogram latency = metrics.getLatency();
+        return new StatementSnapshot(metrics.getKey(), metrics.getCount(), metrics.getErrorCount(), metrics.getRows(),
+                millis(latency.getTotalNanos()), millis(latency.getMeanNanos()),
+                millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(95)),
+                millis(latency.getValueAtPercentile(99)), millis(latency.getMaxNanos()),
+                millis(metrics.getLatency(Phase.PREPARE).getMeanNanos()),
+                millis(metrics.getLatency(Phase.EXECUTE).getMeanNanos()),
+                millis(metrics.getLatency(Phase.FETCH).getMeanNanos()),
+                millis(metrics.getLatency(Phase.MAP).getMeanNanos()));
+    }
+    
+    private static double millis(double nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+    
+    public String getKey() {
+        return key;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public long getErrorCount() {
+        return errorCount;
+    }
+    
+    public long getRows() {
+        return rows;
+    }
+    
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+    
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+    
+    public double getP50Millis() {
+        return p50Millis;
+    }
+    
+    public double getP95Millis() {
+        return p95Millis;
+    }
+    
+    public double getP99Millis() {
+        return p99Millis;
+    }
+    
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+    
+    public double getPrepareMeanMillis() {
+        return prepareMeanMillis;
+    }
+    
+    public double getExecuteMeanMillis() {
+        return executeMeanMillis;
+    }
+    
+    public double getFetchMeanMillis() {
+        return fetchMeanMillis;
+    }
+    
+    public double getMapMeanMillis() {
+        return mapMeanMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s: count=%d, errors=%d, rows=%d, mean=%.3fms, p99=%.3fms, max=%.3fms",
+                key, count, errorCount, rows, meanMillis, p99Millis, maxMillis);
+    }
+}
@@ -0,0 +1,234 @@
+package com.myorm.metrics;
+
+import com.myorm.exception.OrmException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 语句跟踪器，按采样率记录执行的语句，适合在生产环境常开
+ * <p>
+ * 执行语句的线程只做采样判断、复制原始数据并写入无锁环形缓冲区，缓冲区满时丢弃记录并计数，从不阻塞；
+ * 参数的截断、脱敏和日志文本的格式化都在后台线程上进行。执行失败的语句默认不受采样率限制。
+ * <p>
+ * 默认输出到名为{@code com.myorm.trace}的slf4j日志（INFO级别），可以通过{@link Builder#sink(TraceSink)}替换。
+ */
+public class StatementTracer implements StatementListener, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(StatementTracer.class);
+    
+    /**
+     * 默认的跟踪日志
+     */
+    private static final Logger TRACE_LOGGER = LoggerFactory.getLogger("com.myorm.trace");
+    
+    /**
+     * 后台线程在缓冲区为空时的等待时间
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    
+    private final double sampleRate;
+    private final boolean alwaysTraceErrors;
+    private final ParameterFormatter formatter;
+    private final TraceSink sink;
+    private final TraceRingBuffer<TraceEntry> buffer;
+    private final Thread writer;
+    private final LongAdder traced = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed;
+    
+    private StatementTracer(Builder builder) {
+        this.sampleRate = builder.sampleRate;
+        this.alwaysTraceErrors = builder.alwaysTraceErrors;
+        this.formatter = new ParameterFormatter(builder.maxParameters, builder.maxParameterLength, builder.redactor);
+        this.sink = builder.sink != null ? builder.sink : entry -> TRACE_LOGGER.info("{}", entry);
+        this.buffer = new TraceRingBuffer<>(builder.bufferSize);
+        this.writer = new Thread(this::drain, "myorm-statement-tracer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    /**
+     * 创建语句跟踪器构建器
+     * @return 构建器
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    @Override
+    public void statementExecuted(StatementSample sample) {
+        if (!isSampled(sample)) {
+            return;
+        }
+        if (closed || !buffer.offer(new TraceEntry(sample, formatter))) {
+            dropped.increment();
+            return;
+        }
+        traced.increment();
+    }
+    
+    /**
+     * 已写入缓冲区的记录数
+     * @return 记录数
+     */
+    public long getTracedCount() {
+        return traced.sum();
+    }
+    
+    /**
+     * 因缓冲区已满或跟踪器已关闭而丢弃的记录数
+     * @return 记录数
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+    
+    /**
+     * 停止后台线程，缓冲区中剩余的记录会先输出，最多等待1秒
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private boolean isSampled(StatementSample sample) {
+        if (sampleRate >= 1) {
+            return true;
+        }
+        if (alwaysTraceErrors && sample.getError() != null) {
+            return true;
+        }
+        return sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+    
+    private void drain() {
+        while (true) {
+            boolean stopping = closed;
+            TraceEntry entry = buffer.poll();
+            if (entry == null) {
+                flush();
+                if (stopping) {
+                    return;
+                }
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                sink.write(entry);
+            } catch (RuntimeException e) {
+                logger.warn("输出语句跟踪记录失败", e);
+            }
+        }
+    }
+    
+    private void flush() {
+        try {
+            sink.flush();
+        } catch (RuntimeException e) {
+            logger.warn("刷新语句跟踪输出失败", e);
+        }
+    }
+    
+    /**
+     * 语句跟踪器构建器
+     */
+    public static class Builder {
+        private double sampleRate = 1;
+        private boolean alwaysTraceErrors = true;
+        private int maxParameters = ParameterFormatter.DEFAULT_MAX_PARAMETERS;
+        private int maxParameterLength = ParameterFormatter.DEFAULT_MAX_LENGTH;
+        private ParameterRedactor redactor;
+        private int bufferSize = 8192;
+        private TraceSink sink;
+        
+        /**
+         * 设置采样率，默认1（记录全部语句）
+         * @param sampleRate 0到1之间的采样率
+         * @return 构建器对象
+         */
+        public Builder sampleRate(double sampleRate) {
+            if (sampleRate < 0 || sampleRate > 1) {
+                throw new OrmException("采样率必须在0到1之间");
+            }
+            this.sampleRate = sampleRate;
+            return this;
+        }
+        
+        /**
+         * 设置执行失败的语句是否不受采样率限制，默认为true
+         * @param alwaysTraceErrors 是否总是记录失败的语句
+         * @return 构建器对象
+         */
+        public Builder alwaysTraceErrors(boolean alwaysTraceErrors) {
+            this.alwaysTraceErrors = alwaysTraceErrors;
+            return this;
+        }
+        
+        /**
+         * 设置参数摘要的截断规则，默认最多10个参数、每个值64个字符
+         * @param maxParameters 最多输出的参数个数
+         * @param maxParameterLength 每个参数值的最大长度
+         * @return 构建器对象
+         */
+        public Builder truncateParameters(int maxParameters, int maxParameterLength) {
+            if (maxParameters < 0 || maxParameterLength < 0) {
+                throw new OrmException("参数截断长度不能为负数");
+            }
+            this.maxParameters = maxParameters;
+            this.maxParameterLength = maxParameterLength;
+            return this;
+        }
+        
+        /**
+         * 设置参数脱敏器
+         * @param redactor 参数脱敏器，{@link ParameterRedactor#all()}隐藏全部参数
+         * @return 构建器对象
+         */
+        public Builder redactor(ParameterRedactor redactor) {
+            this.redactor = redactor;
+            return this;
+        }
+        
+        /**
+         * 设置环形缓冲区的容量，默认8192
+         * @param bufferSize 容量，必须是2的幂
+         * @return 构建器对象
+         */
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize < 2 || Integer.bitCount(bufferSize) != 1) {
+                throw new OrmException("跟踪缓冲区容量必须是2的幂");
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+        
+        /**
+         * 设置输出目标，默认输出到{@code com.myorm.trace}日志
+         * @param sink 输出目标
+         * @return 构建器对象
+         */
+        public Builder sink(TraceSink sink) {
+            this.sink = sink;
+            return this;
+        }
+        
+        /**
+         * 构建语句跟踪器并启动后台线程
+         * @return 语句跟踪器
+         */
+        public StatementTracer build() {
+            return new StatementTracer(this);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.myorm.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 一条语句跟踪记录
+ * <p>
+ * 执行语句的线程只复制原始数据，参数摘要和日志文本在第一次读取时（通常在跟踪器的后台线程上）才格式化。
+ */
+public final class TraceEntry {
+    
+    private final long timestamp;
+    private final long sessionId;
+    private final long transactionId;
+    private final String statementId;
+    private final String sql;
+    private final Object[] parameters;
+    private final long rows;
+    private final long[] phaseNanos;
+    private final long totalNanos;
+    private final Throwable error;
+    private final ParameterFormatter formatter;
+    private String parameterSummary;
+    private String text;
+    
+    TraceEntry(StatementSample sample, ParameterFormatter formatter) {
+        this.timestamp = System.currentTimeMillis();
+        this.sessionId = sample.getSessionId();
+        this.transactionId = sample.getTransactionId();
+        this.statementId = sample.getStatementId();
+        this.sql = sample.getSql();
+        List<Object> params = sample.getParameters();
+        this.parameters = params == null ? null : params.toArray();
+        this.rows = sample.getRows();
+        Phase[] phases = Phase.values();
+        this.phaseNanos = new long[phases.length];
+        for (Phase phase : phases) {
+            phaseNanos[phase.ordinal()] = sample.getNanos(phase);
+        }
+        this.totalNanos = sample.getTotalNanos();
+        this.error = sample.getError();
+        this.formatter = formatter;
+    }
+    
+    /**
+     * 语句结束的时间（毫秒时间戳）
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    /**
+     * 会话编号
+     */
+    public long getSessionId() {
+        return sessionId;
+    }
+    
+    /**
+     * 会话内的事务序号，不在事务中时为0
+     */
+    public long getTransactionId() {
+        return transactionId;
+    }
+    
+    /**
+     * 发起执行的Mapper方法，不是由Mapper发起时为null
+     */
+    public String getStatementId() {
+        return statementId;
+    }
+    
+    /**
+     * SQL语句
+     */
+    public String getSql() {
+        return sql;
+    }
+    
+    /**
+     * 经过截断和脱敏的参数摘要，参数未知时为{@code (未知)}
+     */
+    public synchronized String getParameters() {
+        if (parameterSummary == null) {
+            parameterSummary = formatter.format(sql, parameters == null ? null : Arrays.asList(parameters));
+        }
+        return parameterSummary;
+    }
+    
+    /**
+     * 读取或影响的行数
+     */
+    public long getRows() {
+        return rows;
+    }
+    
+    /**
+     * 某个阶段的耗时（纳秒）
+     * @param phase 阶段
+     * @return 耗时
+     */
+    public long getNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+    
+    /**
+     * 总耗时（纳秒）
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+    
+    /**
+     * 执行失败时的异常，成功时为null
+     */
+    public Throwable getError() {
+        return error;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        if (text == null) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("会话").append(sessionId);
+            if (transactionId != 0) {
+                sb.append(" 事务").append(transactionId);
+            }
+            if (statementId != null) {
+                sb.append(" [").append(statementId).append(']');
+            }
+            sb.append(String.format(" %.3fms", totalNanos / 1_000_000.0));
+            sb.append(" 行数: ").append(rows);
+            sb.append(' ').append(sql);
+            sb.append(" 参数: ").append(getParameters());
+            if (error != null) {
+                sb.append(" 错误: ").append(error);
+            }
+            text = sb.toString();
+        }
+        return text;
+    }
+}
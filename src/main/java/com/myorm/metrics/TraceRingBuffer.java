@@ -0,0 +1,81 @@
+package com.myorm.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形缓冲区，多个生产者、单个消费者
+ * <p>
+ * 每个槽位带一个序号：序号等于写入位置时可写，等于写入位置加1时可读。
+ * 生产者只在竞争写入位置时做一次CAS，缓冲区满时立即返回false，从不阻塞。
+ * @param <E> 元素类型
+ */
+final class TraceRingBuffer<E> {
+    
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong writePosition = new AtomicLong();
+    
+    /**
+     * 读取位置，只由消费者线程访问
+     */
+    private long readPosition;
+    
+    TraceRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("环形缓冲区容量必须是2的幂: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.elements = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+    
+    /**
+     * 写入一个元素
+     * @param element 元素
+     * @return 是否写入成功，缓冲区已满时返回false
+     */
+    boolean offer(E element) {
+        long position = writePosition.get();
+        while (true) {
+            int index = (int) position & mask;
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (writePosition.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = writePosition.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                position = writePosition.get();
+            }
+        }
+    }
+    
+    /**
+     * 读取一个元素，只能由消费者线程调用
+     * @return 元素，缓冲区为空时返回null
+     */
+    E poll() {
+        long position = readPosition;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = elements.get(index);
+        elements.lazySet(index, null);
+        sequences.set(index, position + capacity);
+        readPosition = position + 1;
+        return element;
+    }
+}
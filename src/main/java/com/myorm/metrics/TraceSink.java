@@ -0,0 +1,20 @@
+package com.myorm.metrics;
+
+/**
+ * 语句跟踪记录的输出目标，只在跟踪器的后台线程上调用
+ */
+@FunctionalInterface
+public interface TraceSink {
+    
+    /**
+     * 输出一条跟踪记录
+     * @param entry 跟踪记录
+     */
+    void write(TraceEntry entry);
+    
+    /**
+     * 缓冲区已经取空，可以在此刷新批量写入的数据
+     */
+    default void flush() {
+    }
+}
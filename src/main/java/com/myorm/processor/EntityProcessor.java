@@ -0,0 +1,358 @@
+package com.myorm.processor;
+
+import com.myorm.annotation.Column;
+import com.myorm.annotation.Entity;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * 实体注解处理器，在编译期为{@link Entity}类生成行映射器和参数绑定器
+ * <p>
+ * 生成的代码通过setter/getter和类型化的{@code rs.getInt}/{@code stmt.setInt}等方法读写列值，
+ * 运行时由{@code MappingRegistry}加载，省去逐行的反射调用。
+ * 缺少公共无参构造器或列字段缺少setter/getter的实体类不生成代码，运行时继续使用反射映射。
+ */
+@SupportedAnnotationTypes("com.myorm.annotation.Entity")
+public class EntityProcessor extends AbstractProcessor {
+
+    private static final String ROW_MAPPER_SUFFIX = "RowMapper";
+    private static final String PARAMETER_BINDER_SUFFIX = "ParameterBinder";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(Entity.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                continue;
+            }
+
+            TypeElement entityType = (TypeElement) element;
+            List<ColumnProperty> columns = resolveColumns(entityType);
+            if (columns == null) {
+                continue;
+            }
+            try {
+                writeRowMapper(entityType, columns);
+                writeParameterBinder(entityType, columns);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "生成实体映射类失败: " + e.getMessage(), entityType);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 解析实体类的列字段及其访问方法，不满足生成条件时返回null
+     */
+    private List<ColumnProperty> resolveColumns(TypeElement entityType) {
+        Set<Modifier> modifiers = entityType.getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.PRIVATE)
+                || (entityType.getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC))
+                || (entityType.getNestingKind() != NestingKind.TOP_LEVEL && entityType.getNestingKind() != NestingKind.MEMBER)) {
+            return skip(entityType, "实体类不能被生成代码访问");
+        }
+        if (!hasNoArgConstructor(entityType)) {
+            return skip(entityType, "实体类缺少无参构造器");
+        }
+
+        Elements elements = processingEnv.getElementUtils();
+        List<ExecutableElement> methods = ElementFilter.methodsIn(elements.getAllMembers(entityType));
+        List<ColumnProperty> columns = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(entityType.getEnclosedElements())) {
+            Column column = field.getAnnotation(Column.class);
+            if (column == null) {
+                continue;
+            }
+
+            String fieldName = field.getSimpleName().toString();
+            String property = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+            TypeMirror type = field.asType();
+            ExecutableElement setter = findAccessor(methods, "set" + property, 1, type);
+            ExecutableElement getter = findAccessor(methods, "get" + property, 0, type);
+            if (getter == null && type.getKind() == TypeKind.BOOLEAN) {
+                getter = findAccessor(methods, "is" + property, 0, type);
+            }
+            if (setter == null || getter == null) {
+                return skip(entityType, "字段" + fieldName + "缺少setter或getter");
+            }
+
+            String name = column.name().trim().isEmpty() ? fieldName.toUpperCase() : column.name();
+            boolean insertable = !(column.primaryKey() && column.autoIncrement());
+            columns.add(new ColumnProperty(name, type, setter.getSimpleName().toString(),
+                    getter.getSimpleName().toString(), insertable));
+        }
+        return columns;
+    }
+
+    private List<ColumnProperty> skip(TypeElement entityType, String reason) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                "跳过生成实体映射类（" + reason + "），运行时使用反射映射", entityType);
+        return null;
+    }
+
+    private boolean hasNoArgConstructor(TypeElement entityType) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(entityType.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ExecutableElement findAccessor(List<ExecutableElement> methods, String name, int parameterCount,
+                                           TypeMirror type) {
+        Types types = processingEnv.getTypeUtils();
+        for (ExecutableElement method : methods) {
+            if (!method.getSimpleName().contentEquals(name) || method.getParameters().size() != parameterCount
+                    || method.getModifiers().contains(Modifier.PRIVATE)
+                    || method.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+            TypeMirror accessorType = parameterCount == 0
+                    ? method.getReturnType() : method.getParameters().get(0).asType();
+            if (types.isSameType(types.erasure(accessorType), types.erasure(type))) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private void writeRowMapper(TypeElement entityType, List<ColumnProperty> columns) throws IOException {
+        String entityName = entityType.getQualifiedName().toString();
+        StringBuilder source = header(entityType, ROW_MAPPER_SUFFIX, "行映射器",
+                "com.myorm.mapping.RowMapper<" + entityName + ">");
+
+        source.append("    private static final String[] COLUMNS = {").append(columnList(columns, false)).append("};\n\n");
+        source.append("    @Override\n    public String[] columns() {\n        return COLUMNS;\n    }\n\n");
+        source.append("    @Override\n    public ").append(entityName)
+                .append(" map(java.sql.ResultSet rs, int[] indexes) throws java.sql.SQLException {\n");
+        source.append("        ").append(entityName).append(" entity = new ").append(entityName).append("();\n");
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnProperty column = columns.get(i);
+            String index = "indexes[" + i + "]";
+            source.append("        if (").append(index).append(" > 0) {\n");
+            source.append(column.readCode(index, "v" + i));
+            source.append("        }\n");
+        }
+        source.append("        return entity;\n    }\n}\n");
+        write(entityType, ROW_MAPPER_SUFFIX, source);
+    }
+
+    private void writeParameterBinder(TypeElement entityType, List<ColumnProperty> columns) throws IOException {
+        String entityName = entityType.getQualifiedName().toString();
+        StringBuilder source = header(entityType, PARAMETER_BINDER_SUFFIX, "参数绑定器",
+                "com.myorm.mapping.ParameterBinder<" + entityName + ">");
+
+        source.append("    private static final String[] INSERT_COLUMNS = {").append(columnList(columns, true)).append("};\n\n");
+        source.append("    @Override\n    public String[] insertColumns() {\n        return INSERT_COLUMNS.clone();\n    }\n\n");
+        source.append("    @Override\n    public void bindInsert(java.sql.PreparedStatement stmt, ").append(entityName)
+                .append(" entity) throws java.sql.SQLException {\n");
+        int index = 1;
+        for (ColumnProperty column : columns) {
+            if (column.insertable) {
+                source.append("        ").append(column.bindCode(index++)).append(";\n");
+            }
+        }
+        source.append("    }\n}\n");
+        write(entityType, PARAMETER_BINDER_SUFFIX, source);
+    }
+
+    private StringBuilder header(TypeElement entityType, String suffix, String description, String implemented) {
+        Elements elements = processingEnv.getElementUtils();
+        String packageName = ProcessorSupport.packageName(elements, entityType);
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * ").append(entityType.getQualifiedName()).append("的").append(description)
+                .append("，由EntityProcessor生成，请勿修改\n */\n");
+        source.append("@javax.annotation.processing.Generated(\"").append(EntityProcessor.class.getName()).append("\")\n");
+        source.append("public final class ").append(ProcessorSupport.generatedSimpleName(elements, entityType, suffix))
+                .append(" implements ").append(implemented).append(" {\n\n");
+        return source;
+    }
+
+    private void write(TypeElement entityType, String suffix, StringBuilder source) throws IOException {
+        Elements elements = processingEnv.getElementUtils();
+        String packageName = ProcessorSupport.packageName(elements, entityType);
+        String simpleName = ProcessorSupport.generatedSimpleName(elements, entityType, suffix);
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, entityType);
+        try (Writer out = file.openWriter()) {
+            out.write(source.toString());
+        }
+    }
+
+    private static String columnList(List<ColumnProperty> columns, boolean insertableOnly) {
+        StringBuilder sb = new StringBuilder();
+        for (ColumnProperty column : columns) {
+            if (insertableOnly && !column.insertable) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(ProcessorSupport.literal(column.name));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 列字段及其访问方法
+     */
+    private class ColumnProperty {
+
+        private final String name;
+        private final TypeMirror type;
+        private final String setter;
+        private final String getter;
+        private final boolean insertable;
+
+        ColumnProperty(String name, TypeMirror type, String setter, String getter, boolean insertable) {
+            this.name = name;
+            this.type = type;
+            this.setter = setter;
+            this.getter = getter;
+            this.insertable = insertable;
+        }
+
+        /**
+         * 生成读取列值并调用setter的代码，列值为NULL时保持字段默认值，与反射映射一致
+         */
+        String readCode(String index, String variable) {
+            String jdbcType = jdbcAccessor();
+            StringBuilder code = new StringBuilder();
+            if (jdbcType == null) {
+                String erased = processingEnv.getTypeUtils().erasure(type).toString();
+                code.append("            Object ").append(variable).append(" = rs.getObject(").append(index).append(");\n");
+                code.append("            if (").append(variable).append(" != null) {\n");
+                code.append("                entity.").append(setter).append("((").append(erased)
+                        .append(") com.myorm.util.ReflectionUtil.convertValueType(").append(variable).append(", ")
+                        .append(erased).append(".class));\n");
+                code.append("            }\n");
+                return code.toString();
+            }
+
+            String localType = primitiveOf(type);
+            if (localType != null) {
+                code.append("            ").append(localType).append(' ').append(variable).append(" = rs.get")
+                        .append(jdbcType).append('(').append(index).append(");\n");
+                code.append("            if (!rs.wasNull()) {\n");
+            } else {
+                code.append("            ").append(type).append(' ').append(variable).append(" = rs.get")
+                        .append(jdbcType).append('(').append(index).append(");\n");
+                code.append("            if (").append(variable).append(" != null) {\n");
+            }
+            code.append("                entity.").append(setter).append('(').append(variable).append(");\n");
+            code.append("            }\n");
+            return code.toString();
+        }
+
+        /**
+         * 生成调用getter并绑定参数的代码
+         */
+        String bindCode(int index) {
+            String value = "entity." + getter + "()";
+            if (type.getKind().isPrimitive() && type.getKind() != TypeKind.CHAR) {
+                return "stmt.set" + jdbcAccessor() + "(" + index + ", " + value + ")";
+            }
+            if (isType("java.lang.String")) {
+                return "stmt.setString(" + index + ", " + value + ")";
+            }
+            return "stmt.setObject(" + index + ", " + value + ")";
+        }
+
+        /**
+         * 对应的ResultSet/PreparedStatement访问方法后缀，没有直接对应的类型时返回null
+         */
+        private String jdbcAccessor() {
+            switch (type.getKind()) {
+                case INT:
+                    return "Int";
+                case LONG:
+                    return "Long";
+                case DOUBLE:
+                    return "Double";
+                case FLOAT:
+                    return "Float";
+                case SHORT:
+                    return "Short";
+                case BYTE:
+                    return "Byte";
+                case BOOLEAN:
+                    return "Boolean";
+                case ARRAY:
+                    return type.toString().equals("byte[]") ? "Bytes" : null;
+                default:
+                    break;
+            }
+            if (isType("java.lang.Integer")) {
+                return "Int";
+            } else if (isType("java.lang.Long")) {
+                return "Long";
+            } else if (isType("java.lang.Double")) {
+                return "Double";
+            } else if (isType("java.lang.Float")) {
+                return "Float";
+            } else if (isType("java.lang.Short")) {
+                return "Short";
+            } else if (isType("java.lang.Byte")) {
+                return "Byte";
+            } else if (isType("java.lang.Boolean")) {
+                return "Boolean";
+            } else if (isType("java.lang.String")) {
+                return "String";
+            } else if (isType("java.math.BigDecimal")) {
+                return "BigDecimal";
+            }
+            return null;
+        }
+
+        /**
+         * 需要通过wasNull判断空值的基本类型读取结果，引用类型返回null
+         */
+        private String primitiveOf(TypeMirror mirror) {
+            if (mirror.getKind().isPrimitive()) {
+                return mirror.toString();
+            }
+            try {
+                return processingEnv.getTypeUtils().unboxedType(mirror).toString();
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        private boolean isType(String qualifiedName) {
+            return type.getKind() == TypeKind.DECLARED
+                    && processingEnv.getTypeUtils().erasure(type).toString().equals(qualifiedName);
+        }
+    }
+}
@@ -0,0 +1,605 @@
+package com.myorm.processor;
+
+import com.myorm.annotation.Batch;
+import com.myorm.annotation.Delete;
+import com.myorm.annotation.Insert;
+import com.myorm.annotation.Mapper;
+import com.myorm.annotation.Param;
+import com.myorm.annotation.Select;
+import com.myorm.annotation.Update;
+import com.myorm.exception.OrmException;
+import com.myorm.sql.ParsedSql;
+import com.myorm.sql.SqlSource;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Mapper注解处理器，在编译期为{@link Mapper}接口生成实现类
+ * <p>
+ * 生成的实现类直接调用{@code setInt}/{@code setString}等方法绑定参数，
+ * 并按返回类型直接读取结果集，避免运行时的反射与动态代理开销。
+ * SQL中的命名参数（{@code #{name}}、{@code :name}）在编译期解析为按下标绑定的代码，
+ * 参数名不存在或{@code ?}占位符数量与方法参数数量不一致时在编译期报错。
+ * 无法静态生成的方法（如未写SQL的{@link Insert}、{@code <script>}动态SQL）委托给运行时的动态代理。
+ */
+@SupportedAnnotationTypes("com.myorm.annotation.Mapper")
+public class MapperProcessor extends AbstractProcessor {
+
+    private static final String SESSION = "com.myorm.core.Session";
+    private static final String PROXY_FACTORY = "com.myorm.core.MapperProxyFactory";
+    private static final String GENERATED_SUFFIX = "Impl";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(Mapper.class)) {
+            if (element.getKind() != ElementKind.INTERFACE) {
+                error(element, "@Mapper只能用于接口");
+                continue;
+            }
+
+            TypeElement mapperType = (TypeElement) element;
+            try {
+                generate(mapperType);
+            } catch (IOException e) {
+                error(mapperType, "生成Mapper实现类失败: " + e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 为Mapper接口生成实现类
+     * @param mapperType Mapper接口
+     * @throws IOException 写入源文件失败
+     */
+    private void generate(TypeElement mapperType) throws IOException {
+        Elements elements = processingEnv.getElementUtils();
+        String packageName = ProcessorSupport.packageName(elements, mapperType);
+        String simpleName = ProcessorSupport.generatedSimpleName(elements, mapperType, GENERATED_SUFFIX);
+        String interfaceName = mapperType.getQualifiedName().toString();
+
+        StringBuilder body = new StringBuilder();
+        boolean needsFallback = false;
+        boolean valid = true;
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(mapperType))) {
+            if (!method.getModifiers().contains(Modifier.ABSTRACT)
+                    || method.getEnclosingElement().getKind() != ElementKind.INTERFACE) {
+                continue;
+            }
+
+            MethodWriter writer = new MethodWriter(method);
+            if (!writer.validate()) {
+                valid = false;
+                continue;
+            }
+            needsFallback |= writer.write(body);
+        }
+
+        if (!valid) {
+            return;
+        }
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * ").append(interfaceName).append("的实现类，由MapperProcessor生成，请勿修改\n */\n");
+        source.append("@javax.annotation.processing.Generated(\"").append(MapperProcessor.class.getName()).append("\")\n");
+        source.append("public final class ").append(simpleName).append(" implements ").append(interfaceName).append(" {\n\n");
+        source.append("    private final ").append(SESSION).append(" session;\n");
+        if (needsFallback) {
+            source.append("    private ").append(interfaceName).append(" fallback;\n");
+        }
+        source.append("\n    public ").append(simpleName).append("(").append(SESSION).append(" session) {\n");
+        source.append("        this.session = session;\n");
+        source.append("    }\n");
+        source.append(body);
+        if (needsFallback) {
+            source.append("\n    private ").append(interfaceName).append(" fallback() {\n");
+            source.append("        if (fallback == null) {\n");
+            source.append("            fallback = new ").append(PROXY_FACTORY).append("(session).createProxy(")
+                    .append(interfaceName).append(".class);\n");
+            source.append("        }\n");
+            source.append("        return fallback;\n");
+            source.append("    }\n");
+        }
+        source.append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, mapperType);
+        try (Writer out = file.openWriter()) {
+            out.write(source.toString());
+        }
+    }
+
+    private void error(Element element, String message) {
+        Messager messager = processingEnv.getMessager();
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * 单个Mapper方法的代码生成器
+     */
+    private class MethodWriter {
+
+        private final ExecutableElement method;
+        private final List<? extends VariableElement> parameters;
+        private final TypeMirror returnType;
+        private final String sql;
+        private final boolean select;
+        private final boolean batch;
+        private ParsedSql parsed;
+
+        MethodWriter(ExecutableElement method) {
+            this.method = method;
+            this.parameters = method.getParameters();
+            this.returnType = method.getReturnType();
+
+            Select selectAnnotation = method.getAnnotation(Select.class);
+            Insert insert = method.getAnnotation(Insert.class);
+            Update update = method.getAnnotation(Update.class);
+            Delete delete = method.getAnnotation(Delete.class);
+            if (selectAnnotation != null) {
+                this.sql = selectAnnotation.value();
+            } else if (insert != null) {
+                this.sql = insert.value();
+            } else if (update != null) {
+                this.sql = update.value();
+            } else if (delete != null) {
+                this.sql = delete.value();
+            } else {
+                this.sql = null;
+            }
+            this.select = selectAnnotation != null;
+            this.batch = !select && sql != null && isBatch();
+        }
+
+        /**
+         * 校验方法声明，并解析SQL中的参数
+         * @return 是否可以生成
+         */
+        boolean validate() {
+            if (sql == null) {
+                error(method, "方法" + method.getSimpleName() + "没有SQL操作注解");
+                return false;
+            }
+            if (select && isType(returnType, "java.util.Iterator")) {
+                error(method, "方法" + method.getSimpleName() + "不能返回Iterator，迭代器无法关闭游标，请改用Cursor或Stream");
+                return false;
+            }
+            if (sql.isEmpty() || SqlSource.isScript(sql) || batch) {
+                return true;
+            }
+
+            try {
+                parsed = ParsedSql.parse(sql);
+            } catch (OrmException e) {
+                error(method, e.getMessage());
+                return false;
+            }
+
+            if (!parsed.hasNamedParameters()) {
+                int placeholders = parsed.getPlaceholderCount();
+                if (placeholders != parameters.size()) {
+                    error(method, "方法" + method.getSimpleName() + "的SQL包含" + placeholders
+                            + "个占位符，但声明了" + parameters.size() + "个参数");
+                    return false;
+                }
+                return true;
+            }
+
+            for (String name : parsed.getParameterNames()) {
+                int dot = name.indexOf('.');
+                if (parameterIndex(dot < 0 ? name : name.substring(0, dot)) < 0 && parameters.size() != 1) {
+                    error(method, "方法" + method.getSimpleName() + "的SQL参数" + name + "在方法参数中不存在");
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 生成方法实现
+         * @param out 输出
+         * @return 是否委托给了动态代理
+         */
+        boolean write(StringBuilder out) {
+            String cursorElement = select ? cursorElement() : null;
+            String handler = select && cursorElement == null ? resultHandler() : null;
+            List<Binding> bindings = sql.isEmpty() || SqlSource.isScript(sql) || batch ? null : bindings();
+            boolean supported = bindings != null
+                    && (select ? handler != null || cursorElement != null : isUpdateReturnType());
+
+            out.append("\n    @Override\n    public ").append(returnType).append(' ')
+                    .append(method.getSimpleName()).append('(');
+            for (int i = 0; i < parameters.size(); i++) {
+                VariableElement parameter = parameters.get(i);
+                if (i > 0) {
+                    out.append(", ");
+                }
+                out.append("final ").append(parameter.asType()).append(' ').append(parameter.getSimpleName());
+            }
+            out.append(')');
+            List<? extends TypeMirror> thrown = method.getThrownTypes();
+            for (int i = 0; i < thrown.size(); i++) {
+                out.append(i == 0 ? " throws " : ", ").append(thrown.get(i));
+            }
+            out.append(" {\n");
+
+            if (!supported) {
+                out.append("        ").append(returnType.getKind() == TypeKind.VOID ? "" : "return ")
+                        .append("fallback().").append(method.getSimpleName()).append('(');
+                for (int i = 0; i < parameters.size(); i++) {
+                    out.append(i == 0 ? "" : ", ").append(parameters.get(i).getSimpleName());
+                }
+                out.append(");\n    }\n");
+                return true;
+            }
+
+            // 单行查询限制驱动只读取第一行
+            boolean singleRow = select && cursorElement == null && !isType(returnType, "java.util.List");
+            String binder = binder(bindings, singleRow);
+            String jdbcSql = ProcessorSupport.literal(parsed.getSql());
+            TypeElement declaringType = (TypeElement) method.getEnclosingElement();
+            String statementId = processingEnv.getElementUtils().getBinaryName(declaringType) + "."
+                    + method.getSimpleName();
+            out.append("        java.lang.String previousStatement = session.enterStatement(")
+                    .append(ProcessorSupport.literal(statementId)).append(");\n");
+            out.append("        try {\n");
+            int bodyStart = out.length();
+            if (cursorElement != null) {
+                out.append("        return session.queryCursor(").append(jdbcSql).append(", ")
+                        .append(binder).append(", ").append(cursorElement).append(".class)")
+                        .append(cursorAccessor()).append(";\n");
+            } else if (isType(returnType, "java.util.Optional")) {
+                out.append("        return java.util.Optional.ofNullable(session.executeCachedQuery(").append(jdbcSql)
+                        .append(", ").append(binder).append(", ").append(handler).append("));\n");
+            } else if (select) {
+                out.append("        return session.executeCachedQuery(").append(jdbcSql).append(", ")
+                        .append(binder).append(", ").append(handler).append(");\n");
+            } else if (returnType.getKind() == TypeKind.VOID) {
+                out.append("        session.executeUpdate(").append(jdbcSql).append(", ")
+                        .append(binder).append(");\n");
+            } else {
+                out.append("        int rows = session.executeUpdate(").append(jdbcSql).append(", ")
+                        .append(binder).append(");\n");
+                switch (returnType.getKind()) {
+                    case BOOLEAN:
+                        out.append("        return rows > 0;\n");
+                        break;
+                    case INT:
+                        out.append("        return rows;\n");
+                        break;
+                    default:
+                        out.append("        return ").append(isType(returnType, "java.lang.Boolean") ? "rows > 0" : "rows")
+                                .append(";\n");
+                        break;
+                }
+            }
+            // 方法体放在try块中，整体缩进一级
+            String body = out.substring(bodyStart).replace("\n", "\n    ");
+            out.setLength(bodyStart);
+            out.append("    ").append(body, 0, body.length() - 4);
+            out.append("        } finally {\n");
+            out.append("            session.exitStatement(previousStatement);\n");
+            out.append("        }\n");
+            out.append("    }\n");
+            return false;
+        }
+
+        /**
+         * 是否为批量方法：标注了{@code @Batch}，或唯一参数是实体集合的静态SQL方法，批量方法委托给动态代理执行
+         */
+        private boolean isBatch() {
+            if (method.getAnnotation(Batch.class) != null) {
+                return true;
+            }
+            if (parameters.size() != 1 || sql.isEmpty() || SqlSource.isScript(sql)) {
+                return false;
+            }
+            TypeMirror type = parameters.get(0).asType();
+            TypeMirror collection = processingEnv.getElementUtils().getTypeElement("java.util.Collection").asType();
+            if (type.getKind() != TypeKind.DECLARED || !processingEnv.getTypeUtils().isAssignable(
+                    processingEnv.getTypeUtils().erasure(type), processingEnv.getTypeUtils().erasure(collection))) {
+                return false;
+            }
+            List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+            return arguments.size() == 1 && isEntityType(arguments.get(0));
+        }
+
+        private boolean isUpdateReturnType() {
+            switch (returnType.getKind()) {
+                case VOID:
+                case INT:
+                case BOOLEAN:
+                    return true;
+                default:
+                    return isType(returnType, "java.lang.Integer") || isType(returnType, "java.lang.Boolean");
+            }
+        }
+
+        /**
+         * 按占位符顺序生成参数取值表达式，包含无法静态解析的属性路径时返回null
+         */
+        private List<Binding> bindings() {
+            List<Binding> bindings = new ArrayList<>();
+            if (!parsed.hasNamedParameters()) {
+                for (VariableElement parameter : parameters) {
+                    bindings.add(new Binding(parameter.getSimpleName().toString(), parameter.asType()));
+                }
+                return bindings;
+            }
+
+            for (String name : parsed.getParameterNames()) {
+                int dot = name.indexOf('.');
+                int index = parameterIndex(dot < 0 ? name : name.substring(0, dot));
+                String path = index >= 0 ? (dot < 0 ? null : name.substring(dot + 1)) : name;
+                VariableElement parameter = parameters.get(index >= 0 ? index : 0);
+                String variable = parameter.getSimpleName().toString();
+                if (path == null) {
+                    bindings.add(new Binding(variable, parameter.asType()));
+                    continue;
+                }
+
+                // 只静态生成一级getter，多级路径或只能通过字段访问的属性交给动态代理
+                ExecutableElement getter = path.indexOf('.') < 0 ? findGetter(parameter.asType(), path) : null;
+                if (getter == null) {
+                    return null;
+                }
+                bindings.add(new Binding("(" + variable + " == null ? null : " + variable + "."
+                        + getter.getSimpleName() + "())", null));
+            }
+            return bindings;
+        }
+
+        private int parameterIndex(String name) {
+            for (int i = 0; i < parameters.size(); i++) {
+                VariableElement parameter = parameters.get(i);
+                Param param = parameter.getAnnotation(Param.class);
+                String parameterName = param != null ? param.value() : parameter.getSimpleName().toString();
+                if (name.equals(parameterName)) {
+                    return i;
+                }
+            }
+            for (int i = 0; i < parameters.size(); i++) {
+                if (name.equals("param" + (i + 1))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private ExecutableElement findGetter(TypeMirror type, String property) {
+            if (type.getKind() != TypeKind.DECLARED) {
+                return null;
+            }
+            TypeElement typeElement = (TypeElement) processingEnv.getTypeUtils().asElement(type);
+            String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+            for (ExecutableElement candidate : ElementFilter.methodsIn(
+                    processingEnv.getElementUtils().getAllMembers(typeElement))) {
+                String name = candidate.getSimpleName().toString();
+                if ((name.equals("get" + suffix) || name.equals("is" + suffix))
+                        && candidate.getParameters().isEmpty()
+                        && candidate.getModifiers().contains(Modifier.PUBLIC)
+                        && !candidate.getModifiers().contains(Modifier.STATIC)
+                        && candidate.getReturnType().getKind() != TypeKind.VOID) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+
+        private String binder(List<Binding> bindings, boolean singleRow) {
+            if (bindings.isEmpty() && !singleRow) {
+                return "stmt -> { }";
+            }
+            StringBuilder binder = new StringBuilder("stmt -> {\n");
+            if (singleRow) {
+                binder.append("            stmt.setMaxRows(1);\n");
+            }
+            for (int i = 0; i < bindings.size(); i++) {
+                Binding binding = bindings.get(i);
+                String statement = binding.type == null
+                        ? "stmt.setObject(" + (i + 1) + ", " + binding.expression + ")"
+                        : setter(binding.type, i + 1, binding.expression);
+                binder.append("            ").append(statement).append(";\n");
+            }
+            return binder.append("        }").toString();
+        }
+
+        private String setter(TypeMirror type, int index, String name) {
+            switch (type.getKind()) {
+                case INT:
+                    return "stmt.setInt(" + index + ", " + name + ")";
+                case LONG:
+                    return "stmt.setLong(" + index + ", " + name + ")";
+                case DOUBLE:
+                    return "stmt.setDouble(" + index + ", " + name + ")";
+                case FLOAT:
+                    return "stmt.setFloat(" + index + ", " + name + ")";
+                case BOOLEAN:
+                    return "stmt.setBoolean(" + index + ", " + name + ")";
+                case SHORT:
+                    return "stmt.setShort(" + index + ", " + name + ")";
+                case BYTE:
+                    return "stmt.setByte(" + index + ", " + name + ")";
+                case CHAR:
+                    return "stmt.setString(" + index + ", String.valueOf(" + name + "))";
+                case ARRAY:
+                    if (type.toString().equals("byte[]")) {
+                        return "stmt.setBytes(" + index + ", " + name + ")";
+                    }
+                    return "stmt.setObject(" + index + ", " + name + ")";
+                default:
+                    if (isType(type, "java.lang.String")) {
+                        return "stmt.setString(" + index + ", " + name + ")";
+                    }
+                    return "stmt.setObject(" + index + ", " + name + ")";
+            }
+        }
+
+        /**
+         * 根据返回类型生成结果集处理代码，无法静态处理时返回null
+         */
+        private String resultHandler() {
+            String scalar = scalarReader(returnType);
+            if (scalar != null) {
+                return scalar;
+            }
+            if (returnType.getKind() != TypeKind.DECLARED) {
+                return null;
+            }
+
+            DeclaredType declared = (DeclaredType) returnType;
+            if (isType(returnType, "java.util.Optional")) {
+                TypeMirror element = typeArgument();
+                if (element == null) {
+                    return null;
+                }
+                String optional = scalarReader(element);
+                if (optional != null || !isEntityType(element)) {
+                    return optional;
+                }
+                return "rs -> rs.next() ? session.mapRow(rs, " + erasure(element) + ".class) : null";
+            }
+            if (isType(returnType, "java.util.List")) {
+                if (declared.getTypeArguments().size() != 1) {
+                    return null;
+                }
+                TypeMirror element = declared.getTypeArguments().get(0);
+                if (!isEntityType(element)) {
+                    return null;
+                }
+                return "rs -> session.mapRows(rs, " + erasure(element) + ".class)";
+            }
+            if (!isEntityType(returnType)) {
+                return null;
+            }
+            return "rs -> rs.next() ? session.mapRow(rs, " + erasure(returnType) + ".class) : null";
+        }
+
+        /**
+         * 返回值为{@code Cursor}或{@code Stream}且元素为实体时返回实体类名，否则返回null
+         */
+        private String cursorElement() {
+            if (!isType(returnType, "com.myorm.core.Cursor") && !isType(returnType, "java.util.stream.Stream")) {
+                return null;
+            }
+            TypeMirror element = typeArgument();
+            return element != null && isEntityType(element) ? erasure(element) : null;
+        }
+
+        private String cursorAccessor() {
+            return isType(returnType, "java.util.stream.Stream") ? ".stream()" : "";
+        }
+
+        private TypeMirror typeArgument() {
+            List<? extends TypeMirror> arguments = ((DeclaredType) returnType).getTypeArguments();
+            return arguments.size() == 1 ? arguments.get(0) : null;
+        }
+
+        private String scalarReader(TypeMirror type) {
+            switch (type.getKind()) {
+                case INT:
+                    return "rs -> rs.next() ? rs.getInt(1) : 0";
+                case LONG:
+                    return "rs -> rs.next() ? rs.getLong(1) : 0L";
+                case DOUBLE:
+                    return "rs -> rs.next() ? rs.getDouble(1) : 0D";
+                case FLOAT:
+                    return "rs -> rs.next() ? rs.getFloat(1) : 0F";
+                case BOOLEAN:
+                    return "rs -> rs.next() && rs.getBoolean(1)";
+                default:
+                    break;
+            }
+            if (isType(type, "java.lang.String")) {
+                return "rs -> rs.next() ? rs.getString(1) : null";
+            }
+            String getter = boxedGetter(type);
+            if (getter == null) {
+                return null;
+            }
+            return "rs -> {\n"
+                    + "            if (!rs.next()) {\n"
+                    + "                return null;\n"
+                    + "            }\n"
+                    + "            " + type + " value = rs." + getter + "(1);\n"
+                    + "            return rs.wasNull() ? null : value;\n"
+                    + "        }";
+        }
+
+        private String boxedGetter(TypeMirror type) {
+            if (isType(type, "java.lang.Integer")) {
+                return "getInt";
+            } else if (isType(type, "java.lang.Long")) {
+                return "getLong";
+            } else if (isType(type, "java.lang.Double")) {
+                return "getDouble";
+            } else if (isType(type, "java.lang.Float")) {
+                return "getFloat";
+            } else if (isType(type, "java.lang.Boolean")) {
+                return "getBoolean";
+            }
+            return null;
+        }
+
+        private boolean isEntityType(TypeMirror type) {
+            if (type.getKind() != TypeKind.DECLARED) {
+                return false;
+            }
+            String name = erasure(type);
+            return !name.startsWith("java.") && !name.startsWith("javax.") && !name.equals("com.myorm.core.Cursor");
+        }
+
+        private boolean isType(TypeMirror type, String qualifiedName) {
+            return type.getKind() == TypeKind.DECLARED && erasure(type).equals(qualifiedName);
+        }
+
+        private String erasure(TypeMirror type) {
+            return processingEnv.getTypeUtils().erasure(type).toString();
+        }
+    }
+
+    /**
+     * 单个占位符的取值表达式，类型为null时使用setObject绑定
+     */
+    private static class Binding {
+
+        private final String expression;
+        private final TypeMirror type;
+
+        Binding(String expression, TypeMirror type) {
+            this.expression = expression;
+            this.type = type;
+        }
+    }
+}
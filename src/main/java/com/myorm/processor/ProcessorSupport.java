@@ -0,0 +1,63 @@
+package com.myorm.processor;
+
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+
+/**
+ * 注解处理器的公共方法
+ */
+final class ProcessorSupport {
+
+    private ProcessorSupport() {
+    }
+
+    /**
+     * 获取类型所在的包名，默认包返回空字符串
+     */
+    static String packageName(Elements elements, TypeElement type) {
+        PackageElement pkg = elements.getPackageOf(type);
+        return pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+    }
+
+    /**
+     * 生成类的简单类名：去掉包名的二进制类名，{@code $}替换为{@code _}，再加上后缀
+     */
+    static String generatedSimpleName(Elements elements, TypeElement type, String suffix) {
+        String packageName = packageName(elements, type);
+        String binaryName = elements.getBinaryName(type).toString();
+        String localName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+        return localName.replace('$', '_') + suffix;
+    }
+
+    /**
+     * 将字符串转为Java字符串字面量
+     */
+    static String literal(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    sb.append(c);
+                    break;
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
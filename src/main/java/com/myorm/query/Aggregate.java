@@ -0,0 +1,149 @@
+package com.myorm.query;
+
+import com.myorm.exception.OrmException;
+import com.myorm.util.ReflectionUtil;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 聚合函数描述，用于在数据库端完成统计
+ */
+public class Aggregate {
+    
+    private final String function;
+    private final String field;
+    private final boolean distinct;
+    
+    private Aggregate(String function, String field, boolean distinct) {
+        this.function = function;
+        this.field = field;
+        this.distinct = distinct;
+    }
+    
+    /**
+     * COUNT(*)
+     */
+    public static Aggregate count() {
+        return new Aggregate("COUNT", null, false);
+    }
+    
+    /**
+     * COUNT(属性)，不统计null值
+     */
+    public static Aggregate count(String field) {
+        return new Aggregate("COUNT", requireField(field), false);
+    }
+    
+    /**
+     * COUNT(DISTINCT 属性)
+     */
+    public static Aggregate countDistinct(String field) {
+        return new Aggregate("COUNT", requireField(field), true);
+    }
+    
+    /**
+     * SUM(属性)
+     */
+    public static Aggregate sum(String field) {
+        return new Aggregate("SUM", requireField(field), false);
+    }
+    
+    /**
+     * AVG(属性)
+     */
+    public static Aggregate avg(String field) {
+        return new Aggregate("AVG", requireField(field), false);
+    }
+    
+    /**
+     * MIN(属性)
+     */
+    public static Aggregate min(String field) {
+        return new Aggregate("MIN", requireField(field), false);
+    }
+    
+    /**
+     * MAX(属性)
+     */
+    public static Aggregate max(String field) {
+        return new Aggregate("MAX", requireField(field), false);
+    }
+    
+    public String getFunction() {
+        return function;
+    }
+    
+    public String getField() {
+        return field;
+    }
+    
+    /**
+     * 从结果集中读取聚合值，按聚合函数和属性类型选择精确的类型：
+     * COUNT为Long，AVG为Double，SUM/MIN/MAX对整数属性为Long、对BigDecimal属性为BigDecimal、其他属性为Double
+     * @param rs 结果集
+     * @param column 列下标（从1开始）
+     * @param entityClass 实体类Class对象
+     * @return 聚合值，SQL NULL时为null
+     * @throws SQLException SQL异常
+     */
+    public Number read(ResultSet rs, int column, Class<?> entityClass) throws SQLException {
+        Number value;
+        if ("COUNT".equals(function)) {
+            value = rs.getLong(column);
+        } else if ("AVG".equals(function)) {
+            value = rs.getDouble(column);
+        } else {
+            Class<?> type = ReflectionUtil.getColumnField(entityClass, field).getType();
+            if (isIntegral(type)) {
+                // 整数列的SUM可能以DECIMAL返回，按精确值转换，超出long范围时报错而不是溢出
+                BigDecimal decimal = rs.getBigDecimal(column);
+                value = decimal == null ? null : toLong(decimal);
+            } else if (type == BigDecimal.class || type == BigInteger.class) {
+                value = rs.getBigDecimal(column);
+            } else {
+                value = rs.getDouble(column);
+            }
+        }
+        return rs.wasNull() ? null : value;
+    }
+    
+    private Long toLong(BigDecimal decimal) {
+        try {
+            return decimal.longValueExact();
+        } catch (ArithmeticException e) {
+            throw new OrmException(function + "(" + field + ")的结果" + decimal + "超出long的范围", e);
+        }
+    }
+    
+    private static boolean isIntegral(Class<?> type) {
+        return type == int.class || type == Integer.class || type == long.class || type == Long.class
+                || type == short.class || type == Short.class || type == byte.class || type == Byte.class;
+    }
+    
+    void appendShape(StringBuilder shape) {
+        shape.append(function).append(distinct ? ":distinct:" : ":").append(field).append(',');
+    }
+    
+    String toSql(Class<?> clazz) {
+        if (field == null) {
+            return function + "(*)";
+        }
+        
+        String column = CriteriaCompiler.column(clazz, field);
+        // AVG在部分数据库中对整数列返回整数，统一按浮点数计算
+        if ("AVG".equals(function)) {
+            column = "CAST(" + column + " AS DOUBLE PRECISION)";
+        }
+        return function + "(" + (distinct ? "DISTINCT " : "") + column + ")";
+    }
+    
+    private static String requireField(String field) {
+        if (field == null || field.isEmpty()) {
+            throw new OrmException("聚合函数的属性名不能为空");
+        }
+        return field;
+    }
+}
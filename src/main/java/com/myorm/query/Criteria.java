@@ -0,0 +1,493 @@
+package com.myorm.query;
+
+import com.myorm.exception.OrmException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 类型化的条件查询构建器
+ * 条件使用实体类属性名描述，查询的“形状”（条件种类、属性、IN列表长度分档等，不含参数值）
+ * 相同的查询会被编译为同一条SQL模板并缓存，从而复用数据库端和会话内的预编译语句
+ * <pre>
+ * Criteria&lt;User&gt; criteria = Criteria.of(User.class)
+ *         .eq("username", "张三")
+ *         .between("age", 20, 30)
+ *         .or(c -&gt; c.like("email", "%@example.com"), c -&gt; c.isNull("email"))
+ *         .desc("age")
+ *         .limit(10);
+ * List&lt;User&gt; users = session.findByCriteria(criteria);
+ * </pre>
+ * @param <T> 实体类型
+ */
+public class Criteria<T> {
+    
+    private final Class<T> entityClass;
+    private final List<Predicate> predicates = new ArrayList<>();
+    private final List<Order> orders = new ArrayList<>();
+    private List<String> selectFields = Collections.emptyList();
+    private Integer limit;
+    private Integer offset;
+    
+    private Criteria(Class<T> entityClass) {
+        this.entityClass = entityClass;
+    }
+    
+    /**
+     * 创建实体类的条件查询
+     * @param entityClass 实体类Class对象
+     * @param <T> 实体类型
+     * @return 条件查询构建器
+     */
+    public static <T> Criteria<T> of(Class<T> entityClass) {
+        if (entityClass == null) {
+            throw new OrmException("实体类不能为空");
+        }
+        return new Criteria<>(entityClass);
+    }
+    
+    /**
+     * 等于条件，值为null时生成IS NULL
+     */
+    public Criteria<T> eq(String field, Object value) {
+        if (value == null) {
+            return isNull(field);
+        }
+        return add(new Comparison(field, "=", value));
+    }
+    
+    /**
+     * 不等于条件，值为null时生成IS NOT NULL
+     */
+    public Criteria<T> ne(String field, Object value) {
+        if (value == null) {
+            return isNotNull(field);
+        }
+        return add(new Comparison(field, "<>", value));
+    }
+    
+    /**
+     * 大于条件
+     */
+    public Criteria<T> gt(String field, Object value) {
+        return add(new Comparison(field, ">", requireValue(field, value)));
+    }
+    
+    /**
+     * 大于等于条件
+     */
+    public Criteria<T> ge(String field, Object value) {
+        return add(new Comparison(field, ">=", requireValue(field, value)));
+    }
+    
+    /**
+     * 小于条件
+     */
+    public Criteria<T> lt(String field, Object value) {
+        return add(new Comparison(field, "<", requireValue(field, value)));
+    }
+    
+    /**
+     * 小于等于条件
+     */
+    public Criteria<T> le(String field, Object value) {
+        return add(new Comparison(field, "<=", requireValue(field, value)));
+    }
+    
+    /**
+     * 范围条件（包含两端）
+     */
+    public Criteria<T> between(String field, Object from, Object to) {
+        return add(new Between(field, requireValue(field, from), requireValue(field, to)));
+    }
+    
+    /**
+     * 模糊匹配条件
+     */
+    public Criteria<T> like(String field, String pattern) {
+        return add(new Comparison(field, "LIKE", requireValue(field, pattern)));
+    }
+    
+    /**
+     * IN条件，空集合不匹配任何记录
+     */
+    public Criteria<T> in(String field, Collection<?> values) {
+        if (values == null) {
+            throw new OrmException("属性" + field + "的IN条件值不能为空");
+        }
+        return add(new In(field, new ArrayList<>(values)));
+    }
+    
+    /**
+     * IN条件，空数组不匹配任何记录
+     */
+    public Criteria<T> in(String field, Object... values) {
+        return in(field, Arrays.asList(values));
+    }
+    
+    /**
+     * IS NULL条件
+     */
+    public Criteria<T> isNull(String field) {
+        return add(new NullCheck(field, true));
+    }
+    
+    /**
+     * IS NOT NULL条件
+     */
+    public Criteria<T> isNotNull(String field) {
+        return add(new NullCheck(field, false));
+    }
+    
+    /**
+     * OR条件，每个分支内部的条件之间为AND关系
+     * @param branches 分支条件
+     * @return 条件查询构建器
+     */
+    @SafeVarargs
+    public final Criteria<T> or(Consumer<Criteria<T>>... branches) {
+        if (branches.length == 0) {
+            throw new OrmException("OR条件至少需要一个分支");
+        }
+        
+        List<List<Predicate>> groups = new ArrayList<>();
+        for (Consumer<Criteria<T>> branch : branches) {
+            Criteria<T> group = new Criteria<>(entityClass);
+            branch.accept(group);
+            if (group.predicates.isEmpty()) {
+                throw new OrmException("OR条件的分支不能为空");
+            }
+            groups.add(group.predicates);
+        }
+        return add(new Or(groups));
+    }
+    
+    /**
+     * 按属性升序排序
+     */
+    public Criteria<T> asc(String field) {
+        orders.add(new Order(field, true));
+        return this;
+    }
+    
+    /**
+     * 按属性降序排序
+     */
+    public Criteria<T> desc(String field) {
+        orders.add(new Order(field, false));
+        return this;
+    }
+    
+    /**
+     * 限制返回的最大行数
+     */
+    public Criteria<T> limit(int limit) {
+        if (limit < 0) {
+            throw new OrmException("limit不能小于0");
+        }
+        this.limit = limit;
+        return this;
+    }
+    
+    /**
+     * 跳过的行数，需要与limit一起使用
+     */
+    public Criteria<T> offset(int offset) {
+        if (offset < 0) {
+            throw new OrmException("offset不能小于0");
+        }
+        this.offset = offset;
+        return this;
+    }
+    
+    /**
+     * 只查询指定的属性（列投影），未查询的属性保持为null
+     */
+    public Criteria<T> select(String... fields) {
+        this.selectFields = Arrays.asList(fields);
+        return this;
+    }
+    
+    public Class<T> getEntityClass() {
+        return entityClass;
+    }
+    
+    List<Predicate> getPredicates() {
+        return predicates;
+    }
+    
+    public List<Order> getOrders() {
+        return orders;
+    }
+    
+    List<String> getSelectFields() {
+        return selectFields;
+    }
+    
+    /**
+     * 最大行数，未设置时为null
+     */
+    public Integer getLimit() {
+        return limit;
+    }
+    
+    /**
+     * 跳过的行数，未设置时为null
+     */
+    public Integer getOffset() {
+        return offset;
+    }
+    
+    /**
+     * 复制条件查询，副本与原查询共享不可变的条件对象，修改排序和分页不会影响原查询
+     * @return 条件查询的副本
+     */
+    public Criteria<T> copy() {
+        Criteria<T> copy = new Criteria<>(entityClass);
+        copy.predicates.addAll(predicates);
+        copy.orders.addAll(orders);
+        copy.selectFields = selectFields;
+        copy.limit = limit;
+        copy.offset = offset;
+        return copy;
+    }
+    
+    private Criteria<T> add(Predicate predicate) {
+        predicates.add(predicate);
+        return this;
+    }
+    
+    private static Object requireValue(String field, Object value) {
+        if (value == null) {
+            throw new OrmException("属性" + field + "的条件值不能为空");
+        }
+        return value;
+    }
+    
+    /**
+     * 查询条件节点，形状、SQL和参数按相同的顺序遍历生成
+     */
+    interface Predicate {
+        /**
+         * 追加不含参数值的形状描述
+         */
+        void appendShape(StringBuilder shape);
+        
+        /**
+         * 追加SQL片段
+         */
+        void appendSql(StringBuilder sql, ColumnResolver resolver);
+        
+        /**
+         * 追加参数值
+         */
+        void collectParams(List<Object> params);
+    }
+    
+    /**
+     * 属性名到列名的解析器
+     */
+    interface ColumnResolver {
+        String column(String field);
+    }
+    
+    private static class Comparison implements Predicate {
+        private final String field;
+        private final String operator;
+        private final Object value;
+        
+        Comparison(String field, String operator, Object value) {
+            this.field = field;
+            this.operator = operator;
+            this.value = value;
+        }
+        
+        @Override
+        public void appendShape(StringBuilder shape) {
+            shape.append(operator).append(':').append(field).append(';');
+        }
+        
+        @Override
+        public void appendSql(StringBuilder sql, ColumnResolver resolver) {
+            sql.append(resolver.column(field)).append(' ').append(operator).append(" ?");
+        }
+        
+        @Override
+        public void collectParams(List<Object> params) {
+            params.add(value);
+        }
+    }
+    
+    private static class Between implements Predicate {
+        private final String field;
+        private final Object from;
+        private final Object to;
+        
+        Between(String field, Object from, Object to) {
+            this.field = field;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        public void appendShape(StringBuilder shape) {
+            shape.append("between:").append(field).append(';');
+        }
+        
+        @Override
+        public void appendSql(StringBuilder sql, ColumnResolver resolver) {
+            sql.append(resolver.column(field)).append(" BETWEEN ? AND ?");
+        }
+        
+        @Override
+        public void collectParams(List<Object> params) {
+            params.add(from);
+            params.add(to);
+        }
+    }
+    
+    /**
+     * IN条件，占位符数量按2的幂分档，不足的部分重复最后一个值补齐，
+     * 使不同长度的IN列表尽量共用同一条SQL模板
+     */
+    private static class In implements Predicate {
+        private final String field;
+        private final List<Object> values;
+        private final int placeholders;
+        
+        In(String field, List<Object> values) {
+            this.field = field;
+            this.values = values;
+            this.placeholders = values.isEmpty() ? 0 : Integer.highestOneBit(values.size() - 1) << 1;
+        }
+        
+        @Override
+        public void appendShape(StringBuilder shape) {
+            shape.append("in:").append(field).append(':').append(Math.max(placeholders, values.size())).append(';');
+        }
+        
+        @Override
+        public void appendSql(StringBuilder sql, ColumnResolver resolver) {
+            if (values.isEmpty()) {
+                sql.append("1 = 0");
+                return;
+            }
+            
+            sql.append(resolver.column(field)).append(" IN (");
+            for (int i = 0; i < Math.max(placeholders, values.size()); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(')');
+        }
+        
+        @Override
+        public void collectParams(List<Object> params) {
+            params.addAll(values);
+            for (int i = values.size(); i < placeholders; i++) {
+                params.add(values.get(values.size() - 1));
+            }
+        }
+    }
+    
+    private static class NullCheck implements Predicate {
+        private final String field;
+        private final boolean isNull;
+        
+        NullCheck(String field, boolean isNull) {
+            this.field = field;
+            this.isNull = isNull;
+        }
+        
+        @Override
+        public void appendShape(StringBuilder shape) {
+            shape.append(isNull ? "null:" : "notnull:").append(field).append(';');
+        }
+        
+        @Override
+        public void appendSql(StringBuilder sql, ColumnResolver resolver) {
+            sql.append(resolver.column(field)).append(isNull ? " IS NULL" : " IS NOT NULL");
+        }
+        
+        @Override
+        public void collectParams(List<Object> params) {
+        }
+    }
+    
+    private static class Or implements Predicate {
+        private final List<List<Predicate>> groups;
+        
+        Or(List<List<Predicate>> groups) {
+            this.groups = groups;
+        }
+        
+        @Override
+        public void appendShape(StringBuilder shape) {
+            shape.append("or(");
+            for (List<Predicate> group : groups) {
+                shape.append('(');
+                for (Predicate predicate : group) {
+                    predicate.appendShape(shape);
+                }
+                shape.append(')');
+            }
+            shape.append(");");
+        }
+        
+        @Override
+        public void appendSql(StringBuilder sql, ColumnResolver resolver) {
+            sql.append('(');
+            for (int i = 0; i < groups.size(); i++) {
+                if (i > 0) {
+                    sql.append(" OR ");
+                }
+                sql.append('(');
+                appendAnd(sql, groups.get(i), resolver);
+                sql.append(')');
+            }
+            sql.append(')');
+        }
+        
+        @Override
+        public void collectParams(List<Object> params) {
+            for (List<Predicate> group : groups) {
+                for (Predicate predicate : group) {
+                    predicate.collectParams(params);
+                }
+            }
+        }
+    }
+    
+    static void appendAnd(StringBuilder sql, List<Predicate> predicates, ColumnResolver resolver) {
+        for (int i = 0; i < predicates.size(); i++) {
+            if (i > 0) {
+                sql.append(" AND ");
+            }
+            predicates.get(i).appendSql(sql, resolver);
+        }
+    }
+    
+    /**
+     * 排序条件
+     */
+    public static class Order {
+        private final String field;
+        private final boolean ascending;
+        
+        Order(String field, boolean ascending) {
+            this.field = field;
+            this.ascending = ascending;
+        }
+        
+        public String getField() {
+            return field;
+        }
+        
+        public boolean isAscending() {
+            return ascending;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.myorm.query;
+
+import com.myorm.exception.OrmException;
+import com.myorm.util.ReflectionUtil;
+import com.myorm.util.SqlBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 条件查询编译器，将Criteria编译为SQL模板和参数
+ * SQL模板按“实体类 + 查询形状”缓存，相同形状的查询得到同一个SQL字符串
+ */
+public class CriteriaCompiler {
+    
+    /**
+     * SQL模板缓存的最大条目数，超过后不再缓存新的形状
+     */
+    private static final int MAX_CACHED_TEMPLATES = 1024;
+    
+    private static final Map<String, String> TEMPLATE_CACHE = new ConcurrentHashMap<>();
+    
+    private CriteriaCompiler() {
+    }
+    
+    /**
+     * 编译为查询实体的SQL语句
+     * @param criteria 条件查询
+     * @return SQL语句和参数
+     */
+    public static SqlBuilder.SqlAndParams compileSelect(Criteria<?> criteria) {
+        Class<?> clazz = criteria.getEntityClass();
+        
+        StringBuilder shape = new StringBuilder(clazz.getName()).append("|select:");
+        for (String field : criteria.getSelectFields()) {
+            shape.append(field).append(',');
+        }
+        appendShape(shape, criteria);
+        
+        String sql = getTemplate(shape.toString(), () -> {
+            StringBuilder sqlBuilder = new StringBuilder("SELECT ");
+            if (criteria.getSelectFields().isEmpty()) {
+                sqlBuilder.append(SqlBuilder.buildSelectColumns(clazz));
+            } else {
+                for (int i = 0; i < criteria.getSelectFields().size(); i++) {
+                    sqlBuilder.append(i == 0 ? "" : ", ").append(column(clazz, criteria.getSelectFields().get(i)));
+                }
+            }
+            sqlBuilder.append(" FROM ").append(ReflectionUtil.getTableName(clazz));
+            appendClauses(sqlBuilder, criteria);
+            return sqlBuilder.toString();
+        });
+        
+        return new SqlBuilder.SqlAndParams(sql, collectParams(criteria));
+    }
+    
+    /**
+     * 编译为聚合查询的SQL语句
+     * 查询列依次为分组属性和聚合函数；没有分组属性时忽略排序和分页
+     * @param criteria 条件查询
+     * @param groupFields 分组属性名列表，可以为空
+     * @param aggregates 聚合函数列表
+     * @return SQL语句和参数
+     */
+    public static SqlBuilder.SqlAndParams compileAggregate(Criteria<?> criteria, List<String> groupFields, 
+            List<Aggregate> aggregates) {
+        if (aggregates == null || aggregates.isEmpty()) {
+            throw new OrmException("聚合函数不能为空");
+        }
+        
+        Class<?> clazz = criteria.getEntityClass();
+        boolean grouped = !groupFields.isEmpty();
+        
+        StringBuilder shape = new StringBuilder(clazz.getName()).append("|aggregate:");
+        for (Aggregate aggregate : aggregates) {
+            aggregate.appendShape(shape);
+        }
+        shape.append("|group:");
+        for (String field : groupFields) {
+            shape.append(field).append(',');
+        }
+        appendShape(shape, criteria);
+        
+        String sql = getTemplate(shape.toString(), () -> {
+            StringBuilder sqlBuilder = new StringBuilder("SELECT ");
+            StringBuilder groupBuilder = new StringBuilder();
+            for (String field : groupFields) {
+                String column = column(clazz, field);
+                sqlBuilder.append(column).append(", ");
+                groupBuilder.append(groupBuilder.length() == 0 ? "" : ", ").append(column);
+            }
+            for (int i = 0; i < aggregates.size(); i++) {
+                sqlBuilder.append(i == 0 ? "" : ", ").append(aggregates.get(i).toSql(clazz));
+            }
+            sqlBuilder.append(" FROM ").append(ReflectionUtil.getTableName(clazz));
+            
+            appendWhere(sqlBuilder, criteria);
+            if (grouped) {
+                sqlBuilder.append(" GROUP BY ").append(groupBuilder);
+                appendOrderAndPaging(sqlBuilder, criteria);
+            }
+            return sqlBuilder.toString();
+        });
+        
+        List<Object> params = collectParams(criteria);
+        if (!grouped) {
+            // 不分组时没有LIMIT/OFFSET占位符
+            params = params.subList(0, params.size() 
+                    - (criteria.getLimit() != null ? 1 : 0) - (criteria.getOffset() != null ? 1 : 0));
+        }
+        return new SqlBuilder.SqlAndParams(sql, params);
+    }
+    
+    /**
+     * 获取缓存的SQL模板，不存在时编译并缓存
+     * @param key 实体类与查询形状组成的缓存键
+     * @param compiler SQL模板编译函数
+     * @return SQL模板
+     */
+    static String getTemplate(String key, TemplateCompiler compiler) {
+        String sql = TEMPLATE_CACHE.get(key);
+        if (sql != null) {
+            return sql;
+        }
+        
+        sql = compiler.compile();
+        if (TEMPLATE_CACHE.size() < MAX_CACHED_TEMPLATES) {
+            String existing = TEMPLATE_CACHE.putIfAbsent(key, sql);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return sql;
+    }
+    
+    /**
+     * 追加WHERE、ORDER BY、LIMIT和OFFSET部分的形状描述
+     */
+    static void appendShape(StringBuilder shape, Criteria<?> criteria) {
+        shape.append("|where:");
+        for (Criteria.Predicate predicate : criteria.getPredicates()) {
+            predicate.appendShape(shape);
+        }
+        shape.append("|order:");
+        for (Criteria.Order order : criteria.getOrders()) {
+            shape.append(order.getField()).append(order.isAscending() ? "+" : "-").append(',');
+        }
+        shape.append("|limit:").append(criteria.getLimit() != null).append(criteria.getOffset() != null);
+    }
+    
+    /**
+     * 追加WHERE、ORDER BY、LIMIT和OFFSET部分的SQL
+     */
+    static void appendClauses(StringBuilder sqlBuilder, Criteria<?> criteria) {
+        appendWhere(sqlBuilder, criteria);
+        appendOrderAndPaging(sqlBuilder, criteria);
+    }
+    
+    /**
+     * 追加ORDER BY、LIMIT和OFFSET部分的SQL
+     */
+    static void appendOrderAndPaging(StringBuilder sqlBuilder, Criteria<?> criteria) {
+        if (!criteria.getOrders().isEmpty()) {
+            sqlBuilder.append(" ORDER BY ");
+            for (int i = 0; i < criteria.getOrders().size(); i++) {
+                Criteria.Order order = criteria.getOrders().get(i);
+                sqlBuilder.append(i == 0 ? "" : ", ").append(column(criteria.getEntityClass(), order.getField()))
+                        .append(order.isAscending() ? " ASC" : " DESC");
+            }
+        }
+        
+        if (criteria.getLimit() != null) {
+            sqlBuilder.append(" LIMIT ?");
+        }
+        if (criteria.getOffset() != null) {
+            sqlBuilder.append(" OFFSET ?");
+        }
+    }
+    
+    /**
+     * 追加WHERE部分的SQL
+     */
+    static void appendWhere(StringBuilder sqlBuilder, Criteria<?> criteria) {
+        if (!criteria.getPredicates().isEmpty()) {
+            sqlBuilder.append(" WHERE ");
+            Class<?> clazz = criteria.getEntityClass();
+            Criteria.appendAnd(sqlBuilder, criteria.getPredicates(), field -> column(clazz, field));
+        }
+    }
+    
+    /**
+     * 按SQL模板中的占位符顺序收集参数值
+     */
+    static List<Object> collectParams(Criteria<?> criteria) {
+        List<Object> params = new ArrayList<>();
+        for (Criteria.Predicate predicate : criteria.getPredicates()) {
+            predicate.collectParams(params);
+        }
+        if (criteria.getLimit() != null) {
+            params.add(criteria.getLimit());
+        }
+        if (criteria.getOffset() != null) {
+            params.add(criteria.getOffset());
+        }
+        return params;
+    }
+    
+    static String column(Class<?> clazz, String field) {
+        if (field == null || field.isEmpty()) {
+            throw new OrmException("属性名不能为空");
+        }
+        return ReflectionUtil.getColumnName(ReflectionUtil.getColumnField(clazz, field));
+    }
+    
+    /**
+     * SQL模板编译函数
+     */
+    interface TemplateCompiler {
+        String compile();
+    }
+}
@@ -0,0 +1,83 @@
+package com.myorm.query;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * 分组统计结果行，分组键保存在Object数组中，聚合值按{@link Aggregate#read}的精确类型保存在Number数组中
+ * 聚合值为SQL NULL时（例如空分组的SUM/MIN/MAX）保存为null
+ */
+public class GroupRow {
+    
+    private final Object[] keys;
+    private final Number[] values;
+    
+    public GroupRow(Object[] keys, Number[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+    
+    /**
+     * 获取分组键
+     * @param index 分组属性的下标（从0开始）
+     * @return 分组键的值
+     */
+    public Object getKey(int index) {
+        return keys[index];
+    }
+    
+    /**
+     * 获取聚合值
+     * @param index 聚合函数的下标（从0开始）
+     * @return 聚合值（Long、Double或BigDecimal），SQL NULL时为null
+     */
+    public Number getValue(int index) {
+        return values[index];
+    }
+    
+    /**
+     * 获取浮点数形式的聚合值
+     * @param index 聚合函数的下标（从0开始）
+     * @return 聚合值，SQL NULL时为NaN
+     */
+    public double getDouble(int index) {
+        Number value = values[index];
+        return value == null ? Double.NaN : value.doubleValue();
+    }
+    
+    /**
+     * 获取整数形式的聚合值，适用于COUNT和整数列的SUM/MIN/MAX
+     * @param index 聚合函数的下标（从0开始）
+     * @return 聚合值，SQL NULL时为0
+     */
+    public long getLong(int index) {
+        Number value = values[index];
+        return value == null ? 0L : value.longValue();
+    }
+    
+    /**
+     * 获取精确小数形式的聚合值，适用于DECIMAL列的SUM/MIN/MAX
+     * @param index 聚合函数的下标（从0开始）
+     * @return 聚合值，SQL NULL时为null
+     */
+    public BigDecimal getDecimal(int index) {
+        Number value = values[index];
+        if (value == null || value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        return value instanceof Double ? BigDecimal.valueOf(value.doubleValue()) : BigDecimal.valueOf(value.longValue());
+    }
+    
+    public int getKeyCount() {
+        return keys.length;
+    }
+    
+    public int getValueCount() {
+        return values.length;
+    }
+    
+    @Override
+    public String toString() {
+        return "GroupRow{keys=" + Arrays.toString(keys) + ", values=" + Arrays.toString(values) + '}';
+    }
+}
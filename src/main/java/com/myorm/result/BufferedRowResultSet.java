@@ -0,0 +1,204 @@
+package com.myorm.result;
+
+import com.myorm.util.ReflectionUtil;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Time;
+import java.sql.Timestamp;
+
+/**
+ * 把已经读出的一行列值包装为只读的结果集，让生成的或运行时编译的行映射器可以在其他线程上映射缓冲的行
+ * <p>
+ * 只支持按列下标（从1开始）读取值的{@code getXxx}方法和{@link #wasNull()}，其他方法抛出
+ * {@link SQLFeatureNotSupportedException}。类型化的读取方法直接从数组取值，驱动返回的类型与目标类型一致时
+ * 不做任何转换，只有类型不一致的少见情况才交给{@link ReflectionUtil#convertValueType}。
+ * 一个实例同一时间只能由一个线程使用。
+ */
+final class BufferedRowResultSet extends UnsupportedResultSet {
+
+    private Object[] row;
+    private boolean lastNull;
+
+    /**
+     * 切换到下一行
+     * @param row 按列顺序排列的列值
+     * @return 当前对象
+     */
+    BufferedRowResultSet wrap(Object[] row) {
+        this.row = row;
+        this.lastNull = false;
+        return this;
+    }
+
+    @Override
+    public boolean wasNull() {
+        return lastNull;
+    }
+
+    @Override
+    public Object getObject(int columnIndex) throws SQLException {
+        return value(columnIndex);
+    }
+
+    @Override
+    public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+        Object value = value(columnIndex);
+        if (value == null || type.isInstance(value)) {
+            return type.cast(value);
+        }
+        return convert(value, type);
+    }
+
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        return convert(value, String.class);
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        return value == null ? 0 : convert(value, Integer.class);
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return value == null ? 0L : convert(value, Long.class);
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return value == null ? 0d : convert(value, Double.class);
+    }
+
+    @Override
+    public float getFloat(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        if (value instanceof Number) {
+            return ((Number) value).floatValue();
+        }
+        return value == null ? 0f : convert(value, Float.class);
+    }
+
+    @Override
+    public short getShort(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        if (value instanceof Number) {
+            return ((Number) value).shortValue();
+        }
+        return value == null ? 0 : Short.parseShort(value.toString());
+    }
+
+    @Override
+    public byte getByte(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        if (value instanceof Number) {
+            return ((Number) value).byteValue();
+        }
+        return value == null ? 0 : Byte.parseByte(value.toString());
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue() != 0;
+        }
+        return value != null && convert(value, Boolean.class);
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        if (value == null || value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        }
+        if (value instanceof Number) {
+            return new BigDecimal(value.toString());
+        }
+        return new BigDecimal(convert(value, String.class));
+    }
+
+    @Override
+    public byte[] getBytes(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        if (value == null || value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        return convert(value, byte[].class);
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex) throws SQLException {
+        return getObject(columnIndex, Timestamp.class);
+    }
+
+    @Override
+    public Date getDate(int columnIndex) throws SQLException {
+        return getObject(columnIndex, Date.class);
+    }
+
+    @Override
+    public Time getTime(int columnIndex) throws SQLException {
+        return getObject(columnIndex, Time.class);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * 类型不一致时的转换，转换结果仍不是目标类型时抛出异常
+     */
+    private static <T> T convert(Object value, Class<T> type) throws SQLException {
+        Object converted = ReflectionUtil.convertValueType(value, type);
+        if (!type.isInstance(converted)) {
+            throw new SQLException("无法把" + value.getClass().getName() + "转换为" + type.getName());
+        }
+        return type.cast(converted);
+    }
+
+    private Object value(int columnIndex) throws SQLException {
+        if (columnIndex < 1 || columnIndex > row.length) {
+            throw new SQLException("列下标" + columnIndex + "超出范围");
+        }
+        Object value = row[columnIndex - 1];
+        lastNull = value == null;
+        return value;
+    }
+}
@@ -0,0 +1,432 @@
+package com.myorm.result;
+
+import com.myorm.exception.OrmException;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 列式查询结果，每一列保存在一个按类型特化的数组中
+ * 整数列使用int[]/long[]，浮点列使用double[]，字符串列使用字典编码（int[]编码 + 去重后的字典），
+ * 空值使用位图记录，适合对大量行的少数数值列做统计分析
+ * <pre>
+ * ColumnarResult result = session.queryColumnar("SELECT AGE, SCORE FROM STUDENT", null);
+ * ColumnarResult.IntColumn ages = result.getIntColumn("AGE");
+ * long total = 0;
+ * for (int i = 0; i &lt; result.getRowCount(); i++) {
+ *     if (!ages.isNull(i)) {
+ *         total += ages.getInt(i);
+ *     }
+ * }
+ * </pre>
+ */
+public class ColumnarResult {
+    
+    private static final int INITIAL_CAPACITY = 256;
+    
+    private final ColumnVector[] columns;
+    private final Map<String, Integer> columnIndexes;
+    private int rowCount;
+    
+    private ColumnarResult(ColumnVector[] columns) {
+        this.columns = columns;
+        this.columnIndexes = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            columnIndexes.put(columns[i].getLabel(), i);
+        }
+    }
+    
+    /**
+     * 读取整个结果集，根据列的JDBC类型选择列存储方式
+     * @param rs 结果集
+     * @return 列式结果
+     * @throws SQLException SQL异常
+     */
+    public static ColumnarResult read(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        ColumnVector[] columns = new ColumnVector[metaData.getColumnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = createColumn(metaData, i + 1);
+        }
+        
+        ColumnarResult result = new ColumnarResult(columns);
+        while (rs.next()) {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].append(rs, i + 1);
+            }
+            result.rowCount++;
+        }
+        return result;
+    }
+    
+    private static ColumnVector createColumn(ResultSetMetaData metaData, int column) throws SQLException {
+        String label = metaData.getColumnLabel(column);
+        switch (metaData.getColumnType(column)) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return new IntColumn(label);
+            case Types.BIGINT:
+                return new LongColumn(label);
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return new DoubleColumn(label);
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                // 没有小数位且位数不超过long范围的定点数可以无损地存为long
+                if (metaData.getScale(column) == 0 && metaData.getPrecision(column) > 0 
+                        && metaData.getPrecision(column) <= 18) {
+                    return new LongColumn(label);
+                }
+                return new ObjectColumn(label);
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return new StringColumn(label);
+            default:
+                return new ObjectColumn(label);
+        }
+    }
+    
+    public int getRowCount() {
+        return rowCount;
+    }
+    
+    public int getColumnCount() {
+        return columns.length;
+    }
+    
+    /**
+     * 按下标获取列
+     * @param index 列下标（从0开始）
+     * @return 列
+     */
+    public ColumnVector getColumn(int index) {
+        return columns[index];
+    }
+    
+    /**
+     * 按列名获取列
+     * @param label 列名
+     * @return 列
+     */
+    public ColumnVector getColumn(String label) {
+        Integer index = columnIndexes.get(label);
+        if (index == null) {
+            throw new OrmException("结果中没有列" + label);
+        }
+        return columns[index];
+    }
+    
+    public IntColumn getIntColumn(String label) {
+        return getTypedColumn(label, IntColumn.class);
+    }
+    
+    public LongColumn getLongColumn(String label) {
+        return getTypedColumn(label, LongColumn.class);
+    }
+    
+    public DoubleColumn getDoubleColumn(String label) {
+        return getTypedColumn(label, DoubleColumn.class);
+    }
+    
+    public StringColumn getStringColumn(String label) {
+        return getTypedColumn(label, StringColumn.class);
+    }
+    
+    private <C extends ColumnVector> C getTypedColumn(String label, Class<C> type) {
+        ColumnVector column = getColumn(label);
+        if (!type.isInstance(column)) {
+            throw new OrmException("列" + label + "的存储类型是" + column.getClass().getSimpleName() 
+                    + "，不是" + type.getSimpleName());
+        }
+        return type.cast(column);
+    }
+    
+    /**
+     * 列存储的基类，维护列名、行数和空值位图
+     */
+    public abstract static class ColumnVector {
+        private final String label;
+        private long[] nulls = new long[INITIAL_CAPACITY >>> 6];
+        protected int size;
+        
+        ColumnVector(String label) {
+            this.label = label;
+        }
+        
+        public String getLabel() {
+            return label;
+        }
+        
+        public int size() {
+            return size;
+        }
+        
+        /**
+         * 判断某一行的值是否为空
+         * @param row 行下标（从0开始）
+         * @return 是否为空
+         * @throws IndexOutOfBoundsException 行下标不小于行数时
+         */
+        public boolean isNull(int row) {
+            checkRow(row);
+            return (nulls[row >>> 6] & (1L << row)) != 0;
+        }
+        
+        /**
+         * 校验行下标，底层数组按容量分配，超出行数的位置不能读取
+         */
+        void checkRow(int row) {
+            Objects.checkIndex(row, size);
+        }
+        
+        /**
+         * 以对象形式获取某一行的值，空值返回null
+         * @param row 行下标（从0开始）
+         * @return 值
+         */
+        public abstract Object get(int row);
+        
+        abstract void append(ResultSet rs, int column) throws SQLException;
+        
+        /**
+         * 扩容到至少能容纳size + 1行
+         * @param capacity 当前容量
+         * @return 新容量，不需要扩容时返回当前容量
+         */
+        int ensureCapacity(int capacity) {
+            if ((size >>> 6) >= nulls.length) {
+                nulls = Arrays.copyOf(nulls, nulls.length << 1);
+            }
+            return size < capacity ? capacity : capacity << 1;
+        }
+        
+        void markNull() {
+            nulls[size >>> 6] |= 1L << size;
+        }
+    }
+    
+    /**
+     * int列
+     */
+    public static class IntColumn extends ColumnVector {
+        private int[] values = new int[INITIAL_CAPACITY];
+        
+        IntColumn(String label) {
+            super(label);
+        }
+        
+        public int getInt(int row) {
+            checkRow(row);
+            return values[row];
+        }
+        
+        /**
+         * 获取底层数组，只有前size()个元素有效，空值对应的元素为0
+         */
+        public int[] values() {
+            return values;
+        }
+        
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+        
+        @Override
+        void append(ResultSet rs, int column) throws SQLException {
+            int capacity = ensureCapacity(values.length);
+            if (capacity != values.length) {
+                values = Arrays.copyOf(values, capacity);
+            }
+            values[size] = rs.getInt(column);
+            if (rs.wasNull()) {
+                markNull();
+            }
+            size++;
+        }
+    }
+    
+    /**
+     * long列
+     */
+    public static class LongColumn extends ColumnVector {
+        private long[] values = new long[INITIAL_CAPACITY];
+        
+        LongColumn(String label) {
+            super(label);
+        }
+        
+        public long getLong(int row) {
+            checkRow(row);
+            return values[row];
+        }
+        
+        /**
+         * 获取底层数组，只有前size()个元素有效，空值对应的元素为0
+         */
+        public long[] values() {
+            return values;
+        }
+        
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+        
+        @Override
+        void append(ResultSet rs, int column) throws SQLException {
+            int capacity = ensureCapacity(values.length);
+            if (capacity != values.length) {
+                values = Arrays.copyOf(values, capacity);
+            }
+            values[size] = rs.getLong(column);
+            if (rs.wasNull()) {
+                markNull();
+            }
+            size++;
+        }
+    }
+    
+    /**
+     * double列
+     */
+    public static class DoubleColumn extends ColumnVector {
+        private double[] values = new double[INITIAL_CAPACITY];
+        
+        DoubleColumn(String label) {
+            super(label);
+        }
+        
+        public double getDouble(int row) {
+            checkRow(row);
+            return values[row];
+        }
+        
+        /**
+         * 获取底层数组，只有前size()个元素有效，空值对应的元素为0
+         */
+        public double[] values() {
+            return values;
+        }
+        
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+        
+        @Override
+        void append(ResultSet rs, int column) throws SQLException {
+            int capacity = ensureCapacity(values.length);
+            if (capacity != values.length) {
+                values = Arrays.copyOf(values, capacity);
+            }
+            values[size] = rs.getDouble(column);
+            if (rs.wasNull()) {
+                markNull();
+            }
+            size++;
+        }
+    }
+    
+    /**
+     * 字典编码的字符串列，相同的字符串只保存一份
+     */
+    public static class StringColumn extends ColumnVector {
+        private int[] codes = new int[INITIAL_CAPACITY];
+        private final List<String> dictionary = new ArrayList<>();
+        private final Map<String, Integer> dictionaryIndexes = new HashMap<>();
+        
+        StringColumn(String label) {
+            super(label);
+        }
+        
+        /**
+         * 获取某一行的字典编码，空值返回-1
+         */
+        public int getCode(int row) {
+            return isNull(row) ? -1 : codes[row];
+        }
+        
+        /**
+         * 获取只读的字典，下标即字典编码
+         */
+        public List<String> getDictionary() {
+            return Collections.unmodifiableList(dictionary);
+        }
+        
+        public String getString(int row) {
+            return isNull(row) ? null : dictionary.get(codes[row]);
+        }
+        
+        @Override
+        public Object get(int row) {
+            return getString(row);
+        }
+        
+        @Override
+        void append(ResultSet rs, int column) throws SQLException {
+            int capacity = ensureCapacity(codes.length);
+            if (capacity != codes.length) {
+                codes = Arrays.copyOf(codes, capacity);
+            }
+            String value = rs.getString(column);
+            if (value == null) {
+                markNull();
+            } else {
+                Integer code = dictionaryIndexes.get(value);
+                if (code == null) {
+                    code = dictionary.size();
+                    dictionary.add(value);
+                    dictionaryIndexes.put(value, code);
+                }
+                codes[size] = code;
+            }
+            size++;
+        }
+    }
+    
+    /**
+     * 其他类型的列，按对象保存
+     */
+    public static class ObjectColumn extends ColumnVector {
+        private Object[] values = new Object[INITIAL_CAPACITY];
+        
+        ObjectColumn(String label) {
+            super(label);
+        }
+        
+        @Override
+        public Object get(int row) {
+            checkRow(row);
+            return values[row];
+        }
+        
+        @Override
+        void append(ResultSet rs, int column) throws SQLException {
+            int capacity = ensureCapacity(values.length);
+            if (capacity != values.length) {
+                values = Arrays.copyOf(values, capacity);
+            }
+            values[size] = rs.getObject(column);
+            if (values[size] == null) {
+                markNull();
+            }
+            size++;
+        }
+    }
+}
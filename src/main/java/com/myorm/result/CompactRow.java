@@ -0,0 +1,132 @@
+package com.myorm.result;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 紧凑的行，列名由共享的RowHeader提供，每行只保存一个值数组
+ * 实现了Map接口，按列的顺序遍历。行可以修改：第一次put/remove时把内容复制到该行自己的LinkedHashMap中，
+ * 之后的读写都在副本上进行，共享的列头和其他行不受影响
+ */
+public class CompactRow extends AbstractMap<String, Object> {
+    
+    private final RowHeader header;
+    private final Object[] values;
+    
+    /**
+     * 第一次修改时创建的副本，未修改时为null
+     */
+    private Map<String, Object> copy;
+    
+    /**
+     * 创建行
+     * @param header 共享的列头
+     * @param values 按列顺序排列的值，长度必须等于列头的列数
+     */
+    public CompactRow(RowHeader header, Object[] values) {
+        if (values.length != header.getColumnCount()) {
+            throw new IllegalArgumentException("值的数量与列数不一致");
+        }
+        this.header = header;
+        this.values = values;
+    }
+    
+    public RowHeader getHeader() {
+        return header;
+    }
+    
+    /**
+     * 按列下标获取值
+     * @param column 列下标（从0开始）
+     * @return 值
+     */
+    public Object get(int column) {
+        return copy != null ? copy.get(header.getLabel(column)) : values[column];
+    }
+    
+    @Override
+    public Object get(Object key) {
+        if (copy != null) {
+            return copy.get(key);
+        }
+        int column = header.indexOf(key);
+        return column < 0 ? null : values[column];
+    }
+    
+    @Override
+    public boolean containsKey(Object key) {
+        return copy != null ? copy.containsKey(key) : header.indexOf(key) >= 0;
+    }
+    
+    @Override
+    public int size() {
+        return copy != null ? copy.size() : header.getKeyCount();
+    }
+    
+    @Override
+    public Object put(String key, Object value) {
+        return writable().put(key, value);
+    }
+    
+    @Override
+    public Object remove(Object key) {
+        return writable().remove(key);
+    }
+    
+    @Override
+    public void clear() {
+        writable().clear();
+    }
+    
+    private Map<String, Object> writable() {
+        if (copy == null) {
+            Map<String, Object> map = new LinkedHashMap<>(header.getKeyCount() * 4 / 3 + 1);
+            for (int keyIndex = 0; keyIndex < header.getKeyCount(); keyIndex++) {
+                map.put(header.getKey(keyIndex), values[header.getKeyColumn(keyIndex)]);
+            }
+            copy = map;
+        }
+        return copy;
+    }
+    
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (copy != null) {
+            return copy.entrySet();
+        }
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new Iterator<Map.Entry<String, Object>>() {
+                    private int keyIndex;
+                    
+                    @Override
+                    public boolean hasNext() {
+                        return keyIndex < header.getKeyCount();
+                    }
+                    
+                    @Override
+                    public Map.Entry<String, Object> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Map.Entry<String, Object> entry = new SimpleImmutableEntry<>(
+                                header.getKey(keyIndex), values[header.getKeyColumn(keyIndex)]);
+                        keyIndex++;
+                        return entry;
+                    }
+                };
+            }
+            
+            @Override
+            public int size() {
+                return header.getKeyCount();
+            }
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package com.myorm.result;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 直接内存和内存映射缓冲区的显式释放
+ * <p>
+ * 通过{@code sun.misc.Unsafe#invokeCleaner}立即归还缓冲区占用的内存（内存映射区域同时解除映射），
+ * 不可用时退回为等待GC回收。释放后缓冲区及其所有视图都不能再访问，否则会导致JVM崩溃，由调用方保证。
+ */
+final class DirectBuffers {
+    private static final Logger logger = LoggerFactory.getLogger(DirectBuffers.class);
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.debug("无法显式释放直接内存，改为等待GC回收", e);
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private DirectBuffers() {
+    }
+
+    /**
+     * 是否支持显式释放
+     */
+    static boolean isSupported() {
+        return INVOKE_CLEANER != null;
+    }
+
+    /**
+     * 立即释放直接缓冲区，不支持显式释放或不是直接缓冲区时什么也不做
+     * @param buffer 由{@code allocateDirect}或{@code FileChannel.map}创建的缓冲区，不能是视图
+     */
+    static void free(ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null || !buffer.isDirect()) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.debug("释放直接内存失败，等待GC回收", e);
+        }
+    }
+}
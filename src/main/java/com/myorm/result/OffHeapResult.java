@@ -0,0 +1,394 @@
+package com.myorm.result;
+
+import com.myorm.exception.OrmException;
+import com.myorm.util.ReflectionUtil;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Blob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 堆外缓存的查询结果，适用于需要完整保存（排序、多次遍历）但堆内存放不下的大结果集
+ * 每行以紧凑的二进制格式编码后写入堆外的直接内存块，直接内存超过上限后写入临时文件的内存映射区域，
+ * 遍历时按需解码，堆内存占用与结果集大小无关。使用完毕后必须关闭，关闭时立即释放直接内存并解除文件映射
+ * （JVM不支持显式释放时由GC回收），关闭后不能再使用之前获取的迭代器。关闭不能与遍历同时在不同线程上进行
+ * <p>
+ * 行格式：[int 行长度][每列：byte 类型标记 + 值]，字符串按UTF-8编码并带长度前缀。
+ * 不支持的类型按字符串保存
+ */
+public class OffHeapResult implements Iterable<Object[]>, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapResult.class);
+    
+    /**
+     * 默认的内存块大小：1MB
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    
+    /**
+     * 默认的直接内存上限：64MB
+     */
+    public static final long DEFAULT_MAX_DIRECT_BYTES = 64L << 20;
+    
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte FLOAT = 4;
+    private static final byte SHORT = 5;
+    private static final byte BYTE = 6;
+    private static final byte BOOLEAN = 7;
+    private static final byte STRING = 8;
+    private static final byte BYTES = 9;
+    private static final byte DECIMAL = 10;
+    private static final byte BIG_INTEGER = 11;
+    private static final byte TIMESTAMP = 12;
+    private static final byte DATE = 13;
+    private static final byte TIME = 14;
+    
+    private final RowHeader header;
+    private final int chunkSize;
+    private final long maxDirectBytes;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer current;
+    private ByteBuffer scratch = ByteBuffer.allocate(256);
+    private long directBytes;
+    private Path spillFile;
+    private FileChannel spillChannel;
+    private long spillBytes;
+    private int rowCount;
+    private boolean closed;
+    
+    /**
+     * 创建空的堆外结果
+     * @param header 列头
+     * @param chunkSize 内存块大小（字节）
+     * @param maxDirectBytes 直接内存上限（字节），超过后写入临时文件
+     */
+    public OffHeapResult(RowHeader header, int chunkSize, long maxDirectBytes) {
+        if (chunkSize <= 0) {
+            throw new OrmException("内存块大小必须大于0");
+        }
+        this.header = header;
+        this.chunkSize = chunkSize;
+        this.maxDirectBytes = maxDirectBytes;
+    }
+    
+    /**
+     * 读取整个结果集并写入堆外内存
+     * @param rs 结果集
+     * @param chunkSize 内存块大小（字节）
+     * @param maxDirectBytes 直接内存上限（字节），超过后写入临时文件
+     * @return 堆外结果
+     * @throws SQLException SQL异常
+     */
+    public static OffHeapResult read(ResultSet rs, int chunkSize, long maxDirectBytes) throws SQLException {
+        RowHeader header = RowHeader.from(rs.getMetaData());
+        OffHeapResult result = new OffHeapResult(header, chunkSize, maxDirectBytes);
+        try {
+            int columnCount = header.getColumnCount();
+            Object[] row = new Object[columnCount];
+            while (rs.next()) {
+                for (int i = 0; i < columnCount; i++) {
+                    row[i] = rs.getObject(i + 1);
+                }
+                result.append(row);
+            }
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            result.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * 追加一行
+     * @param row 按列顺序排列的值
+     */
+    public void append(Object[] row) {
+        if (closed) {
+            throw new OrmException("堆外结果已关闭");
+        }
+        
+        scratch.clear();
+        for (Object value : row) {
+            encode(value);
+        }
+        scratch.flip();
+        
+        int length = scratch.remaining();
+        if (current == null || current.remaining() < length + 4) {
+            current = allocateChunk(Math.max(chunkSize, length + 4));
+            chunks.add(current);
+        }
+        current.putInt(length);
+        current.put(scratch);
+        rowCount++;
+    }
+    
+    public RowHeader getHeader() {
+        return header;
+    }
+    
+    public int getRowCount() {
+        return rowCount;
+    }
+    
+    /**
+     * 是否有数据写入了临时文件
+     */
+    public boolean isSpilledToDisk() {
+        return spillFile != null;
+    }
+    
+    /**
+     * 遍历所有行，每次调用返回新的迭代器，可以多次遍历
+     * 每行在遍历时解码为新的数组
+     */
+    @Override
+    public Iterator<Object[]> iterator() {
+        if (closed) {
+            throw new OrmException("堆外结果已关闭");
+        }
+        
+        List<ByteBuffer> views = new ArrayList<>(chunks.size());
+        for (ByteBuffer chunk : chunks) {
+            ByteBuffer view = chunk.duplicate();
+            view.flip();
+            views.add(view);
+        }
+        
+        return new Iterator<Object[]>() {
+            private int chunkIndex;
+            
+            @Override
+            public boolean hasNext() {
+                // 关闭后内存块已经释放，不能再读取
+                if (closed) {
+                    throw new OrmException("堆外结果已关闭");
+                }
+                while (chunkIndex < views.size() && !views.get(chunkIndex).hasRemaining()) {
+                    chunkIndex++;
+                }
+                return chunkIndex < views.size();
+            }
+            
+            @Override
+            public Object[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ByteBuffer view = views.get(chunkIndex);
+                view.getInt();
+                Object[] row = new Object[header.getColumnCount()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = decode(view);
+                }
+                return row;
+            }
+        };
+    }
+    
+    /**
+     * 遍历所有行并映射为实体对象
+     * @param clazz 实体类Class对象
+     * @param <T> 实体类型
+     * @return 按需映射的实体对象序列
+     */
+    public <T> Iterable<T> as(Class<T> clazz) {
+        return () -> {
+            Iterator<Object[]> rows = iterator();
+            return new Iterator<T>() {
+                @Override
+                public boolean hasNext() {
+                    return rows.hasNext();
+                }
+                
+                @Override
+                public T next() {
+                    return ReflectionUtil.mapToEntity(clazz, new CompactRow(header, rows.next()));
+                }
+            };
+        };
+    }
+    
+    /**
+     * 立即释放所有内存块并删除临时文件
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (ByteBuffer chunk : chunks) {
+            DirectBuffers.free(chunk);
+        }
+        chunks.clear();
+        current = null;
+        
+        if (spillChannel != null) {
+            try {
+                spillChannel.close();
+            } catch (IOException e) {
+                logger.debug("关闭临时文件失败", e);
+            }
+        }
+        if (spillFile != null) {
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                // 部分平台在映射区域被回收前无法删除文件，退出时再删除
+                spillFile.toFile().deleteOnExit();
+            }
+        }
+    }
+    
+    private ByteBuffer allocateChunk(int size) {
+        if (directBytes + size <= maxDirectBytes) {
+            directBytes += size;
+            return ByteBuffer.allocateDirect(size);
+        }
+        
+        try {
+            if (spillChannel == null) {
+                spillFile = Files.createTempFile("myorm-spill", ".bin");
+                spillChannel = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                logger.debug("堆外结果超过直接内存上限，写入临时文件: {}", spillFile);
+            }
+            ByteBuffer chunk = spillChannel.map(FileChannel.MapMode.READ_WRITE, spillBytes, size);
+            spillBytes += size;
+            return chunk;
+        } catch (IOException e) {
+            throw new OrmException("无法创建临时文件", e);
+        }
+    }
+    
+    private void ensureScratch(int bytes) {
+        if (scratch.remaining() < bytes) {
+            int capacity = Math.max(scratch.capacity() << 1, scratch.position() + bytes);
+            ByteBuffer larger = ByteBuffer.allocate(capacity);
+            scratch.flip();
+            larger.put(scratch);
+            scratch = larger;
+        }
+    }
+    
+    private void encode(Object value) {
+        if (value == null) {
+            ensureScratch(1);
+            scratch.put(NULL);
+        } else if (value instanceof Integer) {
+            ensureScratch(5);
+            scratch.put(INT).putInt((Integer) value);
+        } else if (value instanceof Long) {
+            ensureScratch(9);
+            scratch.put(LONG).putLong((Long) value);
+        } else if (value instanceof Double) {
+            ensureScratch(9);
+            scratch.put(DOUBLE).putDouble((Double) value);
+        } else if (value instanceof Float) {
+            ensureScratch(5);
+            scratch.put(FLOAT).putFloat((Float) value);
+        } else if (value instanceof Short) {
+            ensureScratch(3);
+            scratch.put(SHORT).putShort((Short) value);
+        } else if (value instanceof Byte) {
+            ensureScratch(2);
+            scratch.put(BYTE).put((Byte) value);
+        } else if (value instanceof Boolean) {
+            ensureScratch(2);
+            scratch.put(BOOLEAN).put((byte) ((Boolean) value ? 1 : 0));
+        } else if (value instanceof byte[]) {
+            putBytes(BYTES, (byte[]) value);
+        } else if (value instanceof BigDecimal) {
+            putBytes(DECIMAL, value.toString().getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof BigInteger) {
+            putBytes(BIG_INTEGER, value.toString().getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Timestamp) {
+            ensureScratch(13);
+            Timestamp timestamp = (Timestamp) value;
+            scratch.put(TIMESTAMP).putLong(timestamp.getTime()).putInt(timestamp.getNanos());
+        } else if (value instanceof java.sql.Date) {
+            ensureScratch(9);
+            scratch.put(DATE).putLong(((java.sql.Date) value).getTime());
+        } else if (value instanceof Time) {
+            ensureScratch(9);
+            scratch.put(TIME).putLong(((Time) value).getTime());
+        } else if (value instanceof Blob) {
+            putBytes(BYTES, (byte[]) ReflectionUtil.convertValueType(value, byte[].class));
+        } else {
+            // 字符串、CLOB以及其他不支持的类型都按字符串保存
+            String text = (String) ReflectionUtil.convertValueType(value, String.class);
+            putBytes(STRING, text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+    
+    private void putBytes(byte tag, byte[] bytes) {
+        ensureScratch(5 + bytes.length);
+        scratch.put(tag).putInt(bytes.length).put(bytes);
+    }
+    
+    private static Object decode(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case INT:
+                return buffer.getInt();
+            case LONG:
+                return buffer.getLong();
+            case DOUBLE:
+                return buffer.getDouble();
+            case FLOAT:
+                return buffer.getFloat();
+            case SHORT:
+                return buffer.getShort();
+            case BYTE:
+                return buffer.get();
+            case BOOLEAN:
+                return buffer.get() != 0;
+            case STRING:
+                return new String(getBytes(buffer), StandardCharsets.UTF_8);
+            case BYTES:
+                return getBytes(buffer);
+            case DECIMAL:
+                return new BigDecimal(new String(getBytes(buffer), StandardCharsets.UTF_8));
+            case BIG_INTEGER:
+                return new BigInteger(new String(getBytes(buffer), StandardCharsets.UTF_8));
+            case TIMESTAMP:
+                Timestamp timestamp = new Timestamp(buffer.getLong());
+                timestamp.setNanos(buffer.getInt());
+                return timestamp;
+            case DATE:
+                return new java.sql.Date(buffer.getLong());
+            case TIME:
+                return new Time(buffer.getLong());
+            default:
+                throw new OrmException("无法识别的类型标记: " + tag);
+        }
+    }
+    
+    private static byte[] getBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,194 @@
+package com.myorm.result;
+
+import com.myorm.exception.OrmException;
+import com.myorm.mapping.MappingRegistry;
+import com.myorm.mapping.RowMapper;
+import com.myorm.util.ReflectionUtil;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.LongConsumer;
+
+/**
+ * 流水线结果读取器：调用线程只负责从ResultSet读取原始列值，
+ * 按批交给工作线程映射为实体对象，读取和映射并行进行，结果保持原有顺序
+ * 同时处于映射中的批次数量有上限，读取线程在工作线程跟不上时会阻塞，内存占用有界
+ * 工作线程与普通查询一样使用{@link MappingRegistry}提供的行映射器（生成的或运行时编译的），没有映射器时使用反射映射
+ */
+public class PipelinedReader {
+    
+    /**
+     * 默认每批的行数
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    
+    private PipelinedReader() {
+    }
+    
+    /**
+     * 读取整个结果集并并行映射为实体对象
+     * @param rs 结果集
+     * @param clazz 实体类Class对象
+     * @param executor 执行映射的线程池
+     * @param batchSize 每批的行数
+     * @param maxInFlightBatches 同时处于映射中的最大批次数量
+     * @param <T> 实体类型
+     * @return 实体对象列表，顺序与结果集一致
+     * @throws SQLException SQL异常
+     */
+    public static <T> List<T> read(ResultSet rs, Class<T> clazz, ExecutorService executor, 
+            int batchSize, int maxInFlightBatches) throws SQLException {
+        return read(rs, clazz, executor, batchSize, maxInFlightBatches, nanos -> { });
+    }
+    
+    /**
+     * 读取整个结果集并并行映射为实体对象，并报告调用线程等待映射的时间
+     * <p>
+     * 映射在工作线程上与读取重叠进行，只有调用线程因工作线程跟不上而阻塞的时间（等待空闲批次和等待映射结果）
+     * 计为映射时间，这样读取时间与映射时间之和不超过处理结果集的总耗时。
+     * @param rs 结果集
+     * @param clazz 实体类Class对象
+     * @param executor 执行映射的线程池
+     * @param batchSize 每批的行数
+     * @param maxInFlightBatches 同时处于映射中的最大批次数量
+     * @param mapWait 接收等待映射的纳秒数
+     * @param <T> 实体类型
+     * @return 实体对象列表，顺序与结果集一致
+     * @throws SQLException SQL异常
+     */
+    public static <T> List<T> read(ResultSet rs, Class<T> clazz, ExecutorService executor, 
+            int batchSize, int maxInFlightBatches, LongConsumer mapWait) throws SQLException {
+        if (batchSize <= 0 || maxInFlightBatches <= 0) {
+            throw new OrmException("批次大小和最大并行批次数量必须大于0");
+        }
+        
+        RowHeader header = RowHeader.from(rs.getMetaData());
+        int columnCount = header.getColumnCount();
+        // 映射器和列下标每次查询只解析一次，工作线程共享
+        RowMapper<T> rowMapper = MappingRegistry.getRowMapper(clazz);
+        BatchMapper<T> mapper = rowMapper == null
+                ? new ReflectionBatchMapper<>(clazz, header)
+                : new RowMapperBatchMapper<>(rowMapper, header.jdbcIndexesOf(rowMapper.columns()));
+        Semaphore inFlight = new Semaphore(maxInFlightBatches);
+        List<Future<List<T>>> futures = new ArrayList<>();
+        long waitNanos = 0;
+        
+        try {
+            Object[][] batch = new Object[batchSize][];
+            int batchRows = 0;
+            while (rs.next()) {
+                Object[] row = new Object[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    row[i] = rs.getObject(i + 1);
+                }
+                batch[batchRows++] = row;
+                
+                if (batchRows == batchSize) {
+                    long since = System.nanoTime();
+                    futures.add(submit(executor, inFlight, mapper, batch, batchRows));
+                    waitNanos += System.nanoTime() - since;
+                    batch = new Object[batchSize][];
+                    batchRows = 0;
+                }
+            }
+            long since = System.nanoTime();
+            if (batchRows > 0) {
+                futures.add(submit(executor, inFlight, mapper, batch, batchRows));
+            }
+            
+            List<T> results = new ArrayList<>();
+            for (Future<List<T>> future : futures) {
+                results.addAll(future.get());
+            }
+            waitNanos += System.nanoTime() - since;
+            return results;
+        } catch (InterruptedException e) {
+            cancelAll(futures);
+            Thread.currentThread().interrupt();
+            throw new OrmException("流水线读取被中断", e);
+        } catch (ExecutionException e) {
+            cancelAll(futures);
+            throw new OrmException("映射实体对象失败", e.getCause());
+        } catch (SQLException | RuntimeException e) {
+            cancelAll(futures);
+            throw e;
+        } finally {
+            mapWait.accept(waitNanos);
+        }
+    }
+    
+    private static <T> Future<List<T>> submit(ExecutorService executor, Semaphore inFlight, BatchMapper<T> mapper, 
+            Object[][] batch, int batchRows) throws InterruptedException {
+        inFlight.acquire();
+        try {
+            return executor.submit(() -> {
+                try {
+                    return mapper.map(batch, batchRows);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+    
+    /**
+     * 在工作线程上把一批缓冲的行映射为实体对象
+     */
+    private interface BatchMapper<T> {
+        List<T> map(Object[][] batch, int batchRows) throws Exception;
+    }
+    
+    private static final class RowMapperBatchMapper<T> implements BatchMapper<T> {
+        private final RowMapper<T> rowMapper;
+        private final int[] indexes;
+        
+        RowMapperBatchMapper(RowMapper<T> rowMapper, int[] indexes) {
+            this.rowMapper = rowMapper;
+            this.indexes = indexes;
+        }
+        
+        @Override
+        public List<T> map(Object[][] batch, int batchRows) throws SQLException {
+            BufferedRowResultSet row = new BufferedRowResultSet();
+            List<T> entities = new ArrayList<>(batchRows);
+            for (int i = 0; i < batchRows; i++) {
+                entities.add(rowMapper.map(row.wrap(batch[i]), indexes));
+            }
+            return entities;
+        }
+    }
+    
+    private static final class ReflectionBatchMapper<T> implements BatchMapper<T> {
+        private final Class<T> clazz;
+        private final RowHeader header;
+        
+        ReflectionBatchMapper(Class<T> clazz, RowHeader header) {
+            this.clazz = clazz;
+            this.header = header;
+        }
+        
+        @Override
+        public List<T> map(Object[][] batch, int batchRows) {
+            List<T> entities = new ArrayList<>(batchRows);
+            for (int i = 0; i < batchRows; i++) {
+                entities.add(ReflectionUtil.mapToEntity(clazz, new CompactRow(header, batch[i])));
+            }
+            return entities;
+        }
+    }
+    
+    private static void cancelAll(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+}
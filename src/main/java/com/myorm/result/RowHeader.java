@@ -0,0 +1,128 @@
+package com.myorm.result;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 结果集的列头信息，同一个结果集的所有行共享一个实例，创建后不可修改
+ * 列名相同的多个列只保留最后一列，与按列名放入HashMap的行为一致
+ */
+public class RowHeader {
+    
+    private final String[] labels;
+    private final String[] keys;
+    private final int[] keyColumns;
+    private final Map<String, Integer> keyIndexes;
+    private volatile ColumnLookup lastLookup;
+    
+    /**
+     * 创建列头
+     * @param labels 按顺序排列的列名
+     */
+    public RowHeader(String[] labels) {
+        this.labels = labels.clone();
+        
+        Map<String, Integer> lastColumns = new HashMap<>();
+        for (int i = 0; i < labels.length; i++) {
+            lastColumns.put(labels[i], i);
+        }
+        
+        this.keys = new String[lastColumns.size()];
+        this.keyColumns = new int[lastColumns.size()];
+        Map<String, Integer> indexes = new HashMap<>();
+        int keyIndex = 0;
+        for (int i = 0; i < labels.length; i++) {
+            if (lastColumns.get(labels[i]) == i) {
+                keys[keyIndex] = labels[i];
+                keyColumns[keyIndex] = i;
+                indexes.put(labels[i], keyIndex);
+                keyIndex++;
+            }
+        }
+        this.keyIndexes = Collections.unmodifiableMap(indexes);
+    }
+    
+    /**
+     * 根据结果集元数据创建列头
+     * @param metaData 结果集元数据
+     * @return 列头
+     * @throws SQLException SQL异常
+     */
+    public static RowHeader from(ResultSetMetaData metaData) throws SQLException {
+        String[] labels = new String[metaData.getColumnCount()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+        }
+        return new RowHeader(labels);
+    }
+    
+    /**
+     * 列数（包含列名重复的列）
+     */
+    public int getColumnCount() {
+        return labels.length;
+    }
+    
+    /**
+     * 获取列名
+     * @param column 列下标（从0开始）
+     * @return 列名
+     */
+    public String getLabel(int column) {
+        return labels[column];
+    }
+    
+    /**
+     * 根据列名获取列下标
+     * @param label 列名
+     * @return 列下标（从0开始），不存在时返回-1
+     */
+    public int indexOf(Object label) {
+        Integer keyIndex = keyIndexes.get(label);
+        return keyIndex == null ? -1 : keyColumns[keyIndex];
+    }
+    
+    /**
+     * 批量获取列名对应的JDBC列下标，结果按列名数组的实例缓存最近一次查询
+     * @param columns 列名数组，同一个调用方应传入同一个实例
+     * @return 与列名一一对应的列下标（从1开始），0表示不存在该列
+     */
+    public int[] jdbcIndexesOf(String[] columns) {
+        ColumnLookup lookup = lastLookup;
+        if (lookup != null && lookup.columns == columns) {
+            return lookup.indexes;
+        }
+        
+        int[] indexes = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            indexes[i] = indexOf(columns[i]) + 1;
+        }
+        lastLookup = new ColumnLookup(columns, indexes);
+        return indexes;
+    }
+    
+    int getKeyCount() {
+        return keys.length;
+    }
+    
+    String getKey(int keyIndex) {
+        return keys[keyIndex];
+    }
+    
+    int getKeyColumn(int keyIndex) {
+        return keyColumns[keyIndex];
+    }
+    
+    private static final class ColumnLookup {
+        private final String[] columns;
+        private final int[] indexes;
+        
+        ColumnLookup(String[] columns, int[] indexes) {
+            this.columns = columns;
+            this.indexes = indexes;
+        }
+    }
+}
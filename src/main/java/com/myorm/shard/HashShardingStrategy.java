@@ -0,0 +1,30 @@
+package com.myorm.shard;
+
+import java.math.BigInteger;
+
+/**
+ * 哈希分片策略
+ */
+final class HashShardingStrategy implements ShardingStrategy {
+    
+    static final HashShardingStrategy INSTANCE = new HashShardingStrategy();
+    
+    private HashShardingStrategy() {
+    }
+    
+    @Override
+    public int shardFor(Object shardKey, int shardCount) {
+        if (shardKey instanceof Long || shardKey instanceof Integer
+                || shardKey instanceof Short || shardKey instanceof Byte) {
+            return (int) Math.floorMod(((Number) shardKey).longValue(), (long) shardCount);
+        }
+        if (shardKey instanceof BigInteger) {
+            return ((BigInteger) shardKey).mod(BigInteger.valueOf(shardCount)).intValue();
+        }
+        if (shardKey instanceof Enum) {
+            // 枚举的hashCode是身份哈希，在不同进程中不同
+            return Math.floorMod(((Enum<?>) shardKey).name().hashCode(), shardCount);
+        }
+        return Math.floorMod(shardKey.hashCode(), shardCount);
+    }
+}
@@ -0,0 +1,64 @@
+package com.myorm.shard;
+
+import com.myorm.exception.OrmException;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * 范围分片策略
+ */
+final class RangeShardingStrategy implements ShardingStrategy {
+    
+    private final Comparable<?>[] boundaries;
+    
+    RangeShardingStrategy(Comparable<?>[] boundaries) {
+        if (boundaries == null || boundaries.length == 0) {
+            throw new OrmException("范围分片至少需要一个边界");
+        }
+        for (int i = 0; i < boundaries.length; i++) {
+            if (boundaries[i] == null) {
+                throw new OrmException("范围分片的边界不能为空");
+            }
+            if (i > 0 && compare(boundaries[i - 1], boundaries[i]) >= 0) {
+                throw new OrmException("范围分片的边界必须递增: " + Arrays.toString(boundaries));
+            }
+        }
+        this.boundaries = boundaries.clone();
+    }
+    
+    @Override
+    public int shardFor(Object shardKey, int shardCount) {
+        if (shardCount != boundaries.length + 1) {
+            throw new OrmException("范围分片有" + boundaries.length + "个边界，需要" + (boundaries.length + 1)
+                    + "个分片，实际有" + shardCount + "个");
+        }
+        // 二分查找第一个大于分片键的边界
+        int low = 0;
+        int high = boundaries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(shardKey, boundaries[mid]) < 0) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            return toDecimal(left).compareTo(toDecimal(right));
+        }
+        if (!(left instanceof Comparable) || left.getClass() != right.getClass()) {
+            throw new OrmException("分片键" + left + "不能与边界" + right + "比较");
+        }
+        return ((Comparable) left).compareTo(right);
+    }
+    
+    private static BigDecimal toDecimal(Object value) {
+        return value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+    }
+}
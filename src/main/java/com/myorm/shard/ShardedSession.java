@@ -0,0 +1,410 @@
+package com.myorm.shard;
+
+import com.myorm.annotation.ShardKey;
+import com.myorm.core.Session;
+import com.myorm.exception.OrmException;
+import com.myorm.query.Criteria;
+import com.myorm.util.ReflectionUtil;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * 分片会话，按实体的{@link ShardKey}把写操作和主键查询路由到对应分片，跨分片的查询并行执行后合并结果
+ * <p>
+ * 每个分片的会话在第一次访问该分片时打开，分片会话关闭时一起关闭。分片会话和普通会话一样不是线程安全的。
+ * 分片会话不提供跨分片事务，单个分片内的事务通过{@link #sessionFor(Object)}获取该分片的会话执行。
+ */
+public class ShardedSession {
+    
+    /**
+     * 实体类的分片键字段缓存
+     */
+    private static final Map<Class<?>, Field> SHARD_KEY_FIELDS = new ConcurrentHashMap<>();
+    
+    private final ShardedSessionFactory factory;
+    private final Session[] sessions;
+    
+    ShardedSession(ShardedSessionFactory factory) {
+        this.factory = factory;
+        this.sessions = new Session[factory.getShardCount()];
+    }
+    
+    /**
+     * 把实体保存到分片键所在的分片
+     * @param entity 实体对象，分片键不能为空
+     * @param <T> 实体类型
+     * @return 受影响的行数
+     */
+    public <T> int save(T entity) {
+        return sessionFor(shardKeyOf(entity)).save(entity);
+    }
+    
+    /**
+     * 在分片键所在的分片上更新实体，分片键的值不能修改
+     * @param entity 实体对象，分片键不能为空
+     * @param <T> 实体类型
+     * @return 受影响的行数
+     */
+    public <T> int update(T entity) {
+        return sessionFor(shardKeyOf(entity)).update(entity);
+    }
+    
+    /**
+     * 根据主键删除实体，分片键是主键时只访问一个分片
+     * <p>
+     * 分片键不是主键时先在所有分片上查找该主键，只在找到的分片上删除；主键在多个分片上都存在时抛出异常，
+     * 此时应使用{@link #delete(Object)}按实体的分片键删除。
+     * @param clazz 实体类Class对象
+     * @param id 主键值
+     * @param <T> 实体类型
+     * @return 受影响的行数
+     */
+    public <T> int delete(Class<T> clazz, Object id) {
+        if (isShardedById(clazz)) {
+            return sessionFor(id).delete(clazz, id);
+        }
+        int shard = locate(clazz, id);
+        return shard < 0 ? 0 : getShardSession(shard).delete(clazz, id);
+    }
+    
+    /**
+     * 在实体的分片键所在的分片上按主键删除实体
+     * @param entity 实体对象，分片键和主键不能为空
+     * @param <T> 实体类型
+     * @return 受影响的行数
+     */
+    public <T> int delete(T entity) {
+        Object shardKey = shardKeyOf(entity);
+        Field idField = ReflectionUtil.getPrimaryKeyField(entity.getClass());
+        Object id;
+        try {
+            id = idField.get(entity);
+        } catch (IllegalAccessException e) {
+            throw new OrmException("读取主键" + idField.getName() + "失败", e);
+        }
+        if (id == null) {
+            throw new OrmException("实体" + entity.getClass().getSimpleName() + "的主键不能为空");
+        }
+        return sessionFor(shardKey).delete(entity.getClass(), id);
+    }
+    
+    /**
+     * 根据主键查询实体，分片键是主键时只访问一个分片，否则并行查询所有分片
+     * <p>
+     * 分片键不是主键时主键必须在所有分片中唯一，主键在多个分片上都存在时抛出异常，
+     * 此时应使用{@link #findById(Class, Object, Object)}指定分片键。
+     * @param clazz 实体类Class对象
+     * @param id 主键值
+     * @param <T> 实体类型
+     * @return 实体对象，如果不存在则返回null
+     */
+    public <T> T findById(Class<T> clazz, Object id) {
+        if (isShardedById(clazz)) {
+            return sessionFor(id).findById(clazz, id);
+        }
+        T found = null;
+        for (T entity : fanOut(session -> session.findById(clazz, id))) {
+            if (entity != null) {
+                if (found != null) {
+                    throw duplicateId(clazz, id);
+                }
+                found = entity;
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * 在分片键所在的分片上根据主键查询实体
+     * @param clazz 实体类Class对象
+     * @param id 主键值
+     * @param shardKey 分片键的值
+     * @param <T> 实体类型
+     * @return 实体对象，如果不存在则返回null
+     */
+    public <T> T findById(Class<T> clazz, Object id, Object shardKey) {
+        return sessionFor(shardKey).findById(clazz, id);
+    }
+    
+    /**
+     * 并行查询所有分片的实体，结果按分片顺序拼接
+     * @param clazz 实体类Class对象
+     * @param <T> 实体类型
+     * @return 实体对象列表
+     */
+    public <T> List<T> findAll(Class<T> clazz) {
+        return concat(fanOut(session -> session.findAll(clazz)), Integer.MAX_VALUE);
+    }
+    
+    /**
+     * 在所有分片上并行执行条件查询并合并结果
+     * <p>
+     * 有排序条件时，各分片的有序结果按相同的排序归并（null视为最小值），字符串按Java的字符顺序比较；
+     * 没有排序条件时按分片顺序拼接。有offset时每个分片查询前offset+limit行，合并后再跳过offset行。
+     * @param criteria 条件查询
+     * @param <T> 实体类型
+     * @return 实体对象列表
+     */
+    public <T> List<T> findByCriteria(Criteria<T> criteria) {
+        if (criteria == null) {
+            throw new OrmException("查询条件不能为空");
+        }
+        
+        int skip = criteria.getOffset() == null ? 0 : criteria.getOffset();
+        int max = criteria.getLimit() == null ? Integer.MAX_VALUE : criteria.getLimit();
+        Criteria<T> shardCriteria = criteria;
+        if (skip > 0) {
+            shardCriteria = criteria.copy().offset(0);
+            if (criteria.getLimit() != null) {
+                shardCriteria.limit((int) Math.min((long) skip + max, Integer.MAX_VALUE));
+            }
+        }
+        
+        Criteria<T> query = shardCriteria;
+        List<List<T>> results = fanOut(session -> session.findByCriteria(query));
+        int wanted = (int) Math.min((long) skip + max, Integer.MAX_VALUE);
+        List<T> merged = criteria.getOrders().isEmpty() ? concat(results, wanted)
+                : mergeSorted(results, comparator(criteria), wanted);
+        return skip == 0 ? merged : new ArrayList<>(merged.subList(Math.min(skip, merged.size()), merged.size()));
+    }
+    
+    /**
+     * 统计所有分片中实体表的记录数
+     * @param clazz 实体类Class对象
+     * @return 记录数
+     */
+    public long count(Class<?> clazz) {
+        long total = 0;
+        for (Long count : fanOut(session -> session.count(clazz))) {
+            total += count;
+        }
+        return total;
+    }
+    
+    /**
+     * 获取分片键所在分片的会话，用于在单个分片上执行事务或自定义SQL
+     * @param shardKey 分片键的值
+     * @return 会话对象
+     */
+    public Session sessionFor(Object shardKey) {
+        return getShardSession(factory.shardFor(shardKey));
+    }
+    
+    /**
+     * 获取分片的会话，第一次访问时打开
+     * @param index 分片下标
+     * @return 会话对象
+     */
+    public Session getShardSession(int index) {
+        if (sessions[index] == null) {
+            sessions[index] = factory.getShard(index).openSession();
+        }
+        return sessions[index];
+    }
+    
+    /**
+     * 关闭所有已打开的分片会话
+     */
+    public void close() {
+        OrmException failure = null;
+        for (int i = 0; i < sessions.length; i++) {
+            if (sessions[i] == null) {
+                continue;
+            }
+            try {
+                sessions[i].close();
+            } catch (OrmException e) {
+                failure = failure == null ? e : failure;
+            }
+            sessions[i] = null;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+    
+    /**
+     * 在所有分片上执行操作，第一个分片在调用线程上执行，其他分片在工厂的线程池上并行执行
+     * <p>
+     * 等待所有分片结束后才返回或抛出异常，保证返回后没有其他线程在使用分片会话。
+     * @param action 对分片会话执行的操作
+     * @param <R> 结果类型
+     * @return 按分片顺序排列的结果
+     */
+    private <R> List<R> fanOut(Function<Session, R> action) {
+        Session[] all = new Session[sessions.length];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = getShardSession(i);
+        }
+        
+        List<Future<R>> futures = new ArrayList<>(all.length - 1);
+        for (int i = 1; i < all.length; i++) {
+            Session session = all[i];
+            futures.add(factory.getExecutor().submit(() -> action.apply(session)));
+        }
+        
+        List<R> results = new ArrayList<>(all.length);
+        RuntimeException failure = null;
+        try {
+            results.add(action.apply(all[0]));
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        boolean interrupted = false;
+        for (int i = 0; i < futures.size(); i++) {
+            Future<R> future = futures.get(i);
+            while (true) {
+                try {
+                    R result = future.get();
+                    results.add(result);
+                    break;
+                } catch (InterruptedException e) {
+                    // 必须等分片查询结束，否则会话可能被两个线程同时使用
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = new OrmException("在分片" + (i + 1) + "上执行失败", e.getCause());
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+    
+    /**
+     * 查找主键所在的分片
+     * @return 分片下标，没有找到时返回-1
+     */
+    private int locate(Class<?> clazz, Object id) {
+        List<Boolean> found = fanOut(session -> session.findById(clazz, id) != null);
+        int shard = -1;
+        for (int i = 0; i < found.size(); i++) {
+            if (found.get(i)) {
+                if (shard >= 0) {
+                    throw duplicateId(clazz, id);
+                }
+                shard = i;
+            }
+        }
+        return shard;
+    }
+    
+    private static OrmException duplicateId(Class<?> clazz, Object id) {
+        return new OrmException("实体" + clazz.getSimpleName() + "的主键" + id + "在多个分片上存在，请指定分片键");
+    }
+    
+    private static <T> List<T> concat(List<List<T>> results, int max) {
+        List<T> merged = new ArrayList<>();
+        for (List<T> result : results) {
+            for (T row : result) {
+                if (merged.size() >= max) {
+                    return merged;
+                }
+                merged.add(row);
+            }
+        }
+        return merged;
+    }
+    
+    /**
+     * 归并各分片的有序结果，相等的行按分片顺序排列
+     */
+    private static <T> List<T> mergeSorted(List<List<T>> results, Comparator<T> comparator, int max) {
+        PriorityQueue<int[]> heads = new PriorityQueue<>((a, b) -> {
+            int order = comparator.compare(results.get(a[0]).get(a[1]), results.get(b[0]).get(b[1]));
+            return order != 0 ? order : Integer.compare(a[0], b[0]);
+        });
+        for (int shard = 0; shard < results.size(); shard++) {
+            if (!results.get(shard).isEmpty()) {
+                heads.add(new int[]{shard, 0});
+            }
+        }
+        
+        List<T> merged = new ArrayList<>();
+        while (!heads.isEmpty() && merged.size() < max) {
+            int[] head = heads.poll();
+            List<T> result = results.get(head[0]);
+            merged.add(result.get(head[1]));
+            if (++head[1] < result.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Comparator<T> comparator(Criteria<T> criteria) {
+        Comparator<T> comparator = null;
+        for (Criteria.Order order : criteria.getOrders()) {
+            Field field = ReflectionUtil.getColumnField(criteria.getEntityClass(), order.getField());
+            Comparator<Comparable> values = Comparator.nullsFirst(Comparator.naturalOrder());
+            Comparator<T> next = Comparator.comparing(row -> sortValue(field, row), values);
+            if (!order.isAscending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+    
+    @SuppressWarnings("rawtypes")
+    private static Comparable sortValue(Field field, Object row) {
+        Object value;
+        try {
+            value = field.get(row);
+        } catch (IllegalAccessException e) {
+            throw new OrmException("读取排序属性" + field.getName() + "失败", e);
+        }
+        if (value != null && !(value instanceof Comparable)) {
+            throw new OrmException("属性" + field.getName() + "的类型不能用于跨分片排序");
+        }
+        return (Comparable) value;
+    }
+    
+    private static Object shardKeyOf(Object entity) {
+        if (entity == null) {
+            throw new OrmException("实体对象不能为空");
+        }
+        Field field = shardKeyField(entity.getClass());
+        Object value;
+        try {
+            value = field.get(entity);
+        } catch (IllegalAccessException e) {
+            throw new OrmException("读取分片键" + field.getName() + "失败", e);
+        }
+        if (value == null) {
+            throw new OrmException("实体" + entity.getClass().getSimpleName() + "的分片键" + field.getName() + "不能为空");
+        }
+        return value;
+    }
+    
+    private static boolean isShardedById(Class<?> clazz) {
+        return shardKeyField(clazz).equals(ReflectionUtil.getPrimaryKeyField(clazz));
+    }
+    
+    private static Field shardKeyField(Class<?> clazz) {
+        return SHARD_KEY_FIELDS.computeIfAbsent(clazz, key -> {
+            Field field = ReflectionUtil.getShardKeyField(key);
+            if (field == null) {
+                throw new OrmException("实体类" + key.getName() + "没有@ShardKey属性");
+            }
+            return field;
+        });
+    }
+}
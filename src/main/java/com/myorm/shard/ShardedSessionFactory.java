@@ -0,0 +1,175 @@
+package com.myorm.shard;
+
+import com.myorm.core.SessionFactory;
+import com.myorm.exception.OrmException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分片会话工厂，把带有{@code @ShardKey}的实体按分片策略分布到多个数据源上
+ * <pre>
+ * ShardedSessionFactory factory = ShardedSessionFactory.builder()
+ *         .shard(SessionFactory.builder().url("jdbc:h2:mem:shard0").build())
+ *         .shard(SessionFactory.builder().url("jdbc:h2:mem:shard1").build())
+ *         .strategy(ShardingStrategy.hash())
+ *         .build();
+ * </pre>
+ * 跨分片的查询在工厂持有的线程池上并行执行，关闭工厂时关闭线程池和所有分片的会话工厂。
+ */
+public class ShardedSessionFactory implements AutoCloseable {
+    
+    private final List<SessionFactory> shards;
+    private final ShardingStrategy strategy;
+    private final ExecutorService executor;
+    
+    private ShardedSessionFactory(List<SessionFactory> shards, ShardingStrategy strategy, int parallelism) {
+        this.shards = shards;
+        this.strategy = strategy;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = shards.size() == 1 ? null : Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "myorm-shard-query-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * 打开一个分片会话，各分片的会话在第一次访问该分片时才打开
+     * @return 分片会话
+     */
+    public ShardedSession openSession() {
+        return new ShardedSession(this);
+    }
+    
+    /**
+     * 计算分片键所在的分片
+     * @param shardKey 分片键的值
+     * @return 分片下标
+     */
+    public int shardFor(Object shardKey) {
+        if (shardKey == null) {
+            throw new OrmException("分片键的值不能为空");
+        }
+        int index = strategy.shardFor(shardKey, shards.size());
+        if (index < 0 || index >= shards.size()) {
+            throw new OrmException("分片策略为分片键" + shardKey + "返回了无效的分片" + index);
+        }
+        return index;
+    }
+    
+    /**
+     * 分片数量
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+    
+    /**
+     * 获取分片的会话工厂
+     * @param index 分片下标
+     * @return 会话工厂
+     */
+    public SessionFactory getShard(int index) {
+        return shards.get(index);
+    }
+    
+    /**
+     * 跨分片查询使用的线程池，只有一个分片时为null
+     */
+    ExecutorService getExecutor() {
+        return executor;
+    }
+    
+    /**
+     * 关闭查询线程池和所有分片的会话工厂
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executor.shutdownNow();
+        }
+        for (SessionFactory shard : shards) {
+            shard.close();
+        }
+    }
+    
+    /**
+     * 创建一个分片会话工厂构建器
+     * @return 分片会话工厂构建器
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * 分片会话工厂构建器
+     */
+    public static class Builder {
+        private final List<SessionFactory> shards = new ArrayList<>();
+        private ShardingStrategy strategy = ShardingStrategy.hash();
+        private int parallelism;
+        
+        /**
+         * 添加一个分片，分片下标按添加顺序从0开始
+         * @param sessionFactory 分片的会话工厂
+         * @return 构建器对象
+         */
+        public Builder shard(SessionFactory sessionFactory) {
+            if (sessionFactory == null) {
+                throw new OrmException("分片的会话工厂不能为空");
+            }
+            this.shards.add(sessionFactory);
+            return this;
+        }
+        
+        /**
+         * 设置分片策略，默认为哈希分片
+         * @param strategy 分片策略
+         * @return 构建器对象
+         */
+        public Builder strategy(ShardingStrategy strategy) {
+            if (strategy == null) {
+                throw new OrmException("分片策略不能为空");
+            }
+            this.strategy = strategy;
+            return this;
+        }
+        
+        /**
+         * 设置跨分片查询的线程数，默认为分片数减1（调用线程查询第一个分片）
+         * @param parallelism 线程数
+         * @return 构建器对象
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new OrmException("线程数必须大于0");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+        
+        /**
+         * 构建分片会话工厂
+         * @return 分片会话工厂
+         */
+        public ShardedSessionFactory build() {
+            if (shards.isEmpty()) {
+                throw new OrmException("至少需要一个分片");
+            }
+            int threads = parallelism > 0 ? parallelism : Math.max(1, shards.size() - 1);
+            return new ShardedSessionFactory(Collections.unmodifiableList(new ArrayList<>(shards)), strategy, threads);
+        }
+    }
+}
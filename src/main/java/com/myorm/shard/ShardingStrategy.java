@@ -0,0 +1,35 @@
+package com.myorm.shard;
+
+/**
+ * 分片策略，根据分片键的值计算数据所在的分片
+ * <p>
+ * 同一个分片键在任何进程中都必须映射到同一个分片，实现不能依赖对象的身份哈希等与进程相关的值。
+ */
+public interface ShardingStrategy {
+    
+    /**
+     * 计算分片键所在的分片
+     * @param shardKey 分片键的值，不为null
+     * @param shardCount 分片数量
+     * @return 分片下标，范围为[0, shardCount)
+     */
+    int shardFor(Object shardKey, int shardCount);
+    
+    /**
+     * 哈希分片：整数按值取模，枚举按名称、其他类型按{@link Object#hashCode()}取模
+     * @return 分片策略
+     */
+    static ShardingStrategy hash() {
+        return HashShardingStrategy.INSTANCE;
+    }
+    
+    /**
+     * 范围分片：n个分片使用n-1个递增的边界，小于第一个边界的键在分片0，
+     * 大于等于第i个边界且小于第i+1个边界的键在分片i
+     * @param boundaries 递增的分片边界，数字之间按数值比较
+     * @return 分片策略
+     */
+    static ShardingStrategy range(Comparable<?>... boundaries) {
+        return new RangeShardingStrategy(boundaries);
+    }
+}
@@ -0,0 +1,31 @@
+package com.myorm.sql;
+
+import java.util.List;
+
+/**
+ * 绑定了参数值的SQL语句
+ */
+public final class BoundSql {
+
+    private final String sql;
+    private final List<Object> params;
+
+    public BoundSql(String sql, List<Object> params) {
+        this.sql = sql;
+        this.params = params;
+    }
+
+    /**
+     * 只包含{@code ?}占位符的SQL语句
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * 按占位符顺序排列的参数值
+     */
+    public List<Object> getParams() {
+        return params;
+    }
+}
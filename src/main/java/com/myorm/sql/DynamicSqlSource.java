@@ -0,0 +1,432 @@
+package com.myorm.sql;
+
+import com.myorm.exception.OrmException;
+
+import java.io.StringReader;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+/**
+ * 动态SQL，{@code <script>}包裹的SQL模板在方法首次调用时编译为片段树
+ * <p>
+ * 支持的标签：
+ * <ul>
+ *     <li>{@code <if test="...">}：条件成立时输出内容</li>
+ *     <li>{@code <where>}：内容非空时输出WHERE，并去掉开头多余的AND/OR</li>
+ *     <li>{@code <set>}：内容非空时输出SET，并去掉末尾多余的逗号</li>
+ *     <li>{@code <foreach collection="..." item="..." index="..." open="(" separator="," close=")">}：
+ *     遍历集合、数组或Map，集合为空时不输出任何内容</li>
+ * </ul>
+ * 模板中只能使用命名参数{@code #{name}}，SQL中的{@code <}需要写作{@code &lt;}。
+ * <p>
+ * 每次调用先遍历片段树确定形状（各条件是否成立、各集合的长度）并收集参数值，
+ * 相同形状直接复用已经渲染好的SQL字符串，使会话的预编译语句缓存可以命中。
+ */
+public final class DynamicSqlSource implements SqlSource {
+
+    /**
+     * 每个方法最多缓存的SQL形状数量，超过后新形状不再缓存
+     */
+    private static final int MAX_CACHED_SHAPES = 256;
+
+    private final SqlNode root;
+    private final String[] parameterNames;
+    private final Map<String, String> renderedSql = new ConcurrentHashMap<>();
+
+    private DynamicSqlSource(SqlNode root, String[] parameterNames) {
+        this.root = root;
+        this.parameterNames = parameterNames.clone();
+    }
+
+    /**
+     * 编译动态SQL模板
+     * @param script 以{@code <script>}开头的SQL模板
+     * @param parameterNames 方法参数名
+     * @return 动态SQL
+     */
+    public static DynamicSqlSource compile(String script, String[] parameterNames) {
+        Element element;
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setExpandEntityReferences(false);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            element = builder.parse(new InputSource(new StringReader(script.trim()))).getDocumentElement();
+        } catch (Exception e) {
+            throw new OrmException("无法解析动态SQL: " + script, e);
+        }
+        return new DynamicSqlSource(compileChildren(element), parameterNames);
+    }
+
+    @Override
+    public BoundSql bind(Object[] args) {
+        RenderContext context = new RenderContext(parameterNames, args);
+        root.apply(context);
+        String shape = context.shape.toString();
+
+        String sql = renderedSql.get(shape);
+        if (sql == null) {
+            RenderContext renderer = new RenderContext(parameterNames, args);
+            renderer.sql = new StringBuilder();
+            root.apply(renderer);
+            sql = renderer.sql.toString().trim();
+            if (renderedSql.size() < MAX_CACHED_SHAPES) {
+                String existing = renderedSql.putIfAbsent(shape, sql);
+                sql = existing != null ? existing : sql;
+            }
+        }
+        return new BoundSql(sql, context.params);
+    }
+
+    /**
+     * 已缓存的SQL形状数量
+     */
+    int getCachedShapeCount() {
+        return renderedSql.size();
+    }
+
+    private static SqlNode compileChildren(Element element) {
+        List<SqlNode> children = new ArrayList<>();
+        NodeList nodes = element.getChildNodes();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Node node = nodes.item(i);
+            if (node.getNodeType() == Node.TEXT_NODE || node.getNodeType() == Node.CDATA_SECTION_NODE) {
+                children.add(TextNode.compile(node.getNodeValue()));
+            } else if (node.getNodeType() == Node.ELEMENT_NODE) {
+                children.add(compileElement((Element) node));
+            }
+        }
+        return children.size() == 1 ? children.get(0) : new MixedNode(children);
+    }
+
+    private static SqlNode compileElement(Element element) {
+        SqlNode body = compileChildren(element);
+        switch (element.getTagName()) {
+            case "if":
+                return new IfNode(TestExpression.compile(requireAttribute(element, "test")), body);
+            case "where":
+                return new TrimNode(body, "WHERE", new String[]{"AND ", "OR "}, new String[0]);
+            case "set":
+                return new TrimNode(body, "SET", new String[0], new String[]{","});
+            case "foreach":
+                return new ForEachNode(body, requireAttribute(element, "collection"),
+                        element.getAttribute("item"), element.getAttribute("index"),
+                        element.getAttribute("open"), element.getAttribute("separator"), element.getAttribute("close"));
+            default:
+                throw new OrmException("动态SQL不支持标签<" + element.getTagName() + ">");
+        }
+    }
+
+    private static String requireAttribute(Element element, String name) {
+        String value = element.getAttribute(name);
+        if (value.trim().isEmpty()) {
+            throw new OrmException("动态SQL标签<" + element.getTagName() + ">缺少" + name + "属性");
+        }
+        return value;
+    }
+
+    /**
+     * 渲染上下文：参数绑定、形状、参数值，以及渲染第二遍时的SQL输出
+     */
+    private static final class RenderContext {
+
+        private final String[] parameterNames;
+        private final Object[] args;
+        private final Map<String, Object> locals = new HashMap<>();
+        private final StringBuilder shape = new StringBuilder();
+        private final List<Object> params = new ArrayList<>();
+        private StringBuilder sql;
+
+        RenderContext(String[] parameterNames, Object[] args) {
+            this.parameterNames = parameterNames;
+            this.args = args == null ? new Object[0] : args;
+        }
+
+        /**
+         * 追加一段SQL片段，片段首尾的空白被忽略，片段之间按需要补一个空格
+         */
+        void append(String text) {
+            if (sql == null) {
+                return;
+            }
+            String piece = text.trim();
+            if (piece.isEmpty()) {
+                return;
+            }
+            int length = sql.length();
+            char first = piece.charAt(0);
+            if (length > 0 && !Character.isWhitespace(sql.charAt(length - 1)) && sql.charAt(length - 1) != '('
+                    && first != ')' && first != ',') {
+                sql.append(' ');
+            }
+            sql.append(piece);
+        }
+
+        Object resolve(String name) {
+            int dot = name.indexOf('.');
+            String rootName = dot < 0 ? name : name.substring(0, dot);
+            Object root;
+            String path;
+            if (locals.containsKey(rootName)) {
+                root = locals.get(rootName);
+                path = dot < 0 ? null : name.substring(dot + 1);
+            } else {
+                int index = ParameterMapping.indexOf(rootName, parameterNames);
+                if (index >= 0) {
+                    root = args[index];
+                    path = dot < 0 ? null : name.substring(dot + 1);
+                } else if (args.length == 1) {
+                    root = args[0];
+                    boolean simple = root == null || ParameterMapping.isSimpleType(root.getClass());
+                    path = dot < 0 && simple ? null : name;
+                } else {
+                    throw new OrmException("动态SQL参数" + name + "在方法参数中不存在");
+                }
+            }
+            if (path == null) {
+                return root;
+            }
+
+            // 条件表达式中允许在路径末尾使用size/length/isEmpty
+            int lastDot = path.lastIndexOf('.');
+            String last = lastDot < 0 ? path : path.substring(lastDot + 1);
+            Object parent = lastDot < 0 ? root : ParameterMapping.PropertyPath.read(root, path.substring(0, lastDot));
+            Object special = TestExpression.special(parent, last);
+            if (special != TestExpression.NOT_SPECIAL) {
+                return special;
+            }
+            return ParameterMapping.PropertyPath.read(parent, last);
+        }
+    }
+
+    private interface SqlNode {
+        void apply(RenderContext context);
+    }
+
+    /**
+     * 多个片段顺序组合
+     */
+    private static final class MixedNode implements SqlNode {
+        private final List<SqlNode> children;
+
+        MixedNode(List<SqlNode> children) {
+            this.children = children;
+        }
+
+        @Override
+        public void apply(RenderContext context) {
+            for (SqlNode child : children) {
+                child.apply(context);
+            }
+        }
+    }
+
+    /**
+     * 文本片段，命名参数预先拆分为文本和参数名
+     */
+    private static final class TextNode implements SqlNode {
+        private final String[] texts;
+        private final String[] names;
+
+        private TextNode(String[] texts, String[] names) {
+            this.texts = texts;
+            this.names = names;
+        }
+
+        static TextNode compile(String text) {
+            ParsedSql parsed = ParsedSql.parse(text);
+            if (!parsed.hasNamedParameters()) {
+                if (parsed.getPlaceholderCount() > 0) {
+                    throw new OrmException("动态SQL中只能使用命名参数: " + text);
+                }
+                return new TextNode(new String[]{text}, new String[0]);
+            }
+            String[] texts = parsed.getSql().split("\\?", -1);
+            return new TextNode(texts, parsed.getParameterNames().toArray(new String[0]));
+        }
+
+        @Override
+        public void apply(RenderContext context) {
+            for (String name : names) {
+                context.params.add(context.resolve(name));
+            }
+            if (context.sql != null) {
+                if (names.length == 0) {
+                    context.append(texts[0]);
+                    return;
+                }
+                StringBuilder text = new StringBuilder(texts[0]);
+                for (int i = 1; i < texts.length; i++) {
+                    text.append('?').append(texts[i]);
+                }
+                context.append(text.toString());
+            }
+        }
+    }
+
+    private static final class IfNode implements SqlNode {
+        private final TestExpression test;
+        private final SqlNode body;
+
+        IfNode(TestExpression test, SqlNode body) {
+            this.test = test;
+            this.body = body;
+        }
+
+        @Override
+        public void apply(RenderContext context) {
+            boolean matched = test.evaluate(context::resolve);
+            context.shape.append(matched ? '1' : '0');
+            if (matched) {
+                body.apply(context);
+            }
+        }
+    }
+
+    /**
+     * where/set标签：内容非空时加上关键字，并去掉多余的前缀或后缀
+     */
+    private static final class TrimNode implements SqlNode {
+        private final SqlNode body;
+        private final String keyword;
+        private final String[] prefixesToRemove;
+        private final String[] suffixesToRemove;
+
+        TrimNode(SqlNode body, String keyword, String[] prefixesToRemove, String[] suffixesToRemove) {
+            this.body = body;
+            this.keyword = keyword;
+            this.prefixesToRemove = prefixesToRemove;
+            this.suffixesToRemove = suffixesToRemove;
+        }
+
+        @Override
+        public void apply(RenderContext context) {
+            StringBuilder outer = context.sql;
+            if (outer == null) {
+                body.apply(context);
+                return;
+            }
+
+            context.sql = new StringBuilder();
+            body.apply(context);
+            String content = context.sql.toString().trim();
+            context.sql = outer;
+
+            for (String prefix : prefixesToRemove) {
+                if (content.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                    content = content.substring(prefix.length()).trim();
+                    break;
+                }
+            }
+            for (String suffix : suffixesToRemove) {
+                if (content.endsWith(suffix)) {
+                    content = content.substring(0, content.length() - suffix.length()).trim();
+                    break;
+                }
+            }
+            if (!content.isEmpty()) {
+                context.append(keyword);
+                context.append(content);
+            }
+        }
+    }
+
+    private static final class ForEachNode implements SqlNode {
+        private final SqlNode body;
+        private final String collection;
+        private final String item;
+        private final String index;
+        private final String open;
+        private final String separator;
+        private final String close;
+
+        ForEachNode(SqlNode body, String collection, String item, String index,
+                    String open, String separator, String close) {
+            this.body = body;
+            this.collection = collection;
+            this.item = item;
+            this.index = index;
+            this.open = open;
+            this.separator = separator;
+            this.close = close;
+        }
+
+        @Override
+        public void apply(RenderContext context) {
+            Iterator<Map.Entry<Object, Object>> entries = entries(context.resolve(collection));
+            Object previousItem = context.locals.get(item);
+            Object previousIndex = context.locals.get(index);
+            int count = 0;
+            while (entries.hasNext()) {
+                Map.Entry<Object, Object> entry = entries.next();
+                context.append(count == 0 ? open : separator);
+                if (!item.isEmpty()) {
+                    context.locals.put(item, entry.getValue());
+                }
+                if (!index.isEmpty()) {
+                    context.locals.put(index, entry.getKey());
+                }
+                body.apply(context);
+                count++;
+            }
+            if (count > 0) {
+                context.append(close);
+            }
+            context.shape.append(count).append(',');
+            restore(context, item, previousItem);
+            restore(context, index, previousIndex);
+        }
+
+        private static void restore(RenderContext context, String name, Object previous) {
+            if (name.isEmpty()) {
+                return;
+            }
+            if (previous == null) {
+                context.locals.remove(name);
+            } else {
+                context.locals.put(name, previous);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Iterator<Map.Entry<Object, Object>> entries(Object value) {
+            List<Map.Entry<Object, Object>> entries = new ArrayList<>();
+            if (value == null) {
+                return Collections.emptyIterator();
+            }
+            if (value instanceof Map) {
+                entries.addAll(((Map<Object, Object>) value).entrySet());
+            } else if (value instanceof Collection) {
+                int i = 0;
+                for (Object element : (Collection<?>) value) {
+                    entries.add(new java.util.AbstractMap.SimpleImmutableEntry<>(i++, element));
+                }
+            } else if (value.getClass().isArray()) {
+                int length = Array.getLength(value);
+                for (int i = 0; i < length; i++) {
+                    entries.add(new java.util.AbstractMap.SimpleImmutableEntry<>(i, Array.get(value, i)));
+                }
+            } else {
+                throw new OrmException("foreach的collection" + collection + "不是集合、数组或Map");
+            }
+            return entries.iterator();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.myorm.sql;
+
+import com.myorm.exception.OrmException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mapper方法的参数映射：每个占位符对应的方法参数下标，以及可选的属性路径
+ * <p>
+ * 映射在方法首次调用时编译一次，调用时只需按下标复制参数，
+ * 带属性路径（如{@code #{user.email}}）的占位符通过预先解析的getter句柄取值。
+ */
+public final class ParameterMapping implements SqlSource {
+
+    private final String sql;
+    private final int[] argIndexes;
+    private final PropertyPath[] paths;
+    private final boolean positional;
+
+    private ParameterMapping(String sql, int[] argIndexes, PropertyPath[] paths, boolean positional) {
+        this.sql = sql;
+        this.argIndexes = argIndexes;
+        this.paths = paths;
+        this.positional = positional;
+    }
+
+    /**
+     * 编译参数映射
+     * <p>
+     * 参数名按以下顺序匹配：方法参数名（{@code @Param}的值）、{@code param1}/{@code param2}等序号名。
+     * 方法只有一个参数且名称不匹配时，参数为简单类型则直接绑定该参数，否则整个名称作为该参数的属性路径。
+     * @param sql 原始SQL语句
+     * @param parameterNames 方法参数名
+     * @param parameterTypes 方法参数类型
+     * @return 参数映射
+     */
+    public static ParameterMapping compile(String sql, String[] parameterNames, Class<?>[] parameterTypes) {
+        ParsedSql parsed = ParsedSql.parse(sql);
+        if (!parsed.hasNamedParameters()) {
+            return new ParameterMapping(parsed.getSql(), new int[0], new PropertyPath[0], true);
+        }
+
+        List<String> names = parsed.getParameterNames();
+        int[] argIndexes = new int[names.size()];
+        PropertyPath[] paths = new PropertyPath[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            int dot = name.indexOf('.');
+            String root = dot < 0 ? name : name.substring(0, dot);
+            int index = indexOf(root, parameterNames);
+            if (index >= 0) {
+                argIndexes[i] = index;
+                paths[i] = dot < 0 ? null : PropertyPath.compile(parameterTypes[index], name.substring(dot + 1));
+            } else if (parameterNames.length == 1) {
+                argIndexes[i] = 0;
+                paths[i] = dot < 0 && isSimpleType(parameterTypes[0]) ? null : PropertyPath.compile(parameterTypes[0], name);
+            } else {
+                throw new OrmException("SQL参数" + name + "在方法参数" + Arrays.toString(parameterNames) + "中不存在");
+            }
+        }
+        return new ParameterMapping(parsed.getSql(), argIndexes, paths, false);
+    }
+
+    /**
+     * 替换命名参数后的SQL语句
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * 按占位符顺序取出参数值
+     * @param args 方法参数
+     * @return 参数值列表
+     */
+    public List<Object> extract(Object[] args) {
+        if (positional) {
+            return args == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(args));
+        }
+
+        Object[] values = new Object[argIndexes.length];
+        for (int i = 0; i < values.length; i++) {
+            Object value = args[argIndexes[i]];
+            values[i] = paths[i] == null ? value : paths[i].get(value);
+        }
+        return Arrays.asList(values);
+    }
+
+    /**
+     * SQL是否只使用{@code ?}占位符，此时参数按方法参数的顺序绑定
+     */
+    public boolean isPositional() {
+        return positional;
+    }
+
+    @Override
+    public BoundSql bind(Object[] args) {
+        return new BoundSql(sql, extract(args));
+    }
+
+    /**
+     * 判断是否为没有可读属性的简单类型（基本类型、包装类型、字符串、数字、日期和枚举）
+     * @param type 类型
+     * @return 是否为简单类型
+     */
+    public static boolean isSimpleType(Class<?> type) {
+        return type.isPrimitive() || type == Boolean.class || type == Character.class
+                || Number.class.isAssignableFrom(type) || CharSequence.class.isAssignableFrom(type)
+                || java.util.Date.class.isAssignableFrom(type) || java.time.temporal.Temporal.class.isAssignableFrom(type)
+                || type.isEnum();
+    }
+
+    /**
+     * 查找参数名对应的方法参数下标
+     * @param name 参数名
+     * @param parameterNames 方法参数名
+     * @return 参数下标，不存在时返回-1
+     */
+    static int indexOf(String name, String[] parameterNames) {
+        for (int i = 0; i < parameterNames.length; i++) {
+            if (name.equals(parameterNames[i])) {
+                return i;
+            }
+        }
+        for (int i = 0; i < parameterNames.length; i++) {
+            if (name.equals("param" + (i + 1))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 预先解析的属性路径，每一级优先使用getter方法，没有getter时直接读取字段
+     */
+    static final class PropertyPath {
+
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+        /**
+         * 按运行时类型解析的属性路径缓存
+         */
+        private static final Map<Class<?>, Map<String, PropertyPath>> RUNTIME_PATHS = new ConcurrentHashMap<>();
+
+        private final String path;
+        private final MethodHandle[] getters;
+
+        private PropertyPath(String path, MethodHandle[] getters) {
+            this.path = path;
+            this.getters = getters;
+        }
+
+        static PropertyPath compile(Class<?> rootType, String path) {
+            String[] properties = path.split("\\.");
+            MethodHandle[] getters = new MethodHandle[properties.length];
+            Class<?> type = rootType;
+            for (int i = 0; i < properties.length; i++) {
+                try {
+                    Method getter = findGetter(type, properties[i]);
+                    if (getter != null) {
+                        getter.setAccessible(true);
+                        getters[i] = MethodHandles.lookup().unreflect(getter).asType(GETTER_TYPE);
+                        type = getter.getReturnType();
+                    } else {
+                        Field field = findField(type, properties[i]);
+                        field.setAccessible(true);
+                        getters[i] = MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+                        type = field.getType();
+                    }
+                } catch (IllegalAccessException | RuntimeException e) {
+                    throw new OrmException("无法访问参数属性" + path, e);
+                }
+            }
+            return new PropertyPath(path, getters);
+        }
+
+        /**
+         * 按对象的运行时类型读取属性路径，解析结果按类型和路径缓存
+         * @param root 根对象
+         * @param path 属性路径
+         * @return 属性值，中间对象为null时返回null
+         */
+        static Object read(Object root, String path) {
+            if (root == null) {
+                return null;
+            }
+            PropertyPath compiled = RUNTIME_PATHS
+                    .computeIfAbsent(root.getClass(), key -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(path, key -> compile(root.getClass(), key));
+            return compiled.get(root);
+        }
+
+        Object get(Object root) {
+            Object value = root;
+            try {
+                for (MethodHandle getter : getters) {
+                    if (value == null) {
+                        return null;
+                    }
+                    value = (Object) getter.invokeExact(value);
+                }
+                return value;
+            } catch (Throwable e) {
+                throw new OrmException("读取参数属性" + path + "失败", e);
+            }
+        }
+
+        private static Method findGetter(Class<?> type, String property) {
+            String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+            for (String name : new String[]{"get" + suffix, "is" + suffix}) {
+                try {
+                    Method method = type.getMethod(name);
+                    if (!Modifier.isStatic(method.getModifiers()) && method.getReturnType() != void.class) {
+                        return method;
+                    }
+                } catch (NoSuchMethodException e) {
+                    // 尝试下一种命名
+                }
+            }
+            return null;
+        }
+
+        private static Field findField(Class<?> type, String property) {
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                try {
+                    return current.getDeclaredField(property);
+                } catch (NoSuchFieldException e) {
+                    // 继续查找父类
+                }
+            }
+            throw new OrmException("类" + type.getName() + "中没有属性" + property);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.myorm.sql;
+
+import com.myorm.exception.OrmException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 解析后的SQL语句：命名参数{@code #{name}}和{@code :name}被替换为{@code ?}，并按出现顺序记录参数名
+ * <p>
+ * 字符串字面量、带引号的标识符、注释以及PostgreSQL风格的{@code ::}类型转换中的内容不会被当作参数。
+ * 同一条SQL不能同时使用{@code ?}和命名参数。
+ */
+public final class ParsedSql {
+
+    private final String sql;
+    private final List<String> parameterNames;
+    private final int placeholderCount;
+
+    private ParsedSql(String sql, List<String> parameterNames, int placeholderCount) {
+        this.sql = sql;
+        this.parameterNames = parameterNames;
+        this.placeholderCount = placeholderCount;
+    }
+
+    /**
+     * 解析SQL语句
+     * @param sql 原始SQL语句
+     * @return 解析结果
+     */
+    public static ParsedSql parse(String sql) {
+        if (sql == null) {
+            throw new OrmException("SQL语句不能为空");
+        }
+
+        StringBuilder out = new StringBuilder(sql.length());
+        List<String> names = new ArrayList<>();
+        int positional = 0;
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"') {
+                int end = sql.indexOf(c, i + 1);
+                end = end < 0 ? length : end + 1;
+                out.append(sql, i, end);
+                i = end;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                end = end < 0 ? length : end;
+                out.append(sql, i, end);
+                i = end;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+                out.append(sql, i, end);
+                i = end;
+            } else if (c == '?') {
+                positional++;
+                out.append(c);
+                i++;
+            } else if (c == '#' && i + 1 < length && sql.charAt(i + 1) == '{') {
+                int end = sql.indexOf('}', i + 2);
+                if (end < 0) {
+                    throw new OrmException("SQL中的命名参数缺少右括号: " + sql);
+                }
+                names.add(parameterName(sql.substring(i + 2, end), sql));
+                out.append('?');
+                i = end + 1;
+            } else if (c == ':' && i + 1 < length && sql.charAt(i + 1) == ':') {
+                out.append("::");
+                i += 2;
+            } else if (c == ':' && i + 1 < length && Character.isJavaIdentifierStart(sql.charAt(i + 1))) {
+                int end = i + 1;
+                while (end < length && (Character.isJavaIdentifierPart(sql.charAt(end)) || isPathDot(sql, end))) {
+                    end++;
+                }
+                names.add(sql.substring(i + 1, end));
+                out.append('?');
+                i = end;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+
+        if (positional > 0 && !names.isEmpty()) {
+            throw new OrmException("SQL不能同时使用?和命名参数: " + sql);
+        }
+        if (names.isEmpty()) {
+            return new ParsedSql(sql, Collections.emptyList(), positional);
+        }
+        return new ParsedSql(out.toString(), Collections.unmodifiableList(names), names.size());
+    }
+
+    /**
+     * 替换命名参数后的SQL语句
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * 按占位符顺序排列的参数名，只使用{@code ?}时为空
+     */
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    /**
+     * 占位符数量
+     */
+    public int getPlaceholderCount() {
+        return placeholderCount;
+    }
+
+    /**
+     * 是否使用命名参数
+     */
+    public boolean hasNamedParameters() {
+        return !parameterNames.isEmpty();
+    }
+
+    private static String parameterName(String expression, String sql) {
+        // 兼容#{name,jdbcType=VARCHAR}的写法，只取参数名
+        int comma = expression.indexOf(',');
+        String name = (comma < 0 ? expression : expression.substring(0, comma)).trim();
+        if (name.isEmpty()) {
+            throw new OrmException("SQL中的命名参数不能为空: " + sql);
+        }
+        return name;
+    }
+
+    private static boolean isPathDot(String sql, int index) {
+        return sql.charAt(index) == '.' && index + 1 < sql.length()
+                && Character.isJavaIdentifierStart(sql.charAt(index + 1));
+    }
+}
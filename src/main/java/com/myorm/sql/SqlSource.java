@@ -0,0 +1,47 @@
+package com.myorm.sql;
+
+import com.myorm.exception.OrmException;
+
+/**
+ * Mapper方法的SQL来源，每个方法编译一次，调用时根据参数生成可执行的SQL和参数值
+ */
+public interface SqlSource {
+
+    /**
+     * 动态SQL的起始标记
+     */
+    String SCRIPT_PREFIX = "<script>";
+
+    /**
+     * 根据方法参数生成SQL和参数值
+     * @param args 方法参数
+     * @return 绑定了参数值的SQL语句
+     */
+    BoundSql bind(Object[] args);
+
+    /**
+     * 编译Mapper方法的SQL，以{@code <script>}开头的SQL按动态SQL编译，其余按命名参数编译
+     * @param sql 注解中的SQL语句
+     * @param parameterNames 方法参数名
+     * @param parameterTypes 方法参数类型
+     * @return SQL来源
+     */
+    static SqlSource compile(String sql, String[] parameterNames, Class<?>[] parameterTypes) {
+        if (sql == null || sql.trim().isEmpty()) {
+            throw new OrmException("SQL语句不能为空");
+        }
+        if (isScript(sql)) {
+            return DynamicSqlSource.compile(sql, parameterNames);
+        }
+        return ParameterMapping.compile(sql, parameterNames, parameterTypes);
+    }
+
+    /**
+     * 判断SQL是否为动态SQL
+     * @param sql SQL语句
+     * @return 是否以{@code <script>}开头
+     */
+    static boolean isScript(String sql) {
+        return sql.trim().startsWith(SCRIPT_PREFIX);
+    }
+}
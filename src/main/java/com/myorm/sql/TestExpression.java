@@ -0,0 +1,311 @@
+package com.myorm.sql;
+
+import com.myorm.exception.OrmException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 动态SQL中{@code <if test="...">}的条件表达式，编译一次后可重复求值
+ * <p>
+ * 支持的语法：属性路径（{@code user.name}、{@code ids.size()}）、{@code null}/{@code true}/{@code false}、
+ * 数字和单引号字符串字面量、比较运算{@code == != > >= < <=}、逻辑运算{@code and or not}（及{@code && || !}）和括号。
+ * 单独的属性路径按非空判断：null、false、0、空字符串和空集合为假。
+ */
+final class TestExpression {
+
+    private final String source;
+    private final Node root;
+
+    private TestExpression(String source, Node root) {
+        this.source = source;
+        this.root = root;
+    }
+
+    /**
+     * 编译条件表达式
+     * @param source 表达式
+     * @return 编译后的表达式
+     */
+    static TestExpression compile(String source) {
+        Parser parser = new Parser(source);
+        Node root = parser.parseOr();
+        if (parser.peek() != null) {
+            throw new OrmException("无法解析条件表达式: " + source);
+        }
+        return new TestExpression(source, root);
+    }
+
+    /**
+     * 求值
+     * @param resolver 属性路径解析器
+     * @return 条件是否成立
+     */
+    boolean evaluate(Function<String, Object> resolver) {
+        try {
+            return isTrue(root.eval(resolver));
+        } catch (OrmException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new OrmException("计算条件表达式失败: " + source, e);
+        }
+    }
+
+    /**
+     * 读取属性路径末尾的{@code size}/{@code length}/{@code isEmpty}/{@code empty}伪属性
+     * @param target 属性路径末尾之前的对象
+     * @param property 伪属性名
+     * @return 计算结果，不是伪属性时返回{@link #NOT_SPECIAL}
+     */
+    static Object special(Object target, String property) {
+        if (target == null) {
+            return NOT_SPECIAL;
+        }
+        Integer size = null;
+        if (target instanceof Collection) {
+            size = ((Collection<?>) target).size();
+        } else if (target instanceof Map) {
+            size = ((Map<?, ?>) target).size();
+        } else if (target instanceof CharSequence) {
+            size = ((CharSequence) target).length();
+        } else if (target.getClass().isArray()) {
+            size = java.lang.reflect.Array.getLength(target);
+        }
+        if (size == null) {
+            return NOT_SPECIAL;
+        }
+        if (property.equals("size") || property.equals("length")) {
+            return size;
+        }
+        if (property.equals("isEmpty") || property.equals("empty")) {
+            return size == 0;
+        }
+        return NOT_SPECIAL;
+    }
+
+    /**
+     * 表示不是伪属性的标记值
+     */
+    static final Object NOT_SPECIAL = new Object();
+
+    static boolean isTrue(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            return toDecimal(value).signum() != 0;
+        }
+        Object empty = special(value, "isEmpty");
+        if (empty != NOT_SPECIAL) {
+            return !(Boolean) empty;
+        }
+        return true;
+    }
+
+    private static BigDecimal toDecimal(Object value) {
+        return value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+    }
+
+    private static int compare(Object left, Object right, String operator) {
+        if (left == null || right == null) {
+            throw new OrmException("null不能参与" + operator + "比较");
+        }
+        if (left instanceof Number && right instanceof Number) {
+            return toDecimal(left).compareTo(toDecimal(right));
+        }
+        return left.toString().compareTo(right.toString());
+    }
+
+    private static boolean equalValues(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            return toDecimal(left).compareTo(toDecimal(right)) == 0;
+        }
+        if (left instanceof Character || right instanceof Character) {
+            return Objects.equals(String.valueOf(left), String.valueOf(right));
+        }
+        return Objects.equals(left, right);
+    }
+
+    private interface Node {
+        Object eval(Function<String, Object> resolver);
+    }
+
+    /**
+     * 递归下降解析器
+     */
+    private static final class Parser {
+
+        private final String source;
+        private final List<String> tokens = new ArrayList<>();
+        private int position;
+
+        Parser(String source) {
+            this.source = source;
+            tokenize();
+        }
+
+        String peek() {
+            return position < tokens.size() ? tokens.get(position) : null;
+        }
+
+        private String next() {
+            String token = peek();
+            if (token == null) {
+                throw new OrmException("条件表达式不完整: " + source);
+            }
+            position++;
+            return token;
+        }
+
+        Node parseOr() {
+            Node left = parseAnd();
+            while ("or".equals(peek()) || "||".equals(peek())) {
+                next();
+                Node l = left;
+                Node r = parseAnd();
+                left = resolver -> isTrue(l.eval(resolver)) || isTrue(r.eval(resolver));
+            }
+            return left;
+        }
+
+        private Node parseAnd() {
+            Node left = parseUnary();
+            while ("and".equals(peek()) || "&&".equals(peek())) {
+                next();
+                Node l = left;
+                Node r = parseUnary();
+                left = resolver -> isTrue(l.eval(resolver)) && isTrue(r.eval(resolver));
+            }
+            return left;
+        }
+
+        private Node parseUnary() {
+            if ("!".equals(peek()) || "not".equals(peek())) {
+                next();
+                Node operand = parseUnary();
+                return resolver -> !isTrue(operand.eval(resolver));
+            }
+            return parseComparison();
+        }
+
+        private Node parseComparison() {
+            Node left = parseOperand();
+            String operator = peek();
+            if (operator == null) {
+                return left;
+            }
+            switch (operator) {
+                case "==":
+                case "!=":
+                case ">":
+                case ">=":
+                case "<":
+                case "<=":
+                    next();
+                    break;
+                default:
+                    return left;
+            }
+            Node right = parseOperand();
+            switch (operator) {
+                case "==":
+                    return resolver -> equalValues(left.eval(resolver), right.eval(resolver));
+                case "!=":
+                    return resolver -> !equalValues(left.eval(resolver), right.eval(resolver));
+                case ">":
+                    return resolver -> compare(left.eval(resolver), right.eval(resolver), operator) > 0;
+                case ">=":
+                    return resolver -> compare(left.eval(resolver), right.eval(resolver), operator) >= 0;
+                case "<":
+                    return resolver -> compare(left.eval(resolver), right.eval(resolver), operator) < 0;
+                default:
+                    return resolver -> compare(left.eval(resolver), right.eval(resolver), operator) <= 0;
+            }
+        }
+
+        private Node parseOperand() {
+            String token = next();
+            if (token.equals("(")) {
+                Node inner = parseOr();
+                if (!")".equals(next())) {
+                    throw new OrmException("条件表达式缺少右括号: " + source);
+                }
+                return inner;
+            }
+            if (token.equals("null")) {
+                return resolver -> null;
+            }
+            if (token.equals("true") || token.equals("false")) {
+                Boolean value = Boolean.valueOf(token);
+                return resolver -> value;
+            }
+            if (token.startsWith("'")) {
+                String value = token.substring(1, token.length() - 1);
+                return resolver -> value;
+            }
+            if (Character.isDigit(token.charAt(0)) || token.charAt(0) == '-') {
+                BigDecimal value = new BigDecimal(token);
+                return resolver -> value;
+            }
+            if (Character.isJavaIdentifierStart(token.charAt(0))) {
+                return resolver -> resolver.apply(token);
+            }
+            throw new OrmException("无法解析条件表达式: " + source);
+        }
+
+        private void tokenize() {
+            int length = source.length();
+            int i = 0;
+            while (i < length) {
+                char c = source.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (c == '\'') {
+                    int end = source.indexOf('\'', i + 1);
+                    if (end < 0) {
+                        throw new OrmException("条件表达式中的字符串缺少结束引号: " + source);
+                    }
+                    tokens.add(source.substring(i, end + 1));
+                    i = end + 1;
+                } else if (Character.isDigit(c) || (c == '-' && i + 1 < length && Character.isDigit(source.charAt(i + 1)))) {
+                    int end = i + 1;
+                    while (end < length && (Character.isDigit(source.charAt(end)) || source.charAt(end) == '.')) {
+                        end++;
+                    }
+                    tokens.add(source.substring(i, end));
+                    i = end;
+                } else if (Character.isJavaIdentifierStart(c)) {
+                    int end = i + 1;
+                    while (end < length && (Character.isJavaIdentifierPart(source.charAt(end))
+                            || source.charAt(end) == '.')) {
+                        end++;
+                    }
+                    String path = source.substring(i, end);
+                    // ids.size()、name.isEmpty()等无参方法调用按伪属性处理
+                    if (source.startsWith("()", end)) {
+                        end += 2;
+                    }
+                    tokens.add(path);
+                    i = end;
+                } else if (source.startsWith("==", i) || source.startsWith("!=", i) || source.startsWith(">=", i)
+                        || source.startsWith("<=", i) || source.startsWith("&&", i) || source.startsWith("||", i)) {
+                    tokens.add(source.substring(i, i + 2));
+                    i += 2;
+                } else if (c == '>' || c == '<' || c == '!' || c == '(' || c == ')') {
+                    tokens.add(String.valueOf(c));
+                    i++;
+                } else {
+                    throw new OrmException("条件表达式中有无法识别的字符'" + c + "': " + source);
+                }
+            }
+        }
+    }
+}
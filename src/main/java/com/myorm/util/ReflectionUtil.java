@@ -2,9 +2,18 @@ package com.myorm.util;
 
 import com.myorm.annotation.Column;
 import com.myorm.annotation.Entity;
+import com.myorm.annotation.ManyToOne;
+import com.myorm.annotation.OneToMany;
+import com.myorm.annotation.ShardKey;
 import com.myorm.exception.OrmException;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -33,7 +42,7 @@ public class ReflectionUtil {
         }
         
         // 在H2数据库中，表名需要用双引号括起来，尤其是当表名是保留关键字时
-        return "\"" + tableName + "\"";
+        return quoteIdentifier(tableName);
     }
     
     /**
@@ -55,6 +64,98 @@ public class ReflectionUtil {
         return columnFields;
     }
     
+    /**
+     * 根据属性名获取实体类带有@Column注解的字段
+     * @param clazz 实体类Class对象
+     * @param fieldName 属性名
+     * @return 字段
+     */
+    public static Field getColumnField(Class<?> clazz, String fieldName) {
+        for (Field field : getColumnFields(clazz)) {
+            if (field.getName().equals(fieldName)) {
+                return field;
+            }
+        }
+        
+        throw new OrmException("实体类" + clazz.getName() + "没有名为" + fieldName + "的@Column字段");
+    }
+    
+    /**
+     * 获取实体类默认查询的字段（排除延迟加载列）
+     * @param clazz 实体类Class对象
+     * @return 字段列表
+     */
+    public static List<Field> getSelectColumnFields(Class<?> clazz) {
+        List<Field> selectFields = new ArrayList<>();
+        for (Field field : getColumnFields(clazz)) {
+            if (!isLazy(field)) {
+                selectFields.add(field);
+            }
+        }
+        return selectFields;
+    }
+    
+    /**
+     * 根据列名获取实体类带有@Column注解的字段
+     * @param clazz 实体类Class对象
+     * @param columnName 列名（可以带双引号）
+     * @return 字段，如果没有则返回null
+     */
+    public static Field findColumnFieldByColumnName(Class<?> clazz, String columnName) {
+        String rawColumnName = columnName.replace("\"", "");
+        for (Field field : getColumnFields(clazz)) {
+            if (getColumnName(field).replace("\"", "").equalsIgnoreCase(rawColumnName)) {
+                return field;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 根据属性名获取实体类带有@OneToMany或@ManyToOne注解的关联字段
+     * @param clazz 实体类Class对象
+     * @param fieldName 属性名
+     * @return 关联字段
+     */
+    public static Field getAssociationField(Class<?> clazz, String fieldName) {
+        for (Field field : clazz.getDeclaredFields()) {
+            if (field.getName().equals(fieldName) 
+                    && (field.isAnnotationPresent(OneToMany.class) || field.isAnnotationPresent(ManyToOne.class))) {
+                field.setAccessible(true);
+                return field;
+            }
+        }
+        
+        throw new OrmException("实体类" + clazz.getName() + "没有名为" + fieldName + "的关联字段");
+    }
+    
+    /**
+     * 获取集合类型字段的元素类型
+     * @param field 集合类型字段
+     * @return 元素类型
+     */
+    public static Class<?> getCollectionElementType(Field field) {
+        Type genericType = field.getGenericType();
+        if (genericType instanceof ParameterizedType) {
+            Type[] typeArgs = ((ParameterizedType) genericType).getActualTypeArguments();
+            if (typeArgs.length == 1 && typeArgs[0] instanceof Class) {
+                return (Class<?>) typeArgs[0];
+            }
+        }
+        
+        throw new OrmException("无法确定字段" + field.getName() + "的集合元素类型");
+    }
+    
+    /**
+     * 判断字段是否为延迟加载列
+     * @param field 字段
+     * @return 是否延迟加载
+     */
+    public static boolean isLazy(Field field) {
+        Column column = field.getAnnotation(Column.class);
+        return column != null && column.lazy();
+    }
+    
     /**
      * 获取实体类的主键字段
      * @param clazz 实体类Class对象
@@ -73,6 +174,21 @@ public class ReflectionUtil {
         return null;
     }
     
+    /**
+     * 获取实体类的分片键字段
+     * @param clazz 实体类Class对象
+     * @return 带有@ShardKey注解的列字段，如果没有则返回null
+     */
+    public static Field getShardKeyField(Class<?> clazz) {
+        for (Field field : getColumnFields(clazz)) {
+            if (field.isAnnotationPresent(ShardKey.class)) {
+                return field;
+            }
+        }
+        
+        return null;
+    }
+    
     /**
      * 获取字段对应的列名
      * @param field 字段
@@ -91,7 +207,19 @@ public class ReflectionUtil {
         }
         
         // 在H2数据库中，列名也需要用双引号括起来，尤其是当列名是保留关键字时
-        return "\"" + columnName + "\"";
+        return quoteIdentifier(columnName);
+    }
+    
+    /**
+     * 用双引号括起表名或列名，已经带双引号时原样返回
+     * @param identifier 表名或列名
+     * @return 带双引号的名称
+     */
+    public static String quoteIdentifier(String identifier) {
+        if (identifier.length() >= 2 && identifier.startsWith("\"") && identifier.endsWith("\"")) {
+            return identifier;
+        }
+        return "\"" + identifier + "\"";
     }
     
     /**
@@ -169,7 +297,7 @@ public class ReflectionUtil {
      * @param targetType 目标类型
      * @return 转换后的值
      */
-    private static Object convertValueType(Object value, Class<?> targetType) {
+    public static Object convertValueType(Object value, Class<?> targetType) {
         if (value == null) {
             return null;
         }
@@ -179,6 +307,11 @@ public class ReflectionUtil {
             return value;
         }
         
+        // 处理大文本/二进制类型的转换
+        if (value instanceof Clob || value instanceof Blob) {
+            return convertLobValue(value, targetType);
+        }
+        
         // 处理基本类型的转换
         if (targetType == Integer.class || targetType == int.class) {
             if (value instanceof Number) {
@@ -215,4 +348,29 @@ public class ReflectionUtil {
         // 默认返回原值的字符串表示
         return value.toString();
     }
+    
+    private static Object convertLobValue(Object value, Class<?> targetType) {
+        try {
+            if (value instanceof Clob) {
+                Clob clob = (Clob) value;
+                return clob.getSubString(1, lobLength(clob.length()));
+            }
+            
+            Blob blob = (Blob) value;
+            byte[] bytes = blob.getBytes(1, lobLength(blob.length()));
+            return targetType == String.class ? new String(bytes, StandardCharsets.UTF_8) : bytes;
+        } catch (SQLException e) {
+            throw new OrmException("无法读取大字段的值", e);
+        }
+    }
+    
+    /**
+     * 大字段一次读入内存的长度，超过数组上限时应改用流读取
+     */
+    private static int lobLength(long length) {
+        if (length > Integer.MAX_VALUE) {
+            throw new OrmException("大字段长度" + length + "超过一次可以读取的上限，请使用openBinaryStream/openCharacterStream读取");
+        }
+        return (int) length;
+    }
 }
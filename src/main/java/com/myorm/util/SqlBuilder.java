@@ -8,11 +8,23 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * SQL构建工具类，用于生成SQL语句
  */
 public class SqlBuilder {
+    
+    /**
+     * 实体类查询列清单缓存（实体类 -> "列1", "列2", ...）
+     */
+    private static final Map<Class<?>, String> SELECT_COLUMNS_CACHE = new ConcurrentHashMap<>();
+    
+    /**
+     * 实体类插入语句缓存
+     */
+    private static final Map<Class<?>, String> INSERT_SQL_CACHE = new ConcurrentHashMap<>();
 
     /**
      * 生成插入SQL语句
@@ -25,12 +37,47 @@ public class SqlBuilder {
         }
         
         Class<?> clazz = entity.getClass();
-        String tableName = ReflectionUtil.getTableName(clazz);
-        List<Field> columnFields = ReflectionUtil.getColumnFields(clazz);
+        String sql = buildInsertSql(clazz);
+        List<Object> params = new ArrayList<>();
         
-        // 过滤掉自增主键字段
+        for (Field field : getInsertColumnFields(clazz)) {
+            try {
+                params.add(field.get(entity));
+            } catch (IllegalAccessException e) {
+                throw new OrmException("无法访问字段" + field.getName(), e);
+            }
+        }
+        
+        return new SqlAndParams(sql, params);
+    }
+    
+    /**
+     * 生成实体类的插入SQL语句，参数顺序与{@link #getInsertColumnFields(Class)}一致
+     * @param clazz 实体类Class对象
+     * @return SQL语句
+     */
+    public static String buildInsertSql(Class<?> clazz) {
+        return INSERT_SQL_CACHE.computeIfAbsent(clazz, key -> {
+            String tableName = ReflectionUtil.getTableName(key);
+            StringJoiner columnJoiner = new StringJoiner(", ");
+            StringJoiner placeholderJoiner = new StringJoiner(", ");
+            for (Field field : getInsertColumnFields(key)) {
+                columnJoiner.add(ReflectionUtil.getColumnName(field));
+                placeholderJoiner.add("?");
+            }
+            return String.format("INSERT INTO %s (%s) VALUES (%s)", 
+                    tableName, columnJoiner.toString(), placeholderJoiner.toString());
+        });
+    }
+    
+    /**
+     * 获取插入语句包含的字段（过滤掉自增主键字段）
+     * @param clazz 实体类Class对象
+     * @return 字段列表
+     */
+    public static List<Field> getInsertColumnFields(Class<?> clazz) {
         List<Field> fieldsToInsert = new ArrayList<>();
-        for (Field field : columnFields) {
+        for (Field field : ReflectionUtil.getColumnFields(clazz)) {
             Column column = field.getAnnotation(Column.class);
             if (!(column.primaryKey() && column.autoIncrement())) {
                 fieldsToInsert.add(field);
@@ -40,28 +87,7 @@ public class SqlBuilder {
         if (fieldsToInsert.isEmpty()) {
             throw new OrmException("没有可插入的字段");
         }
-        
-        StringJoiner columnJoiner = new StringJoiner(", ");
-        StringJoiner placeholderJoiner = new StringJoiner(", ");
-        List<Object> params = new ArrayList<>();
-        
-        for (Field field : fieldsToInsert) {
-            try {
-                String columnName = ReflectionUtil.getColumnName(field);
-                Object value = field.get(entity);
-                
-                columnJoiner.add(columnName);
-                placeholderJoiner.add("?");
-                params.add(value);
-            } catch (IllegalAccessException e) {
-                throw new OrmException("无法访问字段" + field.getName(), e);
-            }
-        }
-        
-        String sql = String.format("INSERT INTO %s (%s) VALUES (%s)", 
-                tableName, columnJoiner.toString(), placeholderJoiner.toString());
-        
-        return new SqlAndParams(sql, params);
+        return fieldsToInsert;
     }
     
     /**
@@ -94,6 +120,12 @@ public class SqlBuilder {
                     String columnName = ReflectionUtil.getColumnName(field);
                     Object value = field.get(entity);
                     
+                    // 值为null的延迟加载列视为未加载，不参与更新，避免覆盖数据库中的值；
+                    // 需要清空时使用Session.clearLazy
+                    if (value == null && column.lazy()) {
+                        continue;
+                    }
+                    
                     setJoiner.add(columnName + " = ?");
                     params.add(value);
                 } catch (IllegalAccessException e) {
@@ -180,7 +212,8 @@ public class SqlBuilder {
         List<Object> params = new ArrayList<>();
         params.add(id);
         
-        String sql = String.format("SELECT * FROM %s WHERE %s = ?", tableName, primaryKeyColumnName);
+        String sql = String.format("SELECT %s FROM %s WHERE %s = ?", 
+                buildSelectColumns(clazz), tableName, primaryKeyColumnName);
         
         return new SqlAndParams(sql, params);
     }
@@ -196,7 +229,7 @@ public class SqlBuilder {
         }
         
         String tableName = ReflectionUtil.getTableName(clazz);
-        String sql = String.format("SELECT * FROM %s", tableName);
+        String sql = String.format("SELECT %s FROM %s", buildSelectColumns(clazz), tableName);
         
         return new SqlAndParams(sql, new ArrayList<>());
     }
@@ -212,9 +245,184 @@ public class SqlBuilder {
             throw new OrmException("实体类不能为空");
         }
         
+        return buildSelectSql(clazz, buildSelectColumns(clazz), conditions);
+    }
+    
+    /**
+     * 生成只查询指定字段的SQL语句（列投影）
+     * @param clazz 实体类Class对象
+     * @param fieldNames 需要查询的字段名（实体类属性名）
+     * @param conditions 条件映射（列名 -> 值），可以为空
+     * @return SQL语句和参数
+     */
+    public static SqlAndParams buildSelectFieldsSql(Class<?> clazz, List<String> fieldNames, 
+            Map<String, Object> conditions) {
+        if (clazz == null) {
+            throw new OrmException("实体类不能为空");
+        }
+        
+        if (fieldNames == null || fieldNames.isEmpty()) {
+            return buildSelectSql(clazz, buildSelectColumns(clazz), conditions);
+        }
+        
+        StringJoiner columnJoiner = new StringJoiner(", ");
+        for (String fieldName : fieldNames) {
+            columnJoiner.add(ReflectionUtil.getColumnName(ReflectionUtil.getColumnField(clazz, fieldName)));
+        }
+        
+        return buildSelectSql(clazz, columnJoiner.toString(), conditions);
+    }
+    
+    /**
+     * 生成按主键查询单个列的SQL语句，用于加载延迟加载列
+     * @param clazz 实体类Class对象
+     * @param field 需要查询的字段
+     * @param id 主键值
+     * @return SQL语句和参数
+     */
+    public static SqlAndParams buildSelectColumnByIdSql(Class<?> clazz, Field field, Object id) {
+        Field primaryKeyField = requirePrimaryKeyField(clazz);
+        
+        List<Object> params = new ArrayList<>();
+        params.add(id);
+        
+        String sql = String.format("SELECT %s FROM %s WHERE %s = ?", 
+                ReflectionUtil.getColumnName(field), ReflectionUtil.getTableName(clazz), 
+                ReflectionUtil.getColumnName(primaryKeyField));
+        
+        return new SqlAndParams(sql, params);
+    }
+    
+    /**
+     * 生成按主键把单个列设置为NULL的SQL语句，用于清空延迟加载列
+     * @param clazz 实体类Class对象
+     * @param field 需要清空的字段
+     * @param id 主键值
+     * @return SQL语句和参数
+     */
+    public static SqlAndParams buildClearColumnByIdSql(Class<?> clazz, Field field, Object id) {
+        Field primaryKeyField = requirePrimaryKeyField(clazz);
+        
+        List<Object> params = new ArrayList<>();
+        params.add(id);
+        
+        String sql = String.format("UPDATE %s SET %s = NULL WHERE %s = ?", 
+                ReflectionUtil.getTableName(clazz), ReflectionUtil.getColumnName(field), 
+                ReflectionUtil.getColumnName(primaryKeyField));
+        
+        return new SqlAndParams(sql, params);
+    }
+    
+    /**
+     * 生成按一批主键查询单个列的SQL语句（主键, 列），用于批量加载延迟加载列
+     * @param clazz 实体类Class对象
+     * @param field 需要查询的字段
+     * @param ids 主键值列表
+     * @return SQL语句和参数
+     */
+    public static SqlAndParams buildSelectColumnByIdsSql(Class<?> clazz, Field field, List<Object> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new OrmException("主键值列表不能为空");
+        }
+        
+        Field primaryKeyField = requirePrimaryKeyField(clazz);
+        String primaryKeyColumnName = ReflectionUtil.getColumnName(primaryKeyField);
+        
+        StringJoiner placeholderJoiner = new StringJoiner(", ");
+        for (int i = 0; i < ids.size(); i++) {
+            placeholderJoiner.add("?");
+        }
+        
+        String sql = String.format("SELECT %s, %s FROM %s WHERE %s IN (%s)", 
+                primaryKeyColumnName, ReflectionUtil.getColumnName(field), ReflectionUtil.getTableName(clazz), 
+                primaryKeyColumnName, placeholderJoiner.toString());
+        
+        return new SqlAndParams(sql, new ArrayList<>(ids));
+    }
+    
+    /**
+     * 生成按某一列IN条件批量查询实体的SQL语句，用于关联的批量加载
+     * 查询列为实体类的默认查询列，最后额外追加一次IN条件列，便于按该列分组
+     * @param clazz 实体类Class对象
+     * @param columnName IN条件列名（带双引号）
+     * @param values IN条件值列表
+     * @return SQL语句和参数
+     */
+    public static SqlAndParams buildSelectByColumnInSql(Class<?> clazz, String columnName, List<Object> values) {
+        if (values == null || values.isEmpty()) {
+            throw new OrmException("IN条件值列表不能为空");
+        }
+        
+        StringJoiner placeholderJoiner = new StringJoiner(", ");
+        for (int i = 0; i < values.size(); i++) {
+            placeholderJoiner.add("?");
+        }
+        
+        String sql = String.format("SELECT %s, %s FROM %s WHERE %s IN (%s)", 
+                buildSelectColumns(clazz), columnName, ReflectionUtil.getTableName(clazz), 
+                columnName, placeholderJoiner.toString());
+        
+        return new SqlAndParams(sql, new ArrayList<>(values));
+    }
+    
+    /**
+     * 生成一对多关联的连接查询SQL语句
+     * 查询列依次为父实体的默认查询列、子实体的默认查询列，结果按父实体主键排序
+     * @param parentClass 父实体类Class对象
+     * @param childClass 子实体类Class对象
+     * @param joinColumn 子表中引用父实体主键的外键列名（带双引号）
+     * @return SQL语句和参数
+     */
+    public static SqlAndParams buildJoinFetchSql(Class<?> parentClass, Class<?> childClass, String joinColumn) {
+        String parentPrimaryKey = ReflectionUtil.getColumnName(requirePrimaryKeyField(parentClass));
+        
+        String sql = String.format("SELECT %s, %s FROM %s p LEFT JOIN %s c ON c.%s = p.%s ORDER BY p.%s", 
+                joinColumns("p", ReflectionUtil.getSelectColumnFields(parentClass)), 
+                joinColumns("c", ReflectionUtil.getSelectColumnFields(childClass)), 
+                ReflectionUtil.getTableName(parentClass), ReflectionUtil.getTableName(childClass), 
+                joinColumn, parentPrimaryKey, parentPrimaryKey);
+        
+        return new SqlAndParams(sql, new ArrayList<>());
+    }
+    
+    private static String joinColumns(String alias, List<Field> fields) {
+        StringJoiner columnJoiner = new StringJoiner(", ");
+        for (Field field : fields) {
+            String columnName = ReflectionUtil.getColumnName(field);
+            columnJoiner.add(alias == null ? columnName : alias + "." + columnName);
+        }
+        return columnJoiner.toString();
+    }
+    
+    private static Field requirePrimaryKeyField(Class<?> clazz) {
+        Field primaryKeyField = ReflectionUtil.getPrimaryKeyField(clazz);
+        if (primaryKeyField == null) {
+            throw new OrmException("实体类" + clazz.getName() + "没有定义主键字段");
+        }
+        return primaryKeyField;
+    }
+    
+    /**
+     * 获取实体类所有映射列组成的查询列清单，结果按实体类缓存
+     * @param clazz 实体类Class对象
+     * @return 以逗号分隔的列名清单
+     */
+    public static String buildSelectColumns(Class<?> clazz) {
+        return SELECT_COLUMNS_CACHE.computeIfAbsent(clazz, c -> {
+            // 延迟加载列不出现在默认查询列清单中
+            List<Field> columnFields = ReflectionUtil.getSelectColumnFields(c);
+            if (columnFields.isEmpty()) {
+                throw new OrmException("实体类" + c.getName() + "没有@Column字段");
+            }
+            
+            return joinColumns(null, columnFields);
+        });
+    }
+    
+    private static SqlAndParams buildSelectSql(Class<?> clazz, String columns, Map<String, Object> conditions) {
         String tableName = ReflectionUtil.getTableName(clazz);
         StringBuilder sqlBuilder = new StringBuilder();
-        sqlBuilder.append("SELECT * FROM ").append(tableName);
+        sqlBuilder.append("SELECT ").append(columns).append(" FROM ").append(tableName);
         
         List<Object> params = new ArrayList<>();
         
@@ -222,7 +430,8 @@ public class SqlBuilder {
             sqlBuilder.append(" WHERE ");
             StringJoiner conditionJoiner = new StringJoiner(" AND ");
             
-            for (Map.Entry<String, Object> entry : conditions.entrySet()) {
+            // 按列名排序，保证相同条件生成的SQL文本一致，便于数据库复用语句缓存
+            for (Map.Entry<String, Object> entry : new TreeMap<>(conditions).entrySet()) {
                 String columnName = "\"" + entry.getKey() + "\"";
                 Object value = entry.getValue();
                 
@@ -0,0 +1,142 @@
+package com.myorm;
+
+import com.myorm.annotation.Column;
+import com.myorm.annotation.Entity;
+import com.myorm.annotation.ManyToOne;
+import com.myorm.annotation.OneToMany;
+import com.myorm.core.Session;
+import com.myorm.core.SessionFactory;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * 关联映射测试
+ */
+public class AssociationTest {
+    
+    private Session session;
+    
+    @Before
+    public void setUp() {
+        SessionFactory sessionFactory = SessionFactory.builder()
+                .url("jdbc:h2:mem:assocdb;DB_CLOSE_DELAY=-1")
+                .username("sa")
+                .password("")
+                .build();
+        
+        session = sessionFactory.openSession();
+        session.execute("CREATE TABLE IF NOT EXISTS AUTHOR (ID INT AUTO_INCREMENT PRIMARY KEY, NAME VARCHAR(50));", null);
+        session.execute("CREATE TABLE IF NOT EXISTS BOOK (ID INT AUTO_INCREMENT PRIMARY KEY, TITLE VARCHAR(50), AUTHOR_ID INT);", null);
+        
+        session.execute("INSERT INTO AUTHOR (ID, NAME) VALUES (1, '鲁迅'), (2, '老舍'), (3, '巴金')", null);
+        session.execute("INSERT INTO BOOK (TITLE, AUTHOR_ID) VALUES ('呐喊', 1), ('彷徨', 1), ('茶馆', 2)", null);
+    }
+    
+    @After
+    public void tearDown() {
+        session.execute("DROP TABLE IF EXISTS BOOK;", null);
+        session.execute("DROP TABLE IF EXISTS AUTHOR;", null);
+        session.close();
+    }
+    
+    @Test
+    public void testBatchFetchOneToMany() {
+        List<Author> authors = session.findAll(Author.class);
+        session.fetch(authors, "books");
+        
+        assertEquals(3, authors.size());
+        for (Author author : authors) {
+            assertNotNull(author.books);
+        }
+        assertEquals(2, findAuthor(authors, 1).books.size());
+        assertEquals(1, findAuthor(authors, 2).books.size());
+        assertTrue(findAuthor(authors, 3).books.isEmpty());
+    }
+    
+    @Test
+    public void testBatchFetchManyToOne() {
+        List<Book> books = session.findAll(Book.class);
+        session.fetch(books, "author");
+        
+        assertEquals(3, books.size());
+        for (Book book : books) {
+            assertNotNull(book.author);
+            assertEquals(book.authorId, book.author.id);
+        }
+    }
+    
+    @Test
+    public void testJoinFetch() {
+        List<Author> authors = session.findAllJoinFetch(Author.class, "books");
+        
+        assertEquals(3, authors.size());
+        assertEquals("鲁迅", authors.get(0).name);
+        assertEquals(2, authors.get(0).books.size());
+        assertEquals(1, authors.get(1).books.size());
+        assertTrue(authors.get(2).books.isEmpty());
+    }
+    
+    @Test
+    public void testQuotedJoinColumn() {
+        List<QuotedAuthor> authors = session.findAll(QuotedAuthor.class);
+        session.fetch(authors, "books");
+        assertEquals(3, authors.size());
+        assertEquals(2, authors.get(0).books.size());
+        
+        List<QuotedAuthor> joined = session.findAllJoinFetch(QuotedAuthor.class, "books");
+        assertEquals(2, joined.get(0).books.size());
+    }
+    
+    private Author findAuthor(List<Author> authors, int id) {
+        for (Author author : authors) {
+            if (author.id == id) {
+                return author;
+            }
+        }
+        return null;
+    }
+    
+    @Entity(table = "AUTHOR")
+    public static class Author {
+        @Column(primaryKey = true, autoIncrement = true)
+        private Integer id;
+        
+        @Column
+        private String name;
+        
+        @OneToMany(joinColumn = "AUTHOR_ID", batchSize = 2)
+        private List<Book> books;
+    }
+    
+    @Entity(table = "AUTHOR")
+    public static class QuotedAuthor {
+        @Column(primaryKey = true, autoIncrement = true)
+        private Integer id;
+        
+        @Column
+        private String name;
+        
+        @OneToMany(joinColumn = "\"AUTHOR_ID\"")
+        private List<Book> books;
+    }
+    
+    @Entity(table = "BOOK")
+    public static class Book {
+        @Column(primaryKey = true, autoIncrement = true)
+        private Integer id;
+        
+        @Column
+        private String title;
+        
+        @Column(name = "AUTHOR_ID")
+        private Integer authorId;
+        
+        @ManyToOne(joinColumn = "AUTHOR_ID")
+        private Author author;
+    }
+}
@@ -0,0 +1,101 @@
+package com.myorm;
+
+import com.myorm.core.Session;
+import com.myorm.core.SessionFactory;
+import com.myorm.result.ColumnarResult;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * 列式查询结果测试
+ */
+public class ColumnarResultTest {
+    
+    private Session session;
+    
+    @Before
+    public void setUp() {
+        SessionFactory sessionFactory = SessionFactory.builder()
+                .url("jdbc:h2:mem:columnardb;DB_CLOSE_DELAY=-1")
+                .username("sa")
+                .password("")
+                .build();
+        
+        session = sessionFactory.openSession();
+        session.execute("CREATE TABLE IF NOT EXISTS SCORE (ID BIGINT, CITY VARCHAR(20), AGE INT, SCORE DOUBLE);", null);
+        for (int i = 0; i < 1000; i++) {
+            session.execute("INSERT INTO SCORE VALUES (?, ?, ?, ?)", 
+                    Arrays.asList((long) i, i % 3 == 0 ? "北京" : "上海", i % 10 == 0 ? null : i % 50, i * 0.5));
+        }
+    }
+    
+    @After
+    public void tearDown() {
+        session.execute("DROP TABLE IF EXISTS SCORE;", null);
+        session.close();
+    }
+    
+    @Test
+    public void testQueryColumnar() {
+        ColumnarResult result = session.queryColumnar("SELECT ID, CITY, AGE, SCORE FROM SCORE ORDER BY ID", null);
+        
+        assertEquals(1000, result.getRowCount());
+        assertEquals(4, result.getColumnCount());
+        
+        ColumnarResult.LongColumn ids = result.getLongColumn("ID");
+        ColumnarResult.IntColumn ages = result.getIntColumn("AGE");
+        ColumnarResult.DoubleColumn scores = result.getDoubleColumn("SCORE");
+        ColumnarResult.StringColumn cities = result.getStringColumn("CITY");
+        
+        assertEquals(999L, ids.getLong(999));
+        assertTrue(ages.isNull(0));
+        assertFalse(ages.isNull(1));
+        assertEquals(1, ages.getInt(1));
+        assertNull(ages.get(990));
+        assertEquals(499.5, scores.getDouble(999), 0);
+        
+        // 字符串列只保存两个不同的值
+        assertEquals(2, cities.getDictionary().size());
+        assertEquals("北京", cities.getString(0));
+        assertEquals("上海", cities.getString(1));
+        assertEquals(cities.getCode(0), cities.getCode(3));
+        
+        double total = 0;
+        double[] values = scores.values();
+        for (int i = 0; i < result.getRowCount(); i++) {
+            total += values[i];
+        }
+        assertEquals(249750, total, 0);
+    }
+    
+    @Test
+    public void testRowBoundsAndReadOnlyDictionary() {
+        ColumnarResult result = session.queryColumnar("SELECT CITY, AGE FROM SCORE WHERE ID < 5", null);
+        ColumnarResult.StringColumn cities = result.getStringColumn("CITY");
+        ColumnarResult.IntColumn ages = result.getIntColumn("AGE");
+        assertEquals(5, cities.size());
+        
+        // 底层数组按容量分配，超出行数的下标必须报错而不是读出字典编码0的值
+        for (Runnable read : new Runnable[]{() -> cities.getString(5), () -> cities.getCode(5),
+                () -> ages.isNull(5), () -> ages.getInt(5), () -> ages.getInt(-1)}) {
+            try {
+                read.run();
+                fail("超出行数的下标应抛出异常");
+            } catch (IndexOutOfBoundsException e) {
+                // 预期异常
+            }
+        }
+        
+        try {
+            cities.getDictionary().add("广州");
+            fail("字典应为只读");
+        } catch (UnsupportedOperationException e) {
+            // 预期异常
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.myorm;
+
+import com.myorm.annotation.Column;
+import com.myorm.annotation.Entity;
+import com.myorm.core.Session;
+import com.myorm.core.SessionFactory;
+import com.myorm.query.Aggregate;
+import com.myorm.query.Criteria;
+import com.myorm.query.CriteriaCompiler;
+import com.myorm.query.GroupRow;
+import com.myorm.util.SqlBuilder;
+import com.myorm.UserTest.User;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * 类型化条件查询测试
+ */
+public class CriteriaTest {
+    
+    private Session session;
+    
+    @Before
+    public void setUp() {
+        SessionFactory sessionFactory = SessionFactory.builder()
+                .url("jdbc:h2:mem:criteriadb;DB_CLOSE_DELAY=-1")
+                .username("sa")
+                .password("")
+                .build();
+        
+        session = sessionFactory.openSession();
+        session.execute(
+                "CREATE TABLE IF NOT EXISTS \"USER\" (" +
+                "ID INT AUTO_INCREMENT PRIMARY KEY, " +
+                "USERNAME VARCHAR(50) NOT NULL, " +
+                "EMAIL VARCHAR(100), " +
+                "AGE INT);", 
+                null);
+        
+        String[] names = {"张三", "李四", "王五", "赵六", "钱七"};
+        for (int i = 0; i < names.length; i++) {
+            User user = new User();
+            user.setUsername(names[i]);
+            user.setEmail(i % 2 == 0 ? names[i] + "@example.com" : null);
+            user.setAge(20 + i * 5);
+            session.save(user);
+        }
+    }
+    
+    @After
+    public void tearDown() {
+        session.execute("DROP TABLE IF EXISTS \"USER\";", null);
+        session.close();
+    }
+    
+    @Test
+    public void testQuery() {
+        List<User> users = session.findByCriteria(Criteria.of(User.class)
+                .between("age", 25, 40)
+                .or(c -> c.isNull("email"), c -> c.like("username", "王%"))
+                .desc("age")
+                .limit(2));
+        
+        assertEquals(2, users.size());
+        assertEquals("赵六", users.get(0).getUsername());
+        assertEquals("王五", users.get(1).getUsername());
+    }
+    
+    @Test
+    public void testIn() {
+        List<User> users = session.findByCriteria(Criteria.of(User.class)
+                .in("username", Arrays.asList("张三", "李四", "王五"))
+                .asc("id"));
+        assertEquals(3, users.size());
+        assertEquals("张三", users.get(0).getUsername());
+        
+        assertTrue(session.findByCriteria(Criteria.of(User.class).in("username")).isEmpty());
+    }
+    
+    @Test
+    public void testSameShapeSharesTemplate() {
+        SqlBuilder.SqlAndParams first = CriteriaCompiler.compileSelect(
+                Criteria.of(User.class).eq("username", "张三").in("age", 20, 25, 30));
+        SqlBuilder.SqlAndParams second = CriteriaCompiler.compileSelect(
+                Criteria.of(User.class).eq("username", "李四").in("age", 20, 25, 30, 35));
+        
+        // IN列表长度3和4落在同一档，生成同一条SQL模板
+        assertSame(first.getSql(), second.getSql());
+        assertEquals(Arrays.asList("张三", 20, 25, 30, 30), first.getParams());
+        assertEquals(Arrays.asList("李四", 20, 25, 30, 35), second.getParams());
+    }
+    
+    @Test
+    public void testAggregates() {
+        assertEquals(5, session.count(User.class));
+        assertEquals(3, session.count(Criteria.of(User.class).isNotNull("email")));
+        assertEquals(150, session.sum(Criteria.of(User.class), "age"), 0);
+        assertEquals(30, session.avg(Criteria.of(User.class), "age"), 0.0001);
+        assertEquals(20, session.min(Criteria.of(User.class), "age"), 0);
+        assertEquals(40, session.max(Criteria.of(User.class), "age"), 0);
+        assertEquals(0, session.sum(Criteria.of(User.class).gt("age", 100), "age"), 0);
+        assertTrue(Double.isNaN(session.avg(Criteria.of(User.class).gt("age", 100), "age")));
+    }
+    
+    @Test
+    public void testExactAggregates() {
+        session.execute("CREATE TABLE IF NOT EXISTS LEDGER (ID INT PRIMARY KEY, AMOUNT DECIMAL(20, 2), UNITS BIGINT)", null);
+        try {
+            // 两个2^53+1相加在double中会丢失最低位，0.1+0.2在double中也不精确
+            long big = (1L << 53) + 1;
+            session.execute("INSERT INTO LEDGER VALUES (1, 0.10, " + big + "), (2, 0.20, " + big + ")", null);
+            
+            assertEquals(2 * big, session.sumLong(Criteria.of(Ledger.class), "units"));
+            assertEquals(new BigDecimal("0.30"), session.sumDecimal(Criteria.of(Ledger.class), "amount"));
+            assertEquals(BigDecimal.ZERO, session.sumDecimal(Criteria.of(Ledger.class).gt("id", 5), "amount"));
+            
+            List<GroupRow> rows = session.groupBy(Criteria.of(Ledger.class), "id",
+                    Aggregate.count(), Aggregate.sum("units"), Aggregate.sum("amount"));
+            assertEquals(Long.valueOf(1), rows.get(0).getValue(0));
+            assertEquals(Long.valueOf(big), rows.get(0).getValue(1));
+            assertEquals(big, rows.get(0).getLong(1));
+            assertEquals(new BigDecimal("0.10"), rows.get(0).getDecimal(2));
+        } finally {
+            session.execute("DROP TABLE IF EXISTS LEDGER", null);
+        }
+    }
+    
+    @Test
+    public void testGroupBy() {
+        List<GroupRow> rows = session.groupBy(Criteria.of(User.class).asc("email").limit(10), "email", 
+                Aggregate.count(), Aggregate.sum("age"));
+        
+        assertEquals(4, rows.size());
+        // NULL分组排在最前
+        assertNull(rows.get(0).getKey(0));
+        assertEquals(2, rows.get(0).getLong(0));
+        assertEquals(25 + 35, rows.get(0).getLong(1));
+    }
+    
+    @Entity(table = "LEDGER")
+    public static class Ledger {
+        @Column(primaryKey = true)
+        private Integer id;
+        
+        @Column
+        private BigDecimal amount;
+        
+        @Column
+        private Long units;
+    }
+}
@@ -0,0 +1,61 @@
+package com.myorm;
+
+import com.myorm.sql.BoundSql;
+import com.myorm.sql.SqlSource;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DynamicSqlTest {
+
+    private static final String[] NAMES = {"name", "ids", "age"};
+    private static final Class<?>[] TYPES = {String.class, java.util.List.class, Integer.class};
+
+    private final SqlSource source = SqlSource.compile(
+            "<script>SELECT * FROM T" +
+            "<where>" +
+            "<if test=\"name != null and name != ''\">AND NAME = #{name}</if>" +
+            "<if test=\"ids != null and ids.size() > 0\">" +
+            "AND ID IN <foreach collection=\"ids\" item=\"id\" open=\"(\" separator=\", \" close=\")\">#{id}</foreach>" +
+            "</if>" +
+            "<if test=\"age != null and age &gt;= 18\">OR AGE = #{age}</if>" +
+            "</where></script>",
+            NAMES, TYPES);
+
+    @Test
+    public void testRender() {
+        BoundSql all = source.bind(new Object[]{"a", Arrays.asList(1, 2), 20});
+        assertEquals("SELECT * FROM T WHERE NAME = ? AND ID IN (?, ?) OR AGE = ?", all.getSql());
+        assertEquals(Arrays.asList("a", 1, 2, 20), all.getParams());
+
+        BoundSql none = source.bind(new Object[]{"", Collections.emptyList(), 10});
+        assertEquals("SELECT * FROM T", none.getSql());
+        assertTrue(none.getParams().isEmpty());
+
+        BoundSql onlyAge = source.bind(new Object[]{null, null, 30});
+        assertEquals("SELECT * FROM T WHERE AGE = ?", onlyAge.getSql());
+        assertEquals(Collections.singletonList(30), onlyAge.getParams());
+    }
+
+    @Test
+    public void testSameShapeReusesSql() {
+        BoundSql first = source.bind(new Object[]{"a", Arrays.asList(1, 2), null});
+        BoundSql second = source.bind(new Object[]{"b", Arrays.asList(3, 4), null});
+        BoundSql third = source.bind(new Object[]{"b", Arrays.asList(3, 4, 5), null});
+
+        assertSame(first.getSql(), second.getSql());
+        assertNotEquals(first.getSql(), third.getSql());
+        assertEquals(Arrays.asList("b", 3, 4), second.getParams());
+    }
+
+    @Test
+    public void testNamedParameters() {
+        BoundSql bound = SqlSource.compile("SELECT * FROM T WHERE A = :a AND B = #{b} AND C = 'x:y' AND D::text = #{a}",
+                new String[]{"b", "a"}, new Class<?>[]{String.class, String.class}).bind(new Object[]{"B", "A"});
+        assertEquals("SELECT * FROM T WHERE A = ? AND B = ? AND C = 'x:y' AND D::text = ?", bound.getSql());
+        assertEquals(Arrays.asList("A", "B", "A"), bound.getParams());
+    }
+}
@@ -0,0 +1,202 @@
+package com.myorm;
+
+import com.myorm.UserTest.User;
+import com.myorm.annotation.Delete;
+import com.myorm.annotation.Insert;
+import com.myorm.annotation.Mapper;
+import com.myorm.annotation.Select;
+import com.myorm.annotation.Update;
+import com.myorm.core.Cursor;
+import com.myorm.core.Session;
+import com.myorm.core.SessionFactory;
+import com.myorm.mapping.MappingRegistry;
+import com.myorm.mapping.RowMapper;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class GeneratedMapperTest {
+
+    private Session session;
+
+    @Before
+    public void setUp() {
+        SessionFactory sessionFactory = SessionFactory.builder()
+                .url("jdbc:h2:mem:generatedmapper;DB_CLOSE_DELAY=-1")
+                .username("sa")
+                .password("")
+                .build();
+        session = sessionFactory.openSession();
+        session.execute(
+                "CREATE TABLE IF NOT EXISTS \"USER\" (" +
+                "ID INT AUTO_INCREMENT PRIMARY KEY, " +
+                "USERNAME VARCHAR(50) NOT NULL, " +
+                "EMAIL VARCHAR(100), " +
+                "AGE INT);",
+                null);
+    }
+
+    @After
+    public void tearDown() {
+        session.execute("DROP TABLE IF EXISTS \"USER\";", null);
+        session.close();
+    }
+
+    @Test
+    public void testGeneratedImplementationIsUsed() {
+        UserDao dao = session.getMapper(UserDao.class);
+        assertFalse(Proxy.isProxyClass(dao.getClass()));
+        assertEquals("com.myorm.GeneratedMapperTest_UserDaoImpl", dao.getClass().getName());
+    }
+
+    @Test
+    public void testGeneratedMethods() {
+        UserDao dao = session.getMapper(UserDao.class);
+
+        assertEquals(1, dao.insert("张三", "zhangsan@example.com", 25));
+        assertEquals(1, dao.insert("李四", null, 30));
+        assertEquals(2, dao.count());
+        assertNull(dao.maxAgeByEmail("none@example.com"));
+        assertEquals(Integer.valueOf(25), dao.maxAgeByEmail("zhangsan@example.com"));
+
+        User user = dao.findByUsername("张三");
+        assertEquals("zhangsan@example.com", user.getEmail());
+        assertNull(dao.findByUsername("王五"));
+
+        List<User> users = dao.findOlderThan(20L);
+        assertEquals(2, users.size());
+        assertEquals("李四", users.get(1).getUsername());
+        assertEquals("李四", dao.findUsername(30));
+
+        assertTrue(dao.updateEmail("lisi@example.com", "李四"));
+        assertEquals("lisi@example.com", dao.findByUsername("李四").getEmail());
+
+        dao.deleteByUsername("张三");
+        assertEquals(1, dao.count());
+
+        // 命名参数与方法参数顺序不同，以及一级属性路径
+        assertEquals("李四", dao.findByAgeAndEmail("lisi@example.com", 30).getUsername());
+        User lisi = dao.findByUsername("李四");
+        lisi.setAge(31);
+        assertEquals(1, dao.updateAge(lisi));
+        assertEquals(Integer.valueOf(31), dao.findByUsername("李四").getAge());
+    }
+
+    @Test
+    public void testGeneratedStreamingMethods() {
+        UserDao dao = session.getMapper(UserDao.class);
+        dao.insert("张三", "zhangsan@example.com", 25);
+        dao.insert("李四", "lisi@example.com", 30);
+        dao.insert("王五", "wangwu@example.com", 35);
+
+        try (Stream<User> users = dao.streamOlderThan(20)) {
+            assertEquals("张三,李四,王五", users.map(User::getUsername).collect(Collectors.joining(",")));
+        }
+        try (Cursor<User> cursor = dao.cursorOlderThan(26)) {
+            Iterator<User> iterator = cursor.iterator();
+            assertEquals("李四", iterator.next().getUsername());
+            assertEquals(1, cursor.getPosition());
+        }
+
+        assertEquals("张三", dao.findFirstOlderThan(20).map(User::getUsername).orElse(null));
+        assertFalse(dao.findFirstOlderThan(40).isPresent());
+        // 单行查询与列表查询共用同一个缓存语句，列表查询不受单行查询的行数限制影响
+        assertEquals(3, dao.findOlderThan(20L).size());
+        assertEquals(Optional.of(35), dao.maxAge());
+    }
+
+    @Test
+    public void testBatchMethodDelegatesToProxy() {
+        UserDao dao = session.getMapper(UserDao.class);
+        User zhang = new User();
+        zhang.setUsername("张三");
+        zhang.setAge(25);
+        User li = new User();
+        li.setUsername("李四");
+        li.setAge(30);
+
+        assertEquals(2, dao.insertAll(Arrays.asList(zhang, li)));
+        assertEquals(2, dao.count());
+        assertEquals("李四", dao.findUsername(30));
+    }
+
+    @Test
+    public void testGeneratedEntityMapping() {
+        // 带setter/getter的实体类生成了映射类，只有私有字段的实体类在运行时编译映射器
+        assertEquals("com.myorm.UserTest_UserRowMapper", MappingRegistry.getRowMapper(User.class).getClass().getName());
+        assertNotNull(MappingRegistry.getParameterBinder(User.class));
+        assertNull(MappingRegistry.getParameterBinder(LazyColumnTest.Document.class));
+        RowMapper<LazyColumnTest.Document> compiled = MappingRegistry.getRowMapper(LazyColumnTest.Document.class);
+        assertNotNull(compiled);
+        assertSame(compiled, MappingRegistry.getRowMapper(LazyColumnTest.Document.class));
+
+        User user = new User();
+        user.setUsername("赵六");
+        session.save(user);
+
+        User saved = session.findAll(User.class).get(0);
+        assertEquals("赵六", saved.getUsername());
+        assertNull(saved.getEmail());
+        assertNull(saved.getAge());
+        assertNotNull(saved.getId());
+    }
+
+    @Mapper(entity = User.class)
+    public interface UserDao {
+
+        @Select("SELECT * FROM \"USER\" WHERE USERNAME = ?")
+        User findByUsername(String username);
+
+        @Select("SELECT * FROM \"USER\" WHERE AGE > ? ORDER BY ID")
+        List<User> findOlderThan(long age);
+
+        @Select("SELECT USERNAME FROM \"USER\" WHERE AGE = ?")
+        String findUsername(int age);
+
+        @Select("SELECT MAX(AGE) FROM \"USER\" WHERE EMAIL = ?")
+        Integer maxAgeByEmail(String email);
+
+        @Select("SELECT * FROM \"USER\" WHERE AGE = #{age} AND EMAIL = :email")
+        User findByAgeAndEmail(String email, int age);
+
+        @Update("UPDATE \"USER\" SET AGE = #{user.age} WHERE ID = #{user.id}")
+        int updateAge(User user);
+
+        @Select("SELECT * FROM \"USER\" WHERE AGE > ? ORDER BY ID")
+        Stream<User> streamOlderThan(int age);
+
+        @Select("SELECT * FROM \"USER\" WHERE AGE > ? ORDER BY ID")
+        Cursor<User> cursorOlderThan(int age);
+
+        @Select("SELECT * FROM \"USER\" WHERE AGE > ? ORDER BY ID")
+        Optional<User> findFirstOlderThan(int age);
+
+        @Select("SELECT MAX(AGE) FROM \"USER\"")
+        Optional<Integer> maxAge();
+
+        @Insert("INSERT INTO \"USER\" (USERNAME, EMAIL, AGE) VALUES (#{username}, #{email}, #{age})")
+        int insertAll(List<User> users);
+
+        @Select("SELECT COUNT(*) FROM \"USER\"")
+        int count();
+
+        @Insert("INSERT INTO \"USER\" (USERNAME, EMAIL, AGE) VALUES (?, ?, ?)")
+        int insert(String username, String email, int age);
+
+        @Update("UPDATE \"USER\" SET EMAIL = ? WHERE USERNAME = ?")
+        boolean updateEmail(String email, String username);
+
+        @Delete("DELETE FROM \"USER\" WHERE USERNAME = ?")
+        void deleteByUsername(String username);
+    }
+}
@@ -0,0 +1,99 @@
+package com.myorm;
+
+import com.myorm.UserTest.User;
+import com.myorm.core.Session;
+import com.myorm.core.SessionFactory;
+import com.myorm.query.Criteria;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * JFR事件测试
+ */
+public class JfrEventsTest {
+    
+    @Test
+    public void testSessionEmitsEvents() throws Exception {
+        SessionFactory sessionFactory = SessionFactory.builder()
+                .url("jdbc:h2:mem:jfrdb;DB_CLOSE_DELAY=-1")
+                .username("sa")
+                .password("")
+                .build();
+        
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            for (String name : new String[]{"com.myorm.Statement", "com.myorm.ConnectionAcquire",
+                    "com.myorm.Transaction", "com.myorm.StatementCacheLookup"}) {
+                recording.enable(name).withoutThreshold();
+            }
+            recording.start();
+            
+            Session session = sessionFactory.openSession();
+            try {
+                session.execute(
+                        "CREATE TABLE IF NOT EXISTS \"USER\" (" +
+                        "ID INT AUTO_INCREMENT PRIMARY KEY, " +
+                        "USERNAME VARCHAR(50) NOT NULL, " +
+                        "EMAIL VARCHAR(100), " +
+                        "AGE INT);", 
+                        null);
+                session.beginTransaction();
+                User user = new User();
+                user.setUsername("张三");
+                user.setAge(30);
+                session.save(user);
+                session.commit();
+                session.query("SELECT * FROM \"USER\" WHERE AGE > ?", Collections.singletonList(20), User.class);
+                session.findByCriteria(Criteria.of(User.class).eq("username", "张三"));
+                session.findByCriteria(Criteria.of(User.class).eq("username", "张三"));
+                session.execute("DROP TABLE IF EXISTS \"USER\";", null);
+            } finally {
+                session.close();
+            }
+            
+            recording.stop();
+            Path file = Files.createTempFile("myorm", ".jfr");
+            try {
+                recording.dump(file);
+                events = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.delete(file);
+            }
+        }
+        
+        List<RecordedEvent> statements = named(events, "com.myorm.Statement");
+        RecordedEvent query = statements.stream()
+                .filter(e -> e.getString("sql").startsWith("SELECT * FROM \"USER\" WHERE AGE"))
+                .findFirst().orElseThrow(AssertionError::new);
+        assertEquals(1, query.getLong("rows"));
+        assertTrue(query.getDuration().toNanos() > 0);
+        assertNull(query.getString("error"));
+        
+        assertEquals(1, named(events, "com.myorm.ConnectionAcquire").size());
+        assertTrue(named(events, "com.myorm.ConnectionAcquire").get(0).getBoolean("success"));
+        
+        List<RecordedEvent> transactions = named(events, "com.myorm.Transaction");
+        assertEquals(1, transactions.size());
+        assertEquals("commit", transactions.get(0).getString("outcome"));
+        
+        // 第二次条件查询命中预编译语句缓存
+        List<RecordedEvent> lookups = named(events, "com.myorm.StatementCacheLookup");
+        assertTrue(lookups.stream().anyMatch(e -> e.getBoolean("hit")));
+        assertTrue(lookups.stream().anyMatch(e -> !e.getBoolean("hit")));
+    }
+    
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,139 @@
+package com.myorm;
+
+import com.myorm.annotation.Column;
+import com.myorm.annotation.Entity;
+import com.myorm.core.Session;
+import com.myorm.core.SessionFactory;
+import com.myorm.exception.OrmException;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * 延迟加载列测试
+ */
+public class LazyColumnTest {
+    
+    private Session session;
+    
+    @Before
+    public void setUp() {
+        SessionFactory sessionFactory = SessionFactory.builder()
+                .url("jdbc:h2:mem:lazydb;DB_CLOSE_DELAY=-1")
+                .username("sa")
+                .password("")
+                .build();
+        
+        session = sessionFactory.openSession();
+        session.execute(
+                "CREATE TABLE IF NOT EXISTS DOCUMENT (" +
+                "ID INT AUTO_INCREMENT PRIMARY KEY, " +
+                "TITLE VARCHAR(50), " +
+                "CONTENT CLOB, " +
+                "DATA BLOB);", 
+                null);
+        
+        for (int i = 1; i <= 3; i++) {
+            Document document = new Document();
+            document.title = "文档" + i;
+            document.content = "内容" + i;
+            document.data = new byte[]{(byte) i, (byte) i};
+            session.save(document);
+        }
+    }
+    
+    @After
+    public void tearDown() {
+        session.execute("DROP TABLE IF EXISTS DOCUMENT;", null);
+        session.close();
+    }
+    
+    @Test
+    public void testLazyColumnsExcludedFromSelect() {
+        List<Document> documents = session.findAll(Document.class);
+        assertEquals(3, documents.size());
+        for (Document document : documents) {
+            assertNotNull(document.title);
+            assertNull(document.content);
+            assertNull(document.data);
+        }
+        
+        // 更新时未加载的延迟加载列不应被覆盖
+        Document first = documents.get(0);
+        first.title = "新标题";
+        session.update(first);
+        assertEquals("内容" + first.id, session.fetchLazy(first, "content"));
+    }
+    
+    @Test
+    public void testClearLazy() {
+        Document document = session.findAll(Document.class).get(0);
+        session.fetchLazy(document, "content");
+        assertEquals(1, session.clearLazy(document, "content"));
+        assertNull(document.content);
+        assertNull(session.fetchLazy(document, "content"));
+        assertArrayEquals(new byte[]{document.id.byteValue(), document.id.byteValue()},
+                (byte[]) session.fetchLazy(document, "data"));
+        
+        try {
+            session.clearLazy(document, "title");
+            fail("非延迟加载列应抛出异常");
+        } catch (OrmException e) {
+            // 预期异常
+        }
+    }
+    
+    @Test
+    public void testBatchFetchLazy() {
+        List<Document> documents = session.findAll(Document.class);
+        session.fetchLazy(documents, "content");
+        session.fetchLazy(documents, "data");
+        for (Document document : documents) {
+            assertEquals("内容" + document.id, document.content);
+            assertArrayEquals(new byte[]{document.id.byteValue(), document.id.byteValue()}, document.data);
+        }
+    }
+    
+    @Test
+    public void testStreams() throws Exception {
+        Document document = session.findAll(Document.class).get(1);
+        
+        try (Reader reader = session.openCharacterStream(Document.class, document.id, "content")) {
+            StringBuilder content = new StringBuilder();
+            int c;
+            while ((c = reader.read()) != -1) {
+                content.append((char) c);
+            }
+            assertEquals("内容" + document.id, content.toString());
+        }
+        
+        try (InputStream in = session.openBinaryStream(Document.class, document.id, "data")) {
+            assertEquals(document.id.intValue(), in.read());
+            assertEquals(document.id.intValue(), in.read());
+            assertEquals(-1, in.read());
+        }
+        
+        assertNull(session.openBinaryStream(Document.class, -1, "data"));
+    }
+    
+    @Entity(table = "DOCUMENT")
+    public static class Document {
+        @Column(primaryKey = true, autoIncrement = true)
+        private Integer id;
+        
+        @Column
+        private String title;
+        
+        @Column(lazy = true)
+        private String content;
+        
+        @Column(lazy = true)
+        private byte[] data;
+    }
+}
@@ -1,5 +1,8 @@
 package com.myorm;
 
+import com.myorm.annotation.Mapper;
+import com.myorm.annotation.Select;
+import com.myorm.core.Cursor;
 import com.myorm.core.Session;
 import com.myorm.core.SessionFactory;
 import com.myorm.entity.User;
@@ -11,7 +14,11 @@ import org.junit.Test;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 
@@ -129,10 +136,103 @@ public class MapperTest {
         assertEquals("应该剩下2个用户", 2, (int)count);
     }
     
+    @Test
+    public void testNamedParameters() {
+        // 参数按名称绑定，与方法参数的顺序无关
+        User user = userMapper.findByUsernameAndAge("李四", 30);
+        assertNotNull("用户不应该为空", user);
+        assertEquals("lisi@example.com", user.getEmail());
+        assertNull(userMapper.findByUsernameAndAge("李四", 25));
+        
+        // 嵌套属性路径
+        user.setEmail("lisi_new@example.com");
+        user.setAge(31);
+        assertEquals(1, userMapper.updateUser(user));
+        User updated = userMapper.findByUsername("李四");
+        assertEquals("lisi_new@example.com", updated.getEmail());
+        assertEquals(31, (int)updated.getAge());
+    }
+    
+    @Test
+    public void testDynamicSql() {
+        assertEquals(3, userMapper.findByConditions(null, null).size());
+        assertEquals(2, userMapper.findByConditions(null, 30).size());
+        List<User> users = userMapper.findByConditions("李四", 30);
+        assertEquals(1, users.size());
+        assertEquals("lisi@example.com", users.get(0).getEmail());
+        assertTrue(userMapper.findByConditions("李四", 31).isEmpty());
+        
+        users = userMapper.findByUsernames(Arrays.asList("王五", "张三"));
+        assertEquals(2, users.size());
+        assertEquals("张三", users.get(0).getUsername());
+        assertEquals("王五", users.get(1).getUsername());
+    }
+    
+    @Test
+    public void testStreamAndOptional() {
+        try (Stream<User> users = userMapper.streamAll()) {
+            assertEquals(Arrays.asList("张三", "李四", "王五"),
+                    users.map(User::getUsername).collect(Collectors.toList()));
+        }
+        assertEquals("李四", userMapper.findFirstByMinAge(26).map(User::getUsername).orElse(null));
+        assertFalse(userMapper.findFirstByMinAge(100).isPresent());
+    }
+    
+    @Test
+    public void testBatch() {
+        User zhao = new User();
+        zhao.setUsername("赵六");
+        zhao.setEmail("zhaoliu@example.com");
+        zhao.setAge(40);
+        User sun = new User();
+        sun.setUsername("孙七");
+        sun.setAge(45);
+        
+        assertArrayEquals(new int[]{1, 1}, userMapper.addUsers(Arrays.asList(zhao, sun)));
+        assertEquals(0, userMapper.addUsers(Collections.emptyList()).length);
+        assertEquals(5, userMapper.count());
+        assertNull(userMapper.findByUsername("孙七").getEmail());
+        
+        assertEquals(2, userMapper.deleteByUsernames(Arrays.asList("赵六", "孙七", "不存在")));
+        assertEquals(3, userMapper.count());
+    }
+    
+    @Test
+    public void testSessionClosesOpenCursors() {
+        Cursor<User> cursor = session.queryCursor("SELECT * FROM \"USER\" ORDER BY \"ID\"",
+                Collections.emptyList(), User.class);
+        assertEquals("张三", cursor.iterator().next().getUsername());
+        Cursor<User> finished = session.queryCursor("SELECT * FROM \"USER\" WHERE \"AGE\" > 100",
+                Collections.emptyList(), User.class);
+        assertFalse(finished.iterator().hasNext());
+        assertFalse(finished.isOpen());
+        
+        session.close();
+        assertFalse(cursor.isOpen());
+    }
+    
+    @Test
+    public void testSourceParameterNames() {
+        // 代理按源码参数名绑定命名参数，与注解处理器生成的实现类一致
+        SourceNameMapper mapper = session.getMapper(SourceNameMapper.class);
+        assertEquals("李四", mapper.findByAgeAndEmail("lisi@example.com", 30).getUsername());
+        assertNull(mapper.findByAgeAndEmail("lisi@example.com", 25));
+        assertEquals("张三", mapper.findByAgeAndEmail(null, 25).getUsername());
+    }
+    
     @Test
     public void testCount() {
         // u6d4bu8bd5u8ba1u7b97u7528u6237u6570u91cf
         int count = userMapper.count();
         assertEquals("应该有3个用户", 3, (int)count);
     }
+    
+    @Mapper(entity = User.class)
+    public interface SourceNameMapper {
+        
+        // 动态SQL不生成实现代码，由代理执行
+        @Select("<script>SELECT * FROM \"USER\" WHERE \"AGE\" = #{age}" +
+                "<if test=\"email != null\"> AND \"EMAIL\" = #{email}</if></script>")
+        User findByAgeAndEmail(String email, int age);
+    }
 }
@@ -0,0 +1,182 @@
+package com.myorm;
+
+import com.myorm.UserTest.User;
+import com.myorm.core.Session;
+import com.myorm.core.SessionFactory;
+import com.myorm.exception.OrmException;
+import com.myorm.mapper.UserMapper;
+import com.myorm.metrics.DefaultMetricsRegistry;
+import com.myorm.metrics.LatencyHistogram;
+import com.myorm.metrics.Phase;
+import com.myorm.metrics.SqlNormalizer;
+import com.myorm.metrics.StatementMetrics;
+import com.myorm.result.OffHeapResult;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * 语句指标测试
+ */
+public class MetricsTest {
+    
+    private SessionFactory sessionFactory;
+    private DefaultMetricsRegistry registry;
+    private Session session;
+    
+    @Before
+    public void setUp() {
+        sessionFactory = SessionFactory.builder()
+                .url("jdbc:h2:mem:metricsdb;DB_CLOSE_DELAY=-1")
+                .username("sa")
+                .password("")
+                .enableMetrics()
+                .metricsMBean("metrics-test")
+                .build();
+        registry = (DefaultMetricsRegistry) sessionFactory.getMetricsRegistry();
+        
+        session = sessionFactory.openSession();
+        session.execute(
+                "CREATE TABLE IF NOT EXISTS \"USER\" (" +
+                "ID INT AUTO_INCREMENT PRIMARY KEY, " +
+                "USERNAME VARCHAR(50) NOT NULL, " +
+                "EMAIL VARCHAR(100), " +
+                "AGE INT);", 
+                null);
+        for (String name : new String[]{"张三", "李四", "王五"}) {
+            User user = new User();
+            user.setUsername(name);
+            user.setAge(30);
+            session.save(user);
+        }
+    }
+    
+    @After
+    public void tearDown() {
+        session.execute("DROP TABLE IF EXISTS \"USER\";", null);
+        session.close();
+        registry.unregisterMBean();
+    }
+    
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMaxNanos());
+        assertEquals(500_500, histogram.getMeanNanos(), 0.001);
+        // 对数-线性分桶的相对误差不超过1/32
+        assertEquals(500_000, histogram.getValueAtPercentile(50), 500_000 / 32.0);
+        assertEquals(990_000, histogram.getValueAtPercentile(99), 990_000 / 32.0);
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+        
+        histogram.reset();
+        histogram.record(10);
+        assertEquals(10, histogram.getValueAtPercentile(50));
+        
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+    
+    @Test
+    public void testSqlNormalization() {
+        assertEquals("SELECT * FROM \"USER\" WHERE ID = ? AND NAME = ?",
+                SqlNormalizer.normalize("SELECT *  FROM \"USER\"\n WHERE ID = 42 AND NAME = 'it''s'"));
+        assertEquals("SELECT * FROM T2 WHERE ID IN (?...)",
+                SqlNormalizer.normalize("SELECT * FROM T2 WHERE ID IN (?, ?, ?)"));
+        assertEquals(SqlNormalizer.normalize("DELETE FROM T WHERE ID IN (1, 2)"),
+                SqlNormalizer.normalize("DELETE FROM T WHERE ID IN (?,?,?,?)"));
+        assertEquals("SELECT \"COL1\" FROM T WHERE X = (?)", SqlNormalizer.normalize("SELECT \"COL1\" FROM T WHERE X = (7)"));
+    }
+    
+    @Test
+    public void testBulkQueriesRecordRows() {
+        registry.reset();
+        
+        String pipelined = "SELECT * FROM \"USER\" WHERE AGE > 0";
+        assertEquals(3, session.queryPipelined(pipelined, null, User.class, 2).size());
+        StatementMetrics metrics = registry.getSqlMetrics(pipelined);
+        assertEquals(3, metrics.getRows());
+        assertEquals(metrics.getLatency().getTotalNanos(), metrics.getLatency(Phase.PREPARE).getTotalNanos()
+                + metrics.getLatency(Phase.EXECUTE).getTotalNanos() + metrics.getLatency(Phase.FETCH).getTotalNanos()
+                + metrics.getLatency(Phase.MAP).getTotalNanos());
+        
+        String columnar = "SELECT ID, AGE FROM \"USER\"";
+        assertEquals(3, session.queryColumnar(columnar, null).getRowCount());
+        assertEquals(3, registry.getSqlMetrics(columnar).getRows());
+        
+        String offHeap = "SELECT USERNAME FROM \"USER\"";
+        try (OffHeapResult result = session.queryOffHeap(offHeap, null)) {
+            assertEquals(3, result.getRowCount());
+        }
+        assertEquals(3, registry.getSqlMetrics(offHeap).getRows());
+    }
+    
+    @Test
+    public void testSessionRecordsPhasesRowsAndErrors() {
+        registry.reset();
+        
+        assertEquals(3, session.findAll(User.class).size());
+        assertEquals(3, session.findAll(User.class).size());
+        
+        StatementMetrics findAll = registry.getAllSqlMetrics().values().stream()
+                .filter(metrics -> metrics.getKey().startsWith("SELECT") && metrics.getKey().contains("FROM \"USER\""))
+                .findFirst().orElseThrow(AssertionError::new);
+        assertEquals(2, findAll.getCount());
+        assertEquals(6, findAll.getRows());
+        assertEquals(0, findAll.getErrorCount());
+        assertEquals(2, findAll.getLatency(Phase.EXECUTE).getCount());
+        assertEquals(findAll.getLatency().getTotalNanos(), findAll.getLatency(Phase.PREPARE).getTotalNanos()
+                + findAll.getLatency(Phase.EXECUTE).getTotalNanos() + findAll.getLatency(Phase.FETCH).getTotalNanos()
+                + findAll.getLatency(Phase.MAP).getTotalNanos());
+        assertTrue(findAll.getLatency(Phase.MAP).getTotalNanos() > 0);
+        
+        assertEquals(1, session.execute("UPDATE \"USER\" SET AGE = 31 WHERE USERNAME = ?", Arrays.asList("张三")));
+        assertEquals(1, registry.getSqlMetrics("UPDATE \"USER\" SET AGE = 31 WHERE USERNAME = ?").getRows());
+        
+        try {
+            session.execute("UPDATE NO_SUCH_TABLE SET X = 1", null);
+            fail("应该抛出异常");
+        } catch (OrmException e) {
+            // 预期的异常
+        }
+        assertEquals(1, registry.getSqlMetrics("UPDATE NO_SUCH_TABLE SET X = 1").getErrorCount());
+        assertEquals(1, registry.getTotalErrorCount());
+    }
+    
+    @Test
+    public void testMapperStatementsAndJmx() throws Exception {
+        registry.reset();
+        UserMapper mapper = session.getMapper(UserMapper.class);
+        mapper.findByUsername("张三");
+        mapper.findByUsername("李四");
+        assertEquals(3, mapper.count());
+        
+        StatementMetrics byMethod = registry.getStatementMetrics(UserMapper.class.getName() + ".findByUsername");
+        assertNotNull(byMethod);
+        assertEquals(2, byMethod.getCount());
+        assertEquals(2, byMethod.getRows());
+        
+        ObjectName name = new ObjectName("com.myorm:type=Metrics,name=" + ObjectName.quote("metrics-test"));
+        CompositeData[] statements = (CompositeData[]) ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(name, "MapperStatements");
+        assertEquals(2, statements.length);
+        long total = 0;
+        for (CompositeData statement : statements) {
+            total += (Long) statement.get("count");
+        }
+        assertEquals(3, total);
+    }
+}
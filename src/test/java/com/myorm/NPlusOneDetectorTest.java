@@ -0,0 +1,141 @@
+package com.myorm;
+
+import com.myorm.UserTest.User;
+import com.myorm.core.Session;
+import com.myorm.core.SessionFactory;
+import com.myorm.mapper.UserMapper;
+import com.myorm.metrics.NPlusOneDetector;
+import com.myorm.metrics.RepeatedStatement;
+import com.myorm.shard.ShardedSession;
+import com.myorm.shard.ShardedSessionFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * N+1查询检测测试
+ */
+public class NPlusOneDetectorTest {
+    
+    private final List<RepeatedStatement> reported = new ArrayList<>();
+    private NPlusOneDetector detector;
+    private SessionFactory sessionFactory;
+    private Session session;
+    
+    @Before
+    public void setUp() {
+        detector = new NPlusOneDetector(5) {
+            @Override
+            protected void report(RepeatedStatement repeated) {
+                reported.add(repeated);
+            }
+        };
+        sessionFactory = SessionFactory.builder()
+                .url("jdbc:h2:mem:nplusonedb;DB_CLOSE_DELAY=-1")
+                .username("sa")
+                .password("")
+                .statementListener(detector)
+                .build();
+        
+        session = sessionFactory.openSession();
+        session.execute(
+                "CREATE TABLE IF NOT EXISTS \"USER\" (" +
+                "ID INT AUTO_INCREMENT PRIMARY KEY, " +
+                "USERNAME VARCHAR(50) NOT NULL, " +
+                "EMAIL VARCHAR(100), " +
+                "AGE INT);", 
+                null);
+        for (int i = 0; i < 3; i++) {
+            User user = new User();
+            user.setUsername("用户" + i);
+            user.setAge(20 + i);
+            session.save(user);
+        }
+    }
+    
+    @After
+    public void tearDown() {
+        session.execute("DROP TABLE IF EXISTS \"USER\";", null);
+        session.close();
+        sessionFactory.close();
+    }
+    
+    @Test
+    public void testFindByIdInLoop() {
+        for (int i = 0; i < 12; i++) {
+            session.findById(User.class, i % 3 + 1);
+        }
+        
+        assertEquals(1, reported.size());
+        RepeatedStatement repeated = reported.get(0);
+        assertTrue(repeated.getSql().startsWith("SELECT"));
+        assertEquals(5, repeated.getCount());
+        assertEquals(session.getId(), repeated.getSessionId());
+        assertEquals(0, repeated.getTransactionId());
+        assertTrue(repeated.getCallSite(), repeated.getCallSite().startsWith(getClass().getName() + ".testFindByIdInLoop"));
+        assertEquals(1, detector.getDetectionCount());
+        assertEquals(Long.valueOf(1), detector.getDetections().get(repeated.getSql()));
+    }
+    
+    @Test
+    public void testMapperCallSiteAndTransactionScope() {
+        UserMapper userMapper = session.getMapper(UserMapper.class);
+        session.beginTransaction();
+        for (int i = 0; i < 4; i++) {
+            userMapper.findByUsername("用户" + i % 3);
+        }
+        session.commit();
+        // 新的事务重新计数
+        session.beginTransaction();
+        for (int i = 0; i < 4; i++) {
+            userMapper.findByUsername("用户" + i % 3);
+        }
+        assertTrue(reported.isEmpty());
+        
+        userMapper.findByUsername("用户0");
+        session.commit();
+        
+        assertEquals(1, reported.size());
+        RepeatedStatement repeated = reported.get(0);
+        assertEquals(UserMapper.class.getName() + ".findByUsername", repeated.getStatementId());
+        assertEquals(2, repeated.getTransactionId());
+        assertTrue(repeated.getCallSite(), repeated.getCallSite().startsWith(getClass().getName() + "."));
+    }
+    
+    @Test
+    public void testShardedCallSiteSkipsFramework() {
+        ShardedSessionFactory shardedSessionFactory = ShardedSessionFactory.builder().shard(sessionFactory).build();
+        ShardedSession shardedSession = shardedSessionFactory.openSession();
+        try {
+            shardedSession.getShardSession(0).execute("CREATE TABLE IF NOT EXISTS \"ORDERS\" (" +
+                    "\"ID\" INT PRIMARY KEY, \"CUSTOMER\" VARCHAR(50) NOT NULL, \"AMOUNT\" INT)", null);
+            for (int i = 0; i < 5; i++) {
+                shardedSession.findById(ShardingTest.Order.class, i);
+            }
+            
+            assertEquals(1, reported.size());
+            String callSite = reported.get(0).getCallSite();
+            assertTrue(callSite, callSite.startsWith(getClass().getName() + ".testShardedCallSiteSkipsFramework"));
+        } finally {
+            shardedSession.getShardSession(0).execute("DROP TABLE IF EXISTS \"ORDERS\"", null);
+            shardedSession.close();
+        }
+    }
+    
+    @Test
+    public void testStatementsAreGroupedByShape() {
+        for (int i = 0; i < 10; i++) {
+            session.query("SELECT * FROM \"USER\" WHERE AGE > " + i + " AND ID < 100", null, User.class);
+        }
+        // 只有字面量不同的语句属于同一形状
+        assertEquals(1, reported.size());
+        
+        session.query("SELECT COUNT(*) FROM \"USER\"", null, User.class);
+        assertEquals(1, reported.size());
+    }
+}
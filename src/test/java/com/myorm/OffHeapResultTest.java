@@ -0,0 +1,134 @@
+package com.myorm;
+
+import com.myorm.core.Session;
+import com.myorm.core.SessionFactory;
+import com.myorm.exception.OrmException;
+import com.myorm.result.OffHeapResult;
+import com.myorm.UserTest.User;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * 堆外查询结果测试
+ */
+public class OffHeapResultTest {
+    
+    private Session session;
+    
+    @Before
+    public void setUp() {
+        SessionFactory sessionFactory = SessionFactory.builder()
+                .url("jdbc:h2:mem:offheapdb;DB_CLOSE_DELAY=-1")
+                .username("sa")
+                .password("")
+                .build();
+        
+        session = sessionFactory.openSession();
+        session.execute(
+                "CREATE TABLE IF NOT EXISTS \"USER\" (" +
+                "ID INT AUTO_INCREMENT PRIMARY KEY, " +
+                "USERNAME VARCHAR(50) NOT NULL, " +
+                "EMAIL VARCHAR(100), " +
+                "AGE INT, " +
+                "BALANCE DECIMAL(10, 2));", 
+                null);
+        for (int i = 0; i < 500; i++) {
+            session.execute("INSERT INTO \"USER\" (USERNAME, EMAIL, AGE, BALANCE) VALUES (?, ?, ?, ?)", 
+                    Arrays.asList("用户" + i, i % 2 == 0 ? null : "user" + i + "@example.com", i, new BigDecimal("1.25")));
+        }
+    }
+    
+    @After
+    public void tearDown() {
+        session.execute("DROP TABLE IF EXISTS \"USER\";", null);
+        session.close();
+    }
+    
+    @Test
+    public void testSpillToDisk() {
+        // 使用很小的内存块和直接内存上限，强制写入临时文件
+        try (OffHeapResult result = session.queryOffHeap(
+                "SELECT ID, USERNAME, EMAIL, AGE, BALANCE FROM \"USER\" ORDER BY ID", null, 1024, 4096)) {
+            assertEquals(500, result.getRowCount());
+            assertTrue(result.isSpilledToDisk());
+            
+            // 可以多次遍历
+            for (int pass = 0; pass < 2; pass++) {
+                int count = 0;
+                for (Object[] row : result) {
+                    assertEquals(count, row[3]);
+                    assertEquals("用户" + count, row[1]);
+                    assertEquals(count % 2 == 0 ? null : "user" + count + "@example.com", row[2]);
+                    assertEquals(new BigDecimal("1.25"), row[4]);
+                    count++;
+                }
+                assertEquals(500, count);
+            }
+            
+            Iterator<User> users = result.as(User.class).iterator();
+            User first = users.next();
+            assertEquals("用户0", first.getUsername());
+            assertEquals(0, (int) first.getAge());
+        }
+    }
+    
+    @Test
+    public void testCloseReleasesMemoryImmediately() {
+        BufferPoolMXBean direct = bufferPool("direct");
+        BufferPoolMXBean mapped = bufferPool("mapped");
+        long directBefore = direct.getMemoryUsed();
+        long mappedBefore = mapped.getCount();
+        
+        // 每个结果都超过直接内存上限，关闭后内存应立即归还，而不是等待GC
+        for (int i = 0; i < 5; i++) {
+            try (OffHeapResult result = session.queryOffHeap(
+                    "SELECT ID, USERNAME, EMAIL, AGE, BALANCE FROM \"USER\"", null, 4096, 8192)) {
+                assertTrue(result.isSpilledToDisk());
+                assertTrue(direct.getMemoryUsed() >= directBefore + 8192);
+                assertTrue(mapped.getCount() > mappedBefore);
+            }
+            assertTrue(direct.getMemoryUsed() < directBefore + 8192);
+            assertEquals(mappedBefore, mapped.getCount());
+        }
+    }
+    
+    @Test
+    public void testIteratorFailsAfterClose() {
+        OffHeapResult result = session.queryOffHeap("SELECT USERNAME FROM \"USER\"", null);
+        Iterator<Object[]> rows = result.iterator();
+        rows.next();
+        result.close();
+        try {
+            rows.next();
+            fail("关闭后继续遍历应抛出异常");
+        } catch (OrmException e) {
+            // 预期异常
+        }
+    }
+    
+    private static BufferPoolMXBean bufferPool(String name) {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals(name)) {
+                return pool;
+            }
+        }
+        throw new AssertionError("找不到缓冲池" + name);
+    }
+    
+    @Test
+    public void testDirectMemory() {
+        try (OffHeapResult result = session.queryOffHeap("SELECT USERNAME FROM \"USER\"", null)) {
+            assertEquals(500, result.getRowCount());
+            assertFalse(result.isSpilledToDisk());
+        }
+    }
+}
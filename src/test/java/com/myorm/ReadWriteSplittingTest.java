@@ -0,0 +1,202 @@
+package com.myorm;
+
+import com.myorm.core.Propagation;
+import com.myorm.core.ReplicaSelection;
+import com.myorm.core.Session;
+import com.myorm.core.SessionFactory;
+import com.myorm.core.TransactionManager;
+import com.myorm.entity.User;
+import com.myorm.mapper.UserMapper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 读写分离测试，主库和两个副本各有一行可区分的数据
+ */
+public class ReadWriteSplittingTest {
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:rwprimary;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA1_URL = "jdbc:h2:mem:rwreplica1;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA2_URL = "jdbc:h2:mem:rwreplica2;DB_CLOSE_DELAY=-1";
+
+    private SessionFactory sessionFactory;
+
+    @Before
+    public void setUp() throws Exception {
+        seed(PRIMARY_URL, "主库");
+        seed(REPLICA1_URL, "副本1");
+        seed(REPLICA2_URL, "副本2");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+        for (String url : new String[]{PRIMARY_URL, REPLICA1_URL, REPLICA2_URL}) {
+            try (Connection connection = DriverManager.getConnection(url, "sa", "");
+                 Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP TABLE IF EXISTS \"USER\"");
+            }
+        }
+    }
+
+    @Test
+    public void testRoundRobinAlternatesReplicas() {
+        sessionFactory = build(ReplicaSelection.ROUND_ROBIN, true);
+        assertEquals("副本1", readSource());
+        assertEquals("副本2", readSource());
+        assertEquals("副本1", readSource());
+    }
+
+    @Test
+    public void testLeastBusyAvoidsOccupiedReplica() {
+        sessionFactory = build(ReplicaSelection.LEAST_BUSY, true);
+        Session first = sessionFactory.openSession();
+        Session second = sessionFactory.openSession();
+        Session third = sessionFactory.openSession();
+        try {
+            String a = source(first);
+            String b = source(second);
+            assertNotEquals(a, b);
+            // 第一个会话关闭后它的副本空闲下来，第二个会话的副本仍被占用
+            first.close();
+            assertEquals(a, source(third));
+        } finally {
+            first.close();
+            second.close();
+            third.close();
+        }
+    }
+
+    @Test
+    public void testReadYourWritesSticksToPrimary() {
+        sessionFactory = build(ReplicaSelection.ROUND_ROBIN, true);
+        Session session = sessionFactory.openSession();
+        try {
+            assertEquals("副本1", source(session));
+            session.execute("INSERT INTO \"USER\" (\"USERNAME\", \"AGE\") VALUES ('新用户', 20)", null);
+            List<User> users = session.findAll(User.class);
+            assertEquals(2, users.size());
+            assertEquals("主库", users.get(0).getUsername());
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void testReadsStayOnReplicaWithoutReadYourWrites() {
+        sessionFactory = build(ReplicaSelection.ROUND_ROBIN, false);
+        Session session = sessionFactory.openSession();
+        try {
+            session.execute("INSERT INTO \"USER\" (\"USERNAME\", \"AGE\") VALUES ('新用户', 20)", null);
+            assertEquals("副本1", source(session));
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void testReadsInTransactionUsePrimary() {
+        sessionFactory = build(ReplicaSelection.ROUND_ROBIN, true);
+        Session session = sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            assertEquals("主库", source(session));
+            session.commit();
+            assertEquals("副本1", source(session));
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void testReadOnlyTransactionRunsOnReplica() {
+        sessionFactory = build(ReplicaSelection.ROUND_ROBIN, true);
+        TransactionManager transactionManager = new TransactionManager(sessionFactory);
+        String source = transactionManager.executeInTransaction(Propagation.REQUIRED, true, this::source);
+        assertEquals("副本1", source);
+        source = transactionManager.executeInTransaction(Propagation.REQUIRED, false, this::source);
+        assertEquals("主库", source);
+    }
+
+    @Test
+    public void testFactoryMapperRoutesSelectToReplica() {
+        sessionFactory = build(ReplicaSelection.ROUND_ROBIN, true);
+        UserMapper userMapper = sessionFactory.getMapper(UserMapper.class);
+        assertEquals("副本1", userMapper.findAll().get(0).getUsername());
+        assertEquals(1, userMapper.addUser("新用户", null, 20));
+        assertEquals("副本2", userMapper.findAll().get(0).getUsername());
+
+        Session primary = new Session(connect(PRIMARY_URL));
+        try {
+            assertEquals(1, primary.query("SELECT * FROM \"USER\" WHERE \"USERNAME\" = ?",
+                    Collections.singletonList("新用户"), User.class).size());
+        } finally {
+            primary.close();
+        }
+    }
+
+    @Test
+    public void testUnavailableReplicaFallsBackToPrimary() {
+        sessionFactory = SessionFactory.builder()
+                .url(PRIMARY_URL)
+                .username("sa")
+                .password("")
+                .replica("jdbc:h2:mem:rwmissing;IFEXISTS=TRUE")
+                .build();
+        assertEquals("主库", readSource());
+    }
+
+    private SessionFactory build(ReplicaSelection selection, boolean readYourWrites) {
+        return SessionFactory.builder()
+                .url(PRIMARY_URL)
+                .username("sa")
+                .password("")
+                .replica(REPLICA1_URL)
+                .replica(REPLICA2_URL)
+                .replicaSelection(selection)
+                .readYourWrites(readYourWrites)
+                .build();
+    }
+
+    private String readSource() {
+        Session session = sessionFactory.openSession();
+        try {
+            return source(session);
+        } finally {
+            session.close();
+        }
+    }
+
+    private String source(Session session) {
+        return session.findAll(User.class).get(0).getUsername();
+    }
+
+    private static Connection connect(String url) {
+        try {
+            return DriverManager.getConnection(url, "sa", "");
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void seed(String url, String username) throws Exception {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS \"USER\" (\"ID\" INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "\"USERNAME\" VARCHAR(50) NOT NULL, \"EMAIL\" VARCHAR(100), \"AGE\" INT)");
+            stmt.execute("DELETE FROM \"USER\"");
+            stmt.execute("INSERT INTO \"USER\" (\"USERNAME\", \"AGE\") VALUES ('" + username + "', 30)");
+        }
+    }
+}
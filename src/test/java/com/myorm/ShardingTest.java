@@ -0,0 +1,314 @@
+package com.myorm;
+
+import com.myorm.annotation.Column;
+import com.myorm.annotation.Entity;
+import com.myorm.annotation.ShardKey;
+import com.myorm.core.Session;
+import com.myorm.core.SessionFactory;
+import com.myorm.exception.OrmException;
+import com.myorm.query.Criteria;
+import com.myorm.shard.ShardedSession;
+import com.myorm.shard.ShardedSessionFactory;
+import com.myorm.shard.ShardingStrategy;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 分片测试，每个分片是一个独立的H2内存数据库
+ */
+public class ShardingTest {
+    
+    private static final int SHARDS = 3;
+    
+    private ShardedSessionFactory shardedSessionFactory;
+    private ShardedSession session;
+    
+    @Before
+    public void setUp() {
+        shardedSessionFactory = build(ShardingStrategy.hash());
+        for (int i = 0; i < SHARDS; i++) {
+            Session shard = shardedSessionFactory.getShard(i).openSession();
+            shard.execute("CREATE TABLE IF NOT EXISTS \"ORDERS\" (\"ID\" INT PRIMARY KEY, " +
+                    "\"CUSTOMER\" VARCHAR(50) NOT NULL, \"AMOUNT\" INT)", null);
+            shard.execute("CREATE TABLE IF NOT EXISTS \"PAYMENT\" (\"ID\" INT PRIMARY KEY, " +
+                    "\"ACCOUNT_ID\" BIGINT NOT NULL, \"AMOUNT\" INT)", null);
+            shard.close();
+        }
+        session = shardedSessionFactory.openSession();
+    }
+    
+    @After
+    public void tearDown() {
+        session.close();
+        for (int i = 0; i < SHARDS; i++) {
+            Session shard = shardedSessionFactory.getShard(i).openSession();
+            shard.execute("DROP TABLE IF EXISTS \"ORDERS\"", null);
+            shard.execute("DROP TABLE IF EXISTS \"PAYMENT\"", null);
+            shard.close();
+        }
+        shardedSessionFactory.close();
+    }
+    
+    @Test
+    public void testSaveAndFindByIdRouteByHash() {
+        for (int id = 1; id <= 9; id++) {
+            session.save(new Order(id, "客户" + id, id * 10));
+        }
+        
+        for (int i = 0; i < SHARDS; i++) {
+            List<Order> stored = session.getShardSession(i).findAll(Order.class);
+            assertEquals(3, stored.size());
+            for (Order order : stored) {
+                assertEquals(i, order.getId() % SHARDS);
+            }
+        }
+        Order found = session.findById(Order.class, 5);
+        assertEquals("客户5", found.getCustomer());
+        assertNull(session.findById(Order.class, 10));
+    }
+    
+    @Test
+    public void testUpdateAndDeleteRouteToShard() {
+        session.save(new Order(4, "张三", 100));
+        Order order = session.findById(Order.class, 4);
+        order.setAmount(200);
+        assertEquals(1, session.update(order));
+        assertEquals(Integer.valueOf(200), session.getShardSession(1).findById(Order.class, 4).getAmount());
+        
+        assertEquals(1, session.delete(Order.class, 4));
+        assertNull(session.findById(Order.class, 4));
+    }
+    
+    @Test
+    public void testRangeStrategy() {
+        ShardingStrategy range = ShardingStrategy.range(100, 200L);
+        assertEquals(0, range.shardFor(-5, 3));
+        assertEquals(0, range.shardFor(99L, 3));
+        assertEquals(1, range.shardFor(100, 3));
+        assertEquals(1, range.shardFor(199, 3));
+        assertEquals(2, range.shardFor(200, 3));
+        assertEquals(2, range.shardFor(Long.MAX_VALUE, 3));
+        
+        try {
+            range.shardFor(1, 2);
+            fail("分片数量与边界不符时应抛出异常");
+        } catch (OrmException e) {
+            // 预期异常
+        }
+        try {
+            ShardingStrategy.range(200, 100);
+            fail("边界不递增时应抛出异常");
+        } catch (OrmException e) {
+            // 预期异常
+        }
+    }
+    
+    @Test
+    public void testRangeStrategyRoutesByShardKeyColumn() {
+        session.close();
+        shardedSessionFactory.close();
+        shardedSessionFactory = build(ShardingStrategy.range(1000L, 2000L));
+        session = shardedSessionFactory.openSession();
+        
+        session.save(new Payment(1, 500L, 10));
+        session.save(new Payment(2, 1500L, 20));
+        session.save(new Payment(3, 2500L, 30));
+        session.save(new Payment(4, 1999L, 40));
+        
+        assertEquals(1, session.getShardSession(0).count(Payment.class));
+        assertEquals(2, session.getShardSession(1).count(Payment.class));
+        assertEquals(1, session.getShardSession(2).count(Payment.class));
+        assertEquals(4, session.count(Payment.class));
+        
+        // 分片键不是主键时，按主键查询和删除访问所有分片，主键在各分片中唯一
+        assertEquals(Long.valueOf(1999L), session.findById(Payment.class, 4).getAccountId());
+        assertEquals(1, session.delete(Payment.class, 2));
+        assertEquals(3, session.count(Payment.class));
+    }
+    
+    @Test
+    public void testDuplicateIdAcrossShardsRequiresShardKey() {
+        session.close();
+        shardedSessionFactory.close();
+        shardedSessionFactory = build(ShardingStrategy.range(1000L, 2000L));
+        session = shardedSessionFactory.openSession();
+        
+        // 同一主键出现在两个分片上
+        session.save(new Payment(7, 500L, 10));
+        session.save(new Payment(7, 1500L, 20));
+        
+        try {
+            session.findById(Payment.class, 7);
+            fail("主键在多个分片上存在时应抛出异常");
+        } catch (OrmException e) {
+            assertTrue(e.getMessage().contains("多个分片"));
+        }
+        try {
+            session.delete(Payment.class, 7);
+            fail("主键在多个分片上存在时应抛出异常");
+        } catch (OrmException e) {
+            assertTrue(e.getMessage().contains("多个分片"));
+        }
+        assertEquals(2, session.count(Payment.class));
+        
+        assertEquals(Long.valueOf(1500L), session.findById(Payment.class, 7, 1500L).getAccountId());
+        assertEquals(1, session.delete(new Payment(7, 500L, null)));
+        assertEquals(1, session.count(Payment.class));
+        assertEquals(Long.valueOf(1500L), session.findById(Payment.class, 7).getAccountId());
+        assertEquals(0, session.delete(Payment.class, 8));
+    }
+    
+    @Test
+    public void testFindAllFansOut() {
+        for (int id = 1; id <= 7; id++) {
+            session.save(new Order(id, "客户" + id, id));
+        }
+        List<Integer> ids = session.findAll(Order.class).stream().map(Order::getId).sorted()
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7), ids);
+    }
+    
+    @Test
+    public void testSortedQueryMergesInOrder() {
+        List<Order> all = new ArrayList<>();
+        int[] amounts = {50, 20, 90, 20, 70, 10, 30, 80, 60, 40, 90, 0};
+        for (int i = 0; i < amounts.length; i++) {
+            Order order = new Order(i + 1, "客户" + (i % 4), amounts[i]);
+            session.save(order);
+            all.add(order);
+        }
+        Comparator<Order> byAmountDescThenId = Comparator.comparing(Order::getAmount).reversed()
+                .thenComparing(Order::getId);
+        
+        List<Integer> expected = all.stream().filter(o -> o.getAmount() >= 20).sorted(byAmountDescThenId)
+                .map(Order::getId).collect(Collectors.toList());
+        List<Integer> actual = session.findByCriteria(Criteria.of(Order.class).ge("amount", 20)
+                .desc("amount").asc("id")).stream().map(Order::getId).collect(Collectors.toList());
+        assertEquals(expected, actual);
+        
+        List<Integer> page = session.findByCriteria(Criteria.of(Order.class).ge("amount", 20)
+                .desc("amount").asc("id").limit(3).offset(2)).stream().map(Order::getId).collect(Collectors.toList());
+        assertEquals(expected.subList(2, 5), page);
+        
+        List<Integer> top = session.findByCriteria(Criteria.of(Order.class).asc("amount").asc("id").limit(4))
+                .stream().map(Order::getId).collect(Collectors.toList());
+        assertEquals(all.stream().sorted(Comparator.comparing(Order::getAmount).thenComparing(Order::getId))
+                .limit(4).map(Order::getId).collect(Collectors.toList()), top);
+    }
+    
+    @Test
+    public void testUnsortedLimitReturnsAtMostLimitRows() {
+        for (int id = 1; id <= 9; id++) {
+            session.save(new Order(id, "客户", id));
+        }
+        assertEquals(4, session.findByCriteria(Criteria.of(Order.class).limit(4)).size());
+        assertEquals(9, session.findByCriteria(Criteria.of(Order.class).eq("customer", "客户")).size());
+    }
+    
+    @Test
+    public void testMissingShardKeyValue() {
+        try {
+            session.save(new Payment(1, null, 10));
+            fail("分片键为空时应抛出异常");
+        } catch (OrmException e) {
+            assertTrue(e.getMessage().contains("分片键"));
+        }
+    }
+    
+    @Test
+    public void testShardFailureIsReported() {
+        Session shard = session.getShardSession(2);
+        shard.execute("DROP TABLE \"ORDERS\"", null);
+        try {
+            session.findAll(Order.class);
+            fail("分片查询失败时应抛出异常");
+        } catch (OrmException e) {
+            assertTrue(e.getMessage().contains("分片2"));
+        }
+    }
+    
+    private static ShardedSessionFactory build(ShardingStrategy strategy) {
+        ShardedSessionFactory.Builder builder = ShardedSessionFactory.builder().strategy(strategy);
+        for (int i = 0; i < SHARDS; i++) {
+            builder.shard(SessionFactory.builder()
+                    .url("jdbc:h2:mem:shard" + i + ";DB_CLOSE_DELAY=-1")
+                    .username("sa")
+                    .password("")
+                    .build());
+        }
+        return builder.build();
+    }
+    
+    @Entity(table = "ORDERS")
+    public static class Order {
+        @ShardKey
+        @Column(name = "ID", primaryKey = true)
+        private Integer id;
+        
+        @Column(name = "CUSTOMER")
+        private String customer;
+        
+        @Column(name = "AMOUNT")
+        private Integer amount;
+        
+        public Order() {
+        }
+        
+        Order(Integer id, String customer, Integer amount) {
+            this.id = id;
+            this.customer = customer;
+            this.amount = amount;
+        }
+        
+        public Integer getId() {
+            return id;
+        }
+        
+        public String getCustomer() {
+            return customer;
+        }
+        
+        public Integer getAmount() {
+            return amount;
+        }
+        
+        public void setAmount(Integer amount) {
+            this.amount = amount;
+        }
+    }
+    
+    @Entity(table = "PAYMENT")
+    public static class Payment {
+        @Column(name = "ID", primaryKey = true)
+        private Integer id;
+        
+        @ShardKey
+        @Column(name = "ACCOUNT_ID")
+        private Long accountId;
+        
+        @Column(name = "AMOUNT")
+        private Integer amount;
+        
+        public Payment() {
+        }
+        
+        Payment(Integer id, Long accountId, Integer amount) {
+            this.id = id;
+            this.accountId = accountId;
+            this.amount = amount;
+        }
+        
+        public Long getAccountId() {
+            return accountId;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.myorm;
+
+import com.myorm.UserTest.User;
+import com.myorm.core.Session;
+import com.myorm.core.SessionFactory;
+import com.myorm.metrics.Phase;
+import com.myorm.metrics.SlowQuery;
+import com.myorm.metrics.SlowQueryLog;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * 慢查询日志测试
+ */
+public class SlowQueryLogTest {
+    
+    private static final String URL = "jdbc:h2:mem:slowquerydb;DB_CLOSE_DELAY=-1";
+    
+    private final BlockingQueue<SlowQuery> logged = new LinkedBlockingQueue<>();
+    private Session setupSession;
+    private SessionFactory sessionFactory;
+    private Session session;
+    
+    @Before
+    public void setUp() throws SQLException {
+        // 建表和准备数据使用不带监听器的会话，不计入慢查询日志
+        setupSession = new Session(DriverManager.getConnection(URL, "sa", ""));
+        setupSession.execute(
+                "CREATE TABLE IF NOT EXISTS \"USER\" (" +
+                "ID INT AUTO_INCREMENT PRIMARY KEY, " +
+                "USERNAME VARCHAR(50) NOT NULL, " +
+                "EMAIL VARCHAR(100), " +
+                "AGE INT);", 
+                null);
+        for (String name : new String[]{"张三", "李四", "王五"}) {
+            User user = new User();
+            user.setUsername(name);
+            user.setAge(30);
+            setupSession.save(user);
+        }
+    }
+    
+    @After
+    public void tearDown() {
+        session.close();
+        sessionFactory.close();
+        setupSession.execute("DROP TABLE IF EXISTS \"USER\";", null);
+        setupSession.close();
+    }
+    
+    private void openSession(SlowQueryLog.Builder builder) {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(builder) {
+            @Override
+            protected void log(SlowQuery entry) {
+                logged.add(entry);
+            }
+        };
+        sessionFactory = SessionFactory.builder()
+                .url(URL)
+                .username("sa")
+                .password("")
+                .statementListener(slowQueryLog)
+                .build();
+        session = sessionFactory.openSession();
+    }
+    
+    @Test
+    public void testLogsParametersRowsAndPhases() {
+        openSession(SlowQueryLog.builder().threshold(0));
+        
+        session.query("SELECT * FROM \"USER\" WHERE AGE > ?", Collections.singletonList(20), User.class);
+        
+        assertEquals(1, logged.size());
+        SlowQuery entry = logged.peek();
+        assertEquals("SELECT * FROM \"USER\" WHERE AGE > ?", entry.getSql());
+        assertEquals("[20]", entry.getParameters());
+        assertEquals(3, entry.getRows());
+        assertNull(entry.getStatementId());
+        assertNull(entry.getPlan());
+        long phases = 0;
+        for (Phase phase : Phase.values()) {
+            phases += entry.getNanos(phase);
+        }
+        assertEquals(entry.getTotalNanos(), phases);
+        assertTrue(entry.toString().contains("行数: 3"));
+    }
+    
+    @Test
+    public void testParameterSummaryIsTruncated() {
+        openSession(SlowQueryLog.builder().threshold(0));
+        
+        char[] longName = new char[100];
+        Arrays.fill(longName, 'x');
+        session.query("SELECT * FROM \"USER\" WHERE USERNAME = ? OR EMAIL = ?",
+                Arrays.asList(new String(longName), null), User.class);
+        
+        String parameters = logged.peek().getParameters();
+        assertTrue(parameters.startsWith("['xxxx"));
+        assertTrue(parameters.contains("...', null]"));
+        assertTrue(parameters.length() < 100);
+    }
+    
+    @Test
+    public void testThresholdAndRateLimit() {
+        openSession(SlowQueryLog.builder().threshold(60_000));
+        for (int i = 0; i < 5; i++) {
+            session.query("SELECT * FROM \"USER\"", null, User.class);
+        }
+        assertTrue(logged.isEmpty());
+        session.close();
+        sessionFactory.close();
+        
+        openSession(SlowQueryLog.builder().threshold(0).rateLimit(0.001, 2));
+        for (int i = 0; i < 5; i++) {
+            session.query("SELECT * FROM \"USER\"", null, User.class);
+        }
+        assertEquals(2, logged.size());
+        assertEquals(0, logged.peek().getSuppressed());
+    }
+    
+    @Test
+    public void testExplainPlanOnSeparateConnection() throws InterruptedException {
+        openSession(SlowQueryLog.builder().threshold(0).explain(() -> DriverManager.getConnection(URL, "sa", "")));
+        
+        session.query("SELECT * FROM \"USER\" WHERE AGE > ?", Collections.singletonList(20), User.class);
+        session.execute("UPDATE \"USER\" SET AGE = ? WHERE AGE > ?", Arrays.asList(31, 20));
+        
+        List<SlowQuery> entries = Arrays.asList(logged.poll(5, TimeUnit.SECONDS), logged.poll(5, TimeUnit.SECONDS));
+        SlowQuery update = entries.get(0).getPlan() == null ? entries.get(0) : entries.get(1);
+        SlowQuery select = entries.get(0) == update ? entries.get(1) : entries.get(0);
+        // 只对查询语句获取执行计划
+        assertNull(update.getPlan());
+        assertEquals(3, update.getRows());
+        assertNotNull(select.getPlan());
+        assertTrue(select.getPlan().toUpperCase().contains("SELECT"));
+    }
+    
+    @Test
+    public void testExplainUsesParameterSnapshot() throws InterruptedException {
+        CountDownLatch reused = new CountDownLatch(1);
+        openSession(SlowQueryLog.builder().threshold(0).explain(() -> {
+            // 等调用方复用参数列表之后才执行EXPLAIN
+            try {
+                reused.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return DriverManager.getConnection(URL, "sa", "");
+        }));
+        
+        List<Object> params = new ArrayList<>(Collections.singletonList(20));
+        session.query("SELECT * FROM \"USER\" WHERE AGE > ?", params, User.class);
+        // 替换为无法绑定的值，执行计划线程如果读取原列表会失败
+        params.set(0, new Object());
+        reused.countDown();
+        
+        SlowQuery entry = logged.poll(5, TimeUnit.SECONDS);
+        assertNotNull(entry);
+        assertFalse(entry.getPlan(), entry.getPlan().contains("无法获取执行计划"));
+    }
+    
+    @Test
+    public void testExplainConnectionClosedOnExplainThread() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<String> closingThreads = new LinkedBlockingQueue<>();
+        openSession(SlowQueryLog.builder().threshold(0).explain(() -> {
+            // 关闭慢查询日志之后才打开连接，模拟关闭时仍在执行的EXPLAIN
+            while (release.getCount() > 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // 忽略关闭时的中断，继续打开连接
+                }
+            }
+            Connection connection = DriverManager.getConnection(URL, "sa", "");
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if ("close".equals(method.getName())) {
+                            closingThreads.add(Thread.currentThread().getName());
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }));
+        
+        session.query("SELECT * FROM \"USER\" WHERE AGE > ?", Collections.singletonList(20), User.class);
+        sessionFactory.close();
+        // 关闭返回时连接还没有打开，之后打开的连接也不能泄漏
+        release.countDown();
+        
+        assertEquals("myorm-slow-query-explain", closingThreads.poll(5, TimeUnit.SECONDS));
+        assertNull(closingThreads.poll(100, TimeUnit.MILLISECONDS));
+    }
+    
+    @Test
+    public void testBuilderSlowQueryLog() {
+        sessionFactory = SessionFactory.builder()
+                .url(URL)
+                .username("sa")
+                .password("")
+                .enableMetrics()
+                .slowQueryLog(500, true)
+                .build();
+        session = sessionFactory.openSession();
+        
+        assertEquals(2, sessionFactory.getStatementListeners().size());
+        assertSame(sessionFactory.getMetricsRegistry(), sessionFactory.getStatementListeners().get(0));
+        assertTrue(sessionFactory.getStatementListeners().get(1) instanceof SlowQueryLog);
+    }
+}
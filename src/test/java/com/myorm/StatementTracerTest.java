@@ -0,0 +1,177 @@
+package com.myorm;
+
+import com.myorm.UserTest.User;
+import com.myorm.core.Session;
+import com.myorm.core.SessionFactory;
+import com.myorm.exception.OrmException;
+import com.myorm.metrics.ParameterRedactor;
+import com.myorm.metrics.StatementTracer;
+import com.myorm.metrics.TraceEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * 语句跟踪测试
+ */
+public class StatementTracerTest {
+    
+    private final BlockingQueue<TraceEntry> written = new LinkedBlockingQueue<>();
+    private SessionFactory sessionFactory;
+    private Session session;
+    
+    private void openSession(StatementTracer tracer) {
+        sessionFactory = SessionFactory.builder()
+                .url("jdbc:h2:mem:tracerdb;DB_CLOSE_DELAY=-1")
+                .username("sa")
+                .password("")
+                .statementListener(tracer)
+                .build();
+        session = sessionFactory.openSession();
+        session.execute(
+                "CREATE TABLE IF NOT EXISTS \"USER\" (" +
+                "ID INT AUTO_INCREMENT PRIMARY KEY, " +
+                "USERNAME VARCHAR(50) NOT NULL, " +
+                "EMAIL VARCHAR(100), " +
+                "AGE INT);", 
+                null);
+    }
+    
+    @After
+    public void tearDown() {
+        session.execute("DROP TABLE IF EXISTS \"USER\";", null);
+        session.close();
+        sessionFactory.close();
+    }
+    
+    @Test
+    public void testTraceWithRedaction() throws InterruptedException {
+        StatementTracer tracer = StatementTracer.builder()
+                .redactor((sql, index, value) -> sql.contains("EMAIL") && index == 1 ? "***" : value)
+                .truncateParameters(2, 4)
+                .sink(written::add)
+                .build();
+        openSession(tracer);
+        written.poll(5, TimeUnit.SECONDS);
+        
+        session.execute("INSERT INTO \"USER\" (USERNAME, EMAIL, AGE) VALUES (?, ?, ?)",
+                Arrays.asList("zhangsan", "zs@example.com", 30));
+        
+        TraceEntry entry = written.poll(5, TimeUnit.SECONDS);
+        assertNotNull(entry);
+        assertEquals(session.getId(), entry.getSessionId());
+        assertEquals(1, entry.getRows());
+        assertEquals("['zhan...', '***', ...共3个]", entry.getParameters());
+        assertTrue(entry.toString().contains("INSERT INTO"));
+        assertEquals(2, tracer.getTracedCount());
+    }
+    
+    @Test
+    public void testSamplingAlwaysTracesErrors() throws InterruptedException {
+        StatementTracer tracer = StatementTracer.builder()
+                .sampleRate(0)
+                .redactor(ParameterRedactor.all())
+                .sink(written::add)
+                .build();
+        openSession(tracer);
+        
+        for (int i = 0; i < 20; i++) {
+            session.query("SELECT * FROM \"USER\" WHERE AGE > ?", Collections.singletonList(i), User.class);
+        }
+        try {
+            session.execute("UPDATE NO_SUCH_TABLE SET X = ?", Collections.singletonList(1));
+            fail("应当抛出异常");
+        } catch (OrmException e) {
+            // 预期的异常
+        }
+        
+        TraceEntry entry = written.poll(5, TimeUnit.SECONDS);
+        assertNotNull(entry);
+        assertNotNull(entry.getError());
+        assertEquals("['***']", entry.getParameters());
+        assertEquals(1, tracer.getTracedCount());
+    }
+    
+    @Test
+    public void testFullBufferDropsWithoutBlocking() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        StatementTracer tracer = StatementTracer.builder()
+                .bufferSize(4)
+                .sink(entry -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    written.add(entry);
+                })
+                .build();
+        openSession(tracer);
+        
+        // 后台线程阻塞在第一条记录上，缓冲区最多再容纳4条
+        for (int i = 0; i < 20; i++) {
+            session.query("SELECT * FROM \"USER\"", null, User.class);
+        }
+        assertTrue(tracer.getDroppedCount() >= 21 - 5);
+        assertEquals(21, tracer.getTracedCount() + tracer.getDroppedCount());
+        
+        release.countDown();
+        for (long i = 0; i < tracer.getTracedCount(); i++) {
+            assertNotNull(written.poll(5, TimeUnit.SECONDS));
+        }
+    }
+    
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        Set<Long> sessionIds = Collections.synchronizedSet(new HashSet<>());
+        BlockingQueue<TraceEntry> received = new LinkedBlockingQueue<>();
+        StatementTracer tracer = StatementTracer.builder().bufferSize(1 << 16).sink(received::add).build();
+        openSession(tracer);
+        
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                Session threadSession = sessionFactory.openSession();
+                try {
+                    sessionIds.add(threadSession.getId());
+                    for (int i = 0; i < 500; i++) {
+                        threadSession.query("SELECT * FROM \"USER\" WHERE ID = ?", Collections.singletonList(i),
+                                User.class);
+                    }
+                } finally {
+                    threadSession.close();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        int count = 0;
+        while (count < 2000) {
+            TraceEntry entry = received.poll(5, TimeUnit.SECONDS);
+            assertNotNull(entry);
+            // 忽略建表语句
+            if (entry.getSessionId() != session.getId()) {
+                assertTrue(sessionIds.contains(entry.getSessionId()));
+                count++;
+            }
+        }
+        assertEquals(0, tracer.getDroppedCount());
+    }
+}
@@ -0,0 +1,162 @@
+package com.myorm;
+
+import com.myorm.core.Propagation;
+import com.myorm.core.Session;
+import com.myorm.core.SessionFactory;
+import com.myorm.core.TransactionManager;
+import com.myorm.exception.OrmException;
+import com.myorm.mapper.UserMapper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * 基于会话工厂的事务传播测试
+ */
+public class TransactionPropagationTest {
+    
+    private SessionFactory sessionFactory;
+    private TransactionManager transactionManager;
+    private UserMapper userMapper;
+    
+    @Before
+    public void setUp() {
+        sessionFactory = SessionFactory.builder()
+                .url("jdbc:h2:mem:propagationdb;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=1000")
+                .username("sa")
+                .password("")
+                .build();
+        transactionManager = new TransactionManager(sessionFactory);
+        userMapper = sessionFactory.getMapper(UserMapper.class);
+        
+        Session session = sessionFactory.openSession();
+        session.execute("CREATE TABLE IF NOT EXISTS \"USER\" (\"ID\" INT AUTO_INCREMENT PRIMARY KEY, " +
+                "\"USERNAME\" VARCHAR(50) NOT NULL, \"EMAIL\" VARCHAR(100), \"AGE\" INT)", null);
+        session.close();
+    }
+    
+    @After
+    public void tearDown() {
+        Session session = sessionFactory.openSession();
+        session.execute("DROP TABLE IF EXISTS \"USER\"", null);
+        session.close();
+        sessionFactory.close();
+    }
+    
+    @Test
+    public void testRequiredSharesSessionAndRollsBackTogether() {
+        try {
+            transactionManager.executeInTransaction(outer -> {
+                userMapper.addUser("张三", null, 25);
+                transactionManager.executeInTransaction(inner -> {
+                    assertSame(outer, inner);
+                    assertSame(outer, sessionFactory.currentSession());
+                    return userMapper.addUser("李四", null, 30);
+                });
+                assertEquals(2, userMapper.count());
+                throw new IllegalStateException("回滚");
+            });
+            fail("应当抛出异常");
+        } catch (OrmException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        
+        // 不在事务中时每次调用使用自动提交的会话
+        assertEquals(0, userMapper.count());
+        try {
+            sessionFactory.currentSession();
+            fail("事务结束后不应再绑定会话");
+        } catch (OrmException e) {
+            // 预期的异常
+        }
+    }
+    
+    @Test
+    public void testRequiresNewCommitsIndependently() {
+        try {
+            transactionManager.executeInTransaction(outer -> {
+                userMapper.addUser("张三", null, 25);
+                transactionManager.executeInTransaction(Propagation.REQUIRES_NEW, inner -> {
+                    assertNotSame(outer, inner);
+                    return userMapper.addUser("李四", null, 30);
+                });
+                // 挂起的事务恢复绑定
+                assertSame(outer, sessionFactory.currentSession());
+                throw new IllegalStateException("回滚");
+            });
+            fail("应当抛出异常");
+        } catch (OrmException e) {
+            // 预期的异常
+        }
+        
+        assertEquals(1, userMapper.count());
+        assertNotNull(userMapper.findByUsername("李四"));
+    }
+    
+    @Test
+    public void testNestedRollsBackToSavepoint() {
+        transactionManager.executeInTransaction(outer -> {
+            userMapper.addUser("张三", null, 25);
+            try {
+                transactionManager.executeInTransaction(Propagation.NESTED, inner -> {
+                    assertSame(outer, inner);
+                    userMapper.addUser("李四", null, 30);
+                    throw new IllegalStateException("只回滚嵌套事务");
+                });
+                fail("应当抛出异常");
+            } catch (IllegalStateException e) {
+                // 预期的异常
+            }
+            transactionManager.executeInTransaction(Propagation.NESTED, inner -> userMapper.addUser("王五", null, 35));
+            return null;
+        });
+        
+        assertEquals(2, userMapper.count());
+        assertNull(userMapper.findByUsername("李四"));
+        assertNotNull(userMapper.findByUsername("王五"));
+    }
+    
+    @Test
+    public void testReadOnlyHintAndStreamingOutsideTransaction() {
+        transactionManager.executeInTransaction(Propagation.REQUIRED, true, session -> {
+            assertTrue(session.isReadOnly());
+            assertEquals(0, userMapper.streamAll().count());
+            return null;
+        });
+        
+        try {
+            userMapper.streamAll();
+            fail("流式查询必须在事务中调用");
+        } catch (OrmException e) {
+            // 预期的异常
+        }
+    }
+    
+    @Test
+    public void testSessionManagerRejectsRequiresNew() {
+        Session session = sessionFactory.openSession();
+        try {
+            TransactionManager sessionManager = new TransactionManager(session);
+            sessionManager.executeInTransaction(outer -> {
+                // 已在事务中时加入，不会提前提交
+                sessionManager.executeInTransaction(inner -> inner.execute(
+                        "INSERT INTO \"USER\" (\"USERNAME\") VALUES ('张三')", null));
+                assertTrue(outer.isInTransaction());
+                return null;
+            });
+            assertFalse(session.isInTransaction());
+            assertEquals(1, userMapper.count());
+            
+            try {
+                sessionManager.executeInTransaction(Propagation.REQUIRES_NEW, s -> null);
+                fail("应当抛出异常");
+            } catch (OrmException e) {
+                // 预期的异常
+            }
+        } finally {
+            session.close();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.myorm;
+
+import com.myorm.core.RetryPolicy;
+import com.myorm.core.Session;
+import com.myorm.core.SessionFactory;
+import com.myorm.core.TransactionManager;
+import com.myorm.exception.OrmException;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * 事务重试测试
+ */
+public class TransactionRetryTest {
+    
+    private SessionFactory sessionFactory;
+    
+    @Before
+    public void setUp() {
+        sessionFactory = SessionFactory.builder()
+                .url("jdbc:h2:mem:retrydb;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=100")
+                .username("sa")
+                .password("")
+                .build();
+        Session session = sessionFactory.openSession();
+        session.execute("CREATE TABLE IF NOT EXISTS ACCOUNT (ID INT PRIMARY KEY, BALANCE INT)", null);
+        session.execute("INSERT INTO ACCOUNT VALUES (1, 100)", null);
+        session.close();
+    }
+    
+    @After
+    public void tearDown() {
+        Session session = sessionFactory.openSession();
+        session.execute("DROP TABLE IF EXISTS ACCOUNT", null);
+        session.close();
+        sessionFactory.close();
+    }
+    
+    @Test
+    public void testRetryableErrors() {
+        RetryPolicy policy = RetryPolicy.builder().retryOnErrorCodes(9999).build();
+        assertTrue(policy.isRetryable(new OrmException("执行更新失败", new SQLException("死锁", "40001"))));
+        assertTrue(policy.isRetryable(new SQLException("死锁", "40P01")));
+        assertTrue(policy.isRetryable(new SQLException("Deadlock found", "HY000", 1213)));
+        assertTrue(policy.isRetryable(new SQLException("自定义", "HY000", 9999)));
+        assertTrue(policy.isRetryable(new SQLTransactionRollbackException()));
+        assertFalse(policy.isRetryable(new SQLException("语法错误", "42000")));
+        assertFalse(policy.isRetryable(new IllegalStateException()));
+        
+        RetryPolicy backoff = RetryPolicy.builder().backoff(10, 50, 2).build();
+        for (int retry = 1; retry <= 5; retry++) {
+            long millis = backoff.backoffMillis(retry);
+            assertTrue(millis >= 0 && millis <= Math.min(50, 10L << (retry - 1)));
+        }
+    }
+    
+    @Test
+    public void testRetriesWholeCallback() {
+        TransactionManager transactionManager = new TransactionManager(sessionFactory,
+                RetryPolicy.builder().maxAttempts(5).backoff(1, 5, 2).build());
+        AtomicInteger attempts = new AtomicInteger();
+        
+        int balance = transactionManager.executeInTransaction(session -> {
+            session.execute("UPDATE ACCOUNT SET BALANCE = BALANCE - 10 WHERE ID = 1", null);
+            if (attempts.incrementAndGet() < 3) {
+                throw new OrmException("执行更新失败", new SQLException("模拟死锁", "40001"));
+            }
+            return balance(session);
+        });
+        
+        // 失败的尝试都已回滚，只扣减一次
+        assertEquals(90, balance);
+        assertEquals(3, attempts.get());
+        assertEquals(1, transactionManager.getTransactionCount());
+        assertEquals(2, transactionManager.getRetryCount());
+        assertEquals(1, transactionManager.getRetriedTransactionCount());
+        assertEquals(0, transactionManager.getRetryExhaustedCount());
+    }
+    
+    @Test
+    public void testNonRetryableAndExhausted() {
+        TransactionManager transactionManager = new TransactionManager(sessionFactory,
+                RetryPolicy.builder().maxAttempts(3).backoff(0, 0, 1).build());
+        AtomicInteger attempts = new AtomicInteger();
+        
+        try {
+            transactionManager.executeInTransaction(session -> {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("业务错误");
+            });
+            fail("应当抛出异常");
+        } catch (OrmException e) {
+            assertEquals(1, attempts.get());
+        }
+        
+        attempts.set(0);
+        try {
+            transactionManager.executeInTransaction(session -> {
+                attempts.incrementAndGet();
+                throw new OrmException("执行更新失败", new SQLException("模拟死锁", "40001"));
+            });
+            fail("应当抛出异常");
+        } catch (OrmException e) {
+            assertEquals(3, attempts.get());
+        }
+        assertEquals(1, transactionManager.getRetryExhaustedCount());
+        assertEquals(2, transactionManager.getRetryCount());
+    }
+    
+    @Test
+    public void testRetriesLockTimeout() throws InterruptedException {
+        Session blocker = sessionFactory.openSession();
+        blocker.beginTransaction();
+        blocker.execute("UPDATE ACCOUNT SET BALANCE = 0 WHERE ID = 1", null);
+        Thread release = new Thread(() -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            blocker.rollback();
+            blocker.close();
+        });
+        release.start();
+        
+        // H2的锁等待超时（SQLState HYT00）在锁释放后重试成功
+        TransactionManager transactionManager = new TransactionManager(sessionFactory,
+                RetryPolicy.builder().maxAttempts(20).backoff(20, 100, 2).build());
+        transactionManager.executeInTransaction(session ->
+                session.execute("UPDATE ACCOUNT SET BALANCE = BALANCE + 5 WHERE ID = 1", null));
+        release.join();
+        
+        assertTrue(transactionManager.getRetryCount() > 0);
+        Session session = sessionFactory.openSession();
+        assertEquals(105, balance(session));
+        session.close();
+    }
+    
+    private static int balance(Session session) {
+        Map<String, Object> row = session.queryForMap("SELECT BALANCE FROM ACCOUNT WHERE ID = 1", null).get(0);
+        return ((Number) row.values().iterator().next()).intValue();
+    }
+}
@@ -118,6 +118,136 @@ public class UserTest {
         assertEquals(2, (int)users.size());
     }
     
+    @Test
+    public void testProjection() {
+        User user = new User();
+        user.setUsername("赵六");
+        user.setEmail("zhaoliu@example.com");
+        user.setAge(40);
+        session.save(user);
+
+        // 只查询部分字段，其余字段保持为空
+        List<User> users = session.project(User.class, "username");
+        assertEquals(1, (int)users.size());
+        assertEquals("赵六", users.get(0).getUsername());
+        assertNull(users.get(0).getEmail());
+        assertNull(users.get(0).getAge());
+
+        // 投影到DTO
+        Map<String, Object> conditions = new HashMap<>();
+        conditions.put("AGE", 40);
+        List<UserSummary> summaries = session.project(User.class, UserSummary.class, conditions, "username", "email");
+        assertEquals(1, (int)summaries.size());
+        assertEquals("赵六", summaries.get(0).username);
+        assertEquals("zhaoliu@example.com", summaries.get(0).email);
+    }
+
+    @Test
+    public void testQueryForMapAndArrays() {
+        User user = new User();
+        user.setUsername("孙八");
+        user.setEmail("sunba@example.com");
+        user.setAge(22);
+        session.save(user);
+        session.save(user);
+
+        List<Map<String, Object>> rows = session.queryForMap(
+                "SELECT USERNAME, AGE FROM \"USER\" ORDER BY ID", null);
+        assertEquals(2, rows.size());
+        assertEquals("孙八", rows.get(0).get("USERNAME"));
+        assertEquals(22, rows.get(0).get("AGE"));
+        assertEquals(2, rows.get(0).size());
+        assertEquals(rows.get(0), rows.get(1));
+        
+        // 修改一行时复制该行，不影响共享同一列头的其他行
+        rows.get(0).put("AGE", 1);
+        rows.get(0).put("EXTRA", "x");
+        rows.get(0).remove("USERNAME");
+        assertEquals(1, rows.get(0).get("AGE"));
+        assertEquals("x", rows.get(0).get("EXTRA"));
+        assertFalse(rows.get(0).containsKey("USERNAME"));
+        assertEquals(2, rows.get(0).size());
+        assertEquals("孙八", rows.get(1).get("USERNAME"));
+        assertEquals(22, rows.get(1).get("AGE"));
+
+        List<Object[]> arrays = session.queryForArrays("SELECT USERNAME, AGE FROM \"USER\"", null);
+        assertEquals(2, arrays.size());
+        assertArrayEquals(new Object[]{"孙八", 22}, arrays.get(0));
+    }
+
+    @Test
+    public void testQueryPipelined() {
+        for (int i = 0; i < 1000; i++) {
+            User user = new User();
+            user.setUsername("用户" + i);
+            user.setAge(i);
+            session.save(user);
+        }
+
+        List<User> users = session.queryPipelined(
+                "SELECT * FROM \"USER\" ORDER BY ID", null, User.class, 4);
+        assertEquals(1000, users.size());
+        for (int i = 0; i < users.size(); i++) {
+            assertEquals(i, (int) users.get(i).getAge());
+            assertEquals("用户" + i, users.get(i).getUsername());
+        }
+    }
+
+    @Test
+    public void testQueryPipelinedUsesRowMapper() {
+        for (int i = 0; i < 300; i++) {
+            User user = new User();
+            user.setUsername("用户" + i);
+            session.save(user);
+        }
+
+        // 生成的映射器通过setter赋值，反射映射直接写字段
+        List<SetterUser> users = session.queryPipelined(
+                "SELECT ID, USERNAME FROM \"USER\" ORDER BY ID", null, SetterUser.class, 2);
+        assertEquals(300, users.size());
+        for (SetterUser user : users) {
+            assertTrue(user.mappedBySetter);
+            assertNotNull(user.getId());
+        }
+        assertEquals("用户299", users.get(299).getUsername());
+    }
+
+    @Entity(table = "USER")
+    public static class SetterUser {
+        @Column(primaryKey = true, autoIncrement = true)
+        private Integer id;
+
+        @Column
+        private String username;
+
+        private boolean mappedBySetter;
+
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+            this.mappedBySetter = true;
+        }
+    }
+
+    public static class UserSummary {
+        @Column
+        private String username;
+
+        @Column
+        private String email;
+    }
+
     @Entity(table = "USER")
     public static class User {
         @Column(primaryKey = true, autoIncrement = true)